@@ -0,0 +1,85 @@
+package benchmark;
+
+import io.github.dududu1012.plagiarism.PlagiarismEngine;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// 生成 orig.txt 及其变异副本 orig_<比例>_add / _del / _dis_N.txt，同时写出：
+//   manifest.tsv —— 可直接用于 --batch 模式的清单
+//   accuracy.tsv —— 每个副本的变异参数与本次构建算出的相似度，便于跨版本对比准确度
+// 相似度只经PlagiarismEngine的公开接口计算，与外部服务嵌入查重的方式相同
+public final class MutatedCopyGenerator {
+    private static final String USAGE = "用法：java -cp benchmarks.jar benchmark.MutatedCopyGenerator [输出目录]"
+            + " [--source 原文 | --size 1MB --script ASCII|CJK] [--ratio 0.8] [--seed 1]";
+    private static final int[] DISORDER_LEVELS = {1, 10, 15};
+
+    private MutatedCopyGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--") && i + 1 < args.length) {
+                options.put(args[i], args[++i]);
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        if (positional.size() != 1) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        Path outDir = Paths.get(positional.get(0));
+        double ratio = Double.parseDouble(options.getOrDefault("--ratio", "0.8"));
+        long seed = Long.parseLong(options.getOrDefault("--seed", "1"));
+        String original = options.containsKey("--source")
+                ? Files.readString(Paths.get(options.get("--source")), StandardCharsets.UTF_8)
+                : SyntheticText.document(SyntheticText.parseSize(options.getOrDefault("--size", "64KB")),
+                SyntheticText.Script.valueOf(options.getOrDefault("--script", "CJK").toUpperCase(Locale.ROOT)), seed);
+
+        generate(original, outDir, ratio, seed, System.out);
+    }
+
+    static void generate(String original, Path outDir, double ratio, long seed, PrintStream out) throws IOException {
+        Files.createDirectories(outDir);
+        Path origPath = outDir.resolve("orig.txt");
+        Files.writeString(origPath, original, StandardCharsets.UTF_8);
+
+        String prefix = "orig_" + ratio;
+        Map<String, String> copies = new LinkedHashMap<>();
+        copies.put(prefix + "_add", SyntheticText.mutate(original, SyntheticText.Mutation.ADD, ratio, 0, seed + 1));
+        copies.put(prefix + "_del", SyntheticText.mutate(original, SyntheticText.Mutation.DEL, ratio, 0, seed + 2));
+        for (int level : DISORDER_LEVELS) {
+            copies.put(prefix + "_dis_" + level,
+                    SyntheticText.mutate(original, SyntheticText.Mutation.DIS, ratio, level, seed + 2 + level));
+        }
+
+        PlagiarismEngine engine = new PlagiarismEngine();
+        StringBuilder manifest = new StringBuilder();
+        StringBuilder accuracy = new StringBuilder("副本\t保留比例\t相似度\n");
+        for (Map.Entry<String, String> copy : copies.entrySet()) {
+            Path copyPath = outDir.resolve(copy.getKey() + ".txt");
+            Files.writeString(copyPath, copy.getValue(), StandardCharsets.UTF_8);
+            manifest.append(origPath).append('\t').append(copyPath).append('\n');
+            double similarity = engine.check(original, copy.getValue()).similarity();
+            accuracy.append(copy.getKey()).append('\t').append(ratio).append('\t')
+                    .append(String.format(Locale.ROOT, "%.4f", similarity)).append('\n');
+        }
+        Files.writeString(outDir.resolve("manifest.tsv"), manifest, StandardCharsets.UTF_8);
+        Files.writeString(outDir.resolve("accuracy.tsv"), accuracy, StandardCharsets.UTF_8);
+        out.print(accuracy);
+        out.println("已生成至：" + outDir.toAbsolutePath());
+    }
+}
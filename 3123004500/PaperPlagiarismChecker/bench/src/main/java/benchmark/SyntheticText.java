@@ -0,0 +1,182 @@
+package benchmark;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// 可复现的合成文本：按目标UTF-8字节数生成纯英文或纯中文文档，
+// 以及仿照 orig_0.8_add / orig_0.8_del / orig_0.8_dis_N 测试集的变异副本
+public final class SyntheticText {
+    public enum Script { ASCII, CJK }
+
+    // 变异方式：ADD 插入新词，DEL 删除词，DIS 把词后移若干位置（打乱语序）
+    public enum Mutation { ADD, DEL, DIS }
+
+    private static final int ASCII_VOCABULARY = 4096;
+    private static final int CJK_VOCABULARY = 3500;
+    private static final String[] WORDS = buildWords(ASCII_VOCABULARY, 0x5eedL);
+
+    private SyntheticText() {
+    }
+
+    // 解析 "512B" / "1KB" / "64KB" / "1MB" / "100MB" 形式的大小
+    public static long parseSize(String size) {
+        String s = size.trim().toUpperCase(Locale.ROOT);
+        long unit = 1;
+        if (s.endsWith("KB")) {
+            unit = 1L << 10;
+            s = s.substring(0, s.length() - 2);
+        } else if (s.endsWith("MB")) {
+            unit = 1L << 20;
+            s = s.substring(0, s.length() - 2);
+        } else if (s.endsWith("GB")) {
+            unit = 1L << 30;
+            s = s.substring(0, s.length() - 2);
+        } else if (s.endsWith("B")) {
+            s = s.substring(0, s.length() - 1);
+        }
+        return Long.parseLong(s.trim()) * unit;
+    }
+
+    // 生成约targetBytes字节（UTF-8）的文档；词频近似Zipf分布，句长8~30个词
+    public static String document(long targetBytes, Script script, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, script == Script.CJK ? targetBytes / 3 + 16 : targetBytes + 16);
+        StringBuilder sb = new StringBuilder(capacity);
+        long bytes = 0;
+        while (bytes < targetBytes) {
+            int sentence = 8 + random.nextInt(23);
+            for (int w = 0; w < sentence && bytes < targetBytes; w++) {
+                if (script == Script.CJK) {
+                    sb.append(randomCjk(random));
+                    bytes += 3;
+                    if (w > 0 && w < sentence - 1 && random.nextInt(10) == 0) {
+                        sb.append('，');
+                        bytes += 3;
+                    }
+                } else {
+                    String word = randomWord(random);
+                    if (w > 0) {
+                        sb.append(' ');
+                        bytes++;
+                    }
+                    sb.append(word);
+                    bytes += word.length();
+                }
+            }
+            if (script == Script.CJK) {
+                sb.append('。');
+                bytes += 3;
+            } else {
+                sb.append(". ");
+                bytes += 2;
+            }
+            if (random.nextInt(8) == 0) {
+                sb.append('\n');
+                bytes++;
+            }
+        }
+        return sb.toString();
+    }
+
+    // 对约(1-keepRatio)比例的词做一次变异；disorder为DIS时词后移的距离（以词计），其余方式忽略
+    public static String mutate(String text, Mutation mutation, double keepRatio, int disorder, long seed) {
+        if (keepRatio < 0 || keepRatio > 1) {
+            throw new IllegalArgumentException("保留比例必须在0到1之间：" + keepRatio);
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        double rate = 1 - keepRatio;
+        StringBuilder sb = new StringBuilder(text.length() + text.length() / 4);
+        // DIS：被选中的词暂存，再经过disorder个词后输出
+        ArrayDeque<Pending> pending = new ArrayDeque<>();
+        long emitted = 0;
+
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            char c = text.charAt(i);
+            int end;
+            if (isCjk(c)) {
+                end = i + 1;
+            } else if (isAsciiWordChar(c)) {
+                end = i + 1;
+                while (end < length && isAsciiWordChar(text.charAt(end))) end++;
+            } else {
+                sb.append(c);
+                i++;
+                continue;
+            }
+            String unit = text.substring(i, end);
+            boolean cjk = isCjk(c);
+            i = end;
+
+            if (mutation == Mutation.DEL && random.nextDouble() < rate) {
+                continue;
+            }
+            if (mutation == Mutation.DIS && random.nextDouble() < rate) {
+                pending.addLast(new Pending(emitted + Math.max(1, disorder), unit));
+                continue;
+            }
+            if (mutation == Mutation.ADD && random.nextDouble() < rate) {
+                if (cjk) {
+                    sb.append(randomCjk(random));
+                } else {
+                    sb.append(randomWord(random)).append(' ');
+                }
+            }
+            sb.append(unit);
+            emitted++;
+            while (!pending.isEmpty() && pending.peekFirst().releaseAt() <= emitted) {
+                appendMoved(sb, pending.removeFirst().unit());
+            }
+        }
+        for (Pending moved : pending) {
+            appendMoved(sb, moved.unit());
+        }
+        return sb.toString();
+    }
+
+    private record Pending(long releaseAt, String unit) {
+    }
+
+    private static void appendMoved(StringBuilder sb, String unit) {
+        if (!isCjk(unit.charAt(0))) sb.append(' ');
+        sb.append(unit);
+    }
+
+    private static String randomWord(SplittableRandom random) {
+        return WORDS[zipfIndex(random, ASCII_VOCABULARY)];
+    }
+
+    private static char randomCjk(SplittableRandom random) {
+        return (char) ('一' + zipfIndex(random, CJK_VOCABULARY) * 5);
+    }
+
+    // 偏向小下标的分布，使高频词反复出现，接近自然语言
+    private static int zipfIndex(SplittableRandom random, int size) {
+        double u = random.nextDouble();
+        return (int) (size * u * u * u);
+    }
+
+    private static boolean isCjk(char c) {
+        return c >= '一' && c <= '龥';
+    }
+
+    private static boolean isAsciiWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static String[] buildWords(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        String[] words = new String[count];
+        char[] buf = new char[12];
+        for (int i = 0; i < count; i++) {
+            int len = 2 + random.nextInt(9);
+            for (int j = 0; j < len; j++) {
+                buf[j] = (char) ('a' + random.nextInt(26));
+            }
+            words[i] = new String(buf, 0, len);
+        }
+        return words;
+    }
+}
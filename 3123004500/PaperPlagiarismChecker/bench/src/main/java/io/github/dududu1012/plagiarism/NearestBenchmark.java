@@ -0,0 +1,51 @@
+package io.github.dududu1012.plagiarism;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Top-K最近指纹的全量扫描：随机指纹放在基本类型数组中，目标为1000万条在100ms以内
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class NearestBenchmark {
+    @Param({"1000000", "10000000"})
+    public int fingerprints;
+
+    @Param({"10", "100"})
+    public int k;
+
+    private long[] data;
+    private long query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(1);
+        data = new long[fingerprints];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = random.nextLong();
+        }
+        query = random.nextLong();
+    }
+
+    @Benchmark
+    public List<SimHashIndex.Match> topK() {
+        return NearestFingerprints.topK(data, query, k);
+    }
+}
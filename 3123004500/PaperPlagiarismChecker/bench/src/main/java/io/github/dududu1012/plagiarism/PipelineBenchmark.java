@@ -0,0 +1,91 @@
+package io.github.dududu1012.plagiarism;
+
+import benchmark.SyntheticText;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// 查重各阶段与完整流程的基准，按文档大小与文字类型参数化。基准类与查重代码同包，直接调用包私有的各阶段方法。
+// 各阶段测的是生产流水线本身：tokenize得到TokenSequence，extractNgramKeys把n-gram键放入LongHashSet，
+// calculateSimHash(LongHashSet)由键集合累加指纹。每个阶段的输入在Trial开始时预先算好，只测量该阶段本身；
+// 100MB档需要较大的堆
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PipelineBenchmark {
+    private static final int N_GRAM = 2;
+    private static final double KEEP_RATIO = 0.8;
+
+    @Param({"1KB", "64KB", "1MB", "100MB"})
+    public String size;
+
+    @Param({"ASCII", "CJK"})
+    public SyntheticText.Script script;
+
+    private final PlagiarismEngine engine = new PlagiarismEngine();
+    private String original;
+    private String copy;
+    private TokenSequence tokens;
+    private LongHashSet ngramKeys;
+    private byte[][] tokenBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        original = SyntheticText.document(SyntheticText.parseSize(size), script, 1);
+        copy = SyntheticText.mutate(original, SyntheticText.Mutation.ADD, KEEP_RATIO, 0, 2);
+        tokens = engine.tokenize(original);
+        ngramKeys = extractNgramKeys();
+        String[] words = engine.preprocessText(original).split(" ");
+        tokenBytes = new byte[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            tokenBytes[i] = words[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public TokenSequence tokenize() {
+        return engine.tokenize(original);
+    }
+
+    // 与fingerprintSequence相同，键集合按token数预分配
+    @Benchmark
+    public LongHashSet extractNgramKeys() {
+        return PaperPlagiarismChecker.extractNgramKeys(tokens, N_GRAM, new LongHashSet(tokens.count()));
+    }
+
+    @Benchmark
+    public long calculateSimHash() {
+        return PaperPlagiarismChecker.calculateSimHash(ngramKeys);
+    }
+
+    // 逐个token按UTF-8字节计算哈希（TokenDictionary对每个不同token调用一次）
+    @Benchmark
+    public long murmurHash3() {
+        long acc = 0;
+        for (byte[] token : tokenBytes) {
+            acc ^= PaperPlagiarismChecker.murmurHash3(token, 0, token.length);
+        }
+        return acc;
+    }
+
+    // 原文对比其变异副本的完整查重
+    @Benchmark
+    public double endToEnd() {
+        return engine.check(original, copy).similarity();
+    }
+}
@@ -0,0 +1,273 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// 后台异步记录写入：调用方只把记录放入有界环形队列（满时阻塞形成背压），
+// 由单个后台线程成批取出、按文件分组写入并统一flush（group commit）。文件句柄在批次之间保持打开，
+// 查重记录.log 这类日志文件按大小或跨天自动滚动
+public final class AsyncRecordWriter implements Closeable {
+    // 线程安全，可全局共享
+    static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter ROTATE_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final long DEFAULT_MAX_LOG_BYTES = 10L * 1024 * 1024;
+    private static final int MAX_BATCH = 1024;
+
+    private static AsyncRecordWriter shared;
+
+    private final BlockingQueue<Entry> queue;
+    private final long maxLogBytes;
+    private final Thread worker;
+    private final Map<Path, Sink> sinks = new HashMap<>();
+    private final Object progress = new Object();
+    private long enqueued;
+    private long written;
+    private volatile boolean closed;
+
+    AsyncRecordWriter(int capacity, long maxLogBytes) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxLogBytes = maxLogBytes;
+        this.worker = new Thread(this::drainLoop, "record-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // 进程内共享实例，退出时由关闭钩子写完剩余记录
+    static synchronized AsyncRecordWriter shared() {
+        if (shared == null) {
+            AsyncRecordWriter writer = new AsyncRecordWriter(DEFAULT_CAPACITY, DEFAULT_MAX_LOG_BYTES);
+            Runtime.getRuntime().addShutdownHook(new Thread(writer::close));
+            shared = writer;
+        }
+        return shared;
+    }
+
+    static String timestamp() {
+        return LocalDateTime.now().format(TIMESTAMP);
+    }
+
+    // 追加一行；header非空时在新建（或空）文件开头先写入表头
+    public void append(Path file, String header, String line) {
+        enqueue(new Entry(file, header, line, false));
+    }
+
+    // 追加到滚动日志文件，content需自带换行
+    public void appendLog(Path file, String content) {
+        enqueue(new Entry(file, null, content, true));
+    }
+
+    // 等待此前放入的记录全部写入并flush
+    public void flush() {
+        long target;
+        synchronized (progress) {
+            target = enqueued;
+        }
+        awaitWritten(target);
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        flush();
+        closed = true;
+        worker.interrupt();
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Entry entry) {
+        if (closed) {
+            throw new IllegalStateException("记录写入器已关闭");
+        }
+        synchronized (progress) {
+            enqueued++;
+        }
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            markWritten(1);
+        }
+    }
+
+    private void awaitWritten(long target) {
+        synchronized (progress) {
+            while (written < target && worker.isAlive()) {
+                try {
+                    progress.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void markWritten(int count) {
+        synchronized (progress) {
+            written += count;
+            progress.notifyAll();
+        }
+    }
+
+    private void drainLoop() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                if (closed && queue.isEmpty()) break;
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            writeBatch(batch);
+            markWritten(batch.size());
+            batch.clear();
+        }
+        for (Sink sink : sinks.values()) {
+            sink.closeQuietly();
+        }
+        sinks.clear();
+    }
+
+    // 一批记录按文件写入，每个文件在批末只flush一次
+    private void writeBatch(List<Entry> batch) {
+        Map<Path, Sink> touched = new HashMap<>();
+        for (Entry entry : batch) {
+            try {
+                Sink sink = sinkFor(entry);
+                sink.write(entry);
+                touched.put(entry.file(), sink);
+            } catch (IOException e) {
+                System.err.println("记录写入失败（" + entry.file() + "）：" + e.getMessage());
+            }
+        }
+        for (Map.Entry<Path, Sink> e : touched.entrySet()) {
+            try {
+                e.getValue().writer.flush();
+            } catch (IOException ex) {
+                System.err.println("记录写入失败（" + e.getKey() + "）：" + ex.getMessage());
+            }
+        }
+    }
+
+    private Sink sinkFor(Entry entry) throws IOException {
+        Sink sink = sinks.get(entry.file());
+        if (sink != null && entry.rotating() && sink.needsRotation(maxLogBytes)) {
+            sink.closeQuietly();
+            sinks.remove(entry.file());
+            rotate(entry.file());
+            sink = null;
+        }
+        if (sink == null) {
+            sink = Sink.open(entry.file());
+            if (entry.rotating() && sink.needsRotation(maxLogBytes)) {
+                sink.closeQuietly();
+                rotate(entry.file());
+                sink = Sink.open(entry.file());
+            }
+            sinks.put(entry.file(), sink);
+        }
+        return sink;
+    }
+
+    // 当前日志改名为 原名.时间戳，之后的记录写入新文件
+    private static void rotate(Path file) throws IOException {
+        if (!Files.exists(file)) return;
+        Path rotated = file.resolveSibling(file.getFileName() + "." + LocalDateTime.now().format(ROTATE_SUFFIX));
+        for (int i = 1; Files.exists(rotated); i++) {
+            rotated = file.resolveSibling(file.getFileName() + "." + LocalDateTime.now().format(ROTATE_SUFFIX) + "-" + i);
+        }
+        Files.move(file, rotated, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private record Entry(Path file, String header, String content, boolean rotating) {
+    }
+
+    private static final class Sink {
+        private final BufferedWriter writer;
+        private final LocalDate openedOn;
+        private long size;
+
+        private Sink(BufferedWriter writer, long size, LocalDate openedOn) {
+            this.writer = writer;
+            this.size = size;
+            this.openedOn = openedOn;
+        }
+
+        static Sink open(Path file) throws IOException {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            long size = Files.exists(file) ? Files.size(file) : 0;
+            LocalDate lastModified = size > 0
+                    ? LocalDate.ofInstant(Files.getLastModifiedTime(file).toInstant(), java.time.ZoneId.systemDefault())
+                    : LocalDate.now();
+            BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            return new Sink(writer, size, lastModified);
+        }
+
+        boolean needsRotation(long maxBytes) {
+            return size > 0 && (size >= maxBytes || !openedOn.equals(LocalDate.now()));
+        }
+
+        void write(Entry entry) throws IOException {
+            if (size == 0 && entry.header() != null) {
+                writeCounted(entry.header());
+                writeCounted(System.lineSeparator());
+            }
+            writeCounted(entry.content());
+            if (!entry.rotating()) {
+                writeCounted(System.lineSeparator());
+            }
+        }
+
+        private void writeCounted(String text) throws IOException {
+            writer.write(text);
+            size += utf8Length(text);
+        }
+
+        void closeQuietly() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("记录文件关闭失败：" + e.getMessage());
+            }
+        }
+
+        private static long utf8Length(String text) {
+            long bytes = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) bytes += 1;
+                else if (c < 0x800) bytes += 2;
+                else if (Character.isHighSurrogate(c)) {
+                    bytes += 4;
+                    i++;
+                } else bytes += 3;
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class AsyncRecordWriterTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    // ====================== 测试 append() / flush() 函数 ======================
+
+    @Test
+    public void testAppend_ConcurrentWritersKeepEveryLineAndOneHeader() throws Exception {
+        // 容量很小的队列迫使写入方频繁阻塞，flush后所有记录完整落盘且表头只出现一次
+        Path result = tempFolder.getRoot().toPath().resolve("sub").resolve("result.txt");
+        int threads = 4;
+        int perThread = 500;
+        try (AsyncRecordWriter writer = new AsyncRecordWriter(16, Long.MAX_VALUE)) {
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                workers[t] = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        writer.append(result, PaperPlagiarismChecker.RESULT_HEADER, id + "|" + i);
+                    }
+                });
+                workers[t].start();
+            }
+            for (Thread worker : workers) worker.join();
+            writer.flush();
+
+            List<String> lines = Files.readAllLines(result, StandardCharsets.UTF_8);
+            assertEquals(PaperPlagiarismChecker.RESULT_HEADER, lines.get(0));
+            assertEquals(threads * perThread + 1, lines.size());
+            assertEquals(threads * perThread, new HashSet<>(lines.subList(1, lines.size())).size());
+        }
+    }
+
+    @Test
+    public void testAppend_ExistingFileGetsNoSecondHeader() throws Exception {
+        File result = tempFolder.newFile("result.txt");
+        Files.writeString(result.toPath(), PaperPlagiarismChecker.RESULT_HEADER + System.lineSeparator()
+                + "旧记录" + System.lineSeparator(), StandardCharsets.UTF_8);
+        try (AsyncRecordWriter writer = new AsyncRecordWriter(16, Long.MAX_VALUE)) {
+            writer.append(result.toPath(), PaperPlagiarismChecker.RESULT_HEADER, "新记录");
+            writer.flush();
+        }
+        List<String> lines = Files.readAllLines(result.toPath(), StandardCharsets.UTF_8);
+        assertEquals(List.of(PaperPlagiarismChecker.RESULT_HEADER, "旧记录", "新记录"), lines);
+    }
+
+    // ====================== 测试 appendLog() 滚动 ======================
+
+    @Test
+    public void testAppendLog_RotatesWhenSizeExceeded() throws Exception {
+        // 单个文件超过上限后改名归档，新内容写入新文件，总内容不丢失
+        Path log = tempFolder.getRoot().toPath().resolve("查重记录.log");
+        String entry = "[2026-01-01 00:00:00] 错误：测试\n";
+        try (AsyncRecordWriter writer = new AsyncRecordWriter(16, 200)) {
+            for (int i = 0; i < 20; i++) {
+                writer.appendLog(log, entry);
+                writer.flush();
+            }
+        }
+        File[] files = tempFolder.getRoot().listFiles((dir, name) -> name.startsWith("查重记录.log"));
+        assertNotNull(files);
+        assertTrue(files.length > 1);
+        long totalEntries = 0;
+        Set<String> names = new HashSet<>();
+        for (File file : files) {
+            names.add(file.getName());
+            assertTrue(file.length() <= 200 + entry.getBytes(StandardCharsets.UTF_8).length);
+            totalEntries += Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size();
+        }
+        assertTrue(names.contains("查重记录.log"));
+        assertEquals(20, totalEntries);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAppend_AfterCloseRejected() {
+        AsyncRecordWriter writer = new AsyncRecordWriter(16, Long.MAX_VALUE);
+        writer.close();
+        writer.append(tempFolder.getRoot().toPath().resolve("x.txt"), null, "x");
+    }
+}
@@ -0,0 +1,212 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// 批处理模式：逐行流式读取清单（每行"原文路径<TAB>抄袭文本路径"），分发到固定大小的工作线程池。
+// 同一原文在一次运行中只计算一次指纹；所有记录写入同一个结果文件，格式与单次查重相同
+public class BatchRunner {
+    static final String MODE_FLAG = "--batch";
+    private static final String THREADS_OPTION = "--threads";
+    private static final int MAX_REPORTED_FAILURES = 10;
+    private static final String USAGE = "参数错误！正确格式：\njava -jar main.jar --batch [清单文件] [结果文件] [--threads 线程数] [--store 指纹库] [--segment 词典文件|bigram] [--idf 词频表] [--minhash Jaccard阈值] [--cascade 阈值] [--cache 结果缓存文件] [--metrics 指标文件|-]";
+
+    private final PlagiarismEngine engine;
+    private final FingerprintStore store;
+    // 未给出 --cascade 时为null
+    private final CheckCascade cascade;
+    // 未给出 --cache 时为null
+    private final ResultCache cache;
+    private final AsyncRecordWriter resultWriter;
+    private final Path resultPath;
+    private final ConcurrentHashMap<String, CompletableFuture<PaperPlagiarismChecker.Fingerprint>> originals = new ConcurrentHashMap<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final List<String> failureSamples = new ArrayList<>();
+
+    private BatchRunner(PlagiarismEngine engine, FingerprintStore store, CheckCascade cascade, ResultCache cache,
+                        AsyncRecordWriter resultWriter, Path resultPath) {
+        this.engine = engine;
+        this.store = store;
+        this.cascade = cascade;
+        this.cache = cache;
+        this.resultWriter = resultWriter;
+        this.resultPath = resultPath;
+    }
+
+    public static void run(String[] rawArgs) throws IOException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        String[] args = PaperPlagiarismChecker.parseOptions(rawArgs, options);
+        if (args.length != 2) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        String manifestPath = args[0];
+        String resultPath = args[1];
+        int threads = options.containsKey(THREADS_OPTION)
+                ? Integer.parseInt(options.get(THREADS_OPTION))
+                : Runtime.getRuntime().availableProcessors();
+        if (threads < 1) {
+            throw new IllegalArgumentException("线程数必须大于等于1");
+        }
+        PaperPlagiarismChecker.validateFile(manifestPath);
+
+        File resultFile = new File(resultPath);
+        PlagiarismEngine engine = PlagiarismEngine.fromOptions(options);
+        try (FingerprintStore store = PaperPlagiarismChecker.openStore(options);
+             ResultCache cache = ResultCache.fromOptions(options)) {
+            BatchRunner runner = new BatchRunner(engine, store, CheckCascade.fromOptions(options, engine), cache,
+                    AsyncRecordWriter.shared(), resultFile.toPath());
+            long start = System.nanoTime();
+            runner.process(manifestPath, threads);
+            long elapsedNanos = System.nanoTime() - start;
+            runner.printSummary(elapsedNanos, resultFile);
+        }
+    }
+
+    // 有界队列 + 调用者执行策略：队列满时由读清单的线程亲自执行，形成背压，清单再大内存也不会堆积
+    private void process(String manifestPath, int threads) throws IOException, InterruptedException {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(manifestPath), StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] pair = line.split("\t");
+                if (pair.length != 2) {
+                    recordFailure("第" + lineNo + "行格式错误（应为：原文路径<TAB>抄袭文本路径）");
+                    continue;
+                }
+                String origPath = pair[0].trim();
+                String copyPath = pair[1].trim();
+                pool.execute(() -> checkPair(origPath, copyPath));
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        resultWriter.flush();
+    }
+
+    private void checkPair(String origPath, String copyPath) {
+        long start = System.nanoTime();
+        try {
+            PaperPlagiarismChecker.validateFile(copyPath);
+            if (cascade != null) {
+                checkPairCascaded(origPath, copyPath);
+                return;
+            }
+            PaperPlagiarismChecker.CheckResult result = cache != null
+                    ? cache.check(origPath, copyPath, engine, () -> computePair(origPath, copyPath))
+                    : computePair(origPath, copyPath);
+            writeRecord(origPath, copyPath, result.rateString(), result.jaccardString());
+            succeeded.increment();
+        } catch (IOException | RuntimeException e) {
+            recordFailure(origPath + " | " + copyPath + "：" + e.getMessage());
+        } finally {
+            latency.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    private PaperPlagiarismChecker.CheckResult computePair(String origPath, String copyPath) throws IOException {
+        PaperPlagiarismChecker.Fingerprint origFp = originalFingerprint(origPath);
+        PaperPlagiarismChecker.Fingerprint copyFp = engine.loadFingerprint(copyPath, store);
+        int n = PaperPlagiarismChecker.selectNGramSize(origFp.tokenCount(), copyFp.tokenCount());
+        if (origFp.nGram() != n) origFp = engine.fingerprintFile(origPath, n);
+        if (copyFp.nGram() != n) copyFp = engine.fingerprintFile(copyPath, n);
+        return PaperPlagiarismChecker.compare(origFp, copyFp);
+    }
+
+    // 级联查重：完全相同的文件对不取指纹；原文指纹仍经缓存，抄袭文本只提取n-gram，n-gram数比不达标时不再计算SimHash
+    private void checkPairCascaded(String origPath, String copyPath) throws IOException {
+        PaperPlagiarismChecker.validateFile(origPath);
+        CheckCascade.Outcome outcome = cascade.identical(origPath, copyPath);
+        if (outcome == null) {
+            outcome = cascade.compare(CheckCascade.Side.of(origPath, originalFingerprint(origPath)),
+                    cascade.side(copyPath, store));
+        }
+        writeRecord(origPath, copyPath, outcome.rateString(), outcome.jaccardString());
+        succeeded.increment();
+    }
+
+    // 同一原文只由第一个请求它的线程计算，其余线程等待同一结果
+    private PaperPlagiarismChecker.Fingerprint originalFingerprint(String origPath) throws IOException {
+        CompletableFuture<PaperPlagiarismChecker.Fingerprint> future = originals.get(origPath);
+        if (future == null) {
+            CompletableFuture<PaperPlagiarismChecker.Fingerprint> created = new CompletableFuture<>();
+            future = originals.putIfAbsent(origPath, created);
+            if (future == null) {
+                future = created;
+                try {
+                    PaperPlagiarismChecker.validateFile(origPath);
+                    created.complete(engine.loadFingerprint(origPath, store));
+                } catch (IOException | RuntimeException e) {
+                    created.completeExceptionally(e);
+                }
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // 工作线程只负责入队，由后台写入线程成批落盘
+    private void writeRecord(String origPath, String copyPath, String rateStr, String jaccardStr) {
+        StageMetrics.Span span = StageMetrics.start(StageMetrics.Stage.WRITE);
+        String record = PaperPlagiarismChecker.resultRecord(origPath, copyPath, rateStr, jaccardStr);
+        resultWriter.append(resultPath,
+                jaccardStr == null ? PaperPlagiarismChecker.RESULT_HEADER : PaperPlagiarismChecker.JACCARD_HEADER, record);
+        span.end(record.getBytes(StandardCharsets.UTF_8).length, 0, 0);
+    }
+
+    private void recordFailure(String message) {
+        failed.increment();
+        PaperPlagiarismChecker.logError(message);
+        synchronized (failureSamples) {
+            if (failureSamples.size() < MAX_REPORTED_FAILURES) failureSamples.add(message);
+        }
+    }
+
+    private void printSummary(long elapsedNanos, File resultFile) {
+        long total = succeeded.sum() + failed.sum();
+        double seconds = elapsedNanos / 1e9;
+        System.out.println("批量查重完成：共" + total + "对，成功" + succeeded.sum() + "对，失败" + failed.sum() + "对");
+        System.out.println(String.format("耗时：%.2fs，吞吐：%.1f对/秒，不同原文数：%d", seconds,
+                seconds > 0 ? total / seconds : 0.0, originals.size()));
+        System.out.println("单对延迟：" + latency.summary());
+        if (cascade != null) {
+            System.out.println(cascade.summary());
+        }
+        if (cache != null) {
+            System.out.println(cache.summary());
+        }
+        System.out.println("结果已追加至：" + resultFile.getAbsolutePath());
+        if (!failureSamples.isEmpty()) {
+            System.err.println("失败示例（最多" + MAX_REPORTED_FAILURES + "条，完整信息见查重记录.log）：");
+            failureSamples.forEach(message -> System.err.println("  " + message));
+        }
+    }
+}
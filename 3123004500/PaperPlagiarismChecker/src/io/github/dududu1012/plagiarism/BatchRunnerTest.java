@@ -0,0 +1,95 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+public class BatchRunnerTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File write(String name, String content) throws Exception {
+        File file = tempFolder.newFile(name);
+        Files.writeString(file.toPath(), content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    // ====================== 测试 run() 函数 ======================
+
+    @Test
+    public void testRun_WritesOneRecordPerPair() throws Exception {
+        // 每对生成一条记录，重复率与单次查重一致，格式错误的行计为失败
+        File orig = write("orig.txt", "今天是星期天，天气晴，今晚我要去看电影");
+        File copyA = write("copyA.txt", "今天是周天，天气晴朗，我晚上要去看电影。");
+        File copyB = write("copyB.txt", "今天是星期天，天气晴，今晚我要去看电影");
+        File manifest = write("manifest.tsv", "# 原文\t抄袭\n"
+                + orig.getPath() + "\t" + copyA.getPath() + "\n"
+                + orig.getPath() + "\t" + copyB.getPath() + "\n"
+                + "bad line\n");
+        File result = new File(tempFolder.getRoot(), "result.txt");
+
+        BatchRunner.run(new String[]{manifest.getPath(), result.getPath(), "--threads", "2"});
+
+        List<String> lines = Files.readAllLines(result.toPath(), StandardCharsets.UTF_8);
+        assertEquals(PaperPlagiarismChecker.RESULT_HEADER, lines.get(0));
+        assertEquals(3, lines.size());
+        String expectedA = new PlagiarismEngine().check(orig.getPath(), copyA.getPath(), null).rateString();
+        assertTrue(lines.stream().anyMatch(l -> l.endsWith("|" + orig.getPath() + "|" + copyA.getPath() + "|" + expectedA)));
+        assertTrue(lines.stream().anyMatch(l -> l.endsWith("|" + orig.getPath() + "|" + copyB.getPath() + "|100.00%")));
+    }
+
+    @Test
+    public void testRun_CascadeMatchesFullCheck() throws Exception {
+        // 级联模式下SimHash已计算的对重复率与完整查重一致，完全相同的对直接判为100%
+        File orig = write("orig.txt", "今天是星期天，天气晴，今晚我要去看电影");
+        File copyA = write("copyA.txt", "今天是周天，天气晴朗，我晚上要去看电影。");
+        File copyB = write("copyB.txt", "今天是星期天，天气晴，今晚我要去看电影");
+        File manifest = write("manifest.tsv", orig.getPath() + "\t" + copyA.getPath() + "\n"
+                + orig.getPath() + "\t" + copyB.getPath() + "\n");
+        File result = new File(tempFolder.getRoot(), "result.txt");
+
+        BatchRunner.run(new String[]{manifest.getPath(), result.getPath(), "--cascade", "0.5"});
+
+        List<String> lines = Files.readAllLines(result.toPath(), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        String expectedA = new PlagiarismEngine().check(orig.getPath(), copyA.getPath(), null).rateString();
+        assertTrue(lines.stream().anyMatch(l -> l.endsWith("|" + orig.getPath() + "|" + copyA.getPath() + "|" + expectedA)));
+        assertTrue(lines.stream().anyMatch(l -> l.endsWith("|" + orig.getPath() + "|" + copyB.getPath() + "|100.00%")));
+    }
+
+    @Test
+    public void testRun_CacheServesRepeatedRun() throws Exception {
+        // 第二次运行全部由结果缓存命中，记录与第一次相同
+        File orig = write("orig.txt", "今天是星期天，天气晴，今晚我要去看电影");
+        File copy = write("copy.txt", "今天是周天，天气晴朗，我晚上要去看电影。");
+        File manifest = write("manifest.tsv", orig.getPath() + "\t" + copy.getPath() + "\n");
+        File result = new File(tempFolder.getRoot(), "result.txt");
+        String cache = new File(tempFolder.getRoot(), "results.rc").getPath();
+
+        BatchRunner.run(new String[]{manifest.getPath(), result.getPath(), "--cache", cache});
+        try (ResultCache reopened = ResultCache.open(new File(cache).toPath())) {
+            assertEquals(1, reopened.records());
+        }
+        BatchRunner.run(new String[]{manifest.getPath(), result.getPath(), "--cache", cache});
+
+        List<String> lines = Files.readAllLines(result.toPath(), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        String expected = new PlagiarismEngine().check(orig.getPath(), copy.getPath(), null).rateString();
+        assertTrue(lines.get(1).endsWith("|" + expected));
+        assertTrue(lines.get(2).endsWith("|" + expected));
+        try (ResultCache reopened = ResultCache.open(new File(cache).toPath())) {
+            assertEquals(1, reopened.records());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRun_MissingArguments() throws Exception {
+        BatchRunner.run(new String[]{"only-manifest.tsv"});
+    }
+}
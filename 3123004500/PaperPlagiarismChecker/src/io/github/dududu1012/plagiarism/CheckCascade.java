@@ -0,0 +1,197 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// 级联查重：按代价从低到高逐级判断，能提前下结论的文件对不再进入下一级。
+// 1. 大小与内容：两文件大小相同且逐字节一致，直接判为100%，不分词；
+// 2. n-gram数比：只提取n-gram键、不累加SimHash，双方不同n-gram数相差过大时SimHash相似度的上界已低于阈值，记为"<阈值"；
+//    上界按不加权的n-gram集合推出，启用 --idf 加权时跳过此级；
+// 3. SimHash：计算指纹并比较，低于阈值的只输出重复率；
+// 4. 达到阈值的才做详细分析（详细日志，主程序另做片段定位）。
+// 各级计数可跨线程累加，批处理结束时输出，用来观察跳过了多少工作
+final class CheckCascade {
+    static final String OPTION = "--cascade";
+    // 无法给出具体数值（未计算）的估计Jaccard
+    private static final String NOT_COMPUTED = "-";
+    // 64位中不同位数按二项分布取的下侧余量（标准差倍数），使上界对实际指纹也成立
+    private static final double MARGIN_SIGMAS = 3.0;
+
+    enum Stage {
+        IDENTICAL("内容完全相同"),
+        NGRAM_RATIO("n-gram数比淘汰"),
+        BELOW_THRESHOLD("SimHash低于阈值"),
+        DETAILED("详细分析");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        String label() {
+            return label;
+        }
+    }
+
+    // 一对文件的判定：所在级、重复率与估计Jaccard字符串；result仅在计算了SimHash时不为null
+    record Outcome(Stage stage, PaperPlagiarismChecker.CheckResult result, String rateString, String jaccardString) {
+    }
+
+    // 一方进入第2级前的状态：已有指纹（指纹库、批处理的原文缓存、流式大文件），或只完成了分词
+    static final class Side {
+        private final String path;
+        private final PaperPlagiarismChecker.Fingerprint fingerprint;
+        private final TokenSequence tokens;
+        // 只分词的一方在第2级提取的n-gram键及其粒度，算SimHash时复用
+        private LongHashSet keys;
+        private int keysN;
+        // 已有指纹粒度不符时按双方粒度重算的指纹，第2级与第3级共用
+        private PaperPlagiarismChecker.Fingerprint regrained;
+
+        private Side(String path, PaperPlagiarismChecker.Fingerprint fingerprint, TokenSequence tokens) {
+            this.path = path;
+            this.fingerprint = fingerprint;
+            this.tokens = tokens;
+        }
+
+        static Side of(String path, PaperPlagiarismChecker.Fingerprint fingerprint) {
+            return new Side(path, fingerprint, null);
+        }
+
+        int tokenCount() {
+            return fingerprint != null ? fingerprint.tokenCount() : tokens.count();
+        }
+
+        // 粒度n下的不同n-gram数：已有同粒度指纹时直接取，只分词的一方提取n-gram键并留待计算SimHash
+        int ngramCount(int n, PlagiarismEngine engine) throws IOException {
+            if (fingerprint != null) return fingerprint(n, engine).ngramCount();
+            return keys(n).size();
+        }
+
+        private LongHashSet keys(int n) {
+            if (keys == null || keysN != n) {
+                keys = PaperPlagiarismChecker.extractNgramKeys(tokens, n, new LongHashSet(tokens.count()));
+                keysN = n;
+            }
+            return keys;
+        }
+
+        // 按双方确定的粒度取指纹：只分词的一方此时才计算SimHash
+        PaperPlagiarismChecker.Fingerprint fingerprint(int n, PlagiarismEngine engine) throws IOException {
+            if (fingerprint == null) return engine.fingerprintKeys(keys(n), tokens.count(), n);
+            if (fingerprint.nGram() == n) return fingerprint;
+            if (regrained == null || regrained.nGram() != n) regrained = engine.fingerprintFile(path, n);
+            return regrained;
+        }
+    }
+
+    private final double threshold;
+    // 分词、取指纹与加权方式均按该引擎的配置
+    private final PlagiarismEngine engine;
+    private final LongAdder[] counters = new LongAdder[Stage.values().length];
+
+    CheckCascade(double threshold, PlagiarismEngine engine) {
+        if (!(threshold > 0 && threshold <= 1)) {
+            throw new IllegalArgumentException("级联阈值必须在(0, 1]之间：" + threshold);
+        }
+        this.threshold = threshold;
+        this.engine = engine;
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    // 未给出 --cascade 时返回null，按原流程查重
+    static CheckCascade fromOptions(Map<String, String> options, PlagiarismEngine engine) {
+        String value = options.get(OPTION);
+        return value == null ? null : new CheckCascade(Double.parseDouble(value), engine);
+    }
+
+    double threshold() {
+        return threshold;
+    }
+
+    long count(Stage stage) {
+        return counters[stage.ordinal()].sum();
+    }
+
+    // 完整的四级判断
+    Outcome check(String origPath, String copyPath, FingerprintStore store) throws IOException {
+        PaperPlagiarismChecker.validateFile(origPath);
+        PaperPlagiarismChecker.validateFile(copyPath);
+        Outcome outcome = identical(origPath, copyPath);
+        if (outcome != null) return outcome;
+        return compare(side(origPath, store), side(copyPath, store));
+    }
+
+    // 第1级：同一文件，或大小相同且逐字节一致（遇到第一个不同字节即停止读取）；不满足时返回null。
+    // 判定相同时写一条不含分词信息的详细日志，与第4级的详细日志对应
+    Outcome identical(String origPath, String copyPath) throws IOException {
+        File orig = new File(origPath);
+        File copy = new File(copyPath);
+        boolean same = orig.getCanonicalPath().equals(copy.getCanonicalPath())
+                || orig.length() == copy.length() && Files.mismatch(Paths.get(origPath), Paths.get(copyPath)) == -1;
+        if (!same) return null;
+        String jaccardStr = engine.minHashEnabled() ? PaperPlagiarismChecker.formatRate(1.0) : null;
+        PaperPlagiarismChecker.logIdenticalCheckResult(origPath, copyPath, jaccardStr);
+        return count(new Outcome(Stage.IDENTICAL, null, PaperPlagiarismChecker.formatRate(1.0), jaccardStr));
+    }
+
+    // 进入第2级前的一方：配置了指纹库或文件需流式读取时直接取指纹，否则只分词
+    Side side(String path, FingerprintStore store) throws IOException {
+        if (store != null || MappedTextReader.shouldStream(new File(path).length())) {
+            return Side.of(path, engine.loadFingerprint(path, store));
+        }
+        return new Side(path, null, engine.tokenize(PaperPlagiarismChecker.readFile(path)));
+    }
+
+    // 第2~4级
+    Outcome compare(Side orig, Side copy) throws IOException {
+        int n = PaperPlagiarismChecker.selectNGramSize(orig.tokenCount(), copy.tokenCount());
+        // 双方指纹都已现成时比较指纹本身即可，不必再用上界估计；idf加权的SimHash不适用该上界
+        if ((orig.fingerprint == null || copy.fingerprint == null) && !engine.weighted()
+                && similarityBound(orig.ngramCount(n, engine), copy.ngramCount(n, engine)) < threshold) {
+            return count(new Outcome(Stage.NGRAM_RATIO, null, "<" + PaperPlagiarismChecker.formatRate(threshold),
+                    engine.minHashEnabled() ? NOT_COMPUTED : null));
+        }
+        PaperPlagiarismChecker.CheckResult result = PaperPlagiarismChecker.compare(orig.fingerprint(n, engine),
+                copy.fingerprint(n, engine));
+        if (result.similarity() < threshold) {
+            return count(new Outcome(Stage.BELOW_THRESHOLD, result, result.rateString(), result.jaccardString()));
+        }
+        PaperPlagiarismChecker.logDetailedCheckResult(orig.path, copy.path, result);
+        return count(new Outcome(Stage.DETAILED, result, result.rateString(), result.jaccardString()));
+    }
+
+    // 不加权SimHash相似度的上界：两个不同n-gram集合的余弦相似度不超过 sqrt(较小集合/较大集合)，
+    // 夹角为θ时每一位不同的概率为θ/π，64位中不同位数按二项分布扣除 MARGIN_SIGMAS 个标准差作为余量。
+    // 按不同n-gram数（而非token数）计算，内容重复多遍的文档不会因token数大而被误判；任一方为空集时不作判断
+    static double similarityBound(int origNgramCount, int copyNgramCount) {
+        int min = Math.min(origNgramCount, copyNgramCount);
+        int max = Math.max(origNgramCount, copyNgramCount);
+        if (min == 0) return 1.0;
+        double p = Math.acos(Math.sqrt((double) min / max)) / Math.PI;
+        double differingBits = 64 * p - MARGIN_SIGMAS * Math.sqrt(64 * p * (1 - p));
+        return 1.0 - Math.max(0.0, differingBits) / 64;
+    }
+
+    private Outcome count(Outcome outcome) {
+        counters[outcome.stage().ordinal()].increment();
+        return outcome;
+    }
+
+    // 各级计数，如"级联（阈值80.00%）：内容完全相同 1 对，n-gram数比淘汰 2 对，……"
+    String summary() {
+        StringBuilder sb = new StringBuilder("级联（阈值" + PaperPlagiarismChecker.formatRate(threshold) + "）：");
+        for (Stage stage : Stage.values()) {
+            if (stage.ordinal() > 0) sb.append("，");
+            sb.append(stage.label()).append(' ').append(count(stage)).append(" 对");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,169 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public class CheckCascadeTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    // ====================== 测试 check() 函数 ======================
+
+    @Test
+    public void testCheck_IdenticalFilesSkipTokenization() throws Exception {
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", "今天是星期天，天气晴，今晚我要去看电影");
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", "今天是星期天，天气晴，今晚我要去看电影");
+        CheckCascade cascade = new CheckCascade(0.8, new PlagiarismEngine());
+        CheckCascade.Outcome outcome = cascade.check(orig, copy, null);
+        assertEquals(CheckCascade.Stage.IDENTICAL, outcome.stage());
+        assertNull(outcome.result());
+        assertEquals("100.00%", outcome.rateString());
+        // 同一路径同样直接判定
+        assertEquals(CheckCascade.Stage.IDENTICAL, cascade.check(orig, orig, null).stage());
+        assertEquals(2, cascade.count(CheckCascade.Stage.IDENTICAL));
+    }
+
+    @Test
+    public void testRun_IdenticalFilesLoggedAndLocalized() throws Exception {
+        // 命令行级联判定内容完全相同时，同样写详细日志（重复率100%），并按 --spans 输出重复片段
+        String text = "今天是星期天，天气晴，今晚我要去看电影。" + TextFixtures.words(new Random(5), 100, 1_000_000);
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", text);
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", text);
+        Path result = tempFolder.getRoot().toPath().resolve("result.txt");
+        Path spans = tempFolder.getRoot().toPath().resolve("spans.txt");
+        Path log = Paths.get("查重记录.log");
+        long logBefore = Files.exists(log) ? Files.size(log) : 0;
+
+        assertEquals(0, PaperPlagiarismChecker.run(new String[]{orig, copy, result.toString(),
+                "--cascade", "0.8", "--spans", spans.toString()}));
+        AsyncRecordWriter.shared().flush();
+        assertTrue(Files.readString(result, StandardCharsets.UTF_8).contains("|100.00%"));
+        assertTrue(Files.exists(spans) && Files.size(spans) > 0);
+        String appended;
+        try (java.io.InputStream in = Files.newInputStream(log)) {
+            in.skipNBytes(logBefore);
+            appended = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(appended.contains("抄袭文本路径：" + copy + "\n判定：内容完全相同（未分词）"));
+        assertTrue(appended.contains("最终重复率：100.00%"));
+    }
+
+    @Test
+    public void testCheck_NgramRatioRejectsBeforeSimHash() throws Exception {
+        Random random = new Random(3);
+        String shared = TextFixtures.words(random, 100, 1_000_000);
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", shared);
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", shared + TextFixtures.words(random, 1000, 1_000_000));
+        CheckCascade cascade = new CheckCascade(0.8, new PlagiarismEngine());
+        CheckCascade.Outcome outcome = cascade.check(orig, copy, null);
+        assertEquals(CheckCascade.Stage.NGRAM_RATIO, outcome.stage());
+        assertNull(outcome.result());
+        assertEquals("<80.00%", outcome.rateString());
+        // 被淘汰的对完整计算时确实低于阈值
+        assertTrue(new PlagiarismEngine().check(orig, copy, null).similarity() < 0.8);
+    }
+
+    @Test
+    public void testCheck_RepeatedContentNotRejected() throws Exception {
+        // 原文重复4遍：token数是原文的4倍，但不同n-gram几乎相同，完整计算远高于阈值，不得按数量比淘汰
+        String base = TextFixtures.words(new Random(4), 200, 1_000_000);
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", base);
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", base.repeat(4));
+        CheckCascade cascade = new CheckCascade(0.8, new PlagiarismEngine());
+        CheckCascade.Outcome outcome = cascade.check(orig, copy, null);
+        PaperPlagiarismChecker.CheckResult expected = new PlagiarismEngine().check(orig, copy, null);
+        assertTrue(expected.similarity() >= 0.9);
+        assertEquals(CheckCascade.Stage.DETAILED, outcome.stage());
+        assertEquals(expected, outcome.result());
+    }
+
+    @Test
+    public void testCheck_IdfWeightingSkipsRatioBound() throws Exception {
+        // idf加权的SimHash不适用不加权集合的上界，直接计算指纹
+        Random random = new Random(3);
+        String shared = TextFixtures.words(random, 100, 1_000_000);
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", shared);
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", shared + TextFixtures.words(random, 1000, 1_000_000));
+        try (DocumentFrequencyTable table = DocumentFrequencyTable.open(tempFolder.getRoot().toPath().resolve("idf.df"),
+                PaperPlagiarismChecker.FINGERPRINT_VERSION)) {
+            PlagiarismEngine weighted = new PlagiarismEngine(null, table, Double.NaN);
+            table.addDocument(weighted.documentNgramKeys(shared));
+            CheckCascade.Outcome outcome = new CheckCascade(0.8, weighted).check(orig, copy, null);
+            assertNotEquals(CheckCascade.Stage.NGRAM_RATIO, outcome.stage());
+            assertEquals(weighted.check(orig, copy, null), outcome.result());
+        }
+    }
+
+    @Test
+    public void testCheck_BelowThresholdAndDetailedMatchCheckFiles() throws Exception {
+        Random random = new Random(5);
+        String base = TextFixtures.words(random, 200, 1_000_000);
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", base);
+        String different = TextFixtures.write(tempFolder.getRoot(), "different.txt", TextFixtures.words(random, 200, 1_000_000));
+        String nearCopy = TextFixtures.write(tempFolder.getRoot(), "near.txt", base + "w1 w2");
+        CheckCascade cascade = new CheckCascade(0.8, new PlagiarismEngine());
+
+        CheckCascade.Outcome below = cascade.check(orig, different, null);
+        assertEquals(CheckCascade.Stage.BELOW_THRESHOLD, below.stage());
+        assertEquals(new PlagiarismEngine().check(orig, different, null), below.result());
+
+        CheckCascade.Outcome detailed = cascade.check(orig, nearCopy, null);
+        assertEquals(CheckCascade.Stage.DETAILED, detailed.stage());
+        assertEquals(new PlagiarismEngine().check(orig, nearCopy, null), detailed.result());
+        assertEquals(detailed.result().rateString(), detailed.rateString());
+    }
+
+    @Test
+    public void testCheck_StoreFingerprintsSkipRatioBound() throws Exception {
+        // 双方指纹均来自指纹库时直接比较SimHash，不按n-gram数比估计
+        Random random = new Random(3);
+        String shared = TextFixtures.words(random, 100, 1_000_000);
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", shared);
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", shared + TextFixtures.words(random, 300, 1_000_000));
+        CheckCascade cascade = new CheckCascade(0.8, new PlagiarismEngine());
+        try (FingerprintStore store = FingerprintStore.open(tempFolder.getRoot().toPath().resolve("store.fp"))) {
+            CheckCascade.Outcome outcome = cascade.check(orig, copy, store);
+            assertEquals(CheckCascade.Stage.BELOW_THRESHOLD, outcome.stage());
+            assertEquals(new PlagiarismEngine().check(orig, copy, null).rateString(), outcome.rateString());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCascade_InvalidThreshold() {
+        new CheckCascade(1.5, new PlagiarismEngine());
+    }
+
+    // ====================== 测试 similarityBound() 函数 ======================
+
+    @Test
+    public void testSimilarityBound() {
+        assertEquals(1.0, CheckCascade.similarityBound(100, 100), 1e-9);
+        // n-gram数比1:4，余弦上界0.5，夹角π/3：期望不同位数64/3，再扣除3个标准差
+        double p = 1.0 / 3;
+        assertEquals(1.0 - (64 * p - 3 * Math.sqrt(64 * p * (1 - p))) / 64, CheckCascade.similarityBound(25, 100), 1e-9);
+        assertTrue(CheckCascade.similarityBound(25, 100) > 2.0 / 3);
+        // 数量比1:100时上界低于常用阈值
+        assertTrue(CheckCascade.similarityBound(10, 1000) < 0.75);
+        assertEquals(CheckCascade.similarityBound(100, 25), CheckCascade.similarityBound(25, 100), 0);
+        assertEquals(1.0, CheckCascade.similarityBound(0, 100), 1e-9);
+    }
+
+    // ====================== 测试 summary() 函数 ======================
+
+    @Test
+    public void testSummary_ListsEveryStage() throws Exception {
+        CheckCascade cascade = new CheckCascade(0.8, new PlagiarismEngine());
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", "abc def");
+        cascade.check(orig, orig, null);
+        assertEquals("级联（阈值80.00%）：内容完全相同 1 对，n-gram数比淘汰 0 对，SimHash低于阈值 0 对，详细分析 0 对",
+                cascade.summary());
+    }
+}
@@ -0,0 +1,267 @@
+package io.github.dududu1012.plagiarism;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// 服务模式：常驻JVM（JIT已预热）通过本地HTTP接口查重，每个请求在独立虚拟线程中执行。
+// POST /check 请求体为JSON：{"original": 原文, "copy": 抄袭文本} 或 {"originalPath": 路径, "copyPath": 路径}；
+// 启用 --metrics 时 GET /metrics 返回当前各阶段指标，进程退出时再输出到指定位置
+public class CheckServer {
+    static final String MODE_FLAG = "--server";
+    private static final int DEFAULT_PORT = 8080;
+    private static final int MAX_BODY_BYTES = 64 * 1024 * 1024;
+    private static final String USAGE = "参数错误！正确格式：\njava -jar main.jar --server [端口(默认" + DEFAULT_PORT + ")] [--store 指纹库] [--segment 词典文件|bigram] [--idf 词频表] [--minhash Jaccard阈值] [--metrics 指标文件|-]";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    // 各请求线程共用同一个引擎，复用其缓冲池
+    private final PlagiarismEngine engine;
+    private final FingerprintStore store;
+
+    private CheckServer(HttpServer server, ExecutorService executor, PlagiarismEngine engine, FingerprintStore store) {
+        this.server = server;
+        this.executor = executor;
+        this.engine = engine;
+        this.store = store;
+    }
+
+    public static void run(String[] rawArgs) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        String[] args = PaperPlagiarismChecker.parseOptions(rawArgs, options);
+        if (args.length > 1) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        int port = args.length == 1 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+
+        CheckServer checkServer = start(port, PlagiarismEngine.fromOptions(options), PaperPlagiarismChecker.openStore(options));
+        Runtime.getRuntime().addShutdownHook(new Thread(checkServer::stop));
+        System.out.println("查重服务已启动：http://" + checkServer.server.getAddress().getHostString() + ":" + checkServer.port() + "/check");
+    }
+
+    // 仅监听本机回环地址；port为0时由系统分配
+    static CheckServer start(int port, PlagiarismEngine engine, FingerprintStore store) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CheckServer checkServer = new CheckServer(server, executor, engine, store);
+        server.createContext("/check", checkServer::handleCheck);
+        server.createContext("/health", exchange -> respond(exchange, 200, "{\"status\":\"ok\"}"));
+        server.createContext("/metrics", CheckServer::handleMetrics);
+        server.setExecutor(executor);
+        server.start();
+        return checkServer;
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdown();
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.err.println("指纹库关闭失败：" + e.getMessage());
+            }
+        }
+    }
+
+    private void handleCheck(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, errorJson("仅支持POST请求"));
+                return;
+            }
+            Map<String, String> request = parseJsonObject(readBody(exchange));
+            PaperPlagiarismChecker.CheckResult result;
+            if (request.containsKey("originalPath") || request.containsKey("copyPath")) {
+                String originalPath = required(request, "originalPath");
+                String copyPath = required(request, "copyPath");
+                result = engine.check(originalPath, copyPath, store);
+            } else {
+                result = engine.check(required(request, "original"), required(request, "copy"));
+            }
+            respond(exchange, 200, toJson(result));
+        } catch (IllegalArgumentException | IOException e) {
+            respond(exchange, 400, errorJson(e.getMessage()));
+        } catch (RuntimeException e) {
+            PaperPlagiarismChecker.logError(e.toString());
+            respond(exchange, 500, errorJson(e.toString()));
+        }
+    }
+
+    private static void handleMetrics(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, errorJson("仅支持GET请求"));
+        } else if (!StageMetrics.enabled()) {
+            respond(exchange, 404, errorJson("未启用 --metrics"));
+        } else {
+            respond(exchange, 200, "text/plain; charset=utf-8", StageMetrics.summary());
+        }
+    }
+
+    static String toJson(PaperPlagiarismChecker.CheckResult result) {
+        return "{\"rate\":\"" + result.rateString() + "\""
+                + ",\"similarity\":" + result.similarity()
+                + ",\"hammingDistance\":" + result.hammingDistance()
+                + (Double.isNaN(result.jaccard()) ? "" : ",\"jaccard\":" + result.jaccard())
+                + ",\"nGram\":" + result.nGram()
+                + ",\"original\":" + toJson(result.original())
+                + ",\"copy\":" + toJson(result.copy())
+                + "}";
+    }
+
+    private static String toJson(PaperPlagiarismChecker.Fingerprint fingerprint) {
+        return "{\"tokens\":" + fingerprint.tokenCount()
+                + ",\"ngrams\":" + fingerprint.ngramCount()
+                + ",\"simHash\":\"0x" + Long.toHexString(fingerprint.simHash()).toUpperCase() + "\"}";
+    }
+
+    private static String errorJson(String message) {
+        return "{\"error\":\"" + escapeJson(String.valueOf(message)) + "\"}";
+    }
+
+    private static String required(Map<String, String> request, String field) {
+        String value = request.get(field);
+        if (value == null) {
+            throw new IllegalArgumentException("缺少字段：" + field);
+        }
+        return value;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("请求体超过" + (MAX_BODY_BYTES >> 20) + "MB");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        respond(exchange, status, "application/json; charset=utf-8", json);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String content) throws IOException {
+        byte[] body = content.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // 解析只含字符串/数字/布尔/null字段的扁平JSON对象，值统一以字符串返回
+    static Map<String, String> parseJsonObject(String json) {
+        Map<String, String> fields = new HashMap<>();
+        int[] pos = {skipWhitespace(json, 0)};
+        expect(json, pos, '{');
+        if (peek(json, pos) == '}') {
+            pos[0]++;
+            return fields;
+        }
+        while (true) {
+            String key = parseString(json, pos);
+            expect(json, pos, ':');
+            String value = peek(json, pos) == '"' ? parseString(json, pos) : parseLiteral(json, pos);
+            fields.put(key, value);
+            char next = peek(json, pos);
+            pos[0] = skipWhitespace(json, pos[0] + 1);
+            if (next == '}') return fields;
+            if (next != ',') throw new IllegalArgumentException("JSON格式错误：多余字符'" + next + "'");
+        }
+    }
+
+    private static String parseString(String json, int[] pos) {
+        if (peek(json, pos) != '"') {
+            throw new IllegalArgumentException("JSON格式错误：位置" + pos[0] + "应为'\"'");
+        }
+        StringBuilder sb = new StringBuilder();
+        int i = pos[0] + 1;
+        while (i < json.length()) {
+            char c = json.charAt(i++);
+            if (c == '"') {
+                pos[0] = skipWhitespace(json, i);
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (i >= json.length()) break;
+            char esc = json.charAt(i++);
+            switch (esc) {
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (i + 4 > json.length()) throw new IllegalArgumentException("JSON转义不完整");
+                    sb.append((char) Integer.parseInt(json.substring(i, i + 4), 16));
+                    i += 4;
+                    break;
+                default: sb.append(esc);
+            }
+        }
+        throw new IllegalArgumentException("JSON字符串未结束");
+    }
+
+    private static String parseLiteral(String json, int[] pos) {
+        int start = pos[0];
+        int i = start;
+        while (i < json.length() && ",} \t\r\n".indexOf(json.charAt(i)) < 0) i++;
+        if (i == start) throw new IllegalArgumentException("JSON格式错误：位置" + start);
+        pos[0] = skipWhitespace(json, i);
+        String literal = json.substring(start, i);
+        return literal.equals("null") ? null : literal;
+    }
+
+    private static void expect(String json, int[] pos, char expected) {
+        if (peek(json, pos) != expected) {
+            throw new IllegalArgumentException("JSON格式错误：位置" + pos[0] + "应为'" + expected + "'");
+        }
+        pos[0] = skipWhitespace(json, pos[0] + 1);
+    }
+
+    private static char peek(String json, int[] pos) {
+        if (pos[0] >= json.length()) throw new IllegalArgumentException("JSON意外结束");
+        return json.charAt(pos[0]);
+    }
+
+    private static int skipWhitespace(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) i++;
+        return i;
+    }
+
+    static String escapeJson(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+public class CheckServerTest {
+
+    private CheckServer server;
+    private HttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = CheckServer.start(0, new PlagiarismEngine(), null);
+        client = HttpClient.newHttpClient();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+        StageMetrics.reset();
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + path)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + "/check"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    // ====================== 测试 /check 接口 ======================
+
+    @Test
+    public void testCheck_TextInput() throws Exception {
+        // 文本查重结果与直接调用引擎一致
+        String orig = "今天是星期天，天气晴，今晚我要去看电影";
+        String copy = "今天是周天，天气晴朗，我晚上要去看电影。";
+        HttpResponse<String> response = post("{\"original\": \"" + orig + "\", \"copy\": \"" + copy + "\"}");
+        assertEquals(200, response.statusCode());
+        PaperPlagiarismChecker.CheckResult expected = new PlagiarismEngine().check(orig, copy);
+        assertEquals(CheckServer.toJson(expected), response.body());
+    }
+
+    @Test
+    public void testCheck_MissingField() throws Exception {
+        HttpResponse<String> response = post("{\"original\": \"abc\"}");
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().contains("copy"));
+    }
+
+    @Test
+    public void testCheck_MissingFile() throws Exception {
+        HttpResponse<String> response = post("{\"originalPath\": \"/no/such/file.txt\", \"copyPath\": \"/no/such/file.txt\"}");
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().contains("文件不存在"));
+    }
+
+    // ====================== 测试 /metrics 接口 ======================
+
+    @Test
+    public void testMetrics_ReflectsServedRequests() throws Exception {
+        // 服务运行期间指标随请求累计，未启用 --metrics 时返回404
+        assertEquals(404, get("/metrics").statusCode());
+        StageMetrics.enable();
+        assertEquals(200, post("{\"original\": \"今天是星期天\", \"copy\": \"今天是周天\"}").statusCode());
+        HttpResponse<String> response = get("/metrics");
+        assertEquals(200, response.statusCode());
+        assertEquals(StageMetrics.summary(), response.body());
+        assertTrue(response.body().contains(StageMetrics.Stage.TOKENIZE.label() + "：字节="));
+    }
+
+    // ====================== 测试 parseJsonObject() 函数 ======================
+
+    @Test
+    public void testParseJsonObject_EscapesAndLiterals() {
+        Map<String, String> fields = CheckServer.parseJsonObject(
+                " { \"a\" : \" x\\\"y\\n\\u4e2d\" , \"b\": 12, \"c\": null } ");
+        assertEquals(" x\"y\n中", fields.get("a"));
+        assertEquals("12", fields.get("b"));
+        assertTrue(fields.containsKey("c"));
+        assertNull(fields.get("c"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseJsonObject_Malformed() {
+        CheckServer.parseJsonObject("{\"a\": \"unterminated}");
+    }
+}
@@ -0,0 +1,166 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 中文分词阶段：接在TokenScanner之后，把整段汉字组成的token按词典正向最大匹配切分为词，
+// 词典中查不到的连续汉字退化为相邻二字组（单字时保留单字）；ASCII部分原样输出。
+// 词典为本地文本文件，每行第一列为词（兼容"词 词频 词性"格式），#开头为注释
+public final class CjkSegmenter {
+    static final String BIGRAM_ONLY = "bigram";
+    private static final int MAX_WORD_LENGTH = 16;
+
+    private final DoubleArrayTrie trie;
+    private final int id;
+
+    private CjkSegmenter(DoubleArrayTrie trie, int id) {
+        this.trie = trie;
+        this.id = id;
+    }
+
+    // --segment 的取值：词典文件路径，或 bigram 表示不用词典、全部按二字组切分
+    static CjkSegmenter fromOption(String value) throws IOException {
+        return BIGRAM_ONLY.equals(value) ? of(List.of()) : load(Path.of(value));
+    }
+
+    static CjkSegmenter load(Path dictionary) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(dictionary, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                int space = 0;
+                while (space < line.length() && !Character.isWhitespace(line.charAt(space))) space++;
+                words.add(line.substring(0, space));
+            }
+        }
+        return of(words);
+    }
+
+    // 只保留2~16个汉字的词：单字由兜底规则处理，含其他字符的词永远不会在汉字token中出现
+    static CjkSegmenter of(List<String> candidates) {
+        List<String> words = new ArrayList<>(candidates.size());
+        for (String word : candidates) {
+            if (word.length() >= 2 && word.length() <= MAX_WORD_LENGTH && allCjk(word)) words.add(word);
+        }
+        words.sort(null);
+        List<String> unique = new ArrayList<>(words.size());
+        for (String word : words) {
+            if (unique.isEmpty() || !unique.get(unique.size() - 1).equals(word)) unique.add(word);
+        }
+        byte[] joined = String.join("\n", unique).getBytes(StandardCharsets.UTF_8);
+        int id = (int) (PaperPlagiarismChecker.murmurHash3(joined, 0, joined.length) & 0xffffff) | 1;
+        return new CjkSegmenter(DoubleArrayTrie.build(unique), id);
+    }
+
+    // 词典内容的标识（24位，非0），参与指纹版本号，换词典后旧指纹自动失效
+    int id() {
+        return id;
+    }
+
+    int dictionarySize() {
+        return trie.size();
+    }
+
+    // 返回在downstream之前插入分词的TokenSink；每次扫描各自创建，不可跨线程共享
+    TokenScanner.TokenSink wrap(TokenScanner.TokenSink downstream) {
+        return new Sink(downstream);
+    }
+
+    private static boolean allCjk(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (!DoubleArrayTrie.isCjk(word.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private final class Sink implements TokenScanner.TokenSink {
+        private final TokenScanner.TokenSink downstream;
+        private char[] run = new char[64];
+        private byte[] out = new byte[MAX_WORD_LENGTH * 3];
+
+        Sink(TokenScanner.TokenSink downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void token(byte[] bytes, int offset, int length, long sourceStart, long sourceEnd) {
+            int end = offset + length;
+            int i = offset;
+            long source = sourceStart;
+            // 纯ASCII token直接透传
+            while (i < end && bytes[i] >= 0) i++;
+            if (i == end) {
+                downstream.token(bytes, offset, length, sourceStart, sourceEnd);
+                return;
+            }
+            i = offset;
+            while (i < end) {
+                if (bytes[i] >= 0) {
+                    int runStart = i;
+                    while (i < end && bytes[i] >= 0) i++;
+                    downstream.token(bytes, runStart, i - runStart, source, source + (i - runStart));
+                    source += i - runStart;
+                } else {
+                    int chars = 0;
+                    while (i < end && bytes[i] < 0) {
+                        if (chars == run.length) run = Arrays.copyOf(run, chars * 2);
+                        run[chars++] = (char) (((bytes[i] & 0x0f) << 12) | ((bytes[i + 1] & 0x3f) << 6) | (bytes[i + 2] & 0x3f));
+                        i += 3;
+                    }
+                    segment(chars, source);
+                    source += chars;
+                }
+            }
+        }
+
+        // 正向最大匹配；未登录的连续汉字整体按二字组输出
+        private void segment(int chars, long source) {
+            int unknownStart = -1;
+            int i = 0;
+            while (i < chars) {
+                int match = trie.longestMatch(run, i, chars);
+                if (match >= 2) {
+                    if (unknownStart >= 0) {
+                        emitUnknown(unknownStart, i, source);
+                        unknownStart = -1;
+                    }
+                    emit(i, match, source);
+                    i += match;
+                } else {
+                    if (unknownStart < 0) unknownStart = i;
+                    i++;
+                }
+            }
+            if (unknownStart >= 0) emitUnknown(unknownStart, chars, source);
+        }
+
+        private void emitUnknown(int from, int to, long source) {
+            if (to - from == 1) {
+                emit(from, 1, source);
+                return;
+            }
+            for (int k = from; k < to - 1; k++) {
+                emit(k, 2, source);
+            }
+        }
+
+        private void emit(int from, int count, long source) {
+            int n = 0;
+            for (int k = from; k < from + count; k++) {
+                char c = run[k];
+                out[n++] = (byte) (0xe0 | (c >>> 12));
+                out[n++] = (byte) (0x80 | ((c >>> 6) & 0x3f));
+                out[n++] = (byte) (0x80 | (c & 0x3f));
+            }
+            downstream.token(out, 0, n, source + from, source + from + count);
+        }
+    }
+}
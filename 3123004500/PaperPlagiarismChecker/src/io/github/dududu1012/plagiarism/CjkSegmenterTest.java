@@ -0,0 +1,95 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CjkSegmenterTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    // 收集分词结果：token文本及其原文区间
+    private static List<String> segment(CjkSegmenter segmenter, String text) {
+        List<String> tokens = new ArrayList<>();
+        TokenScanner scanner = new TokenScanner(segmenter.wrap((bytes, offset, length, start, end) ->
+                tokens.add(new String(bytes, offset, length, StandardCharsets.UTF_8) + "@" + start + "-" + end)));
+        scanner.feed(text);
+        scanner.finish();
+        return tokens;
+    }
+
+    // ====================== 测试 wrap() 分词 ======================
+
+    @Test
+    public void testWrap_ForwardMaximumMatching() {
+        CjkSegmenter segmenter = CjkSegmenter.of(List.of("论文", "查重", "查重系统", "系统"));
+        assertEquals(List.of("论文@0-2", "查重系统@2-6"), segment(segmenter, "论文查重系统"));
+    }
+
+    @Test
+    public void testWrap_UnknownCharactersFallBackToBigrams() {
+        CjkSegmenter segmenter = CjkSegmenter.of(List.of("论文"));
+        // 未登录片段"今天天气"按二字组输出，孤立的单字保留单字
+        assertEquals(List.of("今天@0-2", "天天@1-3", "天气@2-4", "论文@4-6", "好@6-7"),
+                segment(segmenter, "今天天气论文好"));
+    }
+
+    @Test
+    public void testWrap_AsciiPassesThroughWithSourceOffsets() {
+        CjkSegmenter segmenter = CjkSegmenter.of(List.of("算法"));
+        // 字母与汉字相连时拆开；原文区间跳过标点
+        assertEquals(List.of("simhash@0-7", "算法@7-9", "is@10-12", "fast@13-17"),
+                segment(segmenter, "SimHash算法，is fast"));
+    }
+
+    // ====================== 测试 load() 函数 ======================
+
+    @Test
+    public void testLoad_ReadsFirstColumnAndSkipsInvalidLines() throws Exception {
+        File dict = tempFolder.newFile("dict.txt");
+        Files.writeString(dict.toPath(), "# 注释\n查重 100 n\n系统\t50\n\nSimHash 10\n单\n", StandardCharsets.UTF_8);
+
+        CjkSegmenter segmenter = CjkSegmenter.load(dict.toPath());
+
+        assertEquals(2, segmenter.dictionarySize());
+        assertEquals(List.of("查重@0-2", "系统@2-4"), segment(segmenter, "查重系统"));
+        // 相同词典得到相同标识
+        assertEquals(CjkSegmenter.of(List.of("系统", "查重")).id(), segmenter.id());
+        assertNotEquals(CjkSegmenter.of(List.of()).id(), segmenter.id());
+    }
+
+    // ====================== 测试 分词对查重流程的影响 ======================
+
+    @Test
+    public void testSegmenter_AppliesToPreprocessAndFingerprintVersion() throws Exception {
+        PlagiarismEngine plain = new PlagiarismEngine();
+        assertEquals("今天天气很好", plain.preprocessText("今天天气很好"));
+
+        PlagiarismEngine segmented = new PlagiarismEngine(CjkSegmenter.fromOption(CjkSegmenter.BIGRAM_ONLY), null, Double.NaN);
+
+        assertEquals("今天 天天 天气 气很 很好", segmented.preprocessText("今天天气很好"));
+        assertNotEquals(plain.fingerprintVersion(), segmented.fingerprintVersion());
+    }
+
+    @Test
+    public void testSegmenter_SingleCharacterEditStaysLocal() {
+        // 不分词时整句是一个token，改一个字即完全不同；分词后大部分n-gram保留
+        String original = "本文提出了一种基于局部敏感哈希的论文查重方法并在真实数据集上验证了其有效性";
+        String copy = "本文提出了一种基于局部敏感哈希的论文查重算法并在真实数据集上验证了其有效性";
+        double plain = new PlagiarismEngine().check(original, copy).similarity();
+
+        CjkSegmenter segmenter = CjkSegmenter.of(List.of("本文", "提出", "一种", "基于", "局部",
+                "敏感", "哈希", "论文", "查重", "方法", "算法", "真实", "数据集", "验证", "有效性"));
+        double segmented = new PlagiarismEngine(segmenter, null, Double.NaN).check(original, copy).similarity();
+
+        assertTrue("分词前" + plain + " 分词后" + segmented, segmented > plain);
+        assertTrue(segmented >= 0.75);
+    }
+}
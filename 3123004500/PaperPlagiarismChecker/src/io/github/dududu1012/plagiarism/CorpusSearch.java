@@ -0,0 +1,179 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// 语料库模式：一篇待查文档对比整个语料库（1对N），语料指纹建成SimHashIndex后按海明距离检索；
+// 启用 --minhash 时另建MinHashIndex，估计Jaccard达到阈值的文档也作为匹配输出
+public class CorpusSearch {
+    static final String MODE_FLAG = "--corpus";
+    private static final int DEFAULT_MAX_DISTANCE = 3;
+    private static final String TOP_OPTION = "--top";
+    private static final String USAGE = "参数错误！正确格式：\njava -jar main.jar --corpus [语料目录或路径清单] [待查文件] [结果文件] [最大海明距离(默认"
+            + DEFAULT_MAX_DISTANCE + ")] [--top K] [--store 指纹库] [--segment 词典文件|bigram] [--idf 词频表] [--minhash Jaccard阈值]";
+
+    private final List<String> docPaths;
+    private final SimHashIndex index;
+    private final MinHashIndex minHashIndex;
+
+    private CorpusSearch(List<String> docPaths, SimHashIndex index, MinHashIndex minHashIndex) {
+        this.docPaths = docPaths;
+        this.index = index;
+        this.minHashIndex = minHashIndex;
+    }
+
+    public static void run(String[] rawArgs) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        String[] args = PaperPlagiarismChecker.parseOptions(rawArgs, options);
+        if (args.length != 3 && args.length != 4) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        String corpusPath = args[0];
+        String queryPath = args[1];
+        String resultPath = args[2];
+        int maxDistance = args.length == 4 ? Integer.parseInt(args[3]) : DEFAULT_MAX_DISTANCE;
+        // --top K：输出最接近的K篇，不受最大海明距离限制
+        int top = options.containsKey(TOP_OPTION) ? Integer.parseInt(options.get(TOP_OPTION)) : 0;
+
+        PlagiarismEngine engine = PlagiarismEngine.fromOptions(options);
+        try (FingerprintStore store = PaperPlagiarismChecker.openStore(options)) {
+            search(corpusPath, queryPath, resultPath, maxDistance, top, engine, store);
+        }
+    }
+
+    private static void search(String corpusPath, String queryPath, String resultPath, int maxDistance, int top,
+                               PlagiarismEngine engine, FingerprintStore store) throws IOException {
+        long buildStart = System.nanoTime();
+        CorpusSearch search = build(listCorpus(corpusPath), maxDistance, engine, store);
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        long queryStart = System.nanoTime();
+        PaperPlagiarismChecker.Fingerprint query = engine.loadFingerprint(queryPath, store);
+        List<SimHashIndex.Match> matches = top > 0
+                ? search.index.nearest(query.simHash(), top)
+                : search.index.query(query.simHash());
+        List<MinHashIndex.Match> jaccardMatches = search.minHashIndex == null
+                ? List.of() : search.minHashIndex.query(query.minHash());
+        long queryMicros = (System.nanoTime() - queryStart) / 1_000;
+
+        BitSet reported = new BitSet(search.index.size());
+        for (SimHashIndex.Match match : matches) {
+            reported.set(match.docId());
+            report(search, match.docId(), match.similarity(), query, queryPath, resultPath);
+        }
+        int jaccardOnly = 0;
+        for (MinHashIndex.Match match : jaccardMatches) {
+            if (reported.get(match.docId())) continue;
+            int dist = PaperPlagiarismChecker.calculateHammingDistance(query.simHash(), search.index.fingerprint(match.docId()));
+            report(search, match.docId(), PaperPlagiarismChecker.calculateSimHashSimilarity(dist), query, queryPath, resultPath);
+            jaccardOnly++;
+        }
+        System.out.println("语料库文档数：" + search.index.size() + "，建索引耗时：" + buildMillis + "ms");
+        System.out.println((top > 0 ? "最接近的" + top + "篇" : "海明距离<=" + maxDistance)
+                + "的匹配数：" + matches.size() + "，查询耗时：" + queryMicros + "μs");
+        if (search.minHashIndex != null) {
+            System.out.println("估计Jaccard>=" + search.minHashIndex.threshold() + "的匹配数：" + jaccardMatches.size()
+                    + "（其中仅由MinHash检出：" + jaccardOnly + "）");
+        }
+    }
+
+    // 一条匹配记录：SimHash重复率，启用MinHash时附带估计Jaccard
+    private static void report(CorpusSearch search, int docId, double similarity,
+                               PaperPlagiarismChecker.Fingerprint query, String queryPath, String resultPath) {
+        String jaccardStr = search.minHashIndex == null ? null
+                : PaperPlagiarismChecker.formatRate(search.minHashIndex.similarity(query.minHash(), docId));
+        PaperPlagiarismChecker.appendResultAsRecord(search.docPaths.get(docId), queryPath,
+                PaperPlagiarismChecker.formatRate(similarity), jaccardStr, resultPath);
+    }
+
+    // 并行计算语料指纹并建索引，文档编号即docPaths下标（读取失败而跳过的文档不占编号）；
+    // 提供指纹库时已入库且未变化的文档直接复用
+    static CorpusSearch build(List<String> docPaths, int maxDistance, PlagiarismEngine engine, FingerprintStore store) {
+        Corpus corpus = loadCorpus(docPaths, engine, store);
+        PaperPlagiarismChecker.Fingerprint[] loaded = corpus.fingerprints();
+        long[] fingerprints = Arrays.stream(loaded).mapToLong(PaperPlagiarismChecker.Fingerprint::simHash).toArray();
+        MinHashIndex minHashIndex = engine.minHashEnabled()
+                ? MinHashIndex.build(Arrays.stream(loaded).map(PaperPlagiarismChecker.Fingerprint::minHash).toArray(int[][]::new),
+                        engine.minHashThreshold())
+                : null;
+        return new CorpusSearch(corpus.docPaths(), SimHashIndex.build(fingerprints, maxDistance), minHashIndex);
+    }
+
+    // 成功取得指纹的语料文档，两者下标一一对应
+    record Corpus(List<String> docPaths, PaperPlagiarismChecker.Fingerprint[] fingerprints) {
+    }
+
+    // 并行计算语料指纹；单篇文档读取失败（不可读、已被删除等）时记录日志并跳过，不中断整个语料库
+    static Corpus loadCorpus(List<String> docPaths, PlagiarismEngine engine, FingerprintStore store) {
+        PaperPlagiarismChecker.Fingerprint[] fingerprints = loadFingerprints(docPaths, engine, store);
+        List<String> loadedPaths = new ArrayList<>(docPaths.size());
+        List<PaperPlagiarismChecker.Fingerprint> loaded = new ArrayList<>(docPaths.size());
+        for (int i = 0; i < fingerprints.length; i++) {
+            if (fingerprints[i] == null) continue;
+            loadedPaths.add(docPaths.get(i));
+            loaded.add(fingerprints[i]);
+        }
+        int skipped = docPaths.size() - loadedPaths.size();
+        if (skipped > 0) {
+            System.err.println("提示：" + skipped + "篇语料文档读取失败，已跳过（详见查重记录.log）");
+        }
+        return new Corpus(loadedPaths, loaded.toArray(new PaperPlagiarismChecker.Fingerprint[0]));
+    }
+
+    // 并行计算语料指纹，下标即docPaths下标，读取失败的文档为null；提供指纹库时已入库且未变化的文档直接复用
+    static PaperPlagiarismChecker.Fingerprint[] loadFingerprints(List<String> docPaths, PlagiarismEngine engine,
+                                                                 FingerprintStore store) {
+        PaperPlagiarismChecker.Fingerprint[] fingerprints = new PaperPlagiarismChecker.Fingerprint[docPaths.size()];
+        IntStream.range(0, docPaths.size()).parallel().forEach(i -> {
+            try {
+                fingerprints[i] = engine.loadFingerprint(docPaths.get(i), store);
+            } catch (IOException | RuntimeException e) {
+                PaperPlagiarismChecker.logError("语料指纹计算失败：" + docPaths.get(i) + "：" + e.getMessage());
+            }
+        });
+        return fingerprints;
+    }
+
+    // 语料来源：目录则递归收集其中的.txt文件；普通文件则每行一个文档路径
+    static List<String> listCorpus(String corpusPath) throws IOException {
+        File corpus = new File(corpusPath);
+        if (corpus.isDirectory()) {
+            try (Stream<Path> files = Files.walk(corpus.toPath())) {
+                return files.filter(Files::isRegularFile)
+                        .filter(p -> p.getFileName().toString().endsWith(".txt"))
+                        .map(Path::toString)
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        }
+        PaperPlagiarismChecker.validateFile(corpusPath);
+        try (Stream<String> lines = Files.lines(Paths.get(corpusPath), StandardCharsets.UTF_8)) {
+            return lines.map(String::trim).filter(line -> !line.isEmpty()).collect(Collectors.toList());
+        }
+    }
+
+    List<String> docPaths() {
+        return docPaths;
+    }
+
+    SimHashIndex index() {
+        return index;
+    }
+
+    MinHashIndex minHashIndex() {
+        return minHashIndex;
+    }
+}
@@ -0,0 +1,436 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 语料文档频率表：n-gram键 → 包含该n-gram的文档数。单个文件内的开放寻址表（long键区 + int计数区），
+// 整体内存映射，不占用堆内存；新论文入库时原地累加，负载超过0.5时写入新文件后原子替换。
+// 加权SimHash按 idf = ln((N+1)/(df+1)) + 1 缩放每个n-gram的贡献，套话类n-gram的权重随之降低。
+// 已入库文档的规范化路径逐行记在旁边的 .docs 文件中，同一文档重复入库时跳过，文档数与指纹版本保持不变；
+// 该文件不会被替换，入库时持有其StoreLock，多个进程可同时向同一词频表入库
+public class DocumentFrequencyTable implements Closeable {
+    static final String MODE_FLAG = "--df";
+    private static final String USAGE = "参数错误！正确格式：\njava -jar main.jar --df [词频表文件] [语料目录或路径清单] [--segment 词典文件|bigram]";
+
+    private static final int MAGIC = 0x44465431; // "DFT1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int MAX_CAPACITY = 1 << 27;
+    // idf以定点数参与累加：整数加法与顺序无关，并行累加的结果确定
+    static final int WEIGHT_SCALE = 1 << 8;
+
+    // 文件头字段偏移
+    private static final int H_MAGIC = 0;
+    private static final int H_FORMAT = 4;
+    private static final int H_CAPACITY = 8;
+    private static final int H_KEY_VERSION = 12;
+    private static final int H_SIZE = 16;
+    private static final int H_DOCUMENTS = 24;
+    private static final int H_ZERO_DF = 32;
+
+    private final Path path;
+    private final Path docsPath;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final FileChannel docsChannel;
+    // 已入库文档的规范化路径，及 .docs 文件中已读入的字节数
+    private final Set<String> ingested = new HashSet<>();
+    private long docsRead;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private long size;
+    private long documents;
+
+    private DocumentFrequencyTable(Path path, FileChannel docsChannel) {
+        this.path = path;
+        this.docsPath = docsPath(path);
+        this.docsChannel = docsChannel;
+    }
+
+    // 打开（或新建）词频表；keyVersion标识n-gram键的生成方式（分词与哈希），与表中记录的不一致时拒绝使用
+    public static DocumentFrequencyTable open(Path path, int keyVersion) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        DocumentFrequencyTable table = new DocumentFrequencyTable(path, FileChannel.open(docsPath(path),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        try {
+            StoreLock.run(table.docsPath, table.docsChannel, Long.MAX_VALUE, () -> {
+                if (!Files.exists(path) || Files.size(path) == 0) {
+                    writeEmpty(path, INITIAL_CAPACITY, keyVersion);
+                }
+                table.map();
+                int storedVersion = table.buffer.getInt(H_KEY_VERSION);
+                if (storedVersion != keyVersion) {
+                    if (table.documents > 0) {
+                        throw new IOException("词频表的n-gram键版本（" + storedVersion + "）与当前分词/哈希配置（" + keyVersion
+                                + "）不一致，请使用相同的--segment配置或重建词频表：" + path.toAbsolutePath());
+                    }
+                    table.buffer.putInt(H_KEY_VERSION, keyVersion);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            table.close();
+            throw e;
+        }
+        return table;
+    }
+
+    // 含其他进程已提交的入库，指纹版本随之变化
+    public long documentCount() {
+        refreshIfChanged();
+        lock.readLock().lock();
+        try {
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 不同n-gram键的个数
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int df(long key) {
+        lock.readLock().lock();
+        try {
+            return dfUnlocked(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 一篇文档的n-gram键集合入库：每个键的文档频率加1，最后提交文档数
+    public void addDocument(LongHashSet keys) throws IOException {
+        lock.writeLock().lock();
+        try {
+            StoreLock.run(docsPath, docsChannel, Long.MAX_VALUE, () -> {
+                refresh();
+                addUnlocked(keys);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 按规范化路径入库：该文档已入库（含其他进程入库）时不再计数，返回false
+    public boolean addDocument(String canonicalPath, LongHashSet keys) throws IOException {
+        lock.writeLock().lock();
+        try {
+            return crossProcessLocked(() -> {
+                refresh();
+                if (ingested.contains(canonicalPath)) return false;
+                // 路径先于计数落盘，同一文档不会被重复计数；但df是逐键累加的，中途退出时路径已登记、
+                // 部分键的df已加1而文档数未加，这些键的idf略偏低，需要精确权重时重建词频表
+                byte[] line = (canonicalPath + "\n").getBytes(StandardCharsets.UTF_8);
+                ByteBuffer out = ByteBuffer.wrap(line);
+                long position = docsChannel.size();
+                while (out.hasRemaining()) {
+                    docsChannel.write(out, position + out.position());
+                }
+                docsRead = position + line.length;
+                ingested.add(canonicalPath);
+                addUnlocked(keys);
+                return true;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 该路径是否已入库，用于入库前跳过n-gram提取（入库时仍会在锁内再次确认）
+    public boolean contains(String canonicalPath) throws IOException {
+        lock.writeLock().lock();
+        try {
+            return crossProcessLocked(() -> {
+                readIngested();
+                return ingested.contains(canonicalPath);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 加权SimHash：先同步其他进程的入库，整个累加过程持有读锁，期间入库不会修改计数
+    long weightedSimHash(LongHashSet keys) {
+        refreshIfChanged();
+        lock.readLock().lock();
+        try {
+            long n = documents;
+            return SimHashAccumulator.weightedSimHash(keys, key -> weight(dfUnlocked(key), n));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 加权SimHash与MinHash签名同一遍计算（签名不加权）
+    SimHashAccumulator.Sketch weightedSketch(LongHashSet keys) {
+        refreshIfChanged();
+        lock.readLock().lock();
+        try {
+            long n = documents;
+            return SimHashAccumulator.sketch(keys, key -> weight(dfUnlocked(key), n));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 平滑idf的定点值：空表时所有权重相同，结果与不加权一致
+    static int weight(int df, long documents) {
+        double idf = Math.log((documents + 1.0) / (df + 1.0)) + 1.0;
+        return (int) Math.round(idf * WEIGHT_SCALE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (channel != null && channel.isOpen()) {
+                buffer.force();
+                channel.close();
+            }
+            docsChannel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 入库模式：把语料中每篇文档的全部粒度n-gram键计入词频表
+    public static void run(String[] rawArgs) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        String[] args = PaperPlagiarismChecker.parseOptions(rawArgs, options);
+        if (args.length != 2) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        PlagiarismEngine engine = PlagiarismEngine.fromOptions(options);
+        List<String> docPaths = CorpusSearch.listCorpus(args[1]);
+        LongAdder failed = new LongAdder();
+        LongAdder skipped = new LongAdder();
+        long start = System.nanoTime();
+        try (DocumentFrequencyTable table = open(Paths.get(args[0]), engine.ngramKeyVersion())) {
+            docPaths.parallelStream().forEach(docPath -> {
+                try {
+                    String canonicalPath = new File(docPath).getCanonicalPath();
+                    if (table.contains(canonicalPath) || !table.addDocument(canonicalPath,
+                            engine.documentNgramKeys(PaperPlagiarismChecker.readFile(docPath)))) {
+                        skipped.increment();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failed.increment();
+                    PaperPlagiarismChecker.logError("词频表入库失败：" + docPath + "：" + e.getMessage());
+                }
+            });
+            System.out.println("入库文档数：" + (docPaths.size() - failed.sum() - skipped.sum()) + "，已入库跳过："
+                    + skipped.sum() + "，失败：" + failed.sum() + "，耗时：" + (System.nanoTime() - start) / 1_000_000 + "ms");
+            System.out.println("词频表累计文档数：" + table.documentCount() + "，不同n-gram数：" + table.size());
+        }
+    }
+
+    private void addUnlocked(LongHashSet keys) throws IOException {
+        if (capacityFor(size + keys.size()) > capacity) {
+            resize(capacityFor(size + keys.size()));
+        }
+        keys.forEach(this::increment);
+        documents++;
+        buffer.putLong(H_SIZE, size);
+        buffer.putLong(H_DOCUMENTS, documents);
+    }
+
+    // 词频表文件扩容时会被替换，因此锁在不会被替换的 .docs 文件上
+    private <T> T crossProcessLocked(StoreLock.Body<T> body) throws IOException {
+        return StoreLock.call(docsPath, docsChannel, Long.MAX_VALUE, body);
+    }
+
+    // 文件头中的文档数与本地不同（其他进程入库），或表文件已被扩容替换时，在锁内同步；
+    // 都未变时只是一次文件头读取与一次stat，不取跨进程锁
+    private void refreshIfChanged() {
+        lock.readLock().lock();
+        try {
+            if (buffer.getLong(H_DOCUMENTS) == documents && Files.size(path) == fileSize(capacity)) return;
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取词频表失败：" + path, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            StoreLock.run(docsPath, docsChannel, Long.MAX_VALUE, this::refresh);
+        } catch (IOException e) {
+            throw new UncheckedIOException("同步词频表失败：" + path, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 持锁时同步其他进程的入库：表文件被其他进程扩容替换（大小与当前映射不符）时重新映射，否则重读计数
+    private void refresh() throws IOException {
+        readIngested();
+        if (Files.size(path) != fileSize(capacity)) {
+            channel.close();
+            map();
+        } else {
+            size = buffer.getLong(H_SIZE);
+            documents = buffer.getLong(H_DOCUMENTS);
+        }
+    }
+
+    // 读入 .docs 文件中新增的完整行
+    private void readIngested() throws IOException {
+        long end = docsChannel.size();
+        if (end <= docsRead) return;
+        ByteBuffer in = ByteBuffer.allocate(Math.toIntExact(end - docsRead));
+        while (in.hasRemaining()) {
+            if (docsChannel.read(in, docsRead + in.position()) < 0) break;
+        }
+        byte[] bytes = in.array();
+        int lineStart = 0;
+        for (int i = 0; i < in.position(); i++) {
+            if (bytes[i] != '\n') continue;
+            ingested.add(new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8));
+            lineStart = i + 1;
+        }
+        docsRead += lineStart;
+    }
+
+    private int dfUnlocked(long key) {
+        if (key == 0) return buffer.getInt(H_ZERO_DF);
+        int mask = capacity - 1;
+        for (int slot = slotOf(key, mask); ; slot = (slot + 1) & mask) {
+            long stored = buffer.getLong(keyOffset(slot));
+            if (stored == key) return buffer.getInt(dfOffset(slot));
+            if (stored == 0) return 0;
+        }
+    }
+
+    private void increment(long key) {
+        if (key == 0) {
+            int df = buffer.getInt(H_ZERO_DF);
+            if (df == 0) size++;
+            buffer.putInt(H_ZERO_DF, df + 1);
+            return;
+        }
+        int mask = capacity - 1;
+        for (int slot = slotOf(key, mask); ; slot = (slot + 1) & mask) {
+            long stored = buffer.getLong(keyOffset(slot));
+            if (stored == key) {
+                buffer.putInt(dfOffset(slot), buffer.getInt(dfOffset(slot)) + 1);
+                return;
+            }
+            if (stored == 0) {
+                buffer.putLong(keyOffset(slot), key);
+                buffer.putInt(dfOffset(slot), 1);
+                size++;
+                return;
+            }
+        }
+    }
+
+    // 写入更大的新文件后原子替换，中途退出时原文件保持完好
+    private void resize(int newCapacity) throws IOException {
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IOException("词频表容量已达上限：" + size);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        writeEmpty(temp, newCapacity, buffer.getInt(H_KEY_VERSION));
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer target = out.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(newCapacity));
+            int mask = newCapacity - 1;
+            for (int slot = 0; slot < capacity; slot++) {
+                long key = buffer.getLong(keyOffset(slot));
+                if (key == 0) continue;
+                int newSlot = slotOf(key, mask);
+                while (target.getLong(HEADER_SIZE + newSlot * 8) != 0) newSlot = (newSlot + 1) & mask;
+                target.putLong(HEADER_SIZE + newSlot * 8, key);
+                target.putInt(HEADER_SIZE + newCapacity * 8 + newSlot * 4, buffer.getInt(dfOffset(slot)));
+            }
+            target.putLong(H_SIZE, size);
+            target.putLong(H_DOCUMENTS, documents);
+            target.putInt(H_ZERO_DF, buffer.getInt(H_ZERO_DF));
+            target.force();
+        }
+        channel.close();
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        map();
+    }
+
+    private void map() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        int storedCapacity = header.getInt(H_CAPACITY);
+        if (header.getInt(H_MAGIC) != MAGIC || header.getInt(H_FORMAT) != FORMAT_VERSION
+                || Integer.bitCount(storedCapacity) != 1 || channel.size() < fileSize(storedCapacity)) {
+            channel.close();
+            throw new IOException("不是有效的词频表文件：" + path.toAbsolutePath());
+        }
+        capacity = storedCapacity;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+        size = buffer.getLong(H_SIZE);
+        documents = buffer.getLong(H_DOCUMENTS);
+    }
+
+    private static Path docsPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".docs");
+    }
+
+    private static void writeEmpty(Path file, int capacity, int keyVersion) throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer header = out.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+            header.putInt(H_MAGIC, MAGIC);
+            header.putInt(H_FORMAT, FORMAT_VERSION);
+            header.putInt(H_CAPACITY, capacity);
+            header.putInt(H_KEY_VERSION, keyVersion);
+            header.force();
+        }
+    }
+
+    private int keyOffset(int slot) {
+        return HEADER_SIZE + slot * 8;
+    }
+
+    private int dfOffset(int slot) {
+        return HEADER_SIZE + capacity * 8 + slot * 4;
+    }
+
+    private static long fileSize(int capacity) {
+        return HEADER_SIZE + capacity * 12L;
+    }
+
+    // 负载因子不超过0.5
+    private static int capacityFor(long keys) {
+        long needed = Math.max(INITIAL_CAPACITY, keys * 2);
+        return (int) Math.min(Long.highestOneBit(needed - 1) << 1, Integer.MAX_VALUE);
+    }
+
+    // 键已是充分混合的哈希值，直接取低位
+    private static int slotOf(long key, int mask) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
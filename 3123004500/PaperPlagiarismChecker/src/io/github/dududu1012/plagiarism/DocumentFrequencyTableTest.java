@@ -0,0 +1,208 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class DocumentFrequencyTableTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static final PlagiarismEngine PLAIN = new PlagiarismEngine();
+
+    private DocumentFrequencyTable openTable;
+
+    @After
+    public void reset() throws IOException {
+        if (openTable != null) openTable.close();
+    }
+
+    private static LongHashSet keys(long... values) {
+        LongHashSet set = new LongHashSet();
+        for (long value : values) set.add(value);
+        return set;
+    }
+
+    // ====================== 测试 addDocument() / df() 函数 ======================
+
+    @Test
+    public void testAddDocument_CountsAndPersists() throws Exception {
+        Path path = tempFolder.getRoot().toPath().resolve("df").resolve("corpus.df");
+        int version = PLAIN.ngramKeyVersion();
+        try (DocumentFrequencyTable table = DocumentFrequencyTable.open(path, version)) {
+            table.addDocument(keys(1, 2, 3, 0));
+            table.addDocument(keys(2, 3));
+            table.addDocument(keys(3));
+            assertEquals(3, table.documentCount());
+            assertEquals(4, table.size());
+        }
+        try (DocumentFrequencyTable table = DocumentFrequencyTable.open(path, version)) {
+            assertEquals(3, table.documentCount());
+            assertEquals(1, table.df(1));
+            assertEquals(2, table.df(2));
+            assertEquals(3, table.df(3));
+            assertEquals(1, table.df(0));
+            assertEquals(0, table.df(42));
+            // 再次入库在原有计数上累加
+            table.addDocument(keys(1, 42));
+            assertEquals(2, table.df(1));
+            assertEquals(1, table.df(42));
+        }
+    }
+
+    @Test
+    public void testAddDocument_GrowsBeyondInitialCapacity() throws Exception {
+        Path path = tempFolder.getRoot().toPath().resolve("big.df");
+        int version = PLAIN.ngramKeyVersion();
+        Random random = new Random(9);
+        long[] all = new long[100_000];
+        for (int i = 0; i < all.length; i++) all[i] = random.nextLong();
+        try (DocumentFrequencyTable table = DocumentFrequencyTable.open(path, version)) {
+            for (int doc = 0; doc < 4; doc++) {
+                LongHashSet set = new LongHashSet();
+                for (int i = doc * 25_000; i < all.length; i++) set.add(all[i]);
+                table.addDocument(set);
+            }
+        }
+        try (DocumentFrequencyTable table = DocumentFrequencyTable.open(path, version)) {
+            assertEquals(all.length, table.size());
+            for (int i = 0; i < all.length; i += 997) {
+                assertEquals(i / 25_000 + 1, table.df(all[i]));
+            }
+        }
+        assertFalse(Files.exists(path.resolveSibling("big.df.tmp")));
+    }
+
+    @Test
+    public void testAddDocument_SharedTableSkipsIngestedPaths() throws Exception {
+        // 两个实例（相当于两个进程）共用一个词频表：对方已入库的路径不再计数，对方扩容替换文件后重新映射
+        Path path = tempFolder.getRoot().toPath().resolve("shared.df");
+        int version = PLAIN.ngramKeyVersion();
+        LongHashSet big = new LongHashSet();
+        Random random = new Random(4);
+        for (int i = 0; i < 50_000; i++) big.add(random.nextLong());
+        try (DocumentFrequencyTable a = DocumentFrequencyTable.open(path, version);
+             DocumentFrequencyTable b = DocumentFrequencyTable.open(path, version)) {
+            assertTrue(a.addDocument("/corpus/a.txt", keys(1, 2)));
+            assertTrue(b.contains("/corpus/a.txt"));
+            assertFalse(b.addDocument("/corpus/a.txt", keys(1, 2)));
+            assertTrue(a.addDocument("/corpus/big.txt", big));
+            assertTrue(b.addDocument("/corpus/b.txt", keys(2)));
+            assertEquals(3, b.documentCount());
+            assertEquals(2, b.df(2));
+            assertEquals(1, b.df(big.toArray()[123]));
+        }
+        try (DocumentFrequencyTable table = DocumentFrequencyTable.open(path, version)) {
+            assertEquals(3, table.documentCount());
+            assertEquals(1, table.df(1));
+        }
+    }
+
+    @Test
+    public void testWeightedSimHash_SeesOtherWritersIngest() throws Exception {
+        // b（相当于另一个进程）入库并扩容替换表文件后，a未做任何写操作，加权计算与文档数也按最新的表进行
+        Path path = tempFolder.getRoot().toPath().resolve("live.df");
+        int version = PLAIN.ngramKeyVersion();
+        LongHashSet big = new LongHashSet();
+        Random random = new Random(12);
+        for (int i = 0; i < 50_000; i++) big.add(random.nextLong());
+        LongHashSet query = keys(1, 2, 3, big.toArray()[7]);
+        try (DocumentFrequencyTable a = DocumentFrequencyTable.open(path, version);
+             DocumentFrequencyTable b = DocumentFrequencyTable.open(path, version)) {
+            a.addDocument(keys(1, 2));
+            long before = a.weightedSimHash(query);
+            b.addDocument(big);
+            b.addDocument(keys(2, 3));
+            assertEquals(3, a.documentCount());
+            assertEquals(b.weightedSimHash(query), a.weightedSimHash(query));
+            assertNotEquals(before, a.weightedSimHash(query));
+        }
+    }
+
+    @Test
+    public void testRun_ReingestingCorpusKeepsCounts() throws Exception {
+        // 同一语料再次入库时全部跳过：文档数不变，加权指纹版本也不变
+        File corpus = tempFolder.newFolder("corpus");
+        Random random = new Random(6);
+        for (int i = 0; i < 3; i++) {
+            Files.writeString(new File(corpus, "doc" + i + ".txt").toPath(), TextFixtures.words(random, 50, 100_000), StandardCharsets.UTF_8);
+        }
+        Path path = tempFolder.getRoot().toPath().resolve("run.df");
+        DocumentFrequencyTable.run(new String[]{path.toString(), corpus.getPath()});
+        openTable = DocumentFrequencyTable.open(path, PLAIN.ngramKeyVersion());
+        int version = new PlagiarismEngine(null, openTable, Double.NaN).fingerprintVersion();
+        openTable.close();
+        openTable = null;
+
+        DocumentFrequencyTable.run(new String[]{path.toString(), corpus.getPath()});
+        openTable = DocumentFrequencyTable.open(path, PLAIN.ngramKeyVersion());
+        assertEquals(3, openTable.documentCount());
+        assertEquals(version, new PlagiarismEngine(null, openTable, Double.NaN).fingerprintVersion());
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpen_RejectsDifferentKeyVersion() throws Exception {
+        Path path = tempFolder.getRoot().toPath().resolve("v.df");
+        try (DocumentFrequencyTable table = DocumentFrequencyTable.open(path, 3)) {
+            table.addDocument(keys(1));
+        }
+        DocumentFrequencyTable.open(path, 3 | 0x123 << 8).close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpen_RejectsForeignFile() throws Exception {
+        File file = tempFolder.newFile("not.df");
+        Files.writeString(file.toPath(), "这不是词频表".repeat(20), StandardCharsets.UTF_8);
+        DocumentFrequencyTable.open(file.toPath(), 3).close();
+    }
+
+    // ====================== 测试 加权SimHash ======================
+
+    @Test
+    public void testWeightedSimHash_EmptyTableMatchesUnweighted() throws Exception {
+        LongHashSet ngrams = PLAIN.documentNgramKeys("the quick brown fox jumps over the lazy dog");
+        long plain = PaperPlagiarismChecker.calculateSimHash(ngrams);
+        openTable = DocumentFrequencyTable.open(tempFolder.getRoot().toPath().resolve("empty.df"),
+                PLAIN.ngramKeyVersion());
+
+        assertEquals(plain, new PlagiarismEngine(null, openTable, Double.NaN).simHash(ngrams));
+    }
+
+    @Test
+    public void testWeightedSimHash_DiscountsSharedBoilerplate() throws Exception {
+        // 两篇只共享套话的无关文本：不加权时相似度偏高，语料中套话普遍出现后加权相似度明显下降
+        Random random = new Random(1);
+        String boilerplate = TextFixtures.words(random, 300, 100_000);
+        String original = boilerplate + TextFixtures.words(random, 150, 100_000);
+        String copy = boilerplate + TextFixtures.words(random, 150, 100_000);
+        double plain = PLAIN.check(original, copy).similarity();
+
+        openTable = DocumentFrequencyTable.open(tempFolder.getRoot().toPath().resolve("corpus.df"),
+                PLAIN.ngramKeyVersion());
+        for (int i = 0; i < 50; i++) {
+            openTable.addDocument(PLAIN.documentNgramKeys(boilerplate + TextFixtures.words(random, 150, 100_000)));
+        }
+        PlagiarismEngine engine = new PlagiarismEngine(null, openTable, Double.NaN);
+        double weighted = engine.check(original, copy).similarity();
+
+        assertTrue("不加权" + plain + " 加权" + weighted, weighted < plain - 0.1);
+        // 加权指纹与不加权指纹不会在指纹库中混用
+        assertNotEquals(PLAIN.fingerprintVersion(), engine.fingerprintVersion());
+    }
+
+    @Test
+    public void testWeight_RareNgramsWeighMore() {
+        assertEquals(DocumentFrequencyTable.WEIGHT_SCALE, DocumentFrequencyTable.weight(0, 0));
+        assertTrue(DocumentFrequencyTable.weight(1, 1000) > DocumentFrequencyTable.weight(900, 1000));
+        assertTrue(DocumentFrequencyTable.weight(1000, 1000) > 0);
+    }
+}
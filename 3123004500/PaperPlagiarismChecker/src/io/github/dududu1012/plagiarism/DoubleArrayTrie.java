@@ -0,0 +1,175 @@
+package io.github.dududu1012.plagiarism;
+
+import java.util.Arrays;
+import java.util.List;
+
+// 汉字词典的双数组Trie：状态s经字符c转移到 t = base[s] + code(c)，当且仅当 check[t] == s + 1。
+// 查询只有数组下标运算，没有对象与哈希，适合逐字的最长匹配
+final class DoubleArrayTrie {
+    private static final char FIRST = '一';
+    private static final char LAST = '龥';
+    private static final int MAX_FAILED_PROBES = 32;
+
+    private int[] base;
+    private int[] check;
+    private long[] terminal;
+    // 构建期使用：nextFree[i] 指向不小于i的空闲槽位（带路径压缩），查找base时只访问空闲槽位
+    private int[] nextFree;
+    // 多个子节点的base从这里开始找：前部剩下的零散空位很难同时容纳多个子节点，留给单子节点填补
+    private int multiChildStart;
+    private final int size;
+
+    private DoubleArrayTrie(int size) {
+        this.size = size;
+    }
+
+    // words须已排序且去重，每个词只含 一-龥 范围内的汉字
+    static DoubleArrayTrie build(List<String> words) {
+        DoubleArrayTrie trie = new DoubleArrayTrie(words.size());
+        int capacity = Math.max(LAST - FIRST + 2, words.size() * 4);
+        trie.base = new int[capacity];
+        trie.check = new int[capacity];
+        trie.terminal = new long[(capacity >>> 6) + 1];
+        trie.nextFree = new int[capacity + 1];
+        for (int i = 0; i <= capacity; i++) trie.nextFree[i] = i;
+        trie.nextFree[0] = 1;
+        if (!words.isEmpty()) {
+            trie.insert(0, words, 0, words.size(), 0);
+        }
+        trie.nextFree = null;
+        trie.trimToSize();
+        return trie;
+    }
+
+    static boolean isCjk(char c) {
+        return c >= FIRST && c <= LAST;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // text[from, to) 中以from开头的最长词的长度，没有词时返回0
+    int longestMatch(char[] text, int from, int to) {
+        int state = 0;
+        int best = 0;
+        for (int i = from; i < to; i++) {
+            char c = text[i];
+            if (!isCjk(c)) break;
+            int next = base[state] + code(c);
+            if (next >= check.length || check[next] != state + 1) break;
+            state = next;
+            if (isTerminal(state)) best = i - from + 1;
+        }
+        return best;
+    }
+
+    private static int code(char c) {
+        return c - FIRST + 1;
+    }
+
+    // 为节点parent安置words[lo, hi)在第depth个字符上的全部子节点，再递归处理每个子节点
+    private void insert(int parent, List<String> words, int lo, int hi, int depth) {
+        int start = lo;
+        // 已排序：恰好在depth处结束的词排在最前
+        while (start < hi && words.get(start).length() == depth) {
+            setTerminal(parent);
+            start++;
+        }
+        if (start == hi) return;
+
+        int[] codes = new int[16];
+        int[] childLo = new int[16];
+        int children = 0;
+        for (int i = start; i < hi; i++) {
+            int c = code(words.get(i).charAt(depth));
+            if (children == 0 || codes[children - 1] != c) {
+                if (children == codes.length) {
+                    codes = Arrays.copyOf(codes, children * 2);
+                    childLo = Arrays.copyOf(childLo, children * 2);
+                }
+                codes[children] = c;
+                childLo[children] = i;
+                children++;
+            }
+        }
+
+        int b = findBase(codes, children);
+        base[parent] = b;
+        for (int k = 0; k < children; k++) {
+            check[b + codes[k]] = parent + 1;
+            nextFree[b + codes[k]] = b + codes[k] + 1;
+        }
+        for (int k = 0; k < children; k++) {
+            int childHi = k + 1 < children ? childLo[k + 1] : hi;
+            insert(b + codes[k], words, childLo[k], childHi, depth + 1);
+        }
+    }
+
+    // 找到使所有子节点槽位都空闲的base：第一个子节点依次尝试各个空闲槽位
+    private int findBase(int[] codes, int children) {
+        int first = codes[0];
+        int last = codes[children - 1];
+        if (children == 1) return findFree(first + 1) - first;
+        int pos = findFree(Math.max(first + 1, multiChildStart + first));
+        int failed = 0;
+        while (true) {
+            int b = pos - first;
+            ensureCapacity(b + last + 1);
+            boolean fits = true;
+            for (int k = 1; k < children; k++) {
+                if (check[b + codes[k]] != 0) {
+                    fits = false;
+                    break;
+                }
+            }
+            if (fits) {
+                if (failed > MAX_FAILED_PROBES) multiChildStart = b;
+                return b;
+            }
+            failed++;
+            pos = findFree(pos + 1);
+        }
+    }
+
+    private int findFree(int from) {
+        ensureCapacity(from + 1);
+        int root = from;
+        while (nextFree[root] != root) root = nextFree[root];
+        while (nextFree[from] != root) {
+            int next = nextFree[from];
+            nextFree[from] = root;
+            from = next;
+        }
+        if (root >= check.length) ensureCapacity(root + 1);
+        return root;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= check.length) return;
+        int oldSize = check.length;
+        int newSize = Math.max(needed, oldSize + (oldSize >>> 1));
+        base = Arrays.copyOf(base, newSize);
+        check = Arrays.copyOf(check, newSize);
+        terminal = Arrays.copyOf(terminal, (newSize >>> 6) + 1);
+        nextFree = Arrays.copyOf(nextFree, newSize + 1);
+        for (int i = oldSize + 1; i <= newSize; i++) nextFree[i] = i;
+    }
+
+    // 去掉构建时预留的尾部空槽位
+    private void trimToSize() {
+        int used = check.length;
+        while (used > 1 && check[used - 1] == 0) used--;
+        base = Arrays.copyOf(base, used);
+        check = Arrays.copyOf(check, used);
+        terminal = Arrays.copyOf(terminal, (used >>> 6) + 1);
+    }
+
+    private void setTerminal(int state) {
+        terminal[state >>> 6] |= 1L << state;
+    }
+
+    private boolean isTerminal(int state) {
+        return (terminal[state >>> 6] & (1L << state)) != 0;
+    }
+}
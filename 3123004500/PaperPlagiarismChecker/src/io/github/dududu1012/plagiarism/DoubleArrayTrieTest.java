@@ -0,0 +1,65 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class DoubleArrayTrieTest {
+
+    // ====================== 测试 longestMatch() 函数 ======================
+
+    @Test
+    public void testLongestMatch_PrefersLongestWord() {
+        DoubleArrayTrie trie = DoubleArrayTrie.build(List.of("查重", "查重系统", "系统"));
+        char[] text = "查重系统设计".toCharArray();
+
+        assertEquals(4, trie.longestMatch(text, 0, text.length));
+        assertEquals(2, trie.longestMatch(text, 2, text.length));
+        assertEquals(0, trie.longestMatch(text, 4, text.length));
+        // 右边界截断时退回到较短的词
+        assertEquals(2, trie.longestMatch(text, 0, 3));
+    }
+
+    @Test
+    public void testLongestMatch_EmptyTrieAndNonCjk() {
+        DoubleArrayTrie empty = DoubleArrayTrie.build(List.of());
+        assertEquals(0, empty.longestMatch("查重".toCharArray(), 0, 2));
+
+        DoubleArrayTrie trie = DoubleArrayTrie.build(List.of("查重"));
+        assertEquals(0, trie.longestMatch("ab查重".toCharArray(), 0, 4));
+    }
+
+    @Test
+    public void testLongestMatch_AgreesWithBruteForce() {
+        // 随机词典（字集很小，前缀大量共享）与逐长度查HashSet的结果一致
+        Random random = new Random(11);
+        Set<String> dictionary = new TreeSet<>();
+        while (dictionary.size() < 5000) {
+            dictionary.add(randomWord(random, 2 + random.nextInt(5)));
+        }
+        DoubleArrayTrie trie = DoubleArrayTrie.build(new ArrayList<>(dictionary));
+        Set<String> lookup = new HashSet<>(dictionary);
+
+        char[] text = randomWord(random, 20000).toCharArray();
+        for (int i = 0; i < text.length; i++) {
+            int expected = 0;
+            for (int len = 2; len <= 6 && i + len <= text.length; len++) {
+                if (lookup.contains(new String(text, i, len))) expected = len;
+            }
+            assertEquals("位置" + i, expected, trie.longestMatch(text, i, text.length));
+        }
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('一' + random.nextInt(12) * 997));
+        }
+        return sb.toString();
+    }
+}
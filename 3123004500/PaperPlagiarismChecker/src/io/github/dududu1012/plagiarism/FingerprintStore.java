@@ -0,0 +1,442 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// 持久化指纹库：只追加的定长记录文件 + 路径堆文件 + 开放寻址索引文件，全部通过FileChannel/MappedByteBuffer访问。
+// 打开时只读文件头（O(1)），记录按字段直接从映射内存读取，不做对象反序列化，数据量不占用堆内存。
+// 多个进程可共用同一个库：查找与追加都持有记录文件头的StoreLock，并先按文件头计数与索引头同步其他进程的写入。
+// 查到或追加过的记录另存一份内存快照，文件头计数未变时命中直接从快照返回，不取锁也不做文件IO；
+// 对象内的互斥用ReentrantLock而不是synchronized，等待文件锁的虚拟线程不会占住载体线程
+public class FingerprintStore implements Closeable {
+    private static final int MAGIC = 0x46505331; // "FPS1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 80;
+    private static final int SEGMENT_RECORDS = 1 << 16;
+    private static final long SEGMENT_BYTES = (long) SEGMENT_RECORDS * RECORD_SIZE;
+    private static final int DIGEST_BYTES = 16;
+
+    // 文件头字段偏移
+    private static final int H_MAGIC = 0;
+    private static final int H_FORMAT = 4;
+    private static final int H_RECORD_SIZE = 8;
+    private static final int H_HASH_VERSION = 12;
+    private static final int H_COUNT = 16;
+
+    // 记录字段偏移
+    private static final int R_PATH_HASH = 0;
+    private static final int R_PATH_OFFSET = 8;
+    private static final int R_PATH_LENGTH = 16;
+    private static final int R_N_GRAM = 20;
+    private static final int R_SIZE = 24;
+    private static final int R_MTIME = 32;
+    private static final int R_DIGEST = 40;
+    private static final int R_SIM_HASH = 56;
+    private static final int R_TOKEN_COUNT = 64;
+    private static final int R_NGRAM_COUNT = 68;
+    private static final int R_VERSION = 72;
+
+    // 索引文件：头部16字节（魔数、容量、重建标记），之后为long槽位，值为记录编号+1，0表示空槽
+    private static final int IDX_MAGIC = 0x46505349; // "FPSI"
+    private static final int IDX_HEADER_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int MAX_CAPACITY = 1 << 27;
+
+    private final Path recordPath;
+    private final FileChannel recordChannel;
+    private final FileChannel pathChannel;
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private MappedByteBuffer index;
+    private int capacity;
+    private long count;
+    private final int storedHashVersion;
+    private final ReentrantLock lock = new ReentrantLock();
+    // 路径哈希 -> 该路径已知的最新记录；snapshotCount之前追加的记录都已反映在快照中
+    private final ConcurrentHashMap<Long, Entry> snapshot = new ConcurrentHashMap<>();
+    private volatile long snapshotCount;
+
+    private FingerprintStore(Path basePath) throws IOException {
+        this.recordPath = sibling(basePath, ".fps");
+        Path parent = recordPath.toAbsolutePath().getParent();
+        if (parent != null) {
+            parent.toFile().mkdirs();
+        }
+        this.recordChannel = FileChannel.open(recordPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.pathChannel = FileChannel.open(sibling(basePath, ".paths"), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.indexChannel = FileChannel.open(sibling(basePath, ".idx"), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            // 映射文件头可能扩展记录文件，与初始化一样需在锁内进行
+            this.header = locked(() -> recordChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE));
+            this.storedHashVersion = locked(this::initialize);
+        } catch (IOException | RuntimeException e) {
+            recordChannel.close();
+            pathChannel.close();
+            indexChannel.close();
+            throw e;
+        }
+    }
+
+    // 新库写入文件头，已有库校验文件头并映射（必要时重建）索引；返回文件头原有的哈希版本
+    private int initialize() throws IOException {
+        boolean isNewStore = header.getInt(H_MAGIC) == 0 && header.getLong(H_COUNT) == 0;
+        if (isNewStore) {
+            header.putInt(H_MAGIC, MAGIC);
+            header.putInt(H_FORMAT, FORMAT_VERSION);
+            header.putInt(H_RECORD_SIZE, RECORD_SIZE);
+            header.putInt(H_HASH_VERSION, MurmurHash3.VERSION);
+            header.putLong(H_COUNT, 0);
+        } else if (header.getInt(H_MAGIC) != MAGIC || header.getInt(H_FORMAT) != FORMAT_VERSION
+                || header.getInt(H_RECORD_SIZE) != RECORD_SIZE) {
+            throw new IOException("不是有效的指纹库文件：" + recordPath.toAbsolutePath());
+        }
+        this.count = header.getLong(H_COUNT);
+        // 旧库（文件头未记录或记录了旧哈希版本）保留原样，旧记录因版本不符在查找时被忽略并重新计算
+        int storedHashVersion = header.getInt(H_HASH_VERSION);
+        if (storedHashVersion != MurmurHash3.VERSION) {
+            header.putInt(H_HASH_VERSION, MurmurHash3.VERSION);
+        }
+
+        if (indexChannel.size() < IDX_HEADER_SIZE) {
+            rebuildIndex(INITIAL_CAPACITY);
+        } else {
+            ByteBuffer idxHeader = ByteBuffer.allocate(IDX_HEADER_SIZE);
+            indexChannel.read(idxHeader, 0);
+            int idxCapacity = idxHeader.getInt(4);
+            // 上次扩容中途退出或索引损坏时，依据记录文件重建
+            if (idxHeader.getInt(0) != IDX_MAGIC || idxHeader.getInt(8) != 0 || Integer.bitCount(idxCapacity) != 1) {
+                rebuildIndex(Math.max(INITIAL_CAPACITY, capacityFor(count)));
+            } else {
+                mapIndex(idxCapacity);
+            }
+        }
+        return storedHashVersion;
+    }
+
+    // 打开（或新建）指纹库，basePath为不带扩展名的库路径
+    public static FingerprintStore open(Path basePath) throws IOException {
+        return new FingerprintStore(basePath);
+    }
+
+    // 打开时文件头记录的哈希版本，与MurmurHash3.VERSION不同说明该库由旧版哈希生成
+    public int storedHashVersion() {
+        return storedHashVersion;
+    }
+
+    public boolean builtWithOlderHash() {
+        return storedHashVersion != MurmurHash3.VERSION;
+    }
+
+    // 已提交的记录数（含其他进程追加的记录）
+    public long size() {
+        lock.lock();
+        try {
+            count = header.getLong(H_COUNT);
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 按规范化路径查找最新记录，未找到或不是指定的指纹版本（见PlagiarismEngine.fingerprintVersion）时返回null
+    public Entry lookup(String canonicalPath, int version) throws IOException {
+        long pathHash = pathHash(canonicalPath.getBytes(StandardCharsets.UTF_8));
+        Entry entry = header.getLong(H_COUNT) == snapshotCount ? snapshot.get(pathHash) : null;
+        if (entry == null) {
+            lock.lock();
+            try {
+                entry = locked(() -> {
+                    refresh();
+                    long id = findRecord(pathHash);
+                    if (id < 0) return null;
+                    Entry found = readLocked(id);
+                    snapshot.put(pathHash, found);
+                    return found;
+                });
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (entry == null || !entry.path().equals(canonicalPath)
+                || entry.version() != version) {
+            return null;
+        }
+        return entry;
+    }
+
+    // 追加一条指纹版本为version的记录并更新路径索引，返回文档编号
+    public long append(String canonicalPath, long size, long mtime, byte[] digest,
+                       PaperPlagiarismChecker.Fingerprint fingerprint, int version) throws IOException {
+        if (digest.length < DIGEST_BYTES) {
+            throw new IllegalArgumentException("内容摘要长度不足" + DIGEST_BYTES + "字节");
+        }
+        lock.lock();
+        try {
+            return locked(() -> {
+                refresh();
+                return appendLocked(canonicalPath, size, mtime, digest, fingerprint, version);
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 持锁且已同步计数与索引后追加：记录编号取自文件头中的最新计数，路径写到路径文件末尾
+    private long appendLocked(String canonicalPath, long size, long mtime, byte[] digest,
+                              PaperPlagiarismChecker.Fingerprint fingerprint, int version) throws IOException {
+        if (capacityFor(count + 1) > capacity) {
+            rebuildIndex(capacityFor(count + 1));
+        }
+
+        byte[] pathBytes = canonicalPath.getBytes(StandardCharsets.UTF_8);
+        long pathOffset = pathChannel.size();
+        ByteBuffer pathBuffer = ByteBuffer.wrap(pathBytes);
+        while (pathBuffer.hasRemaining()) {
+            pathChannel.write(pathBuffer, pathOffset + pathBuffer.position());
+        }
+
+        long id = count;
+        long pathHash = pathHash(pathBytes);
+        MappedByteBuffer segment = segment(id);
+        int base = recordOffset(id);
+        segment.putLong(base + R_PATH_HASH, pathHash);
+        segment.putLong(base + R_PATH_OFFSET, pathOffset);
+        segment.putInt(base + R_PATH_LENGTH, pathBytes.length);
+        segment.putInt(base + R_N_GRAM, fingerprint.nGram());
+        segment.putLong(base + R_SIZE, size);
+        segment.putLong(base + R_MTIME, mtime);
+        segment.put(base + R_DIGEST, digest, 0, DIGEST_BYTES);
+        segment.putLong(base + R_SIM_HASH, fingerprint.simHash());
+        segment.putInt(base + R_TOKEN_COUNT, fingerprint.tokenCount());
+        segment.putInt(base + R_NGRAM_COUNT, fingerprint.ngramCount());
+        segment.putInt(base + R_VERSION, version);
+
+        // 记录写完后再登记索引、提交计数，中途退出时未提交的记录不可见
+        insertIndex(pathHash, id);
+        count = id + 1;
+        header.putLong(H_COUNT, count);
+        snapshot.put(pathHash, readLocked(id));
+        snapshotCount = count;
+        return id;
+    }
+
+    public Entry read(long id) throws IOException {
+        lock.lock();
+        try {
+            return readLocked(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Entry readLocked(long id) throws IOException {
+        if (id < 0 || id >= count) {
+            throw new IndexOutOfBoundsException("文档编号越界：" + id);
+        }
+        MappedByteBuffer segment = segment(id);
+        int base = recordOffset(id);
+        byte[] pathBytes = new byte[segment.getInt(base + R_PATH_LENGTH)];
+        ByteBuffer pathBuffer = ByteBuffer.wrap(pathBytes);
+        long pathOffset = segment.getLong(base + R_PATH_OFFSET);
+        while (pathBuffer.hasRemaining()) {
+            if (pathChannel.read(pathBuffer, pathOffset + pathBuffer.position()) < 0) {
+                throw new IOException("指纹库路径文件已损坏");
+            }
+        }
+        byte[] digest = new byte[DIGEST_BYTES];
+        segment.get(base + R_DIGEST, digest);
+        PaperPlagiarismChecker.Fingerprint fingerprint = new PaperPlagiarismChecker.Fingerprint(
+                segment.getLong(base + R_SIM_HASH),
+                segment.getInt(base + R_TOKEN_COUNT),
+                segment.getInt(base + R_NGRAM_COUNT),
+                segment.getInt(base + R_N_GRAM));
+        return new Entry(id, new String(pathBytes, StandardCharsets.UTF_8),
+                segment.getLong(base + R_SIZE), segment.getLong(base + R_MTIME), digest,
+                fingerprint, segment.getInt(base + R_VERSION));
+    }
+
+    // 只读SimHash字段，供全库扫描使用
+    public long simHash(long id) throws IOException {
+        lock.lock();
+        try {
+            if (id < 0 || id >= count) {
+                throw new IndexOutOfBoundsException("文档编号越界：" + id);
+            }
+            return segment(id).getLong(recordOffset(id) + R_SIM_HASH);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 每个路径最新且指纹版本为version的记录编号（升序），供全库扫描使用
+    public long[] currentIds(int version) throws IOException {
+        lock.lock();
+        try {
+            StoreLock.run(recordPath, recordChannel, HEADER_SIZE, this::refresh);
+            long[] ids = new long[(int) Math.min(count, Integer.MAX_VALUE - 8)];
+            int n = 0;
+            for (long id = 0; id < count; id++) {
+                MappedByteBuffer segment = segment(id);
+                int base = recordOffset(id);
+                if (segment.getInt(base + R_VERSION) == version && findRecord(segment.getLong(base + R_PATH_HASH)) == id) {
+                    ids[n++] = id;
+                }
+            }
+            return Arrays.copyOf(ids, n);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            header.force();
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+            index.force();
+            recordChannel.close();
+            pathChannel.close();
+            indexChannel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> T locked(StoreLock.Body<T> body) throws IOException {
+        return StoreLock.call(recordPath, recordChannel, HEADER_SIZE, body);
+    }
+
+    // 持锁时同步其他进程的写入：计数取文件头中的值，新记录的路径从快照中移除；
+    // 索引被扩容时按新容量重新映射，重建未完成时重新建立
+    private void refresh() throws IOException {
+        count = header.getLong(H_COUNT);
+        for (long id = snapshotCount; id < count; id++) {
+            snapshot.remove(segment(id).getLong(recordOffset(id) + R_PATH_HASH));
+        }
+        snapshotCount = count;
+        int idxCapacity = index.getInt(4);
+        if (index.getInt(0) != IDX_MAGIC || index.getInt(8) != 0 || Integer.bitCount(idxCapacity) != 1) {
+            rebuildIndex(Math.max(INITIAL_CAPACITY, capacityFor(count)));
+        } else if (idxCapacity != capacity) {
+            mapIndex(idxCapacity);
+        }
+    }
+
+    private long findRecord(long pathHash) throws IOException {
+        int mask = capacity - 1;
+        for (int slot = slotOf(pathHash, mask); ; slot = (slot + 1) & mask) {
+            long value = index.getLong(IDX_HEADER_SIZE + slot * 8);
+            // 编号超出已提交计数的槽位来自未完成的写入，视为空槽
+            if (value == 0 || value - 1 >= count) return -1;
+            long id = value - 1;
+            if (segment(id).getLong(recordOffset(id) + R_PATH_HASH) == pathHash) return id;
+        }
+    }
+
+    private void insertIndex(long pathHash, long id) throws IOException {
+        int mask = capacity - 1;
+        for (int slot = slotOf(pathHash, mask); ; slot = (slot + 1) & mask) {
+            int pos = IDX_HEADER_SIZE + slot * 8;
+            long value = index.getLong(pos);
+            // 同一路径的新记录覆盖旧槽位
+            if (value == 0 || value - 1 >= id
+                    || segment(value - 1).getLong(recordOffset(value - 1) + R_PATH_HASH) == pathHash) {
+                index.putLong(pos, id + 1);
+                return;
+            }
+        }
+    }
+
+    // 按记录文件重建索引：先置重建标记，完成后清除
+    private void rebuildIndex(int newCapacity) throws IOException {
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IOException("指纹库容量已达上限：" + count);
+        }
+        mapIndex(newCapacity);
+        index.putInt(0, IDX_MAGIC);
+        index.putInt(4, newCapacity);
+        index.putInt(8, 1);
+        for (int slot = 0; slot < newCapacity; slot++) {
+            index.putLong(IDX_HEADER_SIZE + slot * 8, 0);
+        }
+        for (long id = 0; id < count; id++) {
+            insertIndex(segment(id).getLong(recordOffset(id) + R_PATH_HASH), id);
+        }
+        index.putInt(8, 0);
+    }
+
+    private void mapIndex(int newCapacity) throws IOException {
+        this.index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, IDX_HEADER_SIZE + newCapacity * 8L);
+        this.capacity = newCapacity;
+    }
+
+    private MappedByteBuffer segment(long id) throws IOException {
+        int segmentIndex = (int) (id / SEGMENT_RECORDS);
+        while (segments.size() <= segmentIndex) {
+            long position = HEADER_SIZE + segments.size() * SEGMENT_BYTES;
+            segments.add(recordChannel.map(FileChannel.MapMode.READ_WRITE, position, SEGMENT_BYTES));
+        }
+        return segments.get(segmentIndex);
+    }
+
+    private static int recordOffset(long id) {
+        return (int) (id % SEGMENT_RECORDS) * RECORD_SIZE;
+    }
+
+    // 负载因子不超过0.5
+    private static int capacityFor(long records) {
+        long needed = Math.max(INITIAL_CAPACITY, records * 2);
+        return (int) Math.min(Long.highestOneBit(needed - 1) << 1, Integer.MAX_VALUE);
+    }
+
+    private static int slotOf(long pathHash, int mask) {
+        return (int) (pathHash ^ (pathHash >>> 32)) & mask;
+    }
+
+    // 路径哈希：FNV-1a 64位，再做一次末尾混合以打散低位
+    private static long pathHash(byte[] pathBytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : pathBytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static Path sibling(Path basePath, String extension) {
+        return basePath.resolveSibling(basePath.getFileName() + extension);
+    }
+
+    public record Entry(long docId, String path, long size, long mtime, byte[] digest,
+                        PaperPlagiarismChecker.Fingerprint fingerprint, int version) {
+
+        // 文件大小与修改时间均未变化
+        public boolean matchesIdentity(long size, long mtime) {
+            return this.size == size && this.mtime == mtime;
+        }
+
+        public boolean matchesDigest(byte[] digest) {
+            return Arrays.equals(this.digest, 0, DIGEST_BYTES, digest, 0, DIGEST_BYTES);
+        }
+    }
+}
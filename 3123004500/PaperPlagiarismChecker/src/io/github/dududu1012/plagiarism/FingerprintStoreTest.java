@@ -0,0 +1,135 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class FingerprintStoreTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static final PaperPlagiarismChecker.Fingerprint FP = new PaperPlagiarismChecker.Fingerprint(0x1234L, 10, 9, 2);
+    private static final int VERSION = PaperPlagiarismChecker.FINGERPRINT_VERSION;
+
+    // ====================== 测试 append() / lookup() 函数 ======================
+
+    @Test
+    public void testAppendAndLookup_Reopen() throws IOException {
+        // 关闭后重新打开，记录仍可按路径查到
+        Path base = tempFolder.getRoot().toPath().resolve("store");
+        byte[] digest = PaperPlagiarismChecker.contentDigest("abc".getBytes(StandardCharsets.UTF_8));
+        try (FingerprintStore store = FingerprintStore.open(base)) {
+            assertEquals(0, store.append("/a/原文.txt", 3, 100, digest, FP, VERSION));
+        }
+        try (FingerprintStore store = FingerprintStore.open(base)) {
+            assertEquals(1, store.size());
+            FingerprintStore.Entry entry = store.lookup("/a/原文.txt", VERSION);
+            assertNotNull(entry);
+            assertEquals(FP, entry.fingerprint());
+            assertTrue(entry.matchesIdentity(3, 100));
+            assertTrue(entry.matchesDigest(digest));
+            assertNull(store.lookup("/a/other.txt", VERSION));
+        }
+    }
+
+    @Test
+    public void testAppend_LatestRecordWins() throws IOException {
+        // 同一路径重复追加，查找返回最新记录
+        byte[] digest = new byte[32];
+        try (FingerprintStore store = FingerprintStore.open(tempFolder.getRoot().toPath().resolve("store"))) {
+            store.append("/a.txt", 1, 1, digest, FP, VERSION);
+            store.append("/a.txt", 2, 2, digest, new PaperPlagiarismChecker.Fingerprint(0x5678L, 3, 2, 2), VERSION);
+            assertEquals(2, store.size());
+            assertEquals(0x5678L, store.lookup("/a.txt", VERSION).fingerprint().simHash());
+            assertEquals(0x1234L, store.simHash(0));
+        }
+    }
+
+    @Test
+    public void testCurrentIds_LatestRecordPerPath() throws IOException {
+        // 同一路径只保留最新记录；编号升序
+        byte[] digest = new byte[32];
+        try (FingerprintStore store = FingerprintStore.open(tempFolder.getRoot().toPath().resolve("store"))) {
+            store.append("/a.txt", 1, 1, digest, FP, VERSION);
+            store.append("/b.txt", 1, 1, digest, FP, VERSION);
+            store.append("/a.txt", 2, 2, digest, FP, VERSION);
+            assertArrayEquals(new long[]{1, 2}, store.currentIds(VERSION));
+        }
+    }
+
+    @Test
+    public void testAppend_IndexGrowth() throws IOException {
+        // 超过初始索引容量后扩容，已有记录仍可查到
+        byte[] digest = new byte[32];
+        try (FingerprintStore store = FingerprintStore.open(tempFolder.getRoot().toPath().resolve("store"))) {
+            for (int i = 0; i < 40_000; i++) {
+                store.append("/doc/" + i, i, i, digest, new PaperPlagiarismChecker.Fingerprint(i, i, i, 2), VERSION);
+            }
+            assertEquals(40_000, store.size());
+            assertEquals(12_345L, store.lookup("/doc/12345", VERSION).fingerprint().simHash());
+            assertEquals(39_999L, store.lookup("/doc/39999", VERSION).fingerprint().simHash());
+        }
+    }
+
+    @Test
+    public void testAppend_TwoWritersShareStore() throws IOException {
+        // 两个实例（相当于两个进程）交替追加同一个库：编号按文件头计数连续分配，互不覆盖，
+        // 一方扩容索引后另一方重新映射，仍能查到对方写入的记录
+        Path base = tempFolder.getRoot().toPath().resolve("store");
+        byte[] digest = new byte[32];
+        try (FingerprintStore a = FingerprintStore.open(base); FingerprintStore b = FingerprintStore.open(base)) {
+            for (int i = 0; i < 40_000; i += 2) {
+                assertEquals(i, a.append("/a/" + i, i, i, digest, new PaperPlagiarismChecker.Fingerprint(i, i, i, 2), VERSION));
+                assertEquals(i + 1, b.append("/b/" + i, i, i, digest, new PaperPlagiarismChecker.Fingerprint(-i, i, i, 2), VERSION));
+            }
+            assertEquals(40_000, a.size());
+            assertEquals(-12_344L, a.lookup("/b/12344", VERSION).fingerprint().simHash());
+            assertEquals(39_998L, b.lookup("/a/39998", VERSION).fingerprint().simHash());
+            assertEquals("/b/0", a.read(1).path());
+        }
+        try (FingerprintStore store = FingerprintStore.open(base)) {
+            assertEquals(40_000, store.currentIds(VERSION).length);
+        }
+    }
+
+    @Test
+    public void testLookup_SnapshotSeesOtherWriter() throws IOException {
+        // a查过的路径进入内存快照；b（相当于另一个进程）追加同一路径的新记录后，a返回新记录而不是快照中的旧记录
+        Path base = tempFolder.getRoot().toPath().resolve("store");
+        byte[] digest = new byte[32];
+        try (FingerprintStore a = FingerprintStore.open(base); FingerprintStore b = FingerprintStore.open(base)) {
+            a.append("/doc.txt", 1, 1, digest, FP, VERSION);
+            assertEquals(FP, a.lookup("/doc.txt", VERSION).fingerprint());
+            assertEquals(FP, a.lookup("/doc.txt", VERSION).fingerprint());
+
+            PaperPlagiarismChecker.Fingerprint newer = new PaperPlagiarismChecker.Fingerprint(0x5678L, 3, 2, 2);
+            b.append("/doc.txt", 2, 2, digest, newer, VERSION);
+            assertEquals(newer, a.lookup("/doc.txt", VERSION).fingerprint());
+            assertEquals(1, a.lookup("/doc.txt", VERSION).docId());
+        }
+    }
+
+    // ====================== 测试 loadFingerprint() 函数 ======================
+
+    @Test
+    public void testLoadFingerprint_ReusesStoredEntry() throws IOException {
+        // 指纹库命中的结果与直接计算一致
+        File doc = tempFolder.newFile("doc.txt");
+        Files.writeString(doc.toPath(), "今天是星期天，天气晴，今晚我要去看电影 hello world", StandardCharsets.UTF_8);
+        try (FingerprintStore store = FingerprintStore.open(tempFolder.getRoot().toPath().resolve("store"))) {
+            PlagiarismEngine engine = new PlagiarismEngine();
+            PaperPlagiarismChecker.Fingerprint computed = engine.loadFingerprint(doc.getPath(), store);
+            PaperPlagiarismChecker.Fingerprint cached = engine.loadFingerprint(doc.getPath(), store);
+            assertEquals(computed, cached);
+            assertEquals(engine.fingerprintFile(doc.getPath()), cached);
+            assertEquals(1, store.size());
+        }
+    }
+}
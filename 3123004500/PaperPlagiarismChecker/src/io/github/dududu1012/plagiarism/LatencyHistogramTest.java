@@ -0,0 +1,31 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    // ====================== 测试 percentileMicros() 函数 ======================
+
+    @Test
+    public void testPercentile_WithinBucketPrecision() {
+        // 1..1000μs均匀分布，百分位误差不超过子桶精度（12.5%）
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 1000; micros++) {
+            histogram.recordNanos(micros * 1_000L);
+        }
+        assertEquals(1000, histogram.count());
+        assertEquals(500.5, histogram.meanMicros(), 0.001);
+        assertEquals(1000, histogram.maxMicros());
+        assertEquals(500, histogram.percentileMicros(50), 500 * 0.125);
+        assertEquals(990, histogram.percentileMicros(99), 990 * 0.125);
+        assertEquals(1000, histogram.percentileMicros(100));
+    }
+
+    @Test
+    public void testPercentile_Empty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentileMicros(99));
+        assertEquals(0.0, histogram.meanMicros(), 0.0);
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.dududu1012.plagiarism;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// 基本类型long开放寻址哈希集合（线性探测），用于n-gram键去重，避免装箱与每元素对象分配。
+// 0作为空槽标记，键0单独记录
+public final class LongHashSet {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        this.table = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    // 加入成功（此前不存在）返回true
+    public boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int slot = slotOf(key, mask);
+        while (true) {
+            long current = table[slot];
+            if (current == 0) break;
+            if (current == key) return false;
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = key;
+        // 负载因子不超过0.5
+        if (++size * 2 > table.length) grow();
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == 0) return containsZero;
+        for (int slot = slotOf(key, mask); ; slot = (slot + 1) & mask) {
+            long current = table[slot];
+            if (current == 0) return false;
+            if (current == key) return true;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // 清空但保留已分配的表，供重复使用
+    public void clear() {
+        Arrays.fill(table, 0);
+        size = 0;
+        containsZero = false;
+    }
+
+    public void forEach(LongConsumer action) {
+        if (containsZero) action.accept(0);
+        for (long key : table) {
+            if (key != 0) action.accept(key);
+        }
+    }
+
+    public long[] toArray() {
+        long[] keys = new long[size];
+        int i = 0;
+        if (containsZero) keys[i++] = 0;
+        for (long key : table) {
+            if (key != 0) keys[i++] = key;
+        }
+        return keys;
+    }
+
+    // 当前表的槽位数；clear()不缩小表
+    int capacity() {
+        return table.length;
+    }
+
+    // 直接暴露内部表供批量遍历：0为空槽，键0是否存在见containsZero()
+    long[] rawTable() {
+        return table;
+    }
+
+    boolean containsZero() {
+        return containsZero;
+    }
+
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        mask = table.length - 1;
+        for (long key : old) {
+            if (key == 0) continue;
+            int slot = slotOf(key, mask);
+            while (table[slot] != 0) slot = (slot + 1) & mask;
+            table[slot] = key;
+        }
+    }
+
+    private static int slotOf(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long needed = Math.max(MIN_CAPACITY, (long) expectedSize * 2);
+        return (int) Math.min(1L << 30, Long.highestOneBit(needed - 1) << 1);
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class LongHashSetTest {
+
+    // ====================== 测试 add() / contains() 函数 ======================
+
+    @Test
+    public void testAdd_MatchesHashSet() {
+        // 与HashSet<Long>行为一致（含扩容与键0）
+        Random random = new Random(1);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(5_000) - 2_500L;
+            assertEquals(expected.add(key), set.add(key));
+        }
+        assertEquals(expected.size(), set.size());
+        for (long key = -3_000; key < 3_000; key++) {
+            assertEquals(expected.contains(key), set.contains(key));
+        }
+        Set<Long> iterated = new HashSet<>();
+        set.forEach(iterated::add);
+        assertEquals(expected, iterated);
+        assertEquals(expected.size(), set.toArray().length);
+    }
+
+    @Test
+    public void testClear_Reusable() {
+        LongHashSet set = new LongHashSet();
+        set.add(0);
+        set.add(42);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0));
+        assertFalse(set.contains(42));
+        assertTrue(set.add(42));
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// 大文件的流式读取：按固定大小的窗口只读映射文件，CharsetDecoder把每个窗口解码进固定容量的字符块，
+// 逐块交给调用方。窗口末尾不完整的UTF-8序列不被消费，下一窗口从该序列的首字节重新映射，
+// 因此多字节字符不会被截断。堆上只有一个字符块，映射窗口占用的是地址空间而非堆内存。
+// 非法字节按替换字符解码，结果与 new String(bytes, UTF_8) 逐字符一致
+final class MappedTextReader {
+    // 不小于该大小的文件走流式路径，小文件整体读入更快
+    static final long STREAMING_THRESHOLD = 8L << 20;
+    static final int WINDOW_BYTES = 1 << 24;
+    static final int CHUNK_CHARS = 1 << 15;
+    // 一个UTF-8序列最多4字节，窗口至少要容纳一个完整序列
+    private static final int MIN_WINDOW_BYTES = 4;
+
+    // 接收解码后的字符块：chars在回调返回后会被复用
+    interface ChunkConsumer {
+        void chunk(char[] chars, int offset, int length);
+    }
+
+    private MappedTextReader() {
+    }
+
+    static boolean shouldStream(long fileSize) {
+        return fileSize >= STREAMING_THRESHOLD;
+    }
+
+    static void read(Path path, ChunkConsumer consumer) throws IOException {
+        read(path, WINDOW_BYTES, CHUNK_CHARS, consumer);
+    }
+
+    static void read(Path path, int windowBytes, int chunkChars, ChunkConsumer consumer) throws IOException {
+        if (windowBytes < MIN_WINDOW_BYTES || chunkChars < 2) {
+            throw new IllegalArgumentException("映射窗口至少" + MIN_WINDOW_BYTES + "字节、字符块至少2个字符：" + windowBytes + "/" + chunkChars);
+        }
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer out = CharBuffer.allocate(chunkChars);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) return;
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(windowBytes, size - position);
+                boolean last = position + length == size;
+                MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                while (true) {
+                    CoderResult result = decoder.decode(in, out, last);
+                    if (result.isOverflow()) {
+                        drain(out, consumer);
+                    } else if (result.isUnderflow()) {
+                        break;
+                    } else {
+                        result.throwException();
+                    }
+                }
+                // 未消费的尾部字节（不完整序列）留给下一窗口
+                position += in.position();
+                if (last) break;
+            }
+            while (decoder.flush(out).isOverflow()) {
+                drain(out, consumer);
+            }
+            drain(out, consumer);
+        }
+    }
+
+    // 内容摘要同样按窗口映射累加，与 contentDigest(Files.readAllBytes(path)) 相同
+    static byte[] digest(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前JRE不支持SHA-256", e);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += WINDOW_BYTES) {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_BYTES, size - position)));
+            }
+        }
+        return digest.digest();
+    }
+
+    private static void drain(CharBuffer out, ChunkConsumer consumer) {
+        out.flip();
+        if (out.hasRemaining()) {
+            consumer.chunk(out.array(), out.arrayOffset() + out.position(), out.remaining());
+        }
+        out.clear();
+    }
+}
@@ -0,0 +1,144 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+public class MappedTextReaderTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Path write(byte[] content) throws IOException {
+        File file = tempFolder.newFile();
+        Files.write(file.toPath(), content);
+        return file.toPath();
+    }
+
+    private static String decode(Path path, int windowBytes, int chunkChars) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        MappedTextReader.read(path, windowBytes, chunkChars, (chars, offset, length) -> sb.append(chars, offset, length));
+        return sb.toString();
+    }
+
+    // 随机混合ASCII、汉字、标点与代理对，窗口与字符块都很小，保证多字节字符和token跨越边界
+    private static String mixedText(Random random, int length) {
+        String alphabet = "aZz09 \n,.，。今天是星期天龥一😀";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    // ====================== 测试 read() 函数 ======================
+
+    @Test
+    public void testRead_MatchesStringDecodingAcrossWindows() throws IOException {
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            byte[] bytes = mixedText(random, random.nextInt(300)).getBytes(StandardCharsets.UTF_8);
+            Path path = write(bytes);
+            String expected = new String(bytes, StandardCharsets.UTF_8);
+            for (int window : new int[]{4, 5, 7, 64, MappedTextReader.WINDOW_BYTES}) {
+                assertEquals(expected, decode(path, window, 3));
+            }
+        }
+    }
+
+    @Test
+    public void testRead_MalformedBytesReplacedLikeString() throws IOException {
+        // 随机字节含截断与非法序列，替换结果须与String解码一致
+        Random random = new Random(3);
+        for (int round = 0; round < 50; round++) {
+            byte[] bytes = new byte[random.nextInt(200)];
+            random.nextBytes(bytes);
+            Path path = write(bytes);
+            assertEquals(new String(bytes, StandardCharsets.UTF_8), decode(path, 5, 2));
+        }
+    }
+
+    @Test
+    public void testRead_EmptyFile() throws IOException {
+        assertEquals("", decode(write(new byte[0]), 4, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRead_WindowTooSmall() throws IOException {
+        decode(write(new byte[]{'a'}), 3, 2);
+    }
+
+    // ====================== 测试 digest() 函数 ======================
+
+    @Test
+    public void testDigest_MatchesContentDigest() throws IOException {
+        byte[] bytes = mixedText(new Random(5), 1000).getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(PaperPlagiarismChecker.contentDigest(bytes), MappedTextReader.digest(write(bytes)));
+    }
+
+    // ====================== 测试 NgramKeyStream ======================
+
+    @Test
+    public void testNgramKeyStream_MatchesTokenSequenceAcrossChunks() throws IOException {
+        Random random = new Random(17);
+        for (int round = 0; round < 30; round++) {
+            String text = mixedText(random, random.nextInt(400));
+            Path path = write(text.getBytes(StandardCharsets.UTF_8));
+            for (int n = 1; n <= 3; n++) {
+                NgramKeyStream stream = new NgramKeyStream(n, new LongHashSet());
+                TokenScanner scanner = new TokenScanner(stream);
+                MappedTextReader.read(path, 5, 3, scanner::feed);
+                scanner.finish();
+
+                TokenSequence sequence = new PlagiarismEngine().tokenize(text);
+                LongHashSet expected = PaperPlagiarismChecker.extractNgramKeys(sequence, n, new LongHashSet());
+                assertEquals(sequence.count(), stream.count());
+                assertEquals(expected.size(), stream.keys().size());
+                expected.forEach(key -> assertTrue(stream.keys().contains(key)));
+            }
+        }
+    }
+
+    // ====================== 测试 fingerprintFile() 流式路径 ======================
+
+    @Test
+    public void testFingerprintFile_StreamingMatchesInMemory() throws IOException {
+        // 超过流式阈值的文件：指纹与整体读入后计算的一致
+        Random random = new Random(23);
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < MappedTextReader.STREAMING_THRESHOLD) {
+            sb.append("word").append(random.nextInt(50_000)).append(' ').append("今天是星期天，").append('\n');
+        }
+        Path path = write(sb.toString().getBytes(StandardCharsets.UTF_8));
+        assertTrue(MappedTextReader.shouldStream(Files.size(path)));
+
+        PlagiarismEngine engine = new PlagiarismEngine();
+        PaperPlagiarismChecker.Fingerprint streamed = engine.fingerprintFile(path.toString());
+        PaperPlagiarismChecker.Fingerprint inMemory = engine.fingerprintText(sb);
+        assertEquals(inMemory, streamed);
+
+        PlagiarismEngine segmented = new PlagiarismEngine(CjkSegmenter.fromOption("bigram"), null, Double.NaN);
+        assertEquals(segmented.fingerprintText(sb), segmented.fingerprintFile(path.toString()));
+    }
+
+    @Test
+    public void testFingerprintFile_StreamingFallsBackToUnigram() throws IOException {
+        // 只有一个token的大文件：按单个token粒度计算，与整体读入一致
+        byte[] bytes = new byte[(int) MappedTextReader.STREAMING_THRESHOLD + 10];
+        Arrays.fill(bytes, (byte) ',');
+        bytes[bytes.length / 2] = 'x';
+        Path path = write(bytes);
+        PlagiarismEngine engine = new PlagiarismEngine();
+        PaperPlagiarismChecker.Fingerprint streamed = engine.fingerprintFile(path.toString());
+        assertEquals(1, streamed.nGram());
+        assertEquals(engine.fingerprintText(new String(bytes, StandardCharsets.UTF_8)), streamed);
+    }
+}
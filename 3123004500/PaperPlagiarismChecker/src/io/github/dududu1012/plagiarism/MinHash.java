@@ -0,0 +1,68 @@
+package io.github.dududu1012.plagiarism;
+
+import java.util.Arrays;
+
+// MinHash签名：n-gram键本身已是充分混合的64位哈希，每个"排列"只需一次乘加再取高32位，
+// 无需为每个排列重新哈希原文。两篇文档签名中相同分量的比例即两者n-gram集合Jaccard系数的无偏估计
+final class MinHash {
+    static final int PERMUTATIONS = 128;
+    private static final long SEED = 0x6d696e68617368L;
+    // 第i个排列：h_i(x) = (x * MULTIPLIERS[i] + INCREMENTS[i]) >>> 32，乘数为奇数
+    private static final long[] MULTIPLIERS = new long[PERMUTATIONS];
+    private static final long[] INCREMENTS = new long[PERMUTATIONS];
+
+    static {
+        long state = SEED;
+        for (int i = 0; i < PERMUTATIONS; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            MULTIPLIERS[i] = MurmurHash3.fmix64(state) | 1;
+            state += 0x9E3779B97F4A7C15L;
+            INCREMENTS[i] = MurmurHash3.fmix64(state);
+        }
+    }
+
+    private MinHash() {
+    }
+
+    // 空签名：各分量取无符号最大值，空集合的签名即为此值
+    static int[] emptySignature() {
+        int[] signature = new int[PERMUTATIONS];
+        Arrays.fill(signature, -1);
+        return signature;
+    }
+
+    // 把一个n-gram键计入签名（各分量按无符号比较取最小）
+    static void update(long key, int[] signature) {
+        for (int i = 0; i < PERMUTATIONS; i++) {
+            int h = (int) ((key * MULTIPLIERS[i] + INCREMENTS[i]) >>> 32);
+            if (Integer.compareUnsigned(h, signature[i]) < 0) signature[i] = h;
+        }
+    }
+
+    // 合并两个部分签名（并行累加时使用），结果写入target
+    static void merge(int[] target, int[] other) {
+        for (int i = 0; i < PERMUTATIONS; i++) {
+            if (Integer.compareUnsigned(other[i], target[i]) < 0) target[i] = other[i];
+        }
+    }
+
+    static int[] signature(LongHashSet ngramKeys) {
+        int[] signature = emptySignature();
+        ngramKeys.forEach(key -> update(key, signature));
+        return signature;
+    }
+
+    // 估计Jaccard系数：相同分量数 / 排列数
+    static double similarity(int[] a, int[] b) {
+        return (double) matches(a, 0, b, 0) / PERMUTATIONS;
+    }
+
+    // a[aFrom..]与b[bFrom..]两段签名中相同分量的个数（MinHashIndex按文档编号存放扁平签名时使用）
+    static int matches(int[] a, int aFrom, int[] b, int bFrom) {
+        int same = 0;
+        for (int i = 0; i < PERMUTATIONS; i++) {
+            if (a[aFrom + i] == b[bFrom + i]) same++;
+        }
+        return same;
+    }
+}
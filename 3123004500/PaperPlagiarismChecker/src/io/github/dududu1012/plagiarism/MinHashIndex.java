@@ -0,0 +1,142 @@
+package io.github.dududu1012.plagiarism;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+// MinHash的LSH分段索引：签名切成bands段、每段rows个分量，任一段完全相同的文档成为候选，
+// 再按签名估计Jaccard过滤。Jaccard为s的文档成为候选的概率为 1-(1-s^rows)^bands，
+// rows按阈值选取，使Jaccard恰为阈值的文档仍以不低于MIN_RECALL的概率被检出
+public class MinHashIndex {
+    private static final double MIN_RECALL = 0.9;
+    private static final int MAX_ROWS = 32;
+    // 签名按块存放，每块BLOCK_DOCS篇；单个int[]放不下约1678万篇以上文档的签名（docId*PERMUTATIONS溢出int）
+    private static final int BLOCK_SHIFT = 14;
+    private static final int BLOCK_DOCS = 1 << BLOCK_SHIFT;
+
+    private final double threshold;
+    private final int bands;
+    private final int rows;
+    // 签名首尾相接分块存放：第docId篇位于第 docId/BLOCK_DOCS 块的 offset(docId) 处
+    private final int[][] blocks;
+    private final int size;
+    // 每段一张有序表：高32位为段哈希，低32位为文档编号，同段哈希的文档在表中连续
+    private final long[][] bandTables;
+
+    private MinHashIndex(int[][] signatures, double threshold) {
+        this.threshold = threshold;
+        this.rows = rowsFor(threshold);
+        this.bands = MinHash.PERMUTATIONS / rows;
+        this.size = signatures.length;
+        this.blocks = new int[(size + BLOCK_DOCS - 1) >>> BLOCK_SHIFT][];
+        for (int block = 0; block < blocks.length; block++) {
+            blocks[block] = new int[Math.min(BLOCK_DOCS, size - (block << BLOCK_SHIFT)) * MinHash.PERMUTATIONS];
+        }
+        for (int docId = 0; docId < size; docId++) {
+            System.arraycopy(signatures[docId], 0, blocks[docId >>> BLOCK_SHIFT], offset(docId), MinHash.PERMUTATIONS);
+        }
+        this.bandTables = new long[bands][];
+        for (int b = 0; b < bands; b++) {
+            long[] table = new long[size];
+            for (int docId = 0; docId < size; docId++) {
+                table[docId] = (bandHash(blocks[docId >>> BLOCK_SHIFT], offset(docId), b) << 32) | docId;
+            }
+            Arrays.sort(table);
+            bandTables[b] = table;
+        }
+    }
+
+    // 构建索引：signatures下标即文档编号，threshold为检索的最低估计Jaccard
+    public static MinHashIndex build(int[][] signatures, double threshold) {
+        if (!(threshold > 0 && threshold <= 1)) {
+            throw new IllegalArgumentException("Jaccard阈值必须在(0, 1]之间：" + threshold);
+        }
+        for (int[] signature : signatures) {
+            if (signature == null || signature.length != MinHash.PERMUTATIONS) {
+                throw new IllegalArgumentException("MinHash签名长度必须为" + MinHash.PERMUTATIONS);
+            }
+        }
+        return new MinHashIndex(signatures, threshold);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double threshold() {
+        return threshold;
+    }
+
+    int bands() {
+        return bands;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    // 查询签名与第docId篇文档的估计Jaccard
+    public double similarity(int[] signature, int docId) {
+        return (double) MinHash.matches(signature, 0, blocks[docId >>> BLOCK_SHIFT], offset(docId)) / MinHash.PERMUTATIONS;
+    }
+
+    // 第docId篇签名在所在块中的起始下标，不超过 BLOCK_DOCS*PERMUTATIONS
+    private static int offset(int docId) {
+        return (docId & (BLOCK_DOCS - 1)) * MinHash.PERMUTATIONS;
+    }
+
+    // 查询估计Jaccard不低于阈值的文档，按Jaccard降序（相同按编号）返回
+    public List<Match> query(int[] signature) {
+        List<Match> matches = new ArrayList<>();
+        BitSet seen = new BitSet(size);
+        for (int b = 0; b < bands; b++) {
+            long band = bandHash(signature, 0, b);
+            long[] table = bandTables[b];
+            for (int i = lowerBound(table, band << 32); i < table.length && (table[i] >>> 32) == band; i++) {
+                int docId = (int) table[i];
+                if (seen.get(docId)) continue;
+                seen.set(docId);
+                double jaccard = similarity(signature, docId);
+                if (jaccard >= threshold) matches.add(new Match(docId, jaccard));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Match::jaccard).reversed().thenComparingInt(Match::docId));
+        return matches;
+    }
+
+    // 满足召回要求的最大rows：rows越大候选越少，但阈值附近的文档越容易漏检
+    static int rowsFor(double threshold) {
+        int best = 1;
+        for (int r = 1; r <= MAX_ROWS; r++) {
+            int b = MinHash.PERMUTATIONS / r;
+            if (1 - Math.pow(1 - Math.pow(threshold, r), b) >= MIN_RECALL) best = r;
+        }
+        return best;
+    }
+
+    // 第band段rows个分量的32位哈希（无符号，放在long低位）
+    private long bandHash(int[] signature, int from, int band) {
+        long acc = band;
+        int start = from + band * rows;
+        for (int i = start; i < start + rows; i++) {
+            acc = PaperPlagiarismChecker.combineNgramHash(acc, signature[i] & 0xffffffffL);
+        }
+        return MurmurHash3.fmix64(acc) >>> 32;
+    }
+
+    // 表按有符号long排序；同一段哈希的记录高32位相同，必然连续
+    private static int lowerBound(long[] table, long key) {
+        int lo = 0, hi = table.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (table[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    public record Match(int docId, double jaccard) {
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.List;
+import java.util.Random;
+
+public class MinHashIndexTest {
+
+    // ====================== 测试 query() 函数 ======================
+
+    @Test
+    public void testQuery_FindsDocumentsAboveThreshold() {
+        // 与查询集合高度重叠的文档全部检出，无关文档不出现；结果与线性扫描的估计值一致
+        Random random = new Random(21);
+        long[] base = new long[2000];
+        for (int i = 0; i < base.length; i++) base[i] = random.nextLong();
+        int docs = 400;
+        int[][] signatures = new int[docs][];
+        for (int d = 0; d < docs; d++) {
+            LongHashSet keys = new LongHashSet();
+            if (d % 10 == 0) {
+                // 保留约90%的基准n-gram，再加少量新n-gram：Jaccard约0.85
+                for (long key : base) if (random.nextInt(10) != 0) keys.add(key);
+                for (int i = 0; i < 100; i++) keys.add(random.nextLong());
+            } else {
+                for (int i = 0; i < 2000; i++) keys.add(random.nextLong());
+            }
+            signatures[d] = MinHash.signature(keys);
+        }
+        LongHashSet queryKeys = new LongHashSet();
+        for (long key : base) queryKeys.add(key);
+        int[] query = MinHash.signature(queryKeys);
+
+        MinHashIndex index = MinHashIndex.build(signatures, 0.6);
+        List<MinHashIndex.Match> matches = index.query(query);
+
+        int expected = 0;
+        for (int d = 0; d < docs; d++) {
+            if (MinHash.similarity(query, signatures[d]) >= 0.6) expected++;
+        }
+        assertEquals(docs / 10, expected);
+        assertEquals(expected, matches.size());
+        for (int i = 0; i < matches.size(); i++) {
+            MinHashIndex.Match match = matches.get(i);
+            assertEquals(0, match.docId() % 10);
+            assertEquals(MinHash.similarity(query, signatures[match.docId()]), match.jaccard(), 0.0);
+            if (i > 0) assertTrue(matches.get(i - 1).jaccard() >= match.jaccard());
+        }
+    }
+
+    @Test
+    public void testQuery_DuplicatesReturnedOnce() {
+        // 签名完全相同的文档每段都命中，但只返回一次
+        LongHashSet keys = new LongHashSet();
+        for (long i = 1; i <= 50; i++) keys.add(i * 0x9E3779B97F4A7C15L);
+        int[] signature = MinHash.signature(keys);
+        MinHashIndex index = MinHashIndex.build(new int[][]{signature, signature.clone()}, 0.9);
+        List<MinHashIndex.Match> matches = index.query(signature);
+        assertEquals(2, matches.size());
+        assertEquals(0, matches.get(0).docId());
+        assertEquals(1.0, matches.get(1).jaccard(), 0.0);
+    }
+
+    @Test
+    public void testQuery_AcrossSignatureBlocks() {
+        // 文档数超过一个签名块：块边界两侧的文档都能按编号取回自己的签名
+        Random random = new Random(22);
+        int docs = (1 << 14) + 300;
+        int[][] signatures = new int[docs][];
+        for (int d = 0; d < docs; d++) {
+            LongHashSet keys = new LongHashSet();
+            for (int i = 0; i < 20; i++) keys.add(random.nextLong());
+            signatures[d] = MinHash.signature(keys);
+        }
+        MinHashIndex index = MinHashIndex.build(signatures, 0.9);
+        for (int docId : new int[]{0, (1 << 14) - 1, 1 << 14, docs - 1}) {
+            List<MinHashIndex.Match> matches = index.query(signatures[docId]);
+            assertEquals(1, matches.size());
+            assertEquals(docId, matches.get(0).docId());
+            assertEquals(1.0, index.similarity(signatures[docId], docId), 0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuild_InvalidThreshold() {
+        MinHashIndex.build(new int[0][], 1.5);
+    }
+
+    // ====================== 测试 rowsFor() 函数 ======================
+
+    @Test
+    public void testRowsFor_HigherThresholdUsesLongerBands() {
+        // 阈值越高每段分量越多；阈值处的候选概率不低于90%
+        assertTrue(MinHashIndex.rowsFor(0.8) > MinHashIndex.rowsFor(0.3));
+        for (double t : new double[]{0.2, 0.5, 0.8, 0.95}) {
+            int r = MinHashIndex.rowsFor(t);
+            int b = MinHash.PERMUTATIONS / r;
+            assertTrue(1 - Math.pow(1 - Math.pow(t, r), b) >= 0.9);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Random;
+
+public class MinHashTest {
+
+    // ====================== 测试 similarity() 函数 ======================
+
+    @Test
+    public void testSimilarity_EstimatesJaccard() {
+        // 两个集合交集3000、并集5000，真实Jaccard为0.6，128个排列的标准差约0.043
+        Random random = new Random(11);
+        LongHashSet a = new LongHashSet();
+        LongHashSet b = new LongHashSet();
+        for (int i = 0; i < 3000; i++) {
+            long key = random.nextLong();
+            a.add(key);
+            b.add(key);
+        }
+        for (int i = 0; i < 1000; i++) {
+            a.add(random.nextLong());
+            b.add(random.nextLong());
+        }
+        assertEquals(0.6, MinHash.similarity(MinHash.signature(a), MinHash.signature(b)), 0.15);
+        assertEquals(1.0, MinHash.similarity(MinHash.signature(a), MinHash.signature(a)), 0.0);
+    }
+
+    @Test
+    public void testSimilarity_DisjointSets() {
+        Random random = new Random(12);
+        LongHashSet a = new LongHashSet();
+        LongHashSet b = new LongHashSet();
+        for (int i = 0; i < 2000; i++) {
+            a.add(random.nextLong());
+            b.add(random.nextLong());
+        }
+        assertTrue(MinHash.similarity(MinHash.signature(a), MinHash.signature(b)) < 0.05);
+    }
+
+    // ====================== 测试 SimHashAccumulator.sketch() 函数 ======================
+
+    @Test
+    public void testSketch_SinglePassMatchesSeparateComputation() {
+        // 同一遍得到的SimHash与签名，分别与simHash()和逐个计入的签名一致（含键0与并行拆分）
+        Random random = new Random(13);
+        LongHashSet keys = new LongHashSet();
+        for (int i = 0; i < 100_000; i++) {
+            keys.add(random.nextLong());
+        }
+        keys.add(0);
+
+        SimHashAccumulator.Sketch sketch = SimHashAccumulator.sketch(keys, null);
+        assertEquals(SimHashAccumulator.simHash(keys), sketch.simHash());
+        assertArrayEquals(MinHash.signature(keys), sketch.minHash());
+
+        java.util.function.LongToIntFunction weight = key -> 1 + (int) ((key >>> 40) & 0xff);
+        SimHashAccumulator.Sketch weighted = SimHashAccumulator.sketch(keys, weight);
+        assertEquals(SimHashAccumulator.weightedSimHash(keys, weight), weighted.simHash());
+        assertArrayEquals(sketch.minHash(), weighted.minHash());
+    }
+
+    @Test
+    public void testSketch_EmptySet() {
+        SimHashAccumulator.Sketch sketch = SimHashAccumulator.sketch(new LongHashSet(), null);
+        assertEquals(0, sketch.simHash());
+        assertArrayEquals(MinHash.emptySignature(), sketch.minHash());
+    }
+
+    // ====================== 测试 checkTexts() 的估计Jaccard ======================
+
+    @Test
+    public void testCheckTexts_ReportsJaccardWhenEnabled() {
+        String original = "the quick brown fox jumps over the lazy dog near the river bank today";
+        String copy = "the quick brown fox jumps over the lazy cat near the river bank today";
+        PaperPlagiarismChecker.CheckResult plain = new PlagiarismEngine().check(original, copy);
+        assertNull(plain.jaccardString());
+
+        PaperPlagiarismChecker.CheckResult result = new PlagiarismEngine(null, null, 0.5).check(original, copy);
+        // 开启MinHash不改变SimHash结果
+        assertEquals(plain.similarity(), result.similarity(), 0.0);
+        // 13个2-gram中2个被替换影响：真实Jaccard为11/15
+        assertEquals(11.0 / 15, result.jaccard(), 0.2);
+        assertTrue(result.jaccardString().endsWith("%"));
+    }
+}
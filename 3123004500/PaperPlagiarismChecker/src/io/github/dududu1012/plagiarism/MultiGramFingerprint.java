@@ -0,0 +1,200 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+
+// 多粒度指纹：一遍遍历token流，同时得到多个n（如1,2,3,5）的SimHash。
+// 分词与token哈希只做一次，每个新token从最新往前累加一次多项式，窗口长度到达某个粒度时即生成该粒度的n-gram键；
+// 各粒度有各自的去重集合与SimHash累加。主结果的粒度（MIN_N_GRAM/MAX_N_GRAM）总是一并计算，
+// 因此重复率与单粒度查重相同，结果记录再追加各粒度的相似度，便于调参而不必重复运行
+final class MultiGramFingerprint {
+    static final String OPTION = "--grams";
+    static final String HEADER_SUFFIX = "|各粒度相似度";
+    // 任一方token数少于n（没有该粒度的n-gram）时无从比较
+    private static final String NOT_COMPUTED = "-";
+    // 窗口与乘数幂表按最大粒度分配，粒度过大既无意义也浪费
+    static final int MAX_GRAM = 32;
+
+    // 各粒度的n-gram键：token哈希逐个到达（也可作为TokenScanner的接收端流式处理大文件）
+    static final class Keys implements TokenScanner.TokenSink {
+        private final int[] grams;
+        private final LongHashSet[] keys;
+        // 最近max(n)个token的哈希，环形存放，head为下一个写入位置
+        private final long[] window;
+        // n-gram乘数的0 ~ max(n)-1次幂
+        private final long[] powers;
+        private int head;
+        private long count;
+
+        Keys(int[] grams) {
+            this.grams = grams;
+            int max = grams[grams.length - 1];
+            this.window = new long[max];
+            this.powers = new long[max];
+            powers[0] = 1;
+            for (int i = 1; i < max; i++) {
+                powers[i] = PaperPlagiarismChecker.combineNgramHash(powers[i - 1], 0);
+            }
+            this.keys = new LongHashSet[grams.length];
+            for (int g = 0; g < grams.length; g++) {
+                keys[g] = new LongHashSet();
+            }
+        }
+
+        @Override
+        public void token(byte[] bytes, int offset, int length, long sourceStart, long sourceEnd) {
+            add(PaperPlagiarismChecker.tokenHash(bytes, offset, length));
+        }
+
+        void addAll(TokenSequence sequence) {
+            for (int i = 0; i < sequence.count(); i++) {
+                add(sequence.hash(i));
+            }
+        }
+
+        // 从最新token往前累加 哈希×乘数^i：与按窗口从旧到新逐个combineNgramHash得到同一个模2^64的多项式，
+        // 因此各粒度的键与extractNgramKeys完全相同
+        void add(long tokenHash) {
+            window[head] = tokenHash;
+            head = head + 1 == window.length ? 0 : head + 1;
+            count++;
+            int available = (int) Math.min(count, window.length);
+            int pos = head;
+            int g = 0;
+            long acc = 0;
+            for (int i = 0; i < available; i++) {
+                pos = pos == 0 ? window.length - 1 : pos - 1;
+                acc += window[pos] * powers[i];
+                if (i + 1 == grams[g]) {
+                    keys[g].add(PaperPlagiarismChecker.finalizeNgramKey(acc));
+                    if (++g == grams.length) break;
+                }
+            }
+        }
+
+        // 已到达的token数（超过int范围时截断为Integer.MAX_VALUE）
+        int count() {
+            return (int) Math.min(count, Integer.MAX_VALUE);
+        }
+
+        LongHashSet keys(int n) {
+            return keys[Arrays.binarySearch(grams, n)];
+        }
+
+        // 各粒度的指纹，顺序同grams；SimHash加权与MinHash签名按engine的配置
+        PaperPlagiarismChecker.Fingerprint[] fingerprints(PlagiarismEngine engine) {
+            PaperPlagiarismChecker.Fingerprint[] fingerprints = new PaperPlagiarismChecker.Fingerprint[grams.length];
+            for (int g = 0; g < grams.length; g++) {
+                fingerprints[g] = engine.fingerprintKeys(keys[g], count(), grams[g]);
+            }
+            return fingerprints;
+        }
+    }
+
+    // 一次多粒度查重：主结果（粒度由双方token数决定）与各请求粒度的相似度，顺序同grams；无从比较的粒度为NaN
+    record Result(PaperPlagiarismChecker.CheckResult result, int[] grams, double[] similarities) {
+        // 如"1:80.00%;2:61.25%;3:52.50%;5:-"
+        String similarityString() {
+            StringJoiner joiner = new StringJoiner(";");
+            for (int i = 0; i < grams.length; i++) {
+                joiner.add(grams[i] + ":" + (Double.isNaN(similarities[i])
+                        ? NOT_COMPUTED : PaperPlagiarismChecker.formatRate(similarities[i])));
+            }
+            return joiner.toString();
+        }
+    }
+
+    private MultiGramFingerprint() {
+    }
+
+    // 未给出 --grams 时返回null
+    static int[] fromOptions(Map<String, String> options) {
+        String value = options.get(OPTION);
+        return value == null ? null : parseGrams(value);
+    }
+
+    // "1,2,3,5" → 升序去重的粒度数组
+    static int[] parseGrams(String value) {
+        TreeSet<Integer> grams = new TreeSet<>();
+        for (String part : value.split(",")) {
+            int n = Integer.parseInt(part.trim());
+            if (n < 1 || n > MAX_GRAM) {
+                throw new IllegalArgumentException("n-gram粒度必须在1~" + MAX_GRAM + "之间：" + part.trim());
+            }
+            grams.add(n);
+        }
+        return grams.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    static Result check(String origPath, String copyPath, int[] grams, PlagiarismEngine engine) throws IOException {
+        PaperPlagiarismChecker.validateFile(origPath);
+        PaperPlagiarismChecker.validateFile(copyPath);
+        int[] all = withMainGrams(grams);
+        return compare(fileKeys(Paths.get(origPath), all, engine), fileKeys(Paths.get(copyPath), all, engine),
+                grams, engine);
+    }
+
+    static Result checkTexts(CharSequence originalText, CharSequence copiedText, int[] grams, PlagiarismEngine engine) {
+        int[] all = withMainGrams(grams);
+        return compare(textKeys(originalText, all, engine), textKeys(copiedText, all, engine), grams, engine);
+    }
+
+    // 小文件读入后分词，大文件按映射窗口流式送入，均只遍历一遍
+    static Keys fileKeys(Path path, int[] grams, PlagiarismEngine engine) throws IOException {
+        if (!MappedTextReader.shouldStream(Files.size(path))) {
+            return textKeys(PaperPlagiarismChecker.readFile(path.toString()), grams, engine);
+        }
+        StageMetrics.Span span = StageMetrics.start(StageMetrics.Stage.STREAM);
+        Keys keys = new Keys(grams);
+        engine.scanFile(path, keys);
+        span.end(Files.size(path), keys.count(), totalKeys(keys));
+        return keys;
+    }
+
+    static Keys textKeys(CharSequence text, int[] grams, PlagiarismEngine engine) {
+        TokenSequence sequence = engine.tokenize(text);
+        StageMetrics.Span span = StageMetrics.start(StageMetrics.Stage.NGRAM);
+        Keys keys = new Keys(grams);
+        keys.addAll(sequence);
+        span.end(0, sequence.count(), totalKeys(keys));
+        return keys;
+    }
+
+    private static Result compare(Keys orig, Keys copy, int[] grams, PlagiarismEngine engine) {
+        PaperPlagiarismChecker.Fingerprint[] origFps = orig.fingerprints(engine);
+        PaperPlagiarismChecker.Fingerprint[] copyFps = copy.fingerprints(engine);
+        int n = PaperPlagiarismChecker.selectNGramSize(orig.count(), copy.count());
+        int main = Arrays.binarySearch(orig.grams, n);
+        PaperPlagiarismChecker.CheckResult result = PaperPlagiarismChecker.compare(origFps[main], copyFps[main]);
+        double[] similarities = new double[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            int g = Arrays.binarySearch(orig.grams, grams[i]);
+            similarities[i] = origFps[g].ngramCount() == 0 || copyFps[g].ngramCount() == 0
+                    ? Double.NaN : PaperPlagiarismChecker.compare(origFps[g], copyFps[g]).similarity();
+        }
+        return new Result(result, grams, similarities);
+    }
+
+    // 请求的粒度并上主结果可能用到的粒度
+    private static int[] withMainGrams(int[] grams) {
+        TreeSet<Integer> all = new TreeSet<>();
+        for (int n : grams) all.add(n);
+        all.add(PaperPlagiarismChecker.MIN_N_GRAM);
+        all.add(PaperPlagiarismChecker.MAX_N_GRAM);
+        return all.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static long totalKeys(Keys keys) {
+        long total = 0;
+        for (LongHashSet set : keys.keys) {
+            total += set.size();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+public class MultiGramFingerprintTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static final int[] GRAMS = {1, 2, 3, 5};
+    private static final PlagiarismEngine ENGINE = new PlagiarismEngine();
+
+    // ====================== 测试 Keys 一遍遍历 ======================
+
+    @Test
+    public void testKeys_MatchSeparateExtractionPerGram() {
+        // 每个粒度的键集合与逐粒度extractNgramKeys完全相同，token数少于n时该粒度为空
+        Random random = new Random(21);
+        int[] grams = {1, 2, 3, 5, 7};
+        for (int count : new int[]{0, 1, 4, 6, 1000}) {
+            TokenSequence sequence = ENGINE.tokenize(TextFixtures.words(random, count, 500));
+            MultiGramFingerprint.Keys keys = new MultiGramFingerprint.Keys(grams);
+            keys.addAll(sequence);
+            assertEquals(count, keys.count());
+            for (int n : grams) {
+                LongHashSet expected = PaperPlagiarismChecker.extractNgramKeys(sequence, n, new LongHashSet());
+                LongHashSet actual = keys.keys(n);
+                assertEquals("count=" + count + " n=" + n, expected.size(), actual.size());
+                expected.forEach(key -> assertTrue(actual.contains(key)));
+            }
+        }
+    }
+
+    @Test
+    public void testKeys_StreamedFileMatchesInMemory() throws Exception {
+        // 作为TokenScanner接收端按映射窗口流式送入时，结果与先分词再遍历相同
+        String text = "今天是星期天，天气晴，今晚我要去看电影。" + TextFixtures.words(new Random(22), 2000, 500);
+        File file = tempFolder.newFile("doc.txt");
+        Files.writeString(file.toPath(), text, StandardCharsets.UTF_8);
+        MultiGramFingerprint.Keys streamed = new MultiGramFingerprint.Keys(GRAMS);
+        ENGINE.scanFile(file.toPath(), streamed);
+        MultiGramFingerprint.Keys inMemory = MultiGramFingerprint.textKeys(text, GRAMS, ENGINE);
+        assertEquals(inMemory.count(), streamed.count());
+        for (int n : GRAMS) {
+            assertEquals(inMemory.keys(n).size(), streamed.keys(n).size());
+            inMemory.keys(n).forEach(key -> assertTrue(streamed.keys(n).contains(key)));
+        }
+    }
+
+    // ====================== 测试 check() / checkTexts() 函数 ======================
+
+    @Test
+    public void testCheck_MainResultAndPerGramSimilarities() {
+        Random random = new Random(23);
+        String original = TextFixtures.words(random, 800, 500);
+        String copy = original.substring(0, original.length() / 2) + TextFixtures.words(random, 300, 500);
+        MultiGramFingerprint.Result multi = MultiGramFingerprint.checkTexts(original, copy, new int[]{3, 5}, ENGINE);
+
+        // 主结果与单粒度查重相同
+        PaperPlagiarismChecker.CheckResult single = ENGINE.check(original, copy);
+        assertEquals(single.nGram(), multi.result().nGram());
+        assertEquals(single.similarity(), multi.result().similarity(), 0.0);
+
+        // 各粒度相似度与分别计算该粒度指纹后比较的结果相同
+        TokenSequence origTokens = ENGINE.tokenize(original);
+        TokenSequence copyTokens = ENGINE.tokenize(copy);
+        assertArrayEquals(new int[]{3, 5}, multi.grams());
+        for (int i = 0; i < multi.grams().length; i++) {
+            int n = multi.grams()[i];
+            double expected = PaperPlagiarismChecker.compare(ENGINE.fingerprintSequence(origTokens, n),
+                    ENGINE.fingerprintSequence(copyTokens, n)).similarity();
+            assertEquals("n=" + n, expected, multi.similarities()[i], 0.0);
+        }
+    }
+
+    @Test
+    public void testCheck_FilesMatchTexts() throws Exception {
+        Random random = new Random(24);
+        String original = TextFixtures.words(random, 300, 500);
+        String copy = TextFixtures.words(random, 100, 500) + original;
+        File origFile = tempFolder.newFile("orig.txt");
+        File copyFile = tempFolder.newFile("copy.txt");
+        Files.writeString(origFile.toPath(), original, StandardCharsets.UTF_8);
+        Files.writeString(copyFile.toPath(), copy, StandardCharsets.UTF_8);
+        MultiGramFingerprint.Result fromFiles = MultiGramFingerprint.check(origFile.getPath(), copyFile.getPath(), GRAMS, ENGINE);
+        MultiGramFingerprint.Result fromTexts = MultiGramFingerprint.checkTexts(original, copy, GRAMS, ENGINE);
+        assertArrayEquals(fromTexts.similarities(), fromFiles.similarities(), 0.0);
+        assertEquals(fromTexts.similarityString(), fromFiles.similarityString());
+    }
+
+    @Test
+    public void testCheck_IdenticalTextsAreFullSimilarityAtEveryGram() {
+        String text = TextFixtures.words(new Random(25), 50, 500);
+        MultiGramFingerprint.Result multi = MultiGramFingerprint.checkTexts(text, text, GRAMS, ENGINE);
+        assertEquals("1:100.00%;2:100.00%;3:100.00%;5:100.00%", multi.similarityString());
+    }
+
+    @Test
+    public void testCheck_GramLongerThanTextIsNotComputed() {
+        // 任一方token数少于n时该粒度记为"-"，而不是两个空集合比较出的100%
+        MultiGramFingerprint.Result multi = MultiGramFingerprint.checkTexts("今天是星期天，天气晴，今晚我要去看电影",
+                "w1 w2 w3 w4 w5 w6", GRAMS, ENGINE);
+        assertTrue(Double.isNaN(multi.similarities()[3]));
+        assertTrue(multi.similarityString().endsWith(";5:-"));
+    }
+
+    // ====================== 测试 parseGrams() 函数 ======================
+
+    @Test
+    public void testParseGrams_SortedAndDistinct() {
+        assertArrayEquals(new int[]{1, 2, 3, 5}, MultiGramFingerprint.parseGrams("5, 3,1,2,3"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseGrams_RejectsZero() {
+        MultiGramFingerprint.parseGrams("0,2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseGrams_RejectsTooLarge() {
+        MultiGramFingerprint.parseGrams("2," + (MultiGramFingerprint.MAX_GRAM + 1));
+    }
+
+    // ====================== 测试 结果记录 ======================
+
+    @Test
+    public void testResultRecord_AppendsPerGramColumn() {
+        String record = PaperPlagiarismChecker.resultRecord("a.txt", "b.txt", "80.00%", null, "1:90.00%;2:80.00%");
+        assertTrue(record.endsWith("|a.txt|b.txt|80.00%|1:90.00%;2:80.00%"));
+        String withJaccard = PaperPlagiarismChecker.resultRecord("a.txt", "b.txt", "80.00%", "75.00%", "1:90.00%");
+        assertTrue(withJaccard.endsWith("|80.00%|75.00%|1:90.00%"));
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.dududu1012.plagiarism;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+// MurmurHash3 x64_128：直接读取字节区间（按小端8字节块），输出完整的128位结果，
+// token与n-gram哈希取其低64位，SimHash的全部64位都由真实哈希位决定
+public final class MurmurHash3 {
+    // 哈希算法版本：1 为旧版32位实现，2 为本实现；写入指纹库文件头以识别旧库
+    public static final int VERSION = 2;
+
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private MurmurHash3() {
+    }
+
+    // 128位结果的低64位（h1）
+    public static long hash64(byte[] data, int offset, int length, long seed) {
+        return hash128(data, offset, length, seed, null);
+    }
+
+    // 计算128位哈希，out非空时写入{h1, h2}，返回h1
+    public static long hash128(byte[] data, int offset, int length, long seed, long[] out) {
+        long h1 = seed;
+        long h2 = seed;
+        int blocks = length >>> 4;
+        int index = offset;
+
+        for (int i = 0; i < blocks; i++, index += 16) {
+            long k1 = (long) LONG_LE.get(data, index);
+            long k2 = (long) LONG_LE.get(data, index + 8);
+
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        long k1 = 0;
+        long k2 = 0;
+        switch (length & 15) {
+            case 15: k2 ^= (long) (data[index + 14] & 0xff) << 48;
+            case 14: k2 ^= (long) (data[index + 13] & 0xff) << 40;
+            case 13: k2 ^= (long) (data[index + 12] & 0xff) << 32;
+            case 12: k2 ^= (long) (data[index + 11] & 0xff) << 24;
+            case 11: k2 ^= (long) (data[index + 10] & 0xff) << 16;
+            case 10: k2 ^= (long) (data[index + 9] & 0xff) << 8;
+            case 9:
+                k2 ^= data[index + 8] & 0xff;
+                k2 *= C2;
+                k2 = Long.rotateLeft(k2, 33);
+                k2 *= C1;
+                h2 ^= k2;
+            case 8: k1 ^= (long) (data[index + 7] & 0xff) << 56;
+            case 7: k1 ^= (long) (data[index + 6] & 0xff) << 48;
+            case 6: k1 ^= (long) (data[index + 5] & 0xff) << 40;
+            case 5: k1 ^= (long) (data[index + 4] & 0xff) << 32;
+            case 4: k1 ^= (long) (data[index + 3] & 0xff) << 24;
+            case 3: k1 ^= (long) (data[index + 2] & 0xff) << 16;
+            case 2: k1 ^= (long) (data[index + 1] & 0xff) << 8;
+            case 1:
+                k1 ^= data[index] & 0xff;
+                k1 *= C1;
+                k1 = Long.rotateLeft(k1, 31);
+                k1 *= C2;
+                h1 ^= k1;
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+
+        if (out != null) {
+            out[0] = h1;
+            out[1] = h2;
+        }
+        return h1;
+    }
+
+    public static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.nio.charset.StandardCharsets;
+
+public class MurmurHash3Test {
+
+    // ====================== 测试 hash128() 函数 ======================
+
+    @Test
+    public void testHash128_KnownVector() {
+        // MurmurHash3_x64_128 公开测试向量（seed = 0）
+        byte[] data = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+        long[] out = new long[2];
+        MurmurHash3.hash128(data, 0, data.length, 0, out);
+        assertEquals(0xe34bbc7bbc071b6cL, out[0]);
+        assertEquals(0x7a433ca9c49a9347L, out[1]);
+    }
+
+    @Test
+    public void testHash128_EmptyInput() {
+        long[] out = new long[2];
+        MurmurHash3.hash128(new byte[0], 0, 0, 0, out);
+        assertEquals(0, out[0]);
+        assertEquals(0, out[1]);
+    }
+
+    @Test
+    public void testHash64_OffsetIndependent() {
+        // 同一内容位于缓冲区不同位置时哈希相同（覆盖全部尾部长度）
+        byte[] data = "0123456789abcdefghijklmnopqrstuv".getBytes(StandardCharsets.UTF_8);
+        for (int len = 0; len <= 17; len++) {
+            byte[] copy = new byte[len + 5];
+            System.arraycopy(data, 3, copy, 5, len);
+            assertEquals(MurmurHash3.hash64(data, 3, len, 7), MurmurHash3.hash64(copy, 5, len, 7));
+        }
+    }
+}
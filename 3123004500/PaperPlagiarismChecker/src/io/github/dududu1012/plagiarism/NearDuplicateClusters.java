@@ -0,0 +1,344 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+
+// 全库近重复聚类（离线）：找出海明距离 <= k 的全部文档对，并用并查集合并为簇。
+// 64位指纹切成 k+1 块（鸽巢原理：距离 <= k 的两指纹至少有一块相同），每块对应一个置换——把该块循环移到最高位，
+// 置换后的指纹副本排序后最高块相同的文档连续出现，只需在这些段内两两比较。各置换并行处理；
+// 一对文档只在其第一个相同的块中输出，无需全局去重。已验证的文档对超过内存上限时溢写到磁盘
+public final class NearDuplicateClusters {
+    static final String MODE_FLAG = "--cluster";
+    private static final int DEFAULT_MAX_DISTANCE = 3;
+    private static final int MAX_BLOCK_BITS = 32;
+    // 内存中保留的文档对总数上限（每对8字节），超出部分溢写到结果文件旁的临时文件
+    static final int MAX_BUFFERED_PAIRS = 1 << 23;
+    static final String CLUSTER_HEADER = "查重时间|簇编号|簇内文档数|文档路径";
+    static final String PAIR_HEADER = "查重时间|文档A|文档B|海明距离|重复率";
+    private static final String USAGE = "参数错误！正确格式：\njava -jar main.jar --cluster [语料目录或路径清单] [结果文件] [最大海明距离(默认"
+            + DEFAULT_MAX_DISTANCE + ")] [--store 指纹库] [--segment 词典文件|bigram] [--idf 词频表]";
+
+    private NearDuplicateClusters() {
+    }
+
+    // 全部距离 <= maxDistance 的文档对，每对 (较小编号<<32 | 较大编号) 恰好出现一次
+    static PairSet findPairs(long[] fingerprints, int maxDistance, int maxBufferedPairs, Path spillDir) {
+        if (maxDistance < 0 || maxDistance >= MAX_BLOCK_BITS) {
+            throw new IllegalArgumentException("最大海明距离必须在0-" + (MAX_BLOCK_BITS - 1) + "之间：" + maxDistance);
+        }
+        int blocks = Math.max(maxDistance + 1, 64 / MAX_BLOCK_BITS);
+        int[] shifts = new int[blocks];
+        int[] widths = new int[blocks];
+        int shift = 0;
+        for (int b = 0; b < blocks; b++) {
+            widths[b] = 64 / blocks + (b < 64 % blocks ? 1 : 0);
+            shifts[b] = shift;
+            shift += widths[b];
+        }
+        PairSet pairs = new PairSet(spillDir, Math.max(1, maxBufferedPairs / blocks), blocks);
+        try {
+            IntStream.range(0, blocks).parallel().forEach(b ->
+                    scanPermutation(fingerprints, maxDistance, shifts, widths, b, pairs.buffer(b)));
+        } catch (RuntimeException e) {
+            pairs.close();
+            throw e;
+        }
+        return pairs;
+    }
+
+    // 第b个置换：块b循环移到最高位后按无符号基数排序，最高块相同的段内逐对验证
+    private static void scanPermutation(long[] fingerprints, int maxDistance, int[] shifts, int[] widths, int b,
+                                        PairBuffer out) {
+        int n = fingerprints.length;
+        long[] permuted = new long[n];
+        int[] ids = new int[n];
+        int rotate = 64 - shifts[b] - widths[b];
+        for (int i = 0; i < n; i++) {
+            permuted[i] = Long.rotateLeft(fingerprints[i], rotate);
+            ids[i] = i;
+        }
+        Winnowing.sortByHash(permuted, ids, n);
+
+        int topShift = 64 - widths[b];
+        int runStart = 0;
+        while (runStart < n) {
+            long top = permuted[runStart] >>> topShift;
+            int runEnd = runStart + 1;
+            while (runEnd < n && permuted[runEnd] >>> topShift == top) runEnd++;
+            for (int x = runStart; x < runEnd; x++) {
+                for (int y = x + 1; y < runEnd; y++) {
+                    long fa = fingerprints[ids[x]];
+                    long fb = fingerprints[ids[y]];
+                    if (Long.bitCount(fa ^ fb) > maxDistance || sameEarlierBlock(fa, fb, shifts, widths, b)) continue;
+                    int lo = Math.min(ids[x], ids[y]);
+                    int hi = Math.max(ids[x], ids[y]);
+                    out.add((long) lo << 32 | hi);
+                }
+            }
+            runStart = runEnd;
+        }
+    }
+
+    private static boolean sameEarlierBlock(long a, long b, int[] shifts, int[] widths, int block) {
+        for (int e = 0; e < block; e++) {
+            long mask = ((1L << widths[e]) - 1) << shifts[e];
+            if ((a & mask) == (b & mask)) return true;
+        }
+        return false;
+    }
+
+    // 并查集合并文档对，返回每篇文档所在簇的代表编号
+    static int[] unionFind(int n, PairSet pairs) {
+        int[] parent = new int[n];
+        int[] size = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+        pairs.forEach(pair -> {
+            int a = find(parent, (int) (pair >>> 32));
+            int b = find(parent, (int) pair);
+            if (a == b) return;
+            // 按大小合并，小树挂到大树下
+            if (size[a] < size[b]) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+            parent[b] = a;
+            size[a] += size[b];
+        });
+        for (int i = 0; i < n; i++) {
+            parent[i] = find(parent, i);
+        }
+        return parent;
+    }
+
+    // 路径减半
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    // 文档数不少于2的簇，按文档数降序（相同按最小编号），簇内编号升序
+    static List<int[]> clusters(int[] root) {
+        int n = root.length;
+        int[] counts = new int[n];
+        for (int r : root) counts[r]++;
+        int[][] members = new int[n][];
+        int[] filled = new int[n];
+        List<int[]> clusters = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int r = root[i];
+            if (counts[r] < 2) continue;
+            if (members[r] == null) {
+                members[r] = new int[counts[r]];
+                clusters.add(members[r]);
+            }
+            members[r][filled[r]++] = i;
+        }
+        clusters.sort((x, y) -> x.length != y.length ? Integer.compare(y.length, x.length) : Integer.compare(x[0], y[0]));
+        return clusters;
+    }
+
+    public static void run(String[] rawArgs) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        String[] args = PaperPlagiarismChecker.parseOptions(rawArgs, options);
+        if (args.length != 2 && args.length != 3) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        String resultPath = args[1];
+        int maxDistance = args.length == 3 ? Integer.parseInt(args[2]) : DEFAULT_MAX_DISTANCE;
+        PlagiarismEngine engine = PlagiarismEngine.fromOptions(options);
+        // 读取失败的文档已被跳过，文档编号为成功取得指纹的文档下标
+        List<String> docPaths;
+        long[] fingerprints;
+        try (FingerprintStore store = PaperPlagiarismChecker.openStore(options)) {
+            CorpusSearch.Corpus corpus = CorpusSearch.loadCorpus(CorpusSearch.listCorpus(args[0]), engine, store);
+            docPaths = corpus.docPaths();
+            fingerprints = Arrays.stream(corpus.fingerprints())
+                    .mapToLong(PaperPlagiarismChecker.Fingerprint::simHash).toArray();
+        }
+
+        long start = System.nanoTime();
+        Path resultFile = Paths.get(resultPath).toAbsolutePath();
+        Files.createDirectories(resultFile.getParent());
+        try (PairSet pairs = findPairs(fingerprints, maxDistance, MAX_BUFFERED_PAIRS, resultFile.getParent())) {
+            List<int[]> clusters = clusters(unionFind(fingerprints.length, pairs));
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            Path clusterPath = sibling(resultFile, ".clusters");
+            Path pairPath = sibling(resultFile, ".pairs");
+            writeReports(docPaths, fingerprints, pairs, clusters, clusterPath, pairPath);
+            int clustered = clusters.stream().mapToInt(c -> c.length).sum();
+            System.out.println("文档数：" + fingerprints.length + "，海明距离<=" + maxDistance + "的文档对：" + pairs.size()
+                    + "（溢写" + pairs.spilledFiles() + "个文件），耗时：" + millis + "ms");
+            System.out.println("近重复簇：" + clusters.size() + "个，涉及文档：" + clustered + "篇");
+            if (pairs.size() > 0) {
+                System.out.println("簇报告：" + clusterPath);
+                System.out.println("文档对报告：" + pairPath);
+            }
+        }
+    }
+
+    // 簇报告每个成员一行；文档对报告每对一行，由溢写文件流式读出
+    private static void writeReports(List<String> docPaths, long[] fingerprints, PairSet pairs, List<int[]> clusters,
+                                     Path clusterPath, Path pairPath) {
+        AsyncRecordWriter writer = AsyncRecordWriter.shared();
+        String timestamp = AsyncRecordWriter.timestamp();
+        for (int c = 0; c < clusters.size(); c++) {
+            for (int docId : clusters.get(c)) {
+                writer.append(clusterPath, CLUSTER_HEADER,
+                        String.join("|", timestamp, String.valueOf(c + 1), String.valueOf(clusters.get(c).length), docPaths.get(docId)));
+            }
+        }
+        pairs.forEach(pair -> {
+            int a = (int) (pair >>> 32);
+            int b = (int) pair;
+            int dist = PaperPlagiarismChecker.calculateHammingDistance(fingerprints[a], fingerprints[b]);
+            writer.append(pairPath, PAIR_HEADER, String.join("|", timestamp, docPaths.get(a), docPaths.get(b),
+                    String.valueOf(dist), PaperPlagiarismChecker.formatRate(PaperPlagiarismChecker.calculateSimHashSimilarity(dist))));
+        });
+        writer.flush();
+    }
+
+    // 结果.txt → 结果.clusters.txt
+    static Path sibling(Path resultFile, String suffix) {
+        String name = resultFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String stem = dot > 0 ? name.substring(0, dot) : name;
+        String ext = dot > 0 ? name.substring(dot) : ".txt";
+        return resultFile.resolveSibling(stem + suffix + ext);
+    }
+
+    // 各置换各自一个缓冲，缓冲满时整块写入一个溢写文件
+    static final class PairSet implements Closeable {
+        private final PairBuffer[] buffers;
+
+        PairSet(Path spillDir, int bufferCapacity, int blocks) {
+            buffers = new PairBuffer[blocks];
+            for (int b = 0; b < blocks; b++) {
+                buffers[b] = new PairBuffer(spillDir, bufferCapacity);
+            }
+        }
+
+        PairBuffer buffer(int block) {
+            return buffers[block];
+        }
+
+        long size() {
+            long size = 0;
+            for (PairBuffer buffer : buffers) size += buffer.total;
+            return size;
+        }
+
+        int spilledFiles() {
+            int files = 0;
+            for (PairBuffer buffer : buffers) files += buffer.spills.size();
+            return files;
+        }
+
+        // 依次读出溢写文件与内存中的文档对，可重复调用
+        void forEach(LongConsumer action) {
+            for (PairBuffer buffer : buffers) {
+                buffer.forEach(action);
+            }
+        }
+
+        @Override
+        public void close() {
+            for (PairBuffer buffer : buffers) {
+                buffer.deleteSpills();
+            }
+        }
+    }
+
+    // 一个置换输出的文档对：数组从小容量按需翻倍，直到每置换上限capacity；
+    // 写满的整块依次溢写为定长文件，最后不满的一块留在内存
+    static final class PairBuffer {
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final Path spillDir;
+        private final int capacity;
+        private long[] pairs;
+        private final List<Path> spills = new ArrayList<>();
+        private int count;
+        private long total;
+
+        PairBuffer(Path spillDir, int capacity) {
+            this.spillDir = spillDir;
+            this.capacity = capacity;
+            this.pairs = new long[Math.min(capacity, INITIAL_CAPACITY)];
+        }
+
+        void add(long pair) {
+            if (count == pairs.length) {
+                if (pairs.length < capacity) {
+                    pairs = Arrays.copyOf(pairs, (int) Math.min(capacity, 2L * pairs.length));
+                } else {
+                    spill();
+                }
+            }
+            pairs[count++] = pair;
+            total++;
+        }
+
+        private void spill() {
+            try {
+                Path file = Files.createTempFile(spillDir, "pairs", ".spill");
+                spills.add(file);
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+                    for (int i = 0; i < count; i++) {
+                        out.writeLong(pairs[i]);
+                    }
+                }
+                count = 0;
+            } catch (IOException e) {
+                throw new UncheckedIOException("文档对溢写失败：" + spillDir, e);
+            }
+        }
+
+        void forEach(LongConsumer action) {
+            for (Path file : spills) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+                    for (int i = 0; i < capacity; i++) {
+                        action.accept(in.readLong());
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("读取溢写文件失败：" + file, e);
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                action.accept(pairs[i]);
+            }
+        }
+
+        void deleteSpills() {
+            for (Path file : spills) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    PaperPlagiarismChecker.logError("删除溢写文件失败：" + file + "：" + e.getMessage());
+                }
+            }
+            spills.clear();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class NearDuplicateClustersTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    // 一半为少数几个基准指纹的少量位翻转，其余随机
+    private static long[] fingerprints(Random random, int n) {
+        long[] bases = {random.nextLong(), random.nextLong(), random.nextLong()};
+        long[] fingerprints = new long[n];
+        for (int i = 0; i < n; i++) {
+            long fp = i % 2 == 0 ? bases[i % 3] : random.nextLong();
+            for (int f = random.nextInt(3); f > 0; f--) fp ^= 1L << random.nextInt(64);
+            fingerprints[i] = fp;
+        }
+        return fingerprints;
+    }
+
+    // ====================== 测试 findPairs() 函数 ======================
+
+    @Test
+    public void testFindPairs_MatchesBruteForceWithSpill() {
+        // 缓冲很小时多次溢写，读出的文档对与两两比较的结果完全一致、且无重复
+        long[] fps = fingerprints(new Random(41), 3000);
+        long expected = 0;
+        for (int i = 0; i < fps.length; i++) {
+            for (int j = i + 1; j < fps.length; j++) {
+                if (Long.bitCount(fps[i] ^ fps[j]) <= 3) expected++;
+            }
+        }
+        try (NearDuplicateClusters.PairSet pairs = NearDuplicateClusters.findPairs(fps, 3, 4096, tempFolder.getRoot().toPath())) {
+            assertEquals(expected, pairs.size());
+            assertTrue(pairs.spilledFiles() > 0);
+            long[] seen = new long[(int) expected];
+            int[] n = {0};
+            pairs.forEach(pair -> seen[n[0]++] = pair);
+            assertEquals(expected, n[0]);
+            Arrays.sort(seen);
+            for (int i = 0; i < seen.length; i++) {
+                int a = (int) (seen[i] >>> 32);
+                int b = (int) seen[i];
+                assertTrue(a < b);
+                assertTrue(Long.bitCount(fps[a] ^ fps[b]) <= 3);
+                if (i > 0) assertNotEquals(seen[i - 1], seen[i]);
+            }
+        }
+        // 关闭后溢写文件被删除
+        assertEquals(0, tempFolder.getRoot().list((dir, name) -> name.endsWith(".spill")).length);
+    }
+
+    // ====================== 测试 unionFind() / clusters() 函数 ======================
+
+    @Test
+    public void testClusters_ChainMergesTransitively() {
+        // 0-1、1-2各相距2位，0与2相距4位：距离上限为2时三者经传递合并为一簇
+        long[] fps = {0x0L, 0x3L, 0xFL, 0xFFFF_0000_0000L, 0xFFFF_0000_0001L, 0x00FF_FF00_0000_0000L};
+        try (NearDuplicateClusters.PairSet pairs = NearDuplicateClusters.findPairs(fps, 2, 1024, tempFolder.getRoot().toPath())) {
+            assertEquals(3, pairs.size());
+            List<int[]> clusters = NearDuplicateClusters.clusters(NearDuplicateClusters.unionFind(fps.length, pairs));
+            assertEquals(2, clusters.size());
+            assertArrayEquals(new int[]{0, 1, 2}, clusters.get(0));
+            assertArrayEquals(new int[]{3, 4}, clusters.get(1));
+        }
+    }
+
+    @Test
+    public void testPairBuffer_GrowsBeforeSpilling() {
+        // 缓冲从小容量翻倍增长，到达上限5000后才溢写；读出顺序与写入一致
+        NearDuplicateClusters.PairBuffer buffer = new NearDuplicateClusters.PairBuffer(tempFolder.getRoot().toPath(), 5000);
+        try {
+            for (long i = 0; i < 4999; i++) buffer.add(i);
+            assertEquals(0, tempFolder.getRoot().list().length);
+            for (long i = 4999; i < 12000; i++) buffer.add(i);
+            assertEquals(2, tempFolder.getRoot().list().length);
+            long[] next = {0};
+            buffer.forEach(pair -> assertEquals(next[0]++, pair));
+            assertEquals(12000, next[0]);
+        } finally {
+            buffer.deleteSpills();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFindPairs_InvalidDistance() {
+        NearDuplicateClusters.findPairs(new long[2], 32, 16, tempFolder.getRoot().toPath());
+    }
+
+    // ====================== 测试 run() 函数 ======================
+
+    @Test
+    public void testRun_SkipsUnreadableDocument() throws Exception {
+        // 清单中的一篇文档已不存在：记录日志后跳过，其余文档照常聚类
+        String text = "今天是星期天，天气晴，今晚我要去看电影";
+        File a = tempFolder.newFile("a.txt");
+        File b = tempFolder.newFile("b.txt");
+        Files.writeString(a.toPath(), text, StandardCharsets.UTF_8);
+        Files.writeString(b.toPath(), text, StandardCharsets.UTF_8);
+        File list = tempFolder.newFile("corpus.list");
+        Files.writeString(list.toPath(), String.join("\n", a.getPath(),
+                new File(tempFolder.getRoot(), "missing.txt").getPath(), b.getPath()), StandardCharsets.UTF_8);
+        Path result = tempFolder.getRoot().toPath().resolve("result.txt");
+
+        NearDuplicateClusters.run(new String[]{list.getPath(), result.toString()});
+
+        List<String> lines = Files.readAllLines(NearDuplicateClusters.sibling(result, ".clusters"), StandardCharsets.UTF_8);
+        assertEquals(NearDuplicateClusters.CLUSTER_HEADER, lines.get(0));
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).endsWith("|1|2|" + a.getPath()));
+        assertTrue(lines.get(2).endsWith("|1|2|" + b.getPath()));
+    }
+
+    // ====================== 测试 sibling() 函数 ======================
+
+    @Test
+    public void testSibling_NextToResultFile() {
+        Path result = Paths.get("out", "结果.txt");
+        assertEquals(Paths.get("out", "结果.clusters.txt"), NearDuplicateClusters.sibling(result, ".clusters"));
+        assertEquals(new File("result.pairs.txt").toPath(), NearDuplicateClusters.sibling(Paths.get("result"), ".pairs"));
+    }
+}
@@ -0,0 +1,178 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Top-K最近文档：按海明距离找出与待查指纹最接近的K篇。候选打包为 (距离<<32 | 文档编号) 的long，
+// 按该值比较即"距离优先、编号次之"，结果唯一确定。指纹数组按块拆成fork-join任务，每块维护容量为K的最大堆；
+// 各块把已满堆的堆顶汇总为全局界，超过全局界的候选直接跳过，编号本身已超过全局界的块提前结束
+final class NearestFingerprints extends RecursiveTask<long[]> {
+    static final String MODE_FLAG = "--nearest";
+    private static final int DEFAULT_K = 10;
+    private static final String USAGE = "参数错误！正确格式：\njava -jar main.jar --nearest [指纹库] [待查文件] [结果文件] [K(默认"
+            + DEFAULT_K + ")] [--segment 词典文件|bigram] [--idf 词频表]";
+    // 低于该指纹数时顺序扫描，避免拆分开销
+    static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+    // 每扫描这么多个指纹重新读取一次全局界
+    private static final int BOUND_REFRESH = 1 << 10;
+
+    private final long[] fingerprints;
+    private final long query;
+    private final int k;
+    private final int from;
+    private final int to;
+    private final AtomicLong bound;
+
+    private NearestFingerprints(long[] fingerprints, long query, int k, int from, int to, AtomicLong bound) {
+        this.fingerprints = fingerprints;
+        this.query = query;
+        this.k = k;
+        this.from = from;
+        this.to = to;
+        this.bound = bound;
+    }
+
+    static List<SimHashIndex.Match> topK(long[] fingerprints, long query, int k) {
+        return topK(fingerprints, query, k, ForkJoinPool.commonPool());
+    }
+
+    // fingerprints下标即文档编号；结果按距离升序（相同按编号），最多k条
+    static List<SimHashIndex.Match> topK(long[] fingerprints, long query, int k, ForkJoinPool pool) {
+        if (k < 1) {
+            throw new IllegalArgumentException("K必须大于等于1：" + k);
+        }
+        NearestFingerprints task = new NearestFingerprints(fingerprints, query, k, 0, fingerprints.length,
+                new AtomicLong(Long.MAX_VALUE));
+        long[] heap = fingerprints.length <= SEQUENTIAL_THRESHOLD ? task.scan() : pool.invoke(task);
+        return toMatches(heap, k);
+    }
+
+    @Override
+    protected long[] compute() {
+        if (to - from <= SEQUENTIAL_THRESHOLD) {
+            return scan();
+        }
+        int mid = (from + to) >>> 1;
+        NearestFingerprints left = new NearestFingerprints(fingerprints, query, k, from, mid, bound);
+        left.fork();
+        long[] right = new NearestFingerprints(fingerprints, query, k, mid, to, bound).compute();
+        long[] merged = left.join();
+        for (int i = 1; i <= (int) right[0]; i++) {
+            offer(merged, right[i], k);
+        }
+        return merged;
+    }
+
+    // 顺序扫描[from, to)，返回堆：heap[0]为元素个数，heap[1..]为以打包值为键的最大堆
+    private long[] scan() {
+        long[] heap = new long[k + 1];
+        long limit = bound.get();
+        for (int i = from; i < to; i++) {
+            if ((i & (BOUND_REFRESH - 1)) == 0) limit = bound.get();
+            // 此后候选的打包值都不小于编号i，已不可能进入前K
+            if (i > limit) break;
+            long packed = (long) Long.bitCount(query ^ fingerprints[i]) << 32 | i;
+            if (packed > limit) continue;
+            if (offer(heap, packed, k) && heap[0] == k && heap[1] < limit) {
+                limit = lowerBound(heap[1]);
+            }
+        }
+        return heap;
+    }
+
+    // 全局界取各块堆顶的最小值：任一块已有K个候选不大于其堆顶，全局第K名不会更大
+    private long lowerBound(long top) {
+        return bound.accumulateAndGet(top, Math::min);
+    }
+
+    // 放入候选：堆未满直接加入，已满时仅当小于堆顶才替换；返回是否放入
+    static boolean offer(long[] heap, long packed, int k) {
+        int size = (int) heap[0];
+        if (size < k) {
+            int i = ++size;
+            heap[0] = size;
+            while (i > 1 && heap[i >>> 1] < packed) {
+                heap[i] = heap[i >>> 1];
+                i >>>= 1;
+            }
+            heap[i] = packed;
+            return true;
+        }
+        if (packed >= heap[1]) return false;
+        int i = 1;
+        while (true) {
+            int child = i << 1;
+            if (child > size) break;
+            if (child < size && heap[child + 1] > heap[child]) child++;
+            if (heap[child] <= packed) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = packed;
+        return true;
+    }
+
+    private static List<SimHashIndex.Match> toMatches(long[] heap, int k) {
+        long[] sorted = Arrays.copyOfRange(heap, 1, 1 + (int) heap[0]);
+        Arrays.sort(sorted);
+        List<SimHashIndex.Match> matches = new ArrayList<>(Math.min(k, sorted.length));
+        for (long packed : sorted) {
+            int dist = (int) (packed >>> 32);
+            matches.add(new SimHashIndex.Match((int) packed, dist, PaperPlagiarismChecker.calculateSimHashSimilarity(dist)));
+        }
+        return matches;
+    }
+
+    // 指纹库模式：待查文件对比指纹库中全部当前版本的指纹，输出最接近的K篇（不含待查文件自身）。
+    // 待查文件的指纹同时入库，供之后的查询使用
+    public static void run(String[] rawArgs) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        String[] args = PaperPlagiarismChecker.parseOptions(rawArgs, options);
+        if (args.length != 3 && args.length != 4) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        String queryPath = args[1];
+        String resultPath = args[2];
+        int k = args.length == 4 ? Integer.parseInt(args[3]) : DEFAULT_K;
+        PlagiarismEngine engine = PlagiarismEngine.fromOptions(options);
+        PaperPlagiarismChecker.validateFile(queryPath);
+        try (FingerprintStore store = FingerprintStore.open(Paths.get(args[0]))) {
+            long querySimHash = engine.loadFingerprint(queryPath, store).simHash();
+            String queryCanonical = new File(queryPath).getCanonicalPath();
+
+            long loadStart = System.nanoTime();
+            long[] ids = store.currentIds(engine.fingerprintVersion());
+            long[] fingerprints = new long[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                fingerprints[i] = store.simHash(ids[i]);
+            }
+            long loadMillis = (System.nanoTime() - loadStart) / 1_000_000;
+
+            long queryStart = System.nanoTime();
+            // 多取一条，待查文件自身已在库中时将其剔除
+            List<SimHashIndex.Match> matches = topK(fingerprints, querySimHash, k + 1);
+            long queryMicros = (System.nanoTime() - queryStart) / 1_000;
+
+            int reported = 0;
+            for (SimHashIndex.Match match : matches) {
+                if (reported == k) break;
+                String path = store.read(ids[match.docId()]).path();
+                if (path.equals(queryCanonical)) continue;
+                PaperPlagiarismChecker.appendResultAsRecord(path, queryPath,
+                        PaperPlagiarismChecker.formatRate(match.similarity()), resultPath);
+                reported++;
+            }
+            System.out.println("指纹库文档数：" + ids.length + "，读取指纹耗时：" + loadMillis + "ms");
+            System.out.println("最接近的" + reported + "篇，查询耗时：" + queryMicros + "μs");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class NearestFingerprintsTest {
+
+    // 线性扫描后整体排序得到的前k名（打包值：距离<<32 | 编号）
+    private static long[] bruteForce(long[] fingerprints, long query, int k) {
+        long[] packed = new long[fingerprints.length];
+        for (int i = 0; i < fingerprints.length; i++) {
+            packed[i] = (long) Long.bitCount(query ^ fingerprints[i]) << 32 | i;
+        }
+        Arrays.sort(packed);
+        return Arrays.copyOf(packed, Math.min(k, packed.length));
+    }
+
+    private static void assertSameAsBruteForce(long[] expected, List<SimHashIndex.Match> matches) {
+        assertEquals(expected.length, matches.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals((int) expected[i], matches.get(i).docId());
+            assertEquals((int) (expected[i] >>> 32), matches.get(i).hammingDistance());
+        }
+    }
+
+    // ====================== 测试 topK() 函数 ======================
+
+    @Test
+    public void testTopK_MatchesBruteForceAcrossParallelism() {
+        // 多块并行扫描的结果与线性扫描排序完全一致，与并行度无关
+        Random random = new Random(31);
+        long[] fingerprints = new long[500_000];
+        long query = random.nextLong();
+        for (int i = 0; i < fingerprints.length; i++) {
+            fingerprints[i] = i % 1000 == 0 ? query ^ (1L << random.nextInt(64)) ^ (1L << random.nextInt(64)) : random.nextLong();
+        }
+        for (int k : new int[]{1, 10, 100, 2000}) {
+            long[] expected = bruteForce(fingerprints, query, k);
+            for (int parallelism : new int[]{1, 4}) {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    assertSameAsBruteForce(expected, NearestFingerprints.topK(fingerprints, query, k, pool));
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTopK_ExactCopiesCutOffEarly() {
+        // 大量完全相同的指纹：第K名距离为0后不再改进，结果为编号最小的K篇
+        long[] fingerprints = new long[300_000];
+        Arrays.fill(fingerprints, 0x5A5AL);
+        fingerprints[7] = -1L;
+        List<SimHashIndex.Match> matches = NearestFingerprints.topK(fingerprints, 0x5A5AL, 5);
+        assertEquals(5, matches.size());
+        int[] expectedIds = {0, 1, 2, 3, 4};
+        for (int i = 0; i < 5; i++) {
+            assertEquals(expectedIds[i], matches.get(i).docId());
+            assertEquals(1.0, matches.get(i).similarity(), 0.0);
+        }
+    }
+
+    @Test
+    public void testTopK_FewerDocumentsThanK() {
+        List<SimHashIndex.Match> matches = NearestFingerprints.topK(new long[]{0x3L, 0x1L}, 0x0L, 10);
+        assertEquals(2, matches.size());
+        assertEquals(1, matches.get(0).docId());
+        assertEquals(2, matches.get(1).hammingDistance());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTopK_InvalidK() {
+        NearestFingerprints.topK(new long[1], 0, 0);
+    }
+
+    // ====================== 测试 SimHashIndex.nearest() 函数 ======================
+
+    @Test
+    public void testNearest_BandIndexAndFallbackAgree() {
+        // 半径内足够K篇时走段索引，不足时退回全量扫描，两种情况都与线性扫描一致
+        Random random = new Random(32);
+        long[] fingerprints = new long[20_000];
+        long query = random.nextLong();
+        for (int i = 0; i < fingerprints.length; i++) {
+            fingerprints[i] = i % 50 == 0 ? query ^ (1L << random.nextInt(64)) : random.nextLong();
+        }
+        SimHashIndex index = SimHashIndex.build(fingerprints, 3);
+        assertSameAsBruteForce(bruteForce(fingerprints, query, 10), index.nearest(query, 10));
+        assertSameAsBruteForce(bruteForce(fingerprints, query, 1000), index.nearest(query, 1000));
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.dududu1012.plagiarism;
+
+// n-gram键流：token逐个到达时只保留最近n个token的哈希，凑满n个即生成n-gram键放入集合。
+// 结果与先得到TokenSequence再extractNgramKeys相同，但不保留token序列，用于大文件的流式指纹
+public final class NgramKeyStream implements TokenScanner.TokenSink {
+    private final int n;
+    private final long[] window;
+    private final LongHashSet keys;
+    private long count;
+
+    public NgramKeyStream(int n, LongHashSet keys) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n-gram粒度必须大于等于1：" + n);
+        }
+        this.n = n;
+        this.window = new long[n];
+        this.keys = keys;
+    }
+
+    @Override
+    public void token(byte[] bytes, int offset, int length, long sourceStart, long sourceEnd) {
+        window[(int) (count % n)] = PaperPlagiarismChecker.tokenHash(bytes, offset, length);
+        count++;
+        if (count < n) return;
+        long acc = 0;
+        for (long j = count - n; j < count; j++) {
+            acc = PaperPlagiarismChecker.combineNgramHash(acc, window[(int) (j % n)]);
+        }
+        keys.add(PaperPlagiarismChecker.finalizeNgramKey(acc));
+    }
+
+    // 已到达的token数（超过int范围时截断为Integer.MAX_VALUE）
+    public int count() {
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    public LongHashSet keys() {
+        return keys;
+    }
+}
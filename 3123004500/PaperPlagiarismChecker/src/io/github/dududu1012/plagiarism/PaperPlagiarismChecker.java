@@ -0,0 +1,561 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+public class PaperPlagiarismChecker {
+    private static final int SIM_HASH_BITS = 64;
+    static final int MIN_N_GRAM = 1;
+    static final int MAX_N_GRAM = 2;
+    private static final String CHECK_LOG_PATH = "查重记录.log";
+    static final String STORE_OPTION = "--store";
+    static final String RESULT_HEADER = "查重时间|原文路径|抄袭文本路径|重复率";
+    static final String SPANS_OPTION = "--spans";
+    static final String SEGMENT_OPTION = "--segment";
+    static final String IDF_OPTION = "--idf";
+    static final String MINHASH_OPTION = "--minhash";
+    static final String JACCARD_HEADER = RESULT_HEADER + "|估计Jaccard";
+    static final String SPAN_HEADER = "查重时间|原文路径|抄袭文本路径|原文区间|抄袭区间|原文片段";
+    private static final int SPAN_EXCERPT_CHARS = 40;
+    // 指纹算法版本：分词、n-gram编码或哈希函数变化时递增，旧版本指纹库记录随之失效
+    static final int FINGERPRINT_VERSION = 3;
+    private static final long MURMUR_SEED = 0x9747b28cL;
+    private static final long NGRAM_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    public static void main(String[] args) {
+        int status = run(args);
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    // 命令行入口本身：返回退出码（0成功，1失败）而不结束进程，查重逻辑由PlagiarismEngine等完成
+    static int run(String[] args) {
+        // --metrics 适用于所有模式：先从参数中取出，运行结束（含失败）时输出各阶段计数与延迟分布
+        String metricsTarget = StageMetrics.optionValue(args);
+        if (metricsTarget != null) {
+            args = StageMetrics.withoutOption(args);
+            StageMetrics.enable();
+        }
+        try {
+            dispatch(args);
+        } catch (Exception e) {
+            System.err.println("查重失败：" + e.getMessage());
+            logError(e.getMessage());
+            AsyncRecordWriter.shared().flush();
+            dumpMetrics(metricsTarget);
+            return 1;
+        }
+        // 返回前确保所有记录已落盘
+        AsyncRecordWriter.shared().flush();
+        if (args.length > 0 && args[0].equals(CheckServer.MODE_FLAG)) {
+            // 服务模式启动后即返回、服务仍在处理请求：指标在进程退出时由关闭钩子输出，运行中可经 GET /metrics 查看
+            if (metricsTarget != null) {
+                String target = metricsTarget;
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> dumpMetrics(target)));
+            }
+        } else {
+            dumpMetrics(metricsTarget);
+        }
+        return 0;
+    }
+
+    private static void dumpMetrics(String target) {
+        if (target == null) return;
+        try {
+            StageMetrics.dump(target);
+        } catch (IOException e) {
+            System.err.println("指标输出失败：" + e.getMessage());
+        }
+    }
+
+    // 按首个参数分派到各模式，默认为两个文件的单次查重
+    private static void dispatch(String[] args) throws Exception {
+        // 语料库模式：一篇待查文档对比整个语料库
+        if (args.length > 0 && args[0].equals(CorpusSearch.MODE_FLAG)) {
+            CorpusSearch.run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // 批处理模式：按清单批量查重，结果写入同一结果文件
+        if (args.length > 0 && args[0].equals(BatchRunner.MODE_FLAG)) {
+            BatchRunner.run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // 服务模式：常驻JVM，通过本地HTTP接口查重
+        if (args.length > 0 && args[0].equals(CheckServer.MODE_FLAG)) {
+            CheckServer.run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // 词频表入库：把语料的n-gram计入文档频率表，供 --idf 加权使用
+        if (args.length > 0 && args[0].equals(DocumentFrequencyTable.MODE_FLAG)) {
+            DocumentFrequencyTable.run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // 最近文档：对比指纹库中的全部指纹，输出最接近的K篇
+        if (args.length > 0 && args[0].equals(NearestFingerprints.MODE_FLAG)) {
+            NearestFingerprints.run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // 全库聚类：找出全部近重复文档对并合并为簇
+        if (args.length > 0 && args[0].equals(NearDuplicateClusters.MODE_FLAG)) {
+            NearDuplicateClusters.run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // 段落对齐：段落×段落的SimHash距离矩阵，找出被整段抄袭的段落
+        if (args.length > 0 && args[0].equals(ParagraphAlignment.MODE_FLAG)) {
+            ParagraphAlignment.run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // 倒排索引：语料入库，以及按索引对待查文档做多来源归因
+        if (args.length > 0 && args[0].equals(PostingIndex.BUILD_FLAG)) {
+            PostingIndex.build(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals(PostingIndex.QUERY_FLAG)) {
+            PostingIndex.query(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // 命令行参数校验（位置参数之后可跟 --store 指纹库 等选项）
+        Map<String, String> options = new HashMap<>();
+        String[] positional = parseOptions(args, options);
+        if (positional.length != 3) {
+            throw new IllegalArgumentException("参数错误！正确格式：\njava -jar main.jar [原文文件] [抄袭版论文] [结果文件] [--store 指纹库] [--spans 片段文件] [--segment 词典文件|bigram] [--idf 词频表] [--minhash Jaccard阈值] [--cascade 阈值] [--cache 结果缓存文件] [--grams 1,2,3,5] [--metrics 指标文件|-]");
+        }
+
+        String origFilePath = positional[0];
+        String copyFilePath = positional[1];
+        String resultFilePath = positional[2];
+
+        // 核心查重逻辑（指纹库命中时跳过读取与预处理）
+        PlagiarismEngine engine = PlagiarismEngine.fromOptions(options);
+        int[] grams = MultiGramFingerprint.fromOptions(options);
+        if (grams != null) {
+            runMultiGram(engine, grams, origFilePath, copyFilePath, resultFilePath, options);
+            return;
+        }
+        CheckCascade cascade = CheckCascade.fromOptions(options, engine);
+        if (cascade != null) {
+            runCascade(cascade, origFilePath, copyFilePath, resultFilePath, options);
+            AsyncRecordWriter.shared().flush();
+            return;
+        }
+        CheckResult result;
+        try (FingerprintStore store = openStore(options); ResultCache cache = ResultCache.fromOptions(options)) {
+            if (cache != null) {
+                result = cache.check(origFilePath, copyFilePath, engine, store);
+                System.out.println(cache.summary());
+            } else {
+                result = engine.check(origFilePath, copyFilePath, store);
+            }
+        }
+        String rateStr = result.rateString();
+
+        // 以追加模式输出记录形式结果
+        appendResultAsRecord(origFilePath, copyFilePath, rateStr, result.jaccardString(), resultFilePath);
+
+        // 详细日志记录
+        logDetailedCheckResult(origFilePath, copyFilePath, result);
+
+        // 可选：定位重复片段，逐段追加到片段文件
+        if (options.containsKey(SPANS_OPTION)) {
+            appendSpanRecords(origFilePath, copyFilePath, options.get(SPANS_OPTION));
+        }
+    }
+
+    // 以追加模式写入结果记录（每条记录占一行，不覆盖历史内容）
+    static void appendResultAsRecord(String origPath, String copyPath,
+                                             String rateStr, String resultPath) {
+        appendResultAsRecord(origPath, copyPath, rateStr, null, resultPath);
+    }
+
+    // jaccardStr非null（启用 --minhash）时记录末尾追加估计Jaccard一列
+    static void appendResultAsRecord(String origPath, String copyPath,
+                                     String rateStr, String jaccardStr, String resultPath) {
+        appendResultAsRecord(origPath, copyPath, rateStr, jaccardStr, null, resultPath);
+    }
+
+    // gramsStr非null（启用 --grams）时再追加各粒度相似度一列
+    static void appendResultAsRecord(String origPath, String copyPath, String rateStr, String jaccardStr,
+                                     String gramsStr, String resultPath) {
+        StageMetrics.Span span = StageMetrics.start(StageMetrics.Stage.WRITE);
+        String record = resultRecord(origPath, copyPath, rateStr, jaccardStr, gramsStr);
+        String header = (jaccardStr == null ? RESULT_HEADER : JACCARD_HEADER)
+                + (gramsStr == null ? "" : MultiGramFingerprint.HEADER_SUFFIX);
+
+        // 交给后台写入线程追加（文件为空时先写入表头），调用方不等待磁盘IO
+        AsyncRecordWriter.shared().append(Paths.get(resultPath), header, record);
+        span.end(record.getBytes(StandardCharsets.UTF_8).length, 0, 0);
+
+        // 控制台输出
+        System.out.println("查重完成，新增记录：");
+        System.out.println(record);
+        System.out.println("结果已追加至：" + new File(resultPath).getAbsolutePath());
+    }
+
+    // 记录格式：时间|原文路径|抄袭文本路径|重复率[|估计Jaccard][|各粒度相似度]（CSV风格，便于解析）
+    static String resultRecord(String origPath, String copyPath, String rateStr, String jaccardStr) {
+        return resultRecord(origPath, copyPath, rateStr, jaccardStr, null);
+    }
+
+    static String resultRecord(String origPath, String copyPath, String rateStr, String jaccardStr, String gramsStr) {
+        String record = String.join("|",
+                AsyncRecordWriter.timestamp(),
+                origPath,
+                copyPath,
+                rateStr
+        );
+        if (jaccardStr != null) record += "|" + jaccardStr;
+        return gramsStr == null ? record : record + "|" + gramsStr;
+    }
+
+    // 用winnowing指纹定位重复片段，每段一行：时间|原文路径|抄袭文本路径|原文区间|抄袭区间|原文片段
+    static List<Winnowing.Span> appendSpanRecords(String origPath, String copyPath, String spanPath) throws IOException {
+        String origText = readFile(origPath);
+        List<Winnowing.Span> spans = Winnowing.localize(origText, readFile(copyPath));
+        String timestamp = AsyncRecordWriter.timestamp();
+        for (Winnowing.Span span : spans) {
+            String record = String.join("|",
+                    timestamp,
+                    origPath,
+                    copyPath,
+                    "[" + span.originalStart() + "," + span.originalEnd() + ")",
+                    "[" + span.copyStart() + "," + span.copyEnd() + ")",
+                    excerpt(origText, span.originalStart(), span.originalEnd()));
+            AsyncRecordWriter.shared().append(Paths.get(spanPath), SPAN_HEADER, record);
+        }
+        System.out.println("定位到重复片段" + spans.size() + "处，已追加至：" + new File(spanPath).getAbsolutePath());
+        return spans;
+    }
+
+    // 片段摘录：换行与分隔符替换为空格，过长时截断
+    static String excerpt(String text, int start, int end) {
+        String excerpt = text.substring(start, Math.min(end, start + SPAN_EXCERPT_CHARS))
+                .replace('\n', ' ').replace('\r', ' ').replace('|', ' ');
+        return end - start > SPAN_EXCERPT_CHARS ? excerpt + "…" : excerpt;
+    }
+
+    // 级联查重：提前判定的文件对只输出记录，达到阈值的才写详细日志、定位片段
+    private static void runCascade(CheckCascade cascade, String origFilePath, String copyFilePath,
+                                   String resultFilePath, Map<String, String> options) throws IOException {
+        CheckCascade.Outcome outcome;
+        try (FingerprintStore store = openStore(options)) {
+            outcome = cascade.check(origFilePath, copyFilePath, store);
+        }
+        appendResultAsRecord(origFilePath, copyFilePath, outcome.rateString(), outcome.jaccardString(), resultFilePath);
+        System.out.println("判定阶段：" + outcome.stage().label());
+        // 内容完全相同时整篇都是重复片段，同样按 --spans 逐段输出
+        if ((outcome.stage() == CheckCascade.Stage.DETAILED || outcome.stage() == CheckCascade.Stage.IDENTICAL)
+                && options.containsKey(SPANS_OPTION)) {
+            appendSpanRecords(origFilePath, copyFilePath, options.get(SPANS_OPTION));
+        }
+    }
+
+    // 多粒度查重：各粒度指纹由一遍遍历得出，记录末尾追加各粒度相似度一列。
+    // 指纹库与结果缓存只保存单一粒度，级联只判断主粒度，因此不与这些选项同时使用
+    private static void runMultiGram(PlagiarismEngine engine, int[] grams, String origFilePath, String copyFilePath,
+                                     String resultFilePath, Map<String, String> options) throws IOException {
+        for (String option : new String[]{STORE_OPTION, CheckCascade.OPTION, ResultCache.OPTION}) {
+            if (options.containsKey(option)) {
+                throw new IllegalArgumentException(MultiGramFingerprint.OPTION + " 不能与 " + option + " 同时使用");
+            }
+        }
+        MultiGramFingerprint.Result multi = MultiGramFingerprint.check(origFilePath, copyFilePath, grams, engine);
+        CheckResult result = multi.result();
+        appendResultAsRecord(origFilePath, copyFilePath, result.rateString(), result.jaccardString(),
+                multi.similarityString(), resultFilePath);
+        System.out.println("各粒度相似度：" + multi.similarityString());
+        logDetailedCheckResult(origFilePath, copyFilePath, result);
+        if (options.containsKey(SPANS_OPTION)) {
+            appendSpanRecords(origFilePath, copyFilePath, options.get(SPANS_OPTION));
+        }
+    }
+
+    static void logDetailedCheckResult(String origPath, String copyPath, CheckResult result) {
+        logDetailedCheckResult(origPath, copyPath, result.nGram(), result.original().tokenCount(),
+                result.copy().tokenCount(), result.original().simHash(), result.copy().simHash(),
+                result.hammingDistance(), result.similarity(), result.rateString(), result.jaccardString());
+    }
+
+    // 详细日志记录（内部追踪用）
+    private static void logDetailedCheckResult(String origPath, String copyPath, int nGram,
+                                               int origTokenCount, int copyTokenCount,
+                                               long origHash, long copyHash, int hammingDist,
+                                               double similarity, String rateStr, String jaccardStr) {
+        appendCheckLog(origPath, copyPath,
+                "n-gram粒度：" + nGram + "-gram\n" +
+                "原文token数量：" + origTokenCount + "\n" +
+                "抄袭文本token数量：" + copyTokenCount + "\n" +
+                "SimHash值（原文）：0x" + Long.toHexString(origHash).toUpperCase() + "\n" +
+                "SimHash值（抄袭文本）：0x" + Long.toHexString(copyHash).toUpperCase() + "\n" +
+                "海明距离：" + hammingDist + "\n" +
+                "相似度：" + String.format("%.4f", similarity) + "\n" +
+                "最终重复率：" + rateStr + "\n" +
+                (jaccardStr == null ? "" : "估计Jaccard（MinHash）：" + jaccardStr + "\n"));
+    }
+
+    // 内容完全相同（同一文件或逐字节一致）时的详细日志：未分词也未计算指纹，重复率记为100%
+    static void logIdenticalCheckResult(String origPath, String copyPath, String jaccardStr) {
+        appendCheckLog(origPath, copyPath,
+                "判定：内容完全相同（未分词）\n" +
+                "相似度：" + String.format("%.4f", 1.0) + "\n" +
+                "最终重复率：" + formatRate(1.0) + "\n" +
+                (jaccardStr == null ? "" : "估计Jaccard（MinHash）：" + jaccardStr + "\n"));
+    }
+
+    private static void appendCheckLog(String origPath, String copyPath, String details) {
+        String logContent = "========================================\n" +
+                "查重时间：" + AsyncRecordWriter.timestamp() + "\n" +
+                "原文路径：" + origPath + "\n" +
+                "抄袭文本路径：" + copyPath + "\n" +
+                details +
+                "========================================\n\n";
+
+        AsyncRecordWriter.shared().appendLog(Paths.get(CHECK_LOG_PATH), logContent);
+    }
+
+    // 单文档指纹：SimHash值及其来源的token数、n-gram数与粒度；启用 --minhash 时另带MinHash签名，否则为null
+    public record Fingerprint(long simHash, int tokenCount, int ngramCount, int nGram, int[] minHash) {
+        Fingerprint(long simHash, int tokenCount, int ngramCount, int nGram) {
+            this(simHash, tokenCount, ngramCount, nGram, null);
+        }
+    }
+
+    // 一次查重的结果：双方指纹、海明距离与相似度
+    public record CheckResult(Fingerprint original, Fingerprint copy, int hammingDistance, double similarity) {
+        int nGram() {
+            return original.nGram();
+        }
+
+        String rateString() {
+            return formatRate(similarity);
+        }
+
+        // 双方都带MinHash签名时的估计Jaccard，否则为NaN
+        double jaccard() {
+            if (original.minHash() == null || copy.minHash() == null) return Double.NaN;
+            return MinHash.similarity(original.minHash(), copy.minHash());
+        }
+
+        String jaccardString() {
+            double jaccard = jaccard();
+            return Double.isNaN(jaccard) ? null : formatRate(jaccard);
+        }
+    }
+
+    static String formatRate(double ratio) {
+        return String.format("%.2f%%", ratio * 100);
+    }
+
+    // 工具类与核心算法实现（保持不变）
+    static class NGramHolder {
+        private final String[] tokens;
+        private final int startIdx;
+        private final int endIdx;
+
+        public NGramHolder(String[] tokens, int startIdx, int endIdx) {
+            this.tokens = tokens;
+            this.startIdx = startIdx;
+            this.endIdx = endIdx;
+        }
+
+        // 与TokenSequence流水线一致的n-gram键
+        long key() {
+            long acc = 0;
+            for (int i = startIdx; i < endIdx; i++) {
+                byte[] bytes = tokens[i].getBytes(StandardCharsets.UTF_8);
+                acc = combineNgramHash(acc, tokenHash(bytes, 0, bytes.length));
+            }
+            return finalizeNgramKey(acc);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = startIdx; i < endIdx; i++) {
+                if (i > startIdx) sb.append(" ");
+                sb.append(tokens[i]);
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public int hashCode() {
+            int result = 1;
+            for (int i = startIdx; i < endIdx; i++) {
+                result = 31 * result + (tokens[i] == null ? 0 : tokens[i].hashCode());
+                if (i > startIdx) {
+                    result = 31 * result + " ".hashCode();
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            NGramHolder that = (NGramHolder) o;
+            if (endIdx - startIdx != that.endIdx - that.startIdx) return false;
+            for (int i = startIdx, j = that.startIdx; i < endIdx; i++, j++) {
+                if (!Objects.equals(tokens[i], that.tokens[j])) return false;
+            }
+            return true;
+        }
+    }
+
+    static void validateFile(String filePath) throws FileNotFoundException {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            throw new FileNotFoundException("文件不存在：" + file.getAbsolutePath());
+        }
+        if (!file.isFile()) {
+            throw new FileNotFoundException("不是有效文件：" + file.getAbsolutePath());
+        }
+    }
+
+    static String readFile(String filePath) throws IOException {
+        StageMetrics.Span span = StageMetrics.start(StageMetrics.Stage.READ);
+        byte[] fileBytes = Files.readAllBytes(Paths.get(filePath));
+        span.end(fileBytes.length, 0, 0);
+        return new String(fileBytes, StandardCharsets.UTF_8);
+    }
+
+    static CheckResult compare(Fingerprint origFp, Fingerprint copyFp) {
+        int hammingDist = calculateHammingDistance(origFp.simHash(), copyFp.simHash());
+        return new CheckResult(origFp, copyFp, hammingDist, calculateSimHashSimilarity(hammingDist));
+    }
+
+    static byte[] contentDigest(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前JRE不支持SHA-256", e);
+        }
+    }
+
+    static FingerprintStore openStore(Map<String, String> options) throws IOException {
+        String storePath = options.get(STORE_OPTION);
+        if (storePath == null) return null;
+        FingerprintStore store = FingerprintStore.open(Paths.get(storePath));
+        if (store.builtWithOlderHash()) {
+            System.err.println("提示：指纹库由旧版哈希（v" + store.storedHashVersion() + "）生成，旧记录将按新版哈希（v"
+                    + MurmurHash3.VERSION + "）重新计算");
+        }
+        return store;
+    }
+
+    // 拆分命令行：以--开头的参数与其后一个值组成选项，其余为位置参数
+    static String[] parseOptions(String[] args, Map<String, String> options) {
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("选项缺少参数值：" + args[i]);
+                }
+                options.put(args[i], args[++i]);
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        return positional.toArray(new String[0]);
+    }
+
+    static int selectNGramSize(int origTokenCount, int copyTokenCount) {
+        int minTokenCount = Math.min(origTokenCount, copyTokenCount);
+        return minTokenCount < 2 ? MIN_N_GRAM : MAX_N_GRAM;
+    }
+
+    static Set<NGramHolder> extractNgramSet(String[] tokens, int n) {
+        Set<NGramHolder> ngramSet = new HashSet<>();
+        if (tokens.length < n) return ngramSet;
+
+        StageMetrics.Span span = StageMetrics.start(StageMetrics.Stage.NGRAM);
+        for (int i = 0; i <= tokens.length - n; i++) {
+            ngramSet.add(new NGramHolder(tokens, i, i + n));
+        }
+        span.end(0, tokens.length, ngramSet.size());
+        return ngramSet;
+    }
+
+    // 基本类型流水线：由token编号序列生成n-gram键并在LongHashSet中去重
+    static LongHashSet extractNgramKeys(TokenSequence sequence, int n, LongHashSet keys) {
+        StageMetrics.Span span = StageMetrics.start(StageMetrics.Stage.NGRAM);
+        int before = keys.size();
+        for (int i = 0; i + n <= sequence.count(); i++) {
+            long acc = 0;
+            for (int j = i; j < i + n; j++) {
+                acc = combineNgramHash(acc, sequence.hash(j));
+            }
+            keys.add(finalizeNgramKey(acc));
+        }
+        span.end(0, sequence.count(), keys.size() - before);
+        return keys;
+    }
+
+    static long calculateSimHash(Set<NGramHolder> ngramSet) {
+        LongHashSet keys = new LongHashSet(ngramSet.size());
+        for (NGramHolder ngram : ngramSet) {
+            keys.add(ngram.key());
+        }
+        return calculateSimHash(keys);
+    }
+
+    // SimHash直接由n-gram键累加，每个键即该n-gram的哈希，每个n-gram权重均为1；大集合由SimHashAccumulator分块并行累加。
+    // 按idf加权的SimHash见PlagiarismEngine.simHash
+    static long calculateSimHash(LongHashSet ngramKeys) {
+        StageMetrics.Span span = StageMetrics.start(StageMetrics.Stage.SIMHASH);
+        long simHash = SimHashAccumulator.simHash(ngramKeys);
+        span.end(0, 0, ngramKeys.size());
+        return simHash;
+    }
+
+    static long murmurHash3(String text) {
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        return murmurHash3(data, 0, data.length);
+    }
+
+    // 直接读取UTF-8字节区间计算64位哈希（MurmurHash3 x64_128的低64位），调用方无需为每个token构造String
+    static long murmurHash3(byte[] data, int offset, int length) {
+        return MurmurHash3.hash64(data, offset, length, MURMUR_SEED);
+    }
+
+    // 单个token的哈希（按UTF-8字节计算），TokenDictionary对每个不同token只调用一次
+    static long tokenHash(byte[] bytes, int offset, int length) {
+        return murmurHash3(bytes, offset, length);
+    }
+
+    // n-gram键：窗口内各token哈希按多项式累加，再做64位末尾混合使各位均匀分布
+    static long combineNgramHash(long acc, long tokenHash) {
+        return acc * NGRAM_MULTIPLIER + tokenHash;
+    }
+
+    static long finalizeNgramKey(long acc) {
+        return MurmurHash3.fmix64(acc);
+    }
+
+    static int calculateHammingDistance(long hashA, long hashB) {
+        long xorResult = hashA ^ hashB;
+        return Long.bitCount(xorResult);
+    }
+
+    static double calculateSimHashSimilarity(int hammingDist) {
+        int clampedDist = Math.min(Math.max(hammingDist, 0), SIM_HASH_BITS);
+        return 1.0 - (double) clampedDist / SIM_HASH_BITS;
+    }
+
+    static void logError(String errorMsg) {
+        String log = "[" + AsyncRecordWriter.timestamp() + "] 错误：" + errorMsg + "\n";
+        AsyncRecordWriter.shared().appendLog(Paths.get(CHECK_LOG_PATH), log);
+    }
+}
@@ -1,3 +1,5 @@
+package io.github.dududu1012.plagiarism;
+
 import org.junit.Test;
 import static org.junit.Assert.*;
 import java.util.HashSet;
@@ -5,6 +7,8 @@ import java.util.Set;
 
 public class PaperPlagiarismCheckerTest {
 
+    private static final PlagiarismEngine ENGINE = new PlagiarismEngine();
+
     // ====================== 测试 preprocessText() 函数 ======================
 
     @Test
@@ -12,15 +16,15 @@ public class PaperPlagiarismCheckerTest {
         // 特殊字符过滤：保留允许的标点，过滤其他符号
         String input = "Test@#$%^&*()_+{}[]|\\<>?/";
         String expected = "test";  // 特殊符号全部被过滤
-        assertEquals(expected, PaperPlagiarismChecker.preprocessText(input));
+        assertEquals(expected, ENGINE.preprocessText(input));
     }
 
     @Test
     public void testPreprocessText_EmptyInput() {
         // 空输入处理
-        assertEquals("", PaperPlagiarismChecker.preprocessText(""));
-        assertEquals("", PaperPlagiarismChecker.preprocessText(null));
-        assertEquals("", PaperPlagiarismChecker.preprocessText("   \t\n"));  // 空白字符
+        assertEquals("", ENGINE.preprocessText(""));
+        assertEquals("", ENGINE.preprocessText(null));
+        assertEquals("", ENGINE.preprocessText("   \t\n"));  // 空白字符
     }
 
     // ====================== 测试 extractNgramSet() 函数 ======================
@@ -61,6 +65,28 @@ public class PaperPlagiarismCheckerTest {
         assertEquals(1, ngramSet.size());
     }
 
+    // ====================== 测试 extractNgramKeys() 函数 ======================
+    @Test
+    public void testExtractNgramKeys_MatchesHolderSet() {
+        // 基本类型流水线与NGramHolder集合得到相同的去重数量与SimHash
+        String text = "今天 是 星期天 today is sunday 今天 是 星期天";
+        TokenSequence sequence = TokenSequence.scan(text);
+        String[] tokens = TokenScanner.scan(text).toTokenArray();
+        for (int n = 1; n <= 3; n++) {
+            LongHashSet keys = PaperPlagiarismChecker.extractNgramKeys(sequence, n, new LongHashSet());
+            Set<PaperPlagiarismChecker.NGramHolder> holders = PaperPlagiarismChecker.extractNgramSet(tokens, n);
+            assertEquals(holders.size(), keys.size());
+            assertEquals(PaperPlagiarismChecker.calculateSimHash(holders), PaperPlagiarismChecker.calculateSimHash(keys));
+        }
+    }
+
+    @Test
+    public void testExtractNgramKeys_DuplicateHandling() {
+        TokenSequence sequence = TokenSequence.scan("a a a");
+        assertEquals(1, PaperPlagiarismChecker.extractNgramKeys(sequence, 2, new LongHashSet()).size());
+        assertEquals(1, sequence.dictionary().size());
+    }
+
     // ====================== 测试 murmurHash3() 函数 ======================
     @Test
     public void testMurmurHash3_Consistency() {
@@ -86,10 +112,17 @@ public class PaperPlagiarismCheckerTest {
         long hashLong = PaperPlagiarismChecker.murmurHash3("a".repeat(1000));  // 长字符串
         long hashChinese = PaperPlagiarismChecker.murmurHash3("中文哈希测试");
 
-        // 只需验证不抛出异常且哈希值有效
-        assertTrue(hashEmpty >= 0);
-        assertTrue(hashLong >= 0);
-        assertTrue(hashChinese >= 0);
+        // 64位哈希：不抛出异常，且高32位参与取值
+        assertNotEquals(hashLong, hashChinese);
+        assertNotEquals(hashEmpty, hashChinese);
+        assertNotEquals(0, hashChinese >>> 32);
+    }
+
+    @Test
+    public void testMurmurHash3_BytesMatchString() {
+        // 字节区间版本与字符串版本按UTF-8字节计算，结果一致
+        byte[] bytes = "xx中文哈希yy".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        assertEquals(PaperPlagiarismChecker.murmurHash3("中文哈希"), PaperPlagiarismChecker.murmurHash3(bytes, 2, bytes.length - 4));
     }
 
     // ====================== 测试 calculateSimHash() 函数 ======================
@@ -124,7 +157,8 @@ public class PaperPlagiarismCheckerTest {
         long hash2 = PaperPlagiarismChecker.calculateSimHash(set2);
 
         int distance = PaperPlagiarismChecker.calculateHammingDistance(hash1, hash2);
-        assertTrue("相似文本SimHash差异过大", distance < 10);  // 预期差异较小
+        // 64位均参与取值后，阈值按有效位数由32位时的10相应放宽到20
+        assertTrue("相似文本SimHash差异过大", distance < 20);  // 预期差异较小
     }
 
     // ====================== 测试 calculateHammingDistance() 函数 ======================
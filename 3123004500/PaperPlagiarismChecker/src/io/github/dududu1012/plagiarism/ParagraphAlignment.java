@@ -0,0 +1,198 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// 段落级对齐：整篇SimHash会掩盖原创论文中被整章抄袭的部分。两篇文档按换行切成段落，每段单独计算SimHash
+// （与整篇相同的n-gram与加权流程），再得到 抄袭段落×原文段落 的海明距离矩阵：矩阵按TILE×TILE分块并行填充，
+// 块内即两个long数组逐对异或后bitCount。每个抄袭段落取距离最小的原文段落，相似度达到阈值即为对齐段落对
+final class ParagraphAlignment {
+    static final String MODE_FLAG = "--paragraphs";
+    static final String ALIGNMENT_HEADER = "查重时间|原文路径|抄袭文本路径|原文段落|抄袭段落|相似度|抄袭段落摘录";
+    private static final double DEFAULT_MIN_SIMILARITY = 0.9;
+    private static final String USAGE = "参数错误！正确格式：\njava -jar main.jar --paragraphs [原文文件] [抄袭版论文] [结果文件] [最低相似度(默认"
+            + PaperPlagiarismChecker.formatRate(DEFAULT_MIN_SIMILARITY) + ")] [--segment 词典文件|bigram] [--idf 词频表]";
+    // 分块边长：一块的两段指纹（各TILE个long）与距离块均可留在L1/L2缓存中
+    static final int TILE = 256;
+
+    private ParagraphAlignment() {
+    }
+
+    // 一篇文档的段落：第i段为原文字符区间 [starts[i], ends[i])，simHashes[i]为其SimHash；不含token的行不计为段落
+    record Paragraphs(int[] starts, int[] ends, long[] simHashes) {
+        int count() {
+            return simHashes.length;
+        }
+
+        int length(int i) {
+            return ends[i] - starts[i];
+        }
+    }
+
+    // 一个对齐段落对（段落下标从0开始），distance为二者SimHash的海明距离
+    record Pair(int originalIndex, int copyIndex, int distance, double similarity) {
+    }
+
+    // 按换行切段（去除行首尾空白），各段的SimHash按engine的分词与加权方式并行计算
+    static Paragraphs paragraphs(String text, PlagiarismEngine engine) {
+        List<int[]> lines = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i < text.length() && text.charAt(i) != '\n' && text.charAt(i) != '\r') continue;
+            int start = lineStart;
+            int end = i;
+            while (start < end && Character.isWhitespace(text.charAt(start))) start++;
+            while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+            if (start < end) lines.add(new int[]{start, end});
+            lineStart = i + 1;
+        }
+
+        long[] simHashes = new long[lines.size()];
+        boolean[] hasTokens = new boolean[lines.size()];
+        IntStream.range(0, lines.size()).parallel().forEach(i -> {
+            TokenSequence sequence = engine.tokenize(CharBuffer.wrap(text, lines.get(i)[0], lines.get(i)[1]));
+            if (sequence.count() == 0) return;
+            int n = PaperPlagiarismChecker.selectNGramSize(sequence.count(), sequence.count());
+            LongHashSet keys = PaperPlagiarismChecker.extractNgramKeys(sequence, n, new LongHashSet(sequence.count()));
+            simHashes[i] = engine.simHash(keys);
+            hasTokens[i] = true;
+        });
+
+        int count = 0;
+        for (boolean b : hasTokens) {
+            if (b) count++;
+        }
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        long[] kept = new long[count];
+        for (int i = 0, k = 0; i < lines.size(); i++) {
+            if (!hasTokens[i]) continue;
+            starts[k] = lines.get(i)[0];
+            ends[k] = lines.get(i)[1];
+            kept[k++] = simHashes[i];
+        }
+        return new Paragraphs(starts, ends, kept);
+    }
+
+    // 海明距离矩阵：行为抄袭段落、列为原文段落，按行主序存放，matrix[i*原文段落数+j]即距离（0~64）
+    // 距离按int存放：JDK 21.0.1的C2自动向量化把bitCount结果收窄存入byte数组时会算错
+    static int[] distanceMatrix(long[] original, long[] copy) {
+        int rows = copy.length;
+        int cols = original.length;
+        if ((long) rows * cols > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("段落数过多，距离矩阵超出上限：" + rows + "×" + cols);
+        }
+        int[] matrix = new int[rows * cols];
+        int tileRows = (rows + TILE - 1) / TILE;
+        int tileCols = (cols + TILE - 1) / TILE;
+        IntStream.range(0, tileRows * tileCols).parallel().forEach(tile -> {
+            int rowFrom = tile / tileCols * TILE;
+            int colFrom = tile % tileCols * TILE;
+            int rowTo = Math.min(rows, rowFrom + TILE);
+            int colTo = Math.min(cols, colFrom + TILE);
+            for (int i = rowFrom; i < rowTo; i++) {
+                long query = copy[i];
+                int base = i * cols;
+                for (int j = colFrom; j < colTo; j++) {
+                    matrix[base + j] = Long.bitCount(query ^ original[j]);
+                }
+            }
+        });
+        return matrix;
+    }
+
+    // 每个抄袭段落对齐到距离最小的原文段落（相同取下标小者），相似度低于阈值的不对齐；结果按抄袭段落顺序
+    static List<Pair> align(int[] matrix, int originalCount, int copyCount, double minSimilarity) {
+        Pair[] best = new Pair[copyCount];
+        IntStream.range(0, copyCount).parallel().forEach(i -> {
+            int base = i * originalCount;
+            int bestIndex = -1;
+            int bestDist = Integer.MAX_VALUE;
+            for (int j = 0; j < originalCount; j++) {
+                if (matrix[base + j] < bestDist) {
+                    bestDist = matrix[base + j];
+                    bestIndex = j;
+                }
+            }
+            if (bestIndex < 0) return;
+            double similarity = PaperPlagiarismChecker.calculateSimHashSimilarity(bestDist);
+            if (similarity >= minSimilarity) best[i] = new Pair(bestIndex, i, bestDist, similarity);
+        });
+        List<Pair> pairs = new ArrayList<>();
+        for (Pair pair : best) {
+            if (pair != null) pairs.add(pair);
+        }
+        return pairs;
+    }
+
+    static List<Pair> align(Paragraphs original, Paragraphs copy, double minSimilarity) {
+        int[] matrix = distanceMatrix(original.simHashes(), copy.simHashes());
+        return align(matrix, original.count(), copy.count(), minSimilarity);
+    }
+
+    // 对齐段落占抄袭文本段落总字符数的比例
+    static double coverage(Paragraphs copy, List<Pair> pairs) {
+        long total = 0;
+        for (int i = 0; i < copy.count(); i++) total += copy.length(i);
+        long aligned = 0;
+        for (Pair pair : pairs) aligned += copy.length(pair.copyIndex());
+        return total == 0 ? 0 : (double) aligned / total;
+    }
+
+    // 段落对齐模式：每个对齐段落对追加一条记录：时间|原文路径|抄袭文本路径|原文段落|抄袭段落|相似度|抄袭段落摘录
+    public static void run(String[] rawArgs) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        String[] args = PaperPlagiarismChecker.parseOptions(rawArgs, options);
+        if (args.length != 3 && args.length != 4) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        String origPath = args[0];
+        String copyPath = args[1];
+        String resultPath = args[2];
+        double minSimilarity = args.length == 4 ? Double.parseDouble(args[3]) : DEFAULT_MIN_SIMILARITY;
+        PlagiarismEngine engine = PlagiarismEngine.fromOptions(options);
+        PaperPlagiarismChecker.validateFile(origPath);
+        PaperPlagiarismChecker.validateFile(copyPath);
+        String origText = PaperPlagiarismChecker.readFile(origPath);
+        String copyText = PaperPlagiarismChecker.readFile(copyPath);
+
+        long hashStart = System.nanoTime();
+        Paragraphs original = paragraphs(origText, engine);
+        Paragraphs copy = paragraphs(copyText, engine);
+        long hashMillis = (System.nanoTime() - hashStart) / 1_000_000;
+
+        long matrixStart = System.nanoTime();
+        int[] matrix = distanceMatrix(original.simHashes(), copy.simHashes());
+        List<Pair> pairs = align(matrix, original.count(), copy.count(), minSimilarity);
+        long matrixMillis = (System.nanoTime() - matrixStart) / 1_000_000;
+
+        String timestamp = AsyncRecordWriter.timestamp();
+        for (Pair pair : pairs) {
+            int o = pair.originalIndex();
+            int c = pair.copyIndex();
+            String record = String.join("|",
+                    timestamp,
+                    origPath,
+                    copyPath,
+                    "第" + (o + 1) + "段[" + original.starts()[o] + "," + original.ends()[o] + ")",
+                    "第" + (c + 1) + "段[" + copy.starts()[c] + "," + copy.ends()[c] + ")",
+                    PaperPlagiarismChecker.formatRate(pair.similarity()),
+                    PaperPlagiarismChecker.excerpt(copyText, copy.starts()[c], copy.ends()[c]));
+            AsyncRecordWriter.shared().append(Paths.get(resultPath), ALIGNMENT_HEADER, record);
+        }
+        System.out.println("原文段落数：" + original.count() + "，抄袭文本段落数：" + copy.count()
+                + "，段落SimHash耗时：" + hashMillis + "ms，距离矩阵与对齐耗时：" + matrixMillis + "ms");
+        System.out.println("相似度>=" + PaperPlagiarismChecker.formatRate(minSimilarity) + "的对齐段落数：" + pairs.size()
+                + "，占抄袭文本篇幅：" + PaperPlagiarismChecker.formatRate(coverage(copy, pairs)));
+        if (!pairs.isEmpty()) {
+            System.out.println("结果已追加至：" + new File(resultPath).getAbsolutePath());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.List;
+import java.util.Random;
+
+public class ParagraphAlignmentTest {
+
+    private static final PlagiarismEngine ENGINE = new PlagiarismEngine();
+
+    // ====================== 测试 paragraphs() 函数 ======================
+
+    @Test
+    public void testParagraphs_SplitsLinesAndSkipsEmpty() {
+        String text = "  第一段，内容。\r\n\n，。！\n second paragraph  \n";
+        ParagraphAlignment.Paragraphs paragraphs = ParagraphAlignment.paragraphs(text, ENGINE);
+        // 只有标点的行不含token，不计为段落；区间去除了首尾空白
+        assertEquals(2, paragraphs.count());
+        assertEquals("第一段，内容。", text.substring(paragraphs.starts()[0], paragraphs.ends()[0]));
+        assertEquals("second paragraph", text.substring(paragraphs.starts()[1], paragraphs.ends()[1]));
+        assertEquals(ENGINE.fingerprintText("第一段，内容。").simHash(), paragraphs.simHashes()[0]);
+    }
+
+    @Test
+    public void testParagraphs_EmptyText() {
+        assertEquals(0, ParagraphAlignment.paragraphs("", ENGINE).count());
+        assertEquals(0, ParagraphAlignment.paragraphs("\n\n  \n", ENGINE).count());
+    }
+
+    // ====================== 测试 distanceMatrix() 函数 ======================
+
+    @Test
+    public void testDistanceMatrix_MatchesPairwiseDistance() {
+        // 行列数都不是分块边长的整数倍，覆盖边缘分块
+        Random random = new Random(5);
+        // 规模足以触发JIT编译热循环
+        long[] original = random.longs(4 * ParagraphAlignment.TILE + 61).toArray();
+        long[] copy = random.longs(6 * ParagraphAlignment.TILE + 3).toArray();
+        int[] matrix = ParagraphAlignment.distanceMatrix(original, copy);
+        assertEquals(original.length * copy.length, matrix.length);
+        for (int i = 0; i < copy.length; i++) {
+            for (int j = 0; j < original.length; j++) {
+                assertEquals(PaperPlagiarismChecker.calculateHammingDistance(copy[i], original[j]),
+                        matrix[i * original.length + j]);
+            }
+        }
+    }
+
+    @Test
+    public void testDistanceMatrix_EmptySide() {
+        assertEquals(0, ParagraphAlignment.distanceMatrix(new long[0], new long[]{1, 2}).length);
+        assertTrue(ParagraphAlignment.align(new int[0], 0, 2, 0.9).isEmpty());
+    }
+
+    // ====================== 测试 align() 函数 ======================
+
+    @Test
+    public void testAlign_FindsCopiedChapter() {
+        // 原创论文中夹带原文的第10~14段，其余段落均为新写内容
+        Random random = new Random(13);
+        String[] originalParagraphs = new String[50];
+        StringBuilder original = new StringBuilder();
+        for (int i = 0; i < originalParagraphs.length; i++) {
+            originalParagraphs[i] = TextFixtures.words(random, 40, 1_000_000);
+            original.append(originalParagraphs[i]).append('\n');
+        }
+        StringBuilder copy = new StringBuilder();
+        for (int i = 0; i < 20; i++) copy.append(TextFixtures.words(random, 40, 1_000_000)).append('\n');
+        for (int i = 10; i < 15; i++) copy.append(originalParagraphs[i]).append('\n');
+        for (int i = 0; i < 20; i++) copy.append(TextFixtures.words(random, 40, 1_000_000)).append('\n');
+
+        // 整篇相似度不高
+        assertTrue(new PlagiarismEngine().check(original, copy).similarity() < 0.9);
+
+        ParagraphAlignment.Paragraphs origParagraphs = ParagraphAlignment.paragraphs(original.toString(), ENGINE);
+        ParagraphAlignment.Paragraphs copyParagraphs = ParagraphAlignment.paragraphs(copy.toString(), ENGINE);
+        List<ParagraphAlignment.Pair> pairs = ParagraphAlignment.align(origParagraphs, copyParagraphs, 0.9);
+        assertEquals(5, pairs.size());
+        for (int k = 0; k < 5; k++) {
+            assertEquals(20 + k, pairs.get(k).copyIndex());
+            assertEquals(10 + k, pairs.get(k).originalIndex());
+            assertEquals(0, pairs.get(k).distance());
+            assertEquals(1.0, pairs.get(k).similarity(), 1e-9);
+        }
+        assertEquals(5.0 / 45, ParagraphAlignment.coverage(copyParagraphs, pairs), 0.01);
+    }
+
+    @Test
+    public void testAlign_PicksNearestAndLowestIndex() {
+        long[] original = {0b1111L, 0L, 0L};
+        long[] copy = {0b1L, -1L};
+        int[] matrix = ParagraphAlignment.distanceMatrix(original, copy);
+        List<ParagraphAlignment.Pair> pairs = ParagraphAlignment.align(matrix, original.length, copy.length, 0.5);
+        // 第0个抄袭段落与原文第1、2段距离同为1，取下标小者；第1个与所有原文段落距离>=60，不对齐
+        assertEquals(1, pairs.size());
+        assertEquals(1, pairs.get(0).originalIndex());
+        assertEquals(1, pairs.get(0).distance());
+    }
+}
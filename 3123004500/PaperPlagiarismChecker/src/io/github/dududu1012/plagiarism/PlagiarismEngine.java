@@ -0,0 +1,433 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+
+// 可嵌入的查重引擎：分词器、词频表与MinHash配置在创建时确定，之后实例不可变，可被任意多个线程同时调用。
+// 命令行各模式按选项创建一个实例（fromOptions），分词、取指纹与查重都经由它完成，进程内没有全局的流水线配置。
+// check()每次调用独占一份临时缓冲（token字典与两侧序列、分词器、n-gram键集合、按位计数向量、文件解码缓冲），
+// 用完归还到有界池中供下一次调用复用，稳态下一次查重除结果对象外几乎不分配内存。
+// 用池而不是ThreadLocal：服务模式每个请求一个虚拟线程，按线程缓存无法复用。
+// 需流式读取的大文件不进入token序列，n-gram键直接流入临时键集合。
+// 出错时抛出异常，不会结束进程
+public final class PlagiarismEngine {
+    // 超过该大小的文件读入缓冲用完即弃，避免池中长期占用大块内存
+    private static final int RETAINED_BUFFER_BYTES = 1 << 20;
+    // token字典、token序列与键集合都只增不减：处理过超过该token数的文档后该份缓冲不再归还池中
+    private static final int RETAINED_TOKENS = 1 << 18;
+
+    // 可选的中文分词阶段，为null时一段连续汉字为一个token
+    private final CjkSegmenter segmenter;
+    // 可选的文档频率表，不为null时SimHash按n-gram的idf加权
+    private final DocumentFrequencyTable dfTable;
+    // 可选的MinHash签名：启用后指纹同时携带签名，结果记录增加估计Jaccard；NaN表示未启用
+    private final double minHashThreshold;
+    private final ArrayBlockingQueue<Scratch> pool;
+
+    // 默认配置：不切分汉字、不按idf加权、不计算MinHash
+    public PlagiarismEngine() {
+        this(null, null, Double.NaN);
+    }
+
+    // minHashThreshold为语料库模式LSH检索的最低估计Jaccard，NaN表示不计算MinHash
+    PlagiarismEngine(CjkSegmenter segmenter, DocumentFrequencyTable dfTable, double minHashThreshold) {
+        this.segmenter = segmenter;
+        this.dfTable = dfTable;
+        this.minHashThreshold = minHashThreshold;
+        this.pool = new ArrayBlockingQueue<>(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    // 按 --segment / --idf / --minhash 选项创建，未给出的选项取默认配置。
+    // 词频表的键依赖分词方式，按分词器对应的n-gram键版本打开
+    static PlagiarismEngine fromOptions(Map<String, String> options) throws IOException {
+        String segment = options.get(PaperPlagiarismChecker.SEGMENT_OPTION);
+        CjkSegmenter segmenter = segment == null ? null : CjkSegmenter.fromOption(segment);
+        String idf = options.get(PaperPlagiarismChecker.IDF_OPTION);
+        DocumentFrequencyTable dfTable = idf == null ? null
+                : DocumentFrequencyTable.open(Paths.get(idf), ngramKeyVersion(segmenter));
+        String minHash = options.get(PaperPlagiarismChecker.MINHASH_OPTION);
+        double threshold = Double.NaN;
+        if (minHash != null) {
+            threshold = Double.parseDouble(minHash);
+            if (!(threshold > 0 && threshold <= 1)) {
+                throw new IllegalArgumentException("Jaccard阈值必须在(0, 1]之间：" + minHash);
+            }
+        }
+        return new PlagiarismEngine(segmenter, dfTable, threshold);
+    }
+
+    boolean minHashEnabled() {
+        return !Double.isNaN(minHashThreshold);
+    }
+
+    double minHashThreshold() {
+        return minHashThreshold;
+    }
+
+    // 是否按词频表加权：加权的SimHash不适用级联的n-gram数比上界
+    boolean weighted() {
+        return dfTable != null;
+    }
+
+    // n-gram键版本：算法版本叠加分词词典标识
+    int ngramKeyVersion() {
+        return ngramKeyVersion(segmenter);
+    }
+
+    private static int ngramKeyVersion(CjkSegmenter segmenter) {
+        int version = PaperPlagiarismChecker.FINGERPRINT_VERSION;
+        return segmenter == null ? version : version | segmenter.id() << 8;
+    }
+
+    // 指纹版本：在n-gram键版本上再叠加加权所用词频表的文档数，分词或加权配置不同的指纹库记录不会被误用
+    int fingerprintVersion() {
+        if (dfTable == null) return ngramKeyVersion();
+        long mixed = MurmurHash3.fmix64(((long) ngramKeyVersion() << 32) ^ dfTable.documentCount() ^ 0x1DFL);
+        return PaperPlagiarismChecker.FINGERPRINT_VERSION | ((int) (mixed & 0xffffff) | 1) << 8;
+    }
+
+    public PaperPlagiarismChecker.CheckResult check(CharSequence original, CharSequence copy) {
+        Scratch scratch = acquire();
+        try {
+            scratch.clear();
+            scratch.scan(original, scratch.originalScanner);
+            scratch.scan(copy, scratch.copyScanner);
+            return compare(scratch);
+        } finally {
+            release(scratch);
+        }
+    }
+
+    // 大文件先按最大粒度流式取指纹，只有另一方token数不足、粒度需要变小时才再流式读取一遍
+    public PaperPlagiarismChecker.CheckResult check(Path original, Path copy) throws IOException {
+        PaperPlagiarismChecker.validateFile(original.toString());
+        PaperPlagiarismChecker.validateFile(copy.toString());
+        Scratch scratch = acquire();
+        try {
+            scratch.clear();
+            PaperPlagiarismChecker.Fingerprint origFp = null;
+            PaperPlagiarismChecker.Fingerprint copyFp = null;
+            if (MappedTextReader.shouldStream(Files.size(original))) {
+                origFp = streamFingerprint(original, PaperPlagiarismChecker.MAX_N_GRAM);
+            } else {
+                scratch.scanFile(original, scratch.originalScanner);
+            }
+            if (MappedTextReader.shouldStream(Files.size(copy))) {
+                copyFp = streamFingerprint(copy, PaperPlagiarismChecker.MAX_N_GRAM);
+            } else {
+                scratch.scanFile(copy, scratch.copyScanner);
+            }
+            int n = PaperPlagiarismChecker.selectNGramSize(origFp != null ? origFp.tokenCount() : scratch.original.count(),
+                    copyFp != null ? copyFp.tokenCount() : scratch.copy.count());
+            origFp = origFp == null ? fingerprint(scratch.original, n, scratch)
+                    : origFp.nGram() == n ? origFp : streamFingerprint(original, n);
+            copyFp = copyFp == null ? fingerprint(scratch.copy, n, scratch)
+                    : copyFp.nGram() == n ? copyFp : streamFingerprint(copy, n);
+            return PaperPlagiarismChecker.compare(origFp, copyFp);
+        } finally {
+            release(scratch);
+        }
+    }
+
+    // 两个文件查重，指纹可经指纹库：文件验证 → 取指纹 → 按双方token数确定粒度 → 比较SimHash；store为null时同check(Path, Path)
+    PaperPlagiarismChecker.CheckResult check(String origFilePath, String copyFilePath, FingerprintStore store)
+            throws IOException {
+        if (store == null) return check(Paths.get(origFilePath), Paths.get(copyFilePath));
+        PaperPlagiarismChecker.validateFile(origFilePath);
+        PaperPlagiarismChecker.validateFile(copyFilePath);
+        PaperPlagiarismChecker.Fingerprint origFp = loadFingerprint(origFilePath, store);
+        PaperPlagiarismChecker.Fingerprint copyFp = loadFingerprint(copyFilePath, store);
+        int n = PaperPlagiarismChecker.selectNGramSize(origFp.tokenCount(), copyFp.tokenCount());
+        // 仅当一方token数不足时，另一方需要按较小粒度重新计算
+        if (origFp.nGram() != n) origFp = fingerprintFile(origFilePath, n);
+        if (copyFp.nGram() != n) copyFp = fingerprintFile(copyFilePath, n);
+        return PaperPlagiarismChecker.compare(origFp, copyFp);
+    }
+
+    // 当前池中空闲的缓冲份数
+    int pooled() {
+        return pool.size();
+    }
+
+    // 非核心字符视为空格，合并连续空白、去除首尾空白并转小写（由TokenScanner单遍完成），配置了分词器时词间以空格分隔
+    String preprocessText(String text) {
+        if (text == null || text.isEmpty()) return "";
+        StageMetrics.Span span = StageMetrics.start(StageMetrics.Stage.PREPROCESS);
+        TokenBuffer buffer = new TokenBuffer(text.length());
+        TokenScanner scanner = scanner(buffer);
+        scanner.feed(text);
+        scanner.finish();
+        String normalized = buffer.normalizedText();
+        span.end(0, 0, 0);
+        return normalized;
+    }
+
+    // 分词：TokenScanner归一化切分，配置了分词器时再经其切分汉字
+    TokenSequence tokenize(CharSequence text) {
+        StageMetrics.Span span = StageMetrics.start(StageMetrics.Stage.TOKENIZE);
+        TokenSequence sequence = new TokenSequence();
+        TokenScanner scanner = scanner(sequence);
+        scanner.feed(text);
+        scanner.finish();
+        span.end(0, sequence.count(), 0);
+        return sequence;
+    }
+
+    // 同tokenize，文本来自内存映射的文件窗口，按字符块送入TokenScanner，跨块的token由扫描器保留
+    void scanFile(Path path, TokenScanner.TokenSink sink) throws IOException {
+        TokenScanner scanner = scanner(sink);
+        MappedTextReader.read(path, scanner::feed);
+        scanner.finish();
+    }
+
+    private TokenScanner scanner(TokenScanner.TokenSink sink) {
+        return new TokenScanner(segmenter == null ? sink : segmenter.wrap(sink));
+    }
+
+    // 单文档指纹：按文档自身token数选择n-gram粒度（语料库模式、指纹库使用）
+    PaperPlagiarismChecker.Fingerprint fingerprintFile(String filePath) throws IOException {
+        PaperPlagiarismChecker.validateFile(filePath);
+        Path path = Paths.get(filePath);
+        if (MappedTextReader.shouldStream(Files.size(path))) {
+            PaperPlagiarismChecker.Fingerprint fingerprint = streamFingerprint(path, PaperPlagiarismChecker.MAX_N_GRAM);
+            int n = PaperPlagiarismChecker.selectNGramSize(fingerprint.tokenCount(), fingerprint.tokenCount());
+            return n == PaperPlagiarismChecker.MAX_N_GRAM ? fingerprint : streamFingerprint(path, n);
+        }
+        return fingerprintText(PaperPlagiarismChecker.readFile(filePath));
+    }
+
+    PaperPlagiarismChecker.Fingerprint fingerprintFile(String filePath, int n) throws IOException {
+        PaperPlagiarismChecker.validateFile(filePath);
+        Path path = Paths.get(filePath);
+        if (MappedTextReader.shouldStream(Files.size(path))) {
+            return streamFingerprint(path, n);
+        }
+        return fingerprintSequence(tokenize(PaperPlagiarismChecker.readFile(filePath)), n);
+    }
+
+    // 大文件指纹：内存映射分块解码，token与n-gram键直接流入键集合，不在堆上保留全文与token序列；
+    // 键集合用完即弃，不放进池中的缓冲
+    PaperPlagiarismChecker.Fingerprint streamFingerprint(Path path, int n) throws IOException {
+        StageMetrics.Span span = StageMetrics.start(StageMetrics.Stage.STREAM);
+        NgramKeyStream stream = new NgramKeyStream(n, new LongHashSet());
+        scanFile(path, stream);
+        span.end(Files.size(path), stream.count(), stream.keys().size());
+        return fingerprintKeys(stream.keys(), stream.count(), n);
+    }
+
+    PaperPlagiarismChecker.Fingerprint fingerprintText(CharSequence text) {
+        TokenSequence sequence = tokenize(text);
+        return fingerprintSequence(sequence, PaperPlagiarismChecker.selectNGramSize(sequence.count(), sequence.count()));
+    }
+
+    PaperPlagiarismChecker.Fingerprint fingerprintSequence(TokenSequence sequence, int n) {
+        LongHashSet keys = PaperPlagiarismChecker.extractNgramKeys(sequence, n, new LongHashSet(sequence.count()));
+        return fingerprintKeys(keys, sequence.count(), n);
+    }
+
+    PaperPlagiarismChecker.Fingerprint fingerprintKeys(LongHashSet ngramKeys, int tokenCount, int n) {
+        return fingerprintKeys(ngramKeys, tokenCount, n, null);
+    }
+
+    // SimHash按本实例的加权方式累加，启用MinHash时签名在同一遍n-gram遍历中得出；
+    // 不加权也不计算MinHash时，小集合的按位计数使用scratch中的缓冲（可为null）
+    private PaperPlagiarismChecker.Fingerprint fingerprintKeys(LongHashSet ngramKeys, int tokenCount, int n,
+                                                               SimHashAccumulator.Scratch scratch) {
+        StageMetrics.Span span = StageMetrics.start(StageMetrics.Stage.SIMHASH);
+        PaperPlagiarismChecker.Fingerprint fingerprint;
+        if (minHashEnabled()) {
+            SimHashAccumulator.Sketch sketch = dfTable == null
+                    ? SimHashAccumulator.sketch(ngramKeys, null) : dfTable.weightedSketch(ngramKeys);
+            fingerprint = new PaperPlagiarismChecker.Fingerprint(sketch.simHash(), tokenCount, ngramKeys.size(), n,
+                    sketch.minHash());
+        } else {
+            long simHash = dfTable != null ? dfTable.weightedSimHash(ngramKeys)
+                    : scratch != null ? SimHashAccumulator.simHash(ngramKeys, scratch) : SimHashAccumulator.simHash(ngramKeys);
+            fingerprint = new PaperPlagiarismChecker.Fingerprint(simHash, tokenCount, ngramKeys.size(), n);
+        }
+        span.end(0, 0, ngramKeys.size());
+        return fingerprint;
+    }
+
+    // 只计算SimHash（加权方式同fingerprintKeys），不计算MinHash签名
+    long simHash(LongHashSet ngramKeys) {
+        if (dfTable == null) return PaperPlagiarismChecker.calculateSimHash(ngramKeys);
+        StageMetrics.Span span = StageMetrics.start(StageMetrics.Stage.SIMHASH);
+        long simHash = dfTable.weightedSimHash(ngramKeys);
+        span.end(0, 0, ngramKeys.size());
+        return simHash;
+    }
+
+    // 经指纹库取指纹：路径、大小、修改时间均未变直接命中；仅修改时间变化则按内容摘要确认后复用。
+    // 指纹库记录不含MinHash签名，启用MinHash时不经指纹库
+    PaperPlagiarismChecker.Fingerprint loadFingerprint(String filePath, FingerprintStore store) throws IOException {
+        if (store == null || minHashEnabled()) return fingerprintFile(filePath);
+
+        File file = new File(filePath);
+        String canonicalPath = file.getCanonicalPath();
+        long size = file.length();
+        long mtime = file.lastModified();
+        int version = fingerprintVersion();
+        FingerprintStore.Entry entry = store.lookup(canonicalPath, version);
+        if (entry != null && entry.matchesIdentity(size, mtime)) {
+            return entry.fingerprint();
+        }
+
+        // 大文件的摘要与指纹都按映射窗口流式计算，不整体读入
+        boolean streaming = MappedTextReader.shouldStream(size);
+        StageMetrics.Span span = StageMetrics.start(StageMetrics.Stage.READ);
+        byte[] fileBytes = streaming ? null : Files.readAllBytes(file.toPath());
+        span.end(streaming ? 0 : fileBytes.length, 0, 0);
+        byte[] digest = streaming ? MappedTextReader.digest(file.toPath()) : PaperPlagiarismChecker.contentDigest(fileBytes);
+        PaperPlagiarismChecker.Fingerprint fingerprint = entry != null && entry.matchesDigest(digest)
+                ? entry.fingerprint()
+                : streaming ? fingerprintFile(filePath) : fingerprintText(new String(fileBytes, StandardCharsets.UTF_8));
+        store.append(canonicalPath, size, mtime, digest, fingerprint, version);
+        return fingerprint;
+    }
+
+    // 一篇文档全部粒度（1~MAX_N_GRAM）的n-gram键，用于构建文档频率表
+    LongHashSet documentNgramKeys(CharSequence text) {
+        TokenSequence sequence = tokenize(text);
+        LongHashSet keys = new LongHashSet(sequence.count() * 2);
+        for (int n = PaperPlagiarismChecker.MIN_N_GRAM; n <= PaperPlagiarismChecker.MAX_N_GRAM; n++) {
+            PaperPlagiarismChecker.extractNgramKeys(sequence, n, keys);
+        }
+        return keys;
+    }
+
+    // 来源归因使用的n-gram键：固定取MAX_N_GRAM粒度，使不同长度的文档可在同一倒排索引中比较
+    LongHashSet attributionNgramKeys(CharSequence text) {
+        TokenSequence sequence = tokenize(text);
+        return PaperPlagiarismChecker.extractNgramKeys(sequence, PaperPlagiarismChecker.MAX_N_GRAM,
+                new LongHashSet(sequence.count()));
+    }
+
+    private PaperPlagiarismChecker.CheckResult compare(Scratch scratch) {
+        int n = PaperPlagiarismChecker.selectNGramSize(scratch.original.count(), scratch.copy.count());
+        PaperPlagiarismChecker.Fingerprint origFp = fingerprint(scratch.original, n, scratch);
+        PaperPlagiarismChecker.Fingerprint copyFp = fingerprint(scratch.copy, n, scratch);
+        return PaperPlagiarismChecker.compare(origFp, copyFp);
+    }
+
+    // 同fingerprintSequence，但键集合与计数向量来自scratch
+    private PaperPlagiarismChecker.Fingerprint fingerprint(TokenSequence tokens, int n, Scratch scratch) {
+        LongHashSet keys = scratch.keys;
+        keys.clear();
+        PaperPlagiarismChecker.extractNgramKeys(tokens, n, keys);
+        return fingerprintKeys(keys, tokens.count(), n, scratch.simHash);
+    }
+
+    private Scratch acquire() {
+        Scratch scratch = pool.poll();
+        return scratch != null ? scratch : new Scratch(segmenter);
+    }
+
+    // 池满或缓冲已膨胀超过上限时丢弃，交给GC
+    private void release(Scratch scratch) {
+        if (scratch.oversized()) return;
+        pool.offer(scratch);
+    }
+
+    // 一次查重所需的全部临时缓冲；两侧共用同一个token字典，相同token只哈希一次
+    private static final class Scratch {
+        final TokenDictionary dictionary = new TokenDictionary();
+        final TokenSequence original = new TokenSequence(dictionary);
+        final TokenSequence copy = new TokenSequence(dictionary);
+        final TokenScanner originalScanner;
+        final TokenScanner copyScanner;
+        final LongHashSet keys = new LongHashSet();
+        final SimHashAccumulator.Scratch simHash = new SimHashAccumulator.Scratch();
+        final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocate(0);
+        CharBuffer chars = CharBuffer.allocate(0);
+
+        Scratch(CjkSegmenter segmenter) {
+            originalScanner = new TokenScanner(segmenter == null ? original : segmenter.wrap(original));
+            copyScanner = new TokenScanner(segmenter == null ? copy : segmenter.wrap(copy));
+        }
+
+        // 任一只增不减的结构超过 RETAINED_TOKENS 对应的大小（键集合按负载因子0.5为两倍槽位）
+        boolean oversized() {
+            return dictionary.capacity() > RETAINED_TOKENS || original.capacity() > RETAINED_TOKENS
+                    || copy.capacity() > RETAINED_TOKENS || keys.capacity() > 2 * RETAINED_TOKENS;
+        }
+
+        // 两侧序列共用字典，须在扫描任一侧之前一并清空
+        void clear() {
+            original.clear();
+            copy.clear();
+        }
+
+        void scan(CharSequence text, TokenScanner scanner) {
+            StageMetrics.Span span = StageMetrics.start(StageMetrics.Stage.TOKENIZE);
+            scanner.reset();
+            scanner.feed(text);
+            scanner.finish();
+            span.end(0, tokenCount(scanner), 0);
+        }
+
+        // 小文件读入复用的字节缓冲并解码到复用的字符缓冲（非法UTF-8按替换字符处理，同readFile）；
+        // 需流式读取的大文件不经此处
+        void scanFile(Path path, TokenScanner scanner) throws IOException {
+            long size = Files.size(path);
+            scanner.reset();
+            StageMetrics.Span read = StageMetrics.start(StageMetrics.Stage.READ);
+            ByteBuffer in = byteBuffer((int) size);
+            try (FileChannel channel = FileChannel.open(path)) {
+                while (in.hasRemaining()) {
+                    if (channel.read(in) < 0) break;
+                }
+            }
+            in.flip();
+            read.end(in.limit(), 0, 0);
+
+            StageMetrics.Span tokenize = StageMetrics.start(StageMetrics.Stage.TOKENIZE);
+            CharBuffer out = charBuffer(in.limit());
+            decoder.reset();
+            decoder.decode(in, out, true);
+            decoder.flush(out);
+            out.flip();
+            scanner.feed(out.array(), 0, out.limit());
+            scanner.finish();
+            tokenize.end(0, tokenCount(scanner), 0);
+        }
+
+        private int tokenCount(TokenScanner scanner) {
+            return scanner == originalScanner ? original.count() : copy.count();
+        }
+
+        // UTF-8解码后的字符数不超过字节数
+        private ByteBuffer byteBuffer(int size) {
+            if (size > RETAINED_BUFFER_BYTES) return ByteBuffer.allocate(size);
+            if (bytes.capacity() < size) bytes = ByteBuffer.allocate(grow(bytes.capacity(), size));
+            bytes.clear();
+            bytes.limit(size);
+            return bytes;
+        }
+
+        private CharBuffer charBuffer(int size) {
+            if (size > RETAINED_BUFFER_BYTES) return CharBuffer.allocate(size);
+            if (chars.capacity() < size) chars = CharBuffer.allocate(grow(chars.capacity(), size));
+            chars.clear();
+            return chars;
+        }
+
+        private static int grow(int capacity, int size) {
+            return Math.max(size, Math.min(RETAINED_BUFFER_BYTES, capacity * 2));
+        }
+    }
+}
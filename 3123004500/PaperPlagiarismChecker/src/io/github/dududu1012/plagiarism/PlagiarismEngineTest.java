@@ -0,0 +1,211 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class PlagiarismEngineTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static void assertSameResult(PaperPlagiarismChecker.CheckResult expected, PaperPlagiarismChecker.CheckResult actual) {
+        assertEquals(expected.original().simHash(), actual.original().simHash());
+        assertEquals(expected.copy().simHash(), actual.copy().simHash());
+        assertEquals(expected.original().tokenCount(), actual.original().tokenCount());
+        assertEquals(expected.copy().ngramCount(), actual.copy().ngramCount());
+        assertEquals(expected.nGram(), actual.nGram());
+        assertEquals(expected.similarity(), actual.similarity(), 0.0);
+    }
+
+    // 参照结果：不经缓冲池，按引擎的配置逐步分词、取指纹后比较
+    private static PaperPlagiarismChecker.CheckResult unpooled(PlagiarismEngine engine, CharSequence original, CharSequence copy) {
+        TokenSequence origTokens = engine.tokenize(original);
+        TokenSequence copyTokens = engine.tokenize(copy);
+        int n = PaperPlagiarismChecker.selectNGramSize(origTokens.count(), copyTokens.count());
+        return PaperPlagiarismChecker.compare(engine.fingerprintSequence(origTokens, n), engine.fingerprintSequence(copyTokens, n));
+    }
+
+    private static PaperPlagiarismChecker.CheckResult unpooled(PlagiarismEngine engine, Path original, Path copy) throws Exception {
+        return unpooled(engine, PaperPlagiarismChecker.readFile(original.toString()), PaperPlagiarismChecker.readFile(copy.toString()));
+    }
+
+    // ====================== 测试 check(CharSequence, CharSequence) 函数 ======================
+
+    @Test
+    public void testCheckTexts_MatchesUnpooledPipeline() {
+        PlagiarismEngine engine = new PlagiarismEngine();
+        Random random = new Random(31);
+        for (int tokens : new int[]{0, 1, 2, 50, 3000}) {
+            String original = TextFixtures.mixedWords(random, tokens);
+            String copy = original + TextFixtures.mixedWords(random, tokens / 3);
+            assertSameResult(unpooled(engine, original, copy), engine.check(original, copy));
+        }
+        // 缓冲复用后，前一次的内容不会残留到下一次
+        String a = TextFixtures.mixedWords(random, 400);
+        String b = TextFixtures.mixedWords(random, 400);
+        PaperPlagiarismChecker.CheckResult first = engine.check(a, b);
+        engine.check(TextFixtures.mixedWords(random, 5000), TextFixtures.mixedWords(random, 10));
+        assertSameResult(first, engine.check(a, b));
+        assertEquals(1, engine.pooled());
+    }
+
+    @Test
+    public void testCheckTexts_UsesOwnConfiguration() {
+        String original = "本文研究论文查重系统的设计与实现，查重系统基于SimHash";
+        String copy = "本文研究查重系统的实现，该论文查重系统基于SimHash算法";
+        PlagiarismEngine configured = new PlagiarismEngine(CjkSegmenter.of(List.of("论文", "查重", "系统")), null, 0.5);
+        PlagiarismEngine plain = new PlagiarismEngine();
+
+        // 两个引擎交替查重，各自按创建时的配置，互不影响
+        PaperPlagiarismChecker.CheckResult actual = configured.check(original, copy);
+        PaperPlagiarismChecker.CheckResult plainActual = plain.check(original, copy);
+        PaperPlagiarismChecker.CheckResult expected = unpooled(configured, original, copy);
+        assertSameResult(expected, actual);
+        assertEquals(expected.jaccardString(), actual.jaccardString());
+        assertNotNull(actual.jaccardString());
+        assertSameResult(unpooled(plain, original, copy), plainActual);
+        assertNull(plainActual.jaccardString());
+        assertNotEquals(plainActual.original().tokenCount(), actual.original().tokenCount());
+    }
+
+    @Test
+    public void testCheckTexts_ConcurrentCallsMatchSequential() throws Exception {
+        PlagiarismEngine engine = new PlagiarismEngine();
+        Random random = new Random(32);
+        List<String[]> pairs = new ArrayList<>();
+        List<PaperPlagiarismChecker.CheckResult> expected = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String original = TextFixtures.mixedWords(random, 50 + random.nextInt(2000));
+            String[] pair = {original, original.substring(0, original.length() / 2) + TextFixtures.mixedWords(random, 300)};
+            pairs.add(pair);
+            expected.add(unpooled(engine, pair[0], pair[1]));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<PaperPlagiarismChecker.CheckResult>> futures = new ArrayList<>();
+            for (int round = 0; round < 10; round++) {
+                for (String[] pair : pairs) {
+                    futures.add(executor.submit(() -> engine.check(pair[0], pair[1])));
+                }
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertSameResult(expected.get(i % pairs.size()), futures.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCheckTexts_SteadyStateAllocatesLittle() {
+        // 缓冲复用后，每次查重分配的内存远小于不经缓冲池的逐步流程（后者每次新建token字典、序列与键集合）
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        Random random = new Random(33);
+        String original = TextFixtures.mixedWords(random, 3000);
+        String copy = original.substring(0, original.length() / 2) + TextFixtures.mixedWords(random, 1500);
+        PlagiarismEngine engine = new PlagiarismEngine();
+        for (int i = 0; i < 200; i++) {
+            engine.check(original, copy);
+            unpooled(engine, original, copy);
+        }
+        int rounds = 100;
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < rounds; i++) {
+            engine.check(original, copy);
+        }
+        long engineBytes = (threads.getThreadAllocatedBytes(thread) - before) / rounds;
+        before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < rounds; i++) {
+            unpooled(engine, original, copy);
+        }
+        long unpooledBytes = (threads.getThreadAllocatedBytes(thread) - before) / rounds;
+        assertTrue("engine=" + engineBytes + " unpooled=" + unpooledBytes, engineBytes * 20 < unpooledBytes);
+    }
+
+    // ====================== 测试 check(Path, Path) 函数 ======================
+
+    @Test
+    public void testCheckFiles_MatchesUnpooledPipeline() throws Exception {
+        PlagiarismEngine engine = new PlagiarismEngine();
+        Random random = new Random(34);
+        String text = TextFixtures.mixedWords(random, 1500);
+        Path orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", text.getBytes(StandardCharsets.UTF_8));
+        Path copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", (TextFixtures.mixedWords(random, 200) + text).getBytes(StandardCharsets.UTF_8));
+        // 非法UTF-8字节与readFile一样按替换字符处理
+        Path malformed = TextFixtures.write(tempFolder.getRoot(), "bad.txt", new byte[]{'a', 'b', ' ', (byte) 0xe4, (byte) 0xb8, ' ', 'c', 'd', (byte) 0xff, 'e'});
+        Path empty = TextFixtures.write(tempFolder.getRoot(), "empty.txt", new byte[0]);
+        Path[][] pairs = {{orig, copy}, {copy, orig}, {orig, malformed}, {malformed, empty}, {empty, empty}};
+        for (Path[] pair : pairs) {
+            assertSameResult(unpooled(engine, pair[0], pair[1]), engine.check(pair[0], pair[1]));
+        }
+    }
+
+    @Test
+    public void testCheckFiles_LargeFileStreamedNotPooled() throws Exception {
+        // 大文件走n-gram键流，不进入token序列：结果与逐步流程一致，归还池中的缓冲仍是小的；
+        // 另一方只有1个token时粒度降为1，大文件按新粒度再流式读取一遍
+        PlagiarismEngine engine = new PlagiarismEngine();
+        Random random = new Random(35);
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < MappedTextReader.STREAMING_THRESHOLD) {
+            sb.append(TextFixtures.mixedWords(random, 1000));
+        }
+        Path large = TextFixtures.write(tempFolder.getRoot(), "large.txt", sb.toString().getBytes(StandardCharsets.UTF_8));
+        Path small = TextFixtures.write(tempFolder.getRoot(), "small.txt", TextFixtures.mixedWords(random, 500).getBytes(StandardCharsets.UTF_8));
+        Path single = TextFixtures.write(tempFolder.getRoot(), "single.txt", "论文".getBytes(StandardCharsets.UTF_8));
+        Path[][] pairs = {{large, small}, {small, large}, {large, single}};
+        for (Path[] pair : pairs) {
+            assertSameResult(unpooled(engine, pair[0], pair[1]), engine.check(pair[0], pair[1]));
+        }
+        assertEquals(1, engine.pooled());
+    }
+
+    // ====================== 测试 缓冲池 ======================
+
+    @Test
+    public void testRelease_DropsOversizedScratch() {
+        // 处理过超大文本的缓冲不归还池中，之后的小文本使用新的缓冲
+        PlagiarismEngine engine = new PlagiarismEngine();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 300_000; i++) {
+            sb.append('w').append(i).append(' ');
+        }
+        engine.check(sb, "w1 w2 w3");
+        assertEquals(0, engine.pooled());
+        engine.check("w1 w2 w3", "w1 w2 w4");
+        assertEquals(1, engine.pooled());
+    }
+
+    @Test(expected = java.io.FileNotFoundException.class)
+    public void testCheckFiles_MissingFileThrows() throws Exception {
+        Path orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", "今天是星期天".getBytes(StandardCharsets.UTF_8));
+        new PlagiarismEngine().check(orig, tempFolder.getRoot().toPath().resolve("missing.txt"));
+    }
+
+    // ====================== 测试 命令行入口 ======================
+
+    @Test
+    public void testRun_ReturnsStatusInsteadOfExiting() throws Exception {
+        Path orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", "今天是星期天，天气晴，今晚我要去看电影".getBytes(StandardCharsets.UTF_8));
+        Path copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", "今天是周天，天气晴朗，我晚上要去看电影".getBytes(StandardCharsets.UTF_8));
+        Path result = tempFolder.getRoot().toPath().resolve("result.txt");
+        assertEquals(0, PaperPlagiarismChecker.run(new String[]{orig.toString(), copy.toString(), result.toString()}));
+        assertTrue(Files.readString(result, StandardCharsets.UTF_8).contains("|" + orig + "|" + copy + "|"));
+        // 参数错误、文件不存在时返回1，进程继续运行
+        assertEquals(1, PaperPlagiarismChecker.run(new String[]{orig.toString()}));
+        assertEquals(1, PaperPlagiarismChecker.run(new String[]{orig.toString(), "missing.txt", result.toString()}));
+    }
+}
@@ -0,0 +1,487 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 倒排n-gram索引：n-gram键 → 包含它的文档编号列表，用于拼接式抄袭的多来源归因。
+// 文档路径按编号逐行存于 <库>.docs；倒排表分段存于 <库>.seg0、<库>.seg1 …，每段覆盖一批连续编号的文档，
+// 段文件整体只读映射：有序键区 + 偏移区 + 倒排区（编号差值的varint编码）。查询只访问命中的键与倒排表。
+// 路径即文档身份，已收录的路径再次入库时跳过；入库持有 .docs 文件的StoreLock，并先读入其他进程新增的文档与段，
+// 两个建索引进程不会写同一个段文件
+public class PostingIndex implements Closeable {
+    static final String BUILD_FLAG = "--index";
+    static final String QUERY_FLAG = "--sources";
+    static final String SOURCE_HEADER = "查重时间|待查文件|来源文档|覆盖率";
+    private static final String BUILD_USAGE = "参数错误！正确格式：\njava -jar main.jar --index [索引文件] [语料目录或路径清单] [--segment 词典文件|bigram]";
+    private static final String QUERY_USAGE = "参数错误！正确格式：\njava -jar main.jar --sources [索引文件] [待查文件] [结果文件] [最低覆盖率(默认"
+            + PaperPlagiarismChecker.formatRate(0.01) + ")] [--segment 词典文件|bigram]";
+    private static final double DEFAULT_MIN_COVERAGE = 0.01;
+
+    private static final int MAGIC = 0x50495831; // "PIX1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    // 单段最多容纳的(键, 文档)对数，段文件远小于2GB，可整体映射
+    static final int SEGMENT_PAIRS = 1 << 22;
+    // 每批并行提取n-gram的文档数
+    private static final int BATCH_DOCS = 64;
+
+    // 段文件头字段偏移
+    private static final int H_MAGIC = 0;
+    private static final int H_FORMAT = 4;
+    private static final int H_KEY_VERSION = 8;
+    private static final int H_DOC_BASE = 12;
+    private static final int H_DOC_COUNT = 16;
+    private static final int H_TERM_COUNT = 20;
+
+    private final Path basePath;
+    private final int keyVersion;
+    private final Path docsPath;
+    private final FileChannel docsChannel;
+    private final List<String> docPaths = new ArrayList<>();
+    private final Set<String> indexedPaths = new HashSet<>();
+    private final List<Segment> segments = new ArrayList<>();
+    // .docs 文件中已读入的字节数
+    private long docsRead;
+
+    // 构建期缓冲：尚未写成段文件的(键, 文档)对
+    private long[] pendingKeys = new long[0];
+    private int[] pendingDocs = new int[0];
+    private int pendingCount;
+    private int pendingDocBase;
+
+    private PostingIndex(Path basePath, int keyVersion, FileChannel docsChannel) {
+        this.basePath = basePath;
+        this.keyVersion = keyVersion;
+        this.docsPath = sibling(basePath, ".docs");
+        this.docsChannel = docsChannel;
+    }
+
+    // 打开（或新建）索引；keyVersion与段文件记录的不一致时拒绝使用
+    public static PostingIndex open(Path basePath, int keyVersion) throws IOException {
+        Path parent = basePath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        PostingIndex index = new PostingIndex(basePath, keyVersion, FileChannel.open(sibling(basePath, ".docs"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        try {
+            StoreLock.run(index.docsPath, index.docsChannel, Long.MAX_VALUE, index::refresh);
+        } catch (IOException | RuntimeException e) {
+            index.close();
+            throw e;
+        }
+        return index;
+    }
+
+    private <T> T locked(StoreLock.Body<T> body) throws IOException {
+        return StoreLock.call(docsPath, docsChannel, Long.MAX_VALUE, body);
+    }
+
+    // 持锁时读入其他进程新增的文档路径（只取完整的行）与段文件
+    private void refresh() throws IOException {
+        long end = docsChannel.size();
+        if (end > docsRead) {
+            ByteBuffer in = ByteBuffer.allocate(Math.toIntExact(end - docsRead));
+            while (in.hasRemaining()) {
+                if (docsChannel.read(in, docsRead + in.position()) < 0) break;
+            }
+            byte[] bytes = in.array();
+            int lineStart = 0;
+            for (int i = 0; i < in.position(); i++) {
+                if (bytes[i] != '\n') continue;
+                // 旧版按平台换行符写入，去掉可能的 \r
+                int lineEnd = i > lineStart && bytes[i - 1] == '\r' ? i - 1 : i;
+                String path = new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+                docPaths.add(path);
+                indexedPaths.add(path);
+                lineStart = i + 1;
+            }
+            docsRead += lineStart;
+        }
+        for (int i = segments.size(); Files.exists(sibling(basePath, ".seg" + i)); i++) {
+            Segment segment = Segment.map(sibling(basePath, ".seg" + i));
+            if (segment.keyVersion() != keyVersion) {
+                throw new IOException("索引的n-gram键版本（" + segment.keyVersion() + "）与当前分词/哈希配置（" + keyVersion
+                        + "）不一致，请使用相同的--segment配置或重建索引：" + basePath.toAbsolutePath());
+            }
+            segments.add(segment);
+        }
+        pendingDocBase = docPaths.size();
+    }
+
+    public int size() {
+        return docPaths.size();
+    }
+
+    public String path(int docId) {
+        return docPaths.get(docId);
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    // 追加一批文档：每批并行提取n-gram，再按编号顺序写入缓冲，缓冲满时落为一个段文件。
+    // 已收录（含本批中重复出现）的路径跳过；读取失败的文档仍占一个编号（没有倒排项），保证编号与路径一一对应。
+    // n-gram按engine的分词方式提取，engine的n-gram键版本须与打开索引时的版本一致。返回新收录的文档数
+    public int addAll(List<String> paths, PlagiarismEngine engine) throws IOException {
+        return locked(() -> {
+            refresh();
+            List<String> added = new ArrayList<>();
+            for (String path : paths) {
+                String canonical = new File(path).getCanonicalPath();
+                if (indexedPaths.add(canonical)) added.add(canonical);
+            }
+            for (int from = 0; from < added.size(); from += BATCH_DOCS) {
+                List<String> batch = added.subList(from, Math.min(added.size(), from + BATCH_DOCS));
+                long[][] keys = batch.parallelStream().map(path -> documentKeys(path, engine)).toArray(long[][]::new);
+                // 路径先于段文件落盘：中途退出时只会多出没有倒排项的文档
+                StringBuilder lines = new StringBuilder();
+                for (String canonical : batch) lines.append(canonical).append('\n');
+                appendDocs(lines.toString().getBytes(StandardCharsets.UTF_8));
+                for (int i = 0; i < batch.size(); i++) {
+                    add(docPaths.size(), keys[i]);
+                    docPaths.add(batch.get(i));
+                }
+            }
+            flushSegment();
+            return added.size();
+        });
+    }
+
+    private void appendDocs(byte[] lines) throws IOException {
+        ByteBuffer out = ByteBuffer.wrap(lines);
+        long position = docsChannel.size();
+        while (out.hasRemaining()) {
+            docsChannel.write(out, position + out.position());
+        }
+        docsRead = position + lines.length;
+    }
+
+    private static long[] documentKeys(String path, PlagiarismEngine engine) {
+        try {
+            return engine.attributionNgramKeys(PaperPlagiarismChecker.readFile(path)).toArray();
+        } catch (IOException | RuntimeException e) {
+            PaperPlagiarismChecker.logError("倒排索引入库失败：" + path + "：" + e.getMessage());
+            return new long[0];
+        }
+    }
+
+    private void add(int docId, long[] keys) throws IOException {
+        if (pendingCount + keys.length > SEGMENT_PAIRS && pendingCount > 0) {
+            flushSegment();
+        }
+        if (pendingCount + keys.length > pendingKeys.length) {
+            int newSize = Math.max(pendingCount + keys.length, Math.min(SEGMENT_PAIRS, Math.max(1024, pendingKeys.length * 2)));
+            pendingKeys = Arrays.copyOf(pendingKeys, newSize);
+            pendingDocs = Arrays.copyOf(pendingDocs, newSize);
+        }
+        System.arraycopy(keys, 0, pendingKeys, pendingCount, keys.length);
+        Arrays.fill(pendingDocs, pendingCount, pendingCount + keys.length, docId);
+        pendingCount += keys.length;
+    }
+
+    // 缓冲按键基数排序（稳定，同一键下文档编号保持递增），编码后写入临时文件再原子替换为新段
+    private void flushSegment() throws IOException {
+        int docCount = docPaths.size() - pendingDocBase;
+        if (docCount == 0) return;
+        Winnowing.sortByHash(pendingKeys, pendingDocs, pendingCount);
+
+        int terms = 0;
+        for (int i = 0; i < pendingCount; i++) {
+            if (i == 0 || pendingKeys[i] != pendingKeys[i - 1]) terms++;
+        }
+        long[] termKeys = new long[terms];
+        int[] offsets = new int[terms + 1];
+        byte[] postings = new byte[Math.max(16, pendingCount * 2)];
+        int length = 0;
+        int t = -1;
+        int previous = 0;
+        for (int i = 0; i < pendingCount; i++) {
+            if (t < 0 || pendingKeys[i] != termKeys[t]) {
+                termKeys[++t] = pendingKeys[i];
+                offsets[t] = length;
+                previous = pendingDocBase;
+            }
+            if (length + 5 > postings.length) postings = Arrays.copyOf(postings, postings.length * 2);
+            length = writeVarint(postings, length, pendingDocs[i] - previous);
+            previous = pendingDocs[i];
+        }
+        offsets[terms] = length;
+
+        Path segmentPath = sibling(basePath, ".seg" + segments.size());
+        Path temp = sibling(basePath, ".seg" + segments.size() + ".tmp");
+        long fileSize = HEADER_SIZE + terms * 12L + 4 + length;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = out.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            buffer.putInt(H_MAGIC, MAGIC);
+            buffer.putInt(H_FORMAT, FORMAT_VERSION);
+            buffer.putInt(H_KEY_VERSION, keyVersion);
+            buffer.putInt(H_DOC_BASE, pendingDocBase);
+            buffer.putInt(H_DOC_COUNT, docCount);
+            buffer.putInt(H_TERM_COUNT, terms);
+            buffer.position(HEADER_SIZE);
+            buffer.asLongBuffer().put(termKeys);
+            buffer.position(HEADER_SIZE + terms * 8);
+            buffer.asIntBuffer().put(offsets);
+            buffer.put(HEADER_SIZE + terms * 12 + 4, postings, 0, length);
+            buffer.force();
+        }
+        Files.move(temp, segmentPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        segments.add(Segment.map(segmentPath));
+
+        pendingCount = 0;
+        pendingDocBase = docPaths.size();
+    }
+
+    // 一篇待查文档的来源归因结果：n-gram总数、被任一来源覆盖的数目，以及各来源的共有n-gram数（按覆盖率降序）
+    record Attribution(int queryNgrams, int coveredNgrams, List<Source> sources) {
+        double coverage() {
+            return queryNgrams == 0 ? 0 : (double) coveredNgrams / queryNgrams;
+        }
+    }
+
+    record Source(int docId, int sharedNgrams, double coverage) {
+    }
+
+    // 统计查询n-gram在各文档中的出现：每篇来源的覆盖率 = 共有n-gram数 / 查询n-gram数。
+    // excluded为待查文档自身的全部编号（见find，不在索引中时为空），不计入任何来源。
+    // 计数只为倒排表中出现过的文档分配槽位，开销随命中的倒排项数增长，与索引文档总数无关
+    public Attribution attribute(LongHashSet queryKeys, BitSet excluded, double minCoverage) {
+        long[] keys = sortedUnsigned(queryKeys.toArray());
+        DocCounts shared = new DocCounts();
+        boolean[] covered = new boolean[keys.length];
+        for (Segment segment : segments) {
+            segment.count(keys, shared, covered, excluded);
+        }
+        int coveredCount = 0;
+        for (boolean c : covered) {
+            if (c) coveredCount++;
+        }
+        List<Source> sources = new ArrayList<>();
+        for (int slot = 0; slot < shared.docs.length; slot++) {
+            if (shared.docs[slot] == 0) continue;
+            int docId = shared.docs[slot] - 1;
+            int count = shared.counts[slot];
+            double coverage = (double) count / keys.length;
+            if (coverage >= minCoverage) sources.add(new Source(docId, count, coverage));
+        }
+        sources.sort((a, b) -> a.sharedNgrams() != b.sharedNgrams()
+                ? Integer.compare(b.sharedNgrams(), a.sharedNgrams())
+                : Integer.compare(a.docId(), b.docId()));
+        return new Attribution(keys.length, coveredCount, sources);
+    }
+
+    // 按路径查找文档编号（索引中存放规范化路径）：旧版索引中同一路径可能被重复收录，返回全部编号
+    BitSet find(String path) throws IOException {
+        String canonical = new File(path).getCanonicalPath();
+        BitSet ids = new BitSet();
+        if (!indexedPaths.contains(canonical)) return ids;
+        for (int docId = 0; docId < docPaths.size(); docId++) {
+            if (docPaths.get(docId).equals(canonical)) ids.set(docId);
+        }
+        return ids;
+    }
+
+    @Override
+    public void close() throws IOException {
+        segments.clear();
+        docsChannel.close();
+    }
+
+    // 建索引模式：把语料文档追加进索引（已有索引时编号接续）
+    public static void build(String[] rawArgs) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        String[] args = PaperPlagiarismChecker.parseOptions(rawArgs, options);
+        if (args.length != 2) {
+            throw new IllegalArgumentException(BUILD_USAGE);
+        }
+        PlagiarismEngine engine = PlagiarismEngine.fromOptions(options);
+        List<String> paths = CorpusSearch.listCorpus(args[1]);
+        long start = System.nanoTime();
+        try (PostingIndex index = open(Paths.get(args[0]), engine.ngramKeyVersion())) {
+            int added = index.addAll(paths, engine);
+            System.out.println("入库文档数：" + added + "，已收录跳过：" + (paths.size() - added) + "，索引累计文档数：" + index.size()
+                    + "，段文件数：" + index.segmentCount() + "，耗时：" + (System.nanoTime() - start) / 1_000_000 + "ms");
+        }
+    }
+
+    // 来源归因模式：每个覆盖率达到阈值的来源追加一条记录：时间|待查文件|来源文档|覆盖率
+    public static void query(String[] rawArgs) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        String[] args = PaperPlagiarismChecker.parseOptions(rawArgs, options);
+        if (args.length != 3 && args.length != 4) {
+            throw new IllegalArgumentException(QUERY_USAGE);
+        }
+        String queryPath = args[1];
+        String resultPath = args[2];
+        double minCoverage = args.length == 4 ? Double.parseDouble(args[3]) : DEFAULT_MIN_COVERAGE;
+        PlagiarismEngine engine = PlagiarismEngine.fromOptions(options);
+        PaperPlagiarismChecker.validateFile(queryPath);
+        try (PostingIndex index = open(Paths.get(args[0]), engine.ngramKeyVersion())) {
+            long start = System.nanoTime();
+            LongHashSet keys = engine.attributionNgramKeys(PaperPlagiarismChecker.readFile(queryPath));
+            Attribution attribution = index.attribute(keys, index.find(queryPath), minCoverage);
+            long micros = (System.nanoTime() - start) / 1_000;
+
+            String timestamp = AsyncRecordWriter.timestamp();
+            for (Source source : attribution.sources()) {
+                String record = String.join("|", timestamp, queryPath, index.path(source.docId()),
+                        PaperPlagiarismChecker.formatRate(source.coverage()));
+                AsyncRecordWriter.shared().append(Paths.get(resultPath), SOURCE_HEADER, record);
+            }
+            System.out.println("索引文档数：" + index.size() + "，查询n-gram数：" + attribution.queryNgrams()
+                    + "，耗时：" + micros + "μs");
+            System.out.println("总覆盖率：" + PaperPlagiarismChecker.formatRate(attribution.coverage())
+                    + "，覆盖率>=" + PaperPlagiarismChecker.formatRate(minCoverage) + "的来源数：" + attribution.sources().size());
+            System.out.println("结果已追加至：" + new File(resultPath).getAbsolutePath());
+        }
+    }
+
+    // 段文件的键区按无符号顺序排列（基数排序的结果），查询键须同序：翻转符号位后按有符号排序
+    private static long[] sortedUnsigned(long[] keys) {
+        for (int i = 0; i < keys.length; i++) keys[i] ^= Long.MIN_VALUE;
+        Arrays.sort(keys);
+        for (int i = 0; i < keys.length; i++) keys[i] ^= Long.MIN_VALUE;
+        return keys;
+    }
+
+    // 无符号LEB128：每字节7位，最高位表示后面还有字节
+    static int writeVarint(byte[] out, int pos, int value) {
+        while ((value & ~0x7f) != 0) {
+            out[pos++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static Path sibling(Path basePath, String extension) {
+        return basePath.resolveSibling(basePath.getFileName() + extension);
+    }
+
+    // 一个只读映射的段文件
+    private static final class Segment {
+        private final MappedByteBuffer buffer;
+        private final int docBase;
+        private final int termCount;
+        private final int offsetsStart;
+        private final int postingsStart;
+
+        private Segment(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.docBase = buffer.getInt(H_DOC_BASE);
+            this.termCount = buffer.getInt(H_TERM_COUNT);
+            this.offsetsStart = HEADER_SIZE + termCount * 8;
+            this.postingsStart = offsetsStart + (termCount + 1) * 4;
+        }
+
+        static Segment map(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (channel.size() < HEADER_SIZE || buffer.getInt(H_MAGIC) != MAGIC || buffer.getInt(H_FORMAT) != FORMAT_VERSION) {
+                    throw new IOException("不是有效的倒排索引段文件：" + path.toAbsolutePath());
+                }
+                return new Segment(buffer);
+            }
+        }
+
+        int keyVersion() {
+            return buffer.getInt(H_KEY_VERSION);
+        }
+
+        // 有序的查询键依次在有序键区中二分查找，下界随之前移；命中的倒排表逐个解码计数
+        void count(long[] sortedKeys, DocCounts shared, boolean[] covered, BitSet excluded) {
+            int lo = 0;
+            for (int q = 0; q < sortedKeys.length && lo < termCount; q++) {
+                long key = sortedKeys[q];
+                int hi = termCount;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (Long.compareUnsigned(buffer.getLong(HEADER_SIZE + mid * 8), key) < 0) lo = mid + 1;
+                    else hi = mid;
+                }
+                if (lo == termCount || buffer.getLong(HEADER_SIZE + lo * 8) != key) continue;
+                int pos = postingsStart + buffer.getInt(offsetsStart + lo * 4);
+                int end = postingsStart + buffer.getInt(offsetsStart + (lo + 1) * 4);
+                int docId = docBase;
+                while (pos < end) {
+                    int delta = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = buffer.get(pos++);
+                        delta |= (b & 0x7f) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    docId += delta;
+                    if (excluded.get(docId)) continue;
+                    shared.increment(docId);
+                    covered[q] = true;
+                }
+            }
+        }
+    }
+
+    // 文档编号 -> 共有n-gram数的开放寻址表，槽位存编号+1（0为空槽），负载超过0.5时扩容
+    private static final class DocCounts {
+        private int[] docs = new int[64];
+        private int[] counts = new int[64];
+        private int size;
+
+        void increment(int docId) {
+            int mask = docs.length - 1;
+            int slot = slotOf(docId, mask);
+            while (docs[slot] != 0 && docs[slot] != docId + 1) slot = (slot + 1) & mask;
+            if (docs[slot] == 0) {
+                if ((size + 1) * 2 > docs.length) {
+                    grow();
+                    increment(docId);
+                    return;
+                }
+                docs[slot] = docId + 1;
+                size++;
+            }
+            counts[slot]++;
+        }
+
+        private void grow() {
+            int[] oldDocs = docs;
+            int[] oldCounts = counts;
+            docs = new int[oldDocs.length * 2];
+            counts = new int[oldDocs.length * 2];
+            int mask = docs.length - 1;
+            for (int i = 0; i < oldDocs.length; i++) {
+                if (oldDocs[i] == 0) continue;
+                int slot = slotOf(oldDocs[i] - 1, mask);
+                while (docs[slot] != 0) slot = (slot + 1) & mask;
+                docs[slot] = oldDocs[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+
+        // 乘法散列在低位上是双射，连续编号落在不同槽位
+        private static int slotOf(int docId, int mask) {
+            return docId * 0x9E3779B9 & mask;
+        }
+    }
+}
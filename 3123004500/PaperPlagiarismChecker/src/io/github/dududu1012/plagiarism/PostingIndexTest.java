@@ -0,0 +1,202 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+public class PostingIndexTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static final PlagiarismEngine ENGINE = new PlagiarismEngine();
+
+    private List<String> writeSources(String[] texts) throws IOException {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < texts.length; i++) {
+            paths.add(TextFixtures.write(tempFolder.getRoot(), "src" + i + ".txt", texts[i]));
+        }
+        return paths;
+    }
+
+    // ====================== 测试 attribute() 函数 ======================
+
+    @Test
+    public void testAttribute_StitchedFromTwoSources() throws IOException {
+        // 待查文本一半取自来源0、四分之一取自来源2，其余为新写内容；来源1无关
+        Random random = new Random(7);
+        String[] sources = {TextFixtures.words(random, 400, 1_000_000), TextFixtures.words(random, 400, 1_000_000), TextFixtures.words(random, 400, 1_000_000)};
+        List<String> paths = writeSources(sources);
+        Path base = tempFolder.getRoot().toPath().resolve("idx");
+        try (PostingIndex index = PostingIndex.open(base, ENGINE.ngramKeyVersion())) {
+            index.addAll(paths, ENGINE);
+            String[] s0 = sources[0].split(" ");
+            String[] s2 = sources[2].split(" ");
+            String query = String.join(" ", java.util.Arrays.copyOfRange(s0, 0, 200)) + " "
+                    + String.join(" ", java.util.Arrays.copyOfRange(s2, 0, 100)) + " " + TextFixtures.words(random, 100, 1_000_000);
+
+            PostingIndex.Attribution attribution = index.attribute(
+                    ENGINE.attributionNgramKeys(query), new BitSet(), 0.01);
+            assertEquals(2, attribution.sources().size());
+            assertEquals(0, attribution.sources().get(0).docId());
+            assertEquals(2, attribution.sources().get(1).docId());
+            // 399个2-gram中来源0贡献199个、来源2贡献99个
+            assertEquals(199, attribution.sources().get(0).sharedNgrams());
+            assertEquals(99, attribution.sources().get(1).sharedNgrams());
+            assertEquals(298.0 / 399, attribution.coverage(), 0.001);
+        }
+    }
+
+    @Test
+    public void testAttribute_ExcludesSelfAndSurvivesReopen() throws IOException {
+        // 重新打开后结果不变；待查文档自身在索引中时不计为来源
+        Random random = new Random(8);
+        String[] sources = {TextFixtures.words(random, 300, 1_000_000), TextFixtures.words(random, 300, 1_000_000)};
+        List<String> paths = writeSources(sources);
+        Path base = tempFolder.getRoot().toPath().resolve("idx");
+        try (PostingIndex index = PostingIndex.open(base, ENGINE.ngramKeyVersion())) {
+            index.addAll(paths, ENGINE);
+        }
+        try (PostingIndex index = PostingIndex.open(base, ENGINE.ngramKeyVersion())) {
+            assertEquals(2, index.size());
+            BitSet self = index.find(paths.get(1));
+            assertEquals(BitSet.valueOf(new long[]{0b10}), self);
+            LongHashSet keys = ENGINE.attributionNgramKeys(sources[1]);
+            assertEquals(1.0, index.attribute(keys, new BitSet(), 0.01).sources().get(0).coverage(), 0.0);
+            assertTrue(index.attribute(keys, self, 0.01).sources().isEmpty());
+        }
+    }
+
+    @Test
+    public void testAttribute_ExcludesEveryCopyOfSelf() throws IOException {
+        // 旧版索引重复收录了同一路径（编号1与2）：两个编号都不计为来源
+        Random random = new Random(10);
+        String[] sources = {TextFixtures.words(random, 300, 1_000_000), TextFixtures.words(random, 300, 1_000_000)};
+        List<String> paths = writeSources(sources);
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", sources[1]);
+        Path base = tempFolder.getRoot().toPath().resolve("idx");
+        Path other = tempFolder.getRoot().toPath().resolve("other");
+        try (PostingIndex index = PostingIndex.open(base, ENGINE.ngramKeyVersion());
+             PostingIndex scratch = PostingIndex.open(other, ENGINE.ngramKeyVersion())) {
+            index.addAll(paths, ENGINE);
+            scratch.addAll(paths, ENGINE);
+            scratch.addAll(List.of(copy), ENGINE);
+        }
+        // 借用另一个索引中编号从2开始的段，模拟旧版再次入库时追加的重复文档
+        Files.copy(tempFolder.getRoot().toPath().resolve("other.seg1"), tempFolder.getRoot().toPath().resolve("idx.seg1"));
+        Files.writeString(tempFolder.getRoot().toPath().resolve("idx.docs"), new File(paths.get(1)).getCanonicalPath() + "\n",
+                StandardCharsets.UTF_8, java.nio.file.StandardOpenOption.APPEND);
+        try (PostingIndex index = PostingIndex.open(base, ENGINE.ngramKeyVersion())) {
+            assertEquals(3, index.size());
+            BitSet self = index.find(paths.get(1));
+            assertEquals(2, self.cardinality());
+            LongHashSet keys = ENGINE.attributionNgramKeys(sources[1]);
+            assertEquals(2, index.attribute(keys, new BitSet(), 0.01).sources().size());
+            assertTrue(index.attribute(keys, self, 0.01).sources().isEmpty());
+        }
+    }
+
+    // ====================== 测试 addAll() 函数 ======================
+
+    @Test
+    public void testAddAll_AppendsSegmentsWithContinuousIds() throws IOException {
+        // 两次入库生成两个段，编号接续；跨段的同一n-gram都能查到
+        Random random = new Random(9);
+        String shared = TextFixtures.words(random, 50, 1_000_000);
+        List<String> first = writeSources(new String[]{shared + TextFixtures.words(random, 100, 1_000_000)});
+        File second = tempFolder.newFile("later.txt");
+        Files.write(second.toPath(), (TextFixtures.words(random, 100, 1_000_000) + shared).getBytes(StandardCharsets.UTF_8));
+        Path base = tempFolder.getRoot().toPath().resolve("idx");
+        try (PostingIndex index = PostingIndex.open(base, ENGINE.ngramKeyVersion())) {
+            index.addAll(first, ENGINE);
+        }
+        try (PostingIndex index = PostingIndex.open(base, ENGINE.ngramKeyVersion())) {
+            index.addAll(List.of(second.getPath()), ENGINE);
+            assertEquals(2, index.segmentCount());
+            PostingIndex.Attribution attribution = index.attribute(ENGINE.attributionNgramKeys(shared), new BitSet(), 0.5);
+            assertEquals(2, attribution.sources().size());
+            assertEquals(49, attribution.sources().get(1).sharedNgrams());
+            assertEquals(second.getCanonicalPath(), index.path(1));
+        }
+    }
+
+    @Test
+    public void testAttribute_ManySources() throws IOException {
+        // 待查文本由100篇来源各取一段拼成：每篇来源都被计数，共有n-gram数不少于单独查询该来源时
+        Random random = new Random(12);
+        String[] sources = new String[100];
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = TextFixtures.words(random, 40, 1_000_000);
+            query.append(sources[i]);
+        }
+        List<String> paths = writeSources(sources);
+        Path base = tempFolder.getRoot().toPath().resolve("idx");
+        try (PostingIndex index = PostingIndex.open(base, ENGINE.ngramKeyVersion())) {
+            index.addAll(paths, ENGINE);
+            PostingIndex.Attribution attribution = index.attribute(
+                    ENGINE.attributionNgramKeys(query.toString()), new BitSet(), 0);
+            assertEquals(sources.length, attribution.sources().size());
+            for (PostingIndex.Source source : attribution.sources()) {
+                PostingIndex.Attribution alone = index.attribute(
+                        ENGINE.attributionNgramKeys(sources[source.docId()]), new BitSet(), 0);
+                assertTrue(source.sharedNgrams() >= alone.sources().get(0).sharedNgrams());
+            }
+        }
+    }
+
+    @Test
+    public void testAddAll_SkipsIndexedPaths() throws IOException {
+        // 同一语料再次入库（另一个实例，相当于另一个建索引进程）：已收录的路径全部跳过，不产生新段
+        Random random = new Random(11);
+        String[] sources = {TextFixtures.words(random, 200, 1_000_000), TextFixtures.words(random, 200, 1_000_000)};
+        List<String> paths = writeSources(sources);
+        Path base = tempFolder.getRoot().toPath().resolve("idx");
+        try (PostingIndex first = PostingIndex.open(base, ENGINE.ngramKeyVersion());
+             PostingIndex second = PostingIndex.open(base, ENGINE.ngramKeyVersion())) {
+            assertEquals(2, first.addAll(paths, ENGINE));
+            assertEquals(0, second.addAll(paths, ENGINE));
+            assertEquals(2, second.size());
+            assertEquals(1, second.segmentCount());
+        }
+        try (PostingIndex index = PostingIndex.open(base, ENGINE.ngramKeyVersion())) {
+            assertEquals(0, index.addAll(List.of(paths.get(0), paths.get(0)), ENGINE));
+            assertEquals(2, index.size());
+            LongHashSet keys = ENGINE.attributionNgramKeys(sources[0]);
+            assertTrue(index.attribute(keys, index.find(paths.get(0)), 0.01).sources().isEmpty());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpen_RejectsDifferentKeyVersion() throws IOException {
+        List<String> paths = writeSources(new String[]{"some words here"});
+        Path base = tempFolder.getRoot().toPath().resolve("idx");
+        try (PostingIndex index = PostingIndex.open(base, 3)) {
+            index.addAll(paths, ENGINE);
+        }
+        PostingIndex.open(base, 3 | 5 << 8);
+    }
+
+    // ====================== 测试 writeVarint() 函数 ======================
+
+    @Test
+    public void testWriteVarint_Lengths() {
+        byte[] out = new byte[16];
+        assertEquals(1, PostingIndex.writeVarint(out, 0, 0));
+        assertEquals(1, PostingIndex.writeVarint(out, 0, 127));
+        assertEquals(2, PostingIndex.writeVarint(out, 0, 128));
+        assertEquals(5, PostingIndex.writeVarint(out, 0, Integer.MAX_VALUE));
+        assertEquals((byte) 0xff, out[0]);
+        assertEquals(0x07, out[4]);
+    }
+}
@@ -0,0 +1,497 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// 文件对查重结果缓存：键为两个规范化路径的128位哈希，值为双方的(大小, 修改时间, 内容摘要)与按本对粒度计算的指纹
+// （token数、n-gram数、粒度、SimHash），重复率由两份指纹直接比较得出。
+// 内存中为LRU，磁盘上为只追加的定长记录文件，打开时只扫描键字段建立 键→记录编号 的开放寻址表；
+// 同一对的新记录覆盖旧记录，失效记录过半时在打开时原地重写文件（重写代数加一）。
+// 多个进程可共用同一缓存文件：读写磁盘记录时持文件头区域的跨进程锁，并先按文件头的计数与代数同步其他进程的追加或重写。
+// 双方大小与修改时间均未变直接命中；仅修改时间变化时按内容摘要确认后命中，并记下新的修改时间
+public class ResultCache implements Closeable {
+    static final String OPTION = "--cache";
+    static final int DEFAULT_MEMORY_ENTRIES = 4096;
+
+    private static final int MAGIC = 0x52434831; // "RCH1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 128;
+    private static final int DIGEST_BYTES = 16;
+    private static final long KEY_SEED = 0x5243484cL;
+    // 打开时记录数超过该值且失效记录过半才重写
+    private static final int COMPACT_MIN_RECORDS = 1024;
+    private static final int SCAN_RECORDS = 8192;
+
+    // 文件头字段偏移
+    private static final int H_MAGIC = 0;
+    private static final int H_FORMAT = 4;
+    private static final int H_RECORD_SIZE = 8;
+    private static final int H_COUNT = 16;
+    // 重写代数：旧版文件此处为0
+    private static final int H_GENERATION = 24;
+
+    // 记录字段偏移：两个键、指纹版本，之后依次为原文与抄袭文本的各52字节
+    private static final int R_KEY_A = 0;
+    private static final int R_KEY_B = 8;
+    private static final int R_VERSION = 16;
+    private static final int R_ORIGINAL = 24;
+    private static final int R_COPY = 76;
+    private static final int S_SIZE = 0;
+    private static final int S_MTIME = 8;
+    private static final int S_DIGEST = 16;
+    private static final int S_SIM_HASH = 32;
+    private static final int S_TOKEN_COUNT = 40;
+    private static final int S_NGRAM_COUNT = 44;
+    private static final int S_N_GRAM = 48;
+
+    private final Path path;
+    private final int memoryEntries;
+    private FileChannel channel;
+    private long count;
+    private long generation;
+    // 开放寻址表：槽位存keyA与记录编号+1（0为空）
+    private long[] slotKeys;
+    private long[] slotIds;
+    private int live;
+    private final LinkedHashMap<Long, Cached> memory;
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_SIZE);
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder digestHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // 缓存未命中时由调用方计算本对结果（批处理借此复用同一原文的指纹）
+    interface Loader {
+        PaperPlagiarismChecker.CheckResult load() throws IOException;
+    }
+
+    // 一方的文件身份与指纹
+    record Side(long size, long mtime, byte[] digest, PaperPlagiarismChecker.Fingerprint fingerprint) {
+        boolean matchesIdentity(long size, long mtime) {
+            return this.size == size && this.mtime == mtime;
+        }
+
+        boolean matchesDigest(byte[] digest) {
+            return Arrays.equals(this.digest, 0, DIGEST_BYTES, digest, 0, DIGEST_BYTES);
+        }
+    }
+
+    private record Cached(long keyA, long keyB, int version, Side original, Side copy) {
+    }
+
+    private ResultCache(Path path, int memoryEntries) {
+        this.path = path;
+        this.memoryEntries = memoryEntries;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Cached> eldest) {
+                return size() > ResultCache.this.memoryEntries;
+            }
+        };
+    }
+
+    // 未给出 --cache 时返回null
+    static ResultCache fromOptions(Map<String, String> options) throws IOException {
+        String cachePath = options.get(OPTION);
+        return cachePath == null ? null : open(Paths.get(cachePath));
+    }
+
+    public static ResultCache open(Path path) throws IOException {
+        return open(path, DEFAULT_MEMORY_ENTRIES);
+    }
+
+    // 打开（或新建）缓存文件，memoryEntries为内存LRU的容量
+    public static ResultCache open(Path path, int memoryEntries) throws IOException {
+        if (memoryEntries < 1) {
+            throw new IllegalArgumentException("内存缓存容量必须大于等于1：" + memoryEntries);
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        ResultCache cache = new ResultCache(path, memoryEntries);
+        cache.load();
+        if (cache.count > COMPACT_MIN_RECORDS && cache.live * 2L < cache.count) {
+            try {
+                cache.compact();
+            } catch (IOException | RuntimeException e) {
+                cache.close();
+                throw e;
+            }
+        }
+        return cache;
+    }
+
+    // 经缓存取一对文件的查重结果，记录按engine的指纹版本区分；engine启用MinHash时结果含签名，不经缓存
+    public PaperPlagiarismChecker.CheckResult check(String origPath, String copyPath, PlagiarismEngine engine, Loader loader)
+            throws IOException {
+        PaperPlagiarismChecker.validateFile(origPath);
+        PaperPlagiarismChecker.validateFile(copyPath);
+        if (engine.minHashEnabled()) {
+            misses.increment();
+            return loader.load();
+        }
+        File orig = new File(origPath);
+        File copy = new File(copyPath);
+        long[] key = pairKey(orig.getCanonicalPath(), copy.getCanonicalPath());
+        int version = engine.fingerprintVersion();
+        long origSize = orig.length();
+        long origMtime = orig.lastModified();
+        long copySize = copy.length();
+        long copyMtime = copy.lastModified();
+
+        Cached cached = findInMemory(key[0], key[1], version);
+        boolean inMemory = cached != null;
+        if (!inMemory) cached = findOnDisk(key[0], key[1], version);
+        if (cached != null) {
+            if (cached.original().matchesIdentity(origSize, origMtime) && cached.copy().matchesIdentity(copySize, copyMtime)) {
+                (inMemory ? memoryHits : diskHits).increment();
+                return PaperPlagiarismChecker.compare(cached.original().fingerprint(), cached.copy().fingerprint());
+            }
+        }
+
+        // 摘要在取大小与修改时间之后计算，结果算完后两文件的大小与修改时间仍未变才写入缓存，
+        // 保证记录中的身份、摘要与指纹描述的是同一份内容
+        byte[] origDigest = digest(orig);
+        byte[] copyDigest = digest(copy);
+        if (cached != null && cached.original().matchesDigest(origDigest) && cached.copy().matchesDigest(copyDigest)) {
+            digestHits.increment();
+            if (unchanged(orig, origSize, origMtime) && unchanged(copy, copySize, copyMtime)) {
+                put(new Cached(key[0], key[1], version,
+                        new Side(origSize, origMtime, origDigest, cached.original().fingerprint()),
+                        new Side(copySize, copyMtime, copyDigest, cached.copy().fingerprint())));
+            }
+            return PaperPlagiarismChecker.compare(cached.original().fingerprint(), cached.copy().fingerprint());
+        }
+
+        misses.increment();
+        PaperPlagiarismChecker.CheckResult result = loader.load();
+        if (unchanged(orig, origSize, origMtime) && unchanged(copy, copySize, copyMtime)) {
+            put(new Cached(key[0], key[1], version,
+                    new Side(origSize, origMtime, origDigest, result.original()),
+                    new Side(copySize, copyMtime, copyDigest, result.copy())));
+        }
+        return result;
+    }
+
+    private static boolean unchanged(File file, long size, long mtime) {
+        return file.length() == size && file.lastModified() == mtime;
+    }
+
+    public PaperPlagiarismChecker.CheckResult check(String origPath, String copyPath, PlagiarismEngine engine,
+                                                    FingerprintStore store) throws IOException {
+        return check(origPath, copyPath, engine, () -> engine.check(origPath, copyPath, store));
+    }
+
+    public long hits() {
+        return memoryHits.sum() + diskHits.sum() + digestHits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    // 磁盘上的记录数（含已被覆盖的旧记录）
+    public synchronized long records() throws IOException {
+        return locked(() -> {
+            refresh();
+            return count;
+        });
+    }
+
+    String summary() {
+        return "结果缓存：命中 " + hits() + " 次（内存 " + memoryHits.sum() + "，磁盘 " + diskHits.sum()
+                + "，摘要确认 " + digestHits.sum() + "），未命中 " + misses() + " 次";
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    // 版本不符（分词/加权配置变化）的记录视为不存在
+    private synchronized Cached findInMemory(long keyA, long keyB, int version) {
+        Cached cached = memory.get(keyA);
+        return cached != null && cached.keyB() == keyB && cached.version() == version ? cached : null;
+    }
+
+    // 磁盘上找到的记录放入LRU
+    private synchronized Cached findOnDisk(long keyA, long keyB, int version) throws IOException {
+        Cached cached = locked(() -> {
+            refresh();
+            long id = findRecord(keyA);
+            return id < 0 ? null : readRecord(id);
+        });
+        if (cached == null || cached.keyB() != keyB || cached.version() != version) return null;
+        memory.put(keyA, cached);
+        return cached;
+    }
+
+    // 持锁追加记录并更新表与LRU：先同步其他进程的追加，记录写在文件头计数之后；
+    // 记录写完后再提交计数，中途退出时未提交的记录不可见
+    private synchronized void put(Cached cached) throws IOException {
+        StoreLock.run(path, channel, HEADER_SIZE, () -> {
+            refresh();
+            long id = count;
+            writeRecord(channel, id, cached);
+            if (insert(cached.keyA(), id)) live++;
+            count = id + 1;
+            writeLong(H_COUNT, count);
+        });
+        memory.put(cached.keyA(), cached);
+    }
+
+    private void load() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            StoreLock.run(path, channel, HEADER_SIZE, this::initialize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // 持锁时新文件写入文件头，已有文件校验文件头，再读入全部记录
+    private void initialize() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (channel.size() == 0) {
+            header.putInt(H_MAGIC, MAGIC);
+            header.putInt(H_FORMAT, FORMAT_VERSION);
+            header.putInt(H_RECORD_SIZE, RECORD_SIZE);
+            header.putLong(H_COUNT, 0);
+            channel.write(header, 0);
+        } else {
+            channel.read(header, 0);
+            if (header.getInt(H_MAGIC) != MAGIC || header.getInt(H_FORMAT) != FORMAT_VERSION
+                    || header.getInt(H_RECORD_SIZE) != RECORD_SIZE) {
+                throw new IOException("不是有效的查重结果缓存文件：" + path.toAbsolutePath());
+            }
+        }
+        rescan();
+    }
+
+    private <T> T locked(StoreLock.Body<T> body) throws IOException {
+        return StoreLock.call(path, channel, HEADER_SIZE, body);
+    }
+
+    // 持锁时同步其他进程的写入：代数未变时只登记新追加的记录，文件被重写过则重新扫描全部记录
+    private void refresh() throws IOException {
+        ByteBuffer header = readHeader();
+        if (header.getLong(H_GENERATION) != generation || header.getLong(H_COUNT) < count) {
+            rescan();
+        } else {
+            scan(count, committedCount(header));
+        }
+    }
+
+    private void rescan() throws IOException {
+        ByteBuffer header = readHeader();
+        generation = header.getLong(H_GENERATION);
+        long committed = committedCount(header);
+        slotKeys = new long[capacityFor(committed)];
+        slotIds = new long[slotKeys.length];
+        live = 0;
+        count = 0;
+        scan(0, committed);
+    }
+
+    // 文件末尾可能有未提交的半条记录，以文件头计数为准
+    private long committedCount(ByteBuffer header) throws IOException {
+        return Math.min(header.getLong(H_COUNT), (channel.size() - HEADER_SIZE) / RECORD_SIZE);
+    }
+
+    // 扫描编号 [from, to) 的记录键登记到表中
+    private void scan(long from, long to) throws IOException {
+        if (from >= to) return;
+        ByteBuffer batch = ByteBuffer.allocate((int) Math.min(SCAN_RECORDS, Math.max(1, to - from)) * RECORD_SIZE);
+        for (long start = from; start < to; start += SCAN_RECORDS) {
+            int records = (int) Math.min(SCAN_RECORDS, to - start);
+            batch.clear().limit(records * RECORD_SIZE);
+            long position = HEADER_SIZE + start * RECORD_SIZE;
+            while (batch.hasRemaining()) {
+                if (channel.read(batch, position + batch.position()) < 0) {
+                    throw new IOException("查重结果缓存文件已损坏：" + path.toAbsolutePath());
+                }
+            }
+            for (int i = 0; i < records; i++) {
+                if (insert(batch.getLong(i * RECORD_SIZE + R_KEY_A), start + i)) live++;
+            }
+        }
+        count = Math.max(count, to);
+    }
+
+    private ByteBuffer readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("查重结果缓存文件已损坏：" + path.toAbsolutePath());
+            }
+        }
+        return header;
+    }
+
+    private void writeLong(int offset, long value) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putLong(0, value);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+    }
+
+    // 只保留每对的最新记录：先写入临时文件，再持锁清零计数、代数加一后原地写回，
+    // 文件始终是同一个，其他进程持有的通道与锁仍然有效；写回途中退出时计数为0，缓存只是变空
+    private void compact() throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        StoreLock.run(path, channel, HEADER_SIZE, () -> {
+            refresh();
+            if (count <= COMPACT_MIN_RECORDS || live * 2L >= count) return;
+            long[] ids = new long[live];
+            int n = 0;
+            for (long value : slotIds) {
+                if (value != 0) ids[n++] = value - 1;
+            }
+            Arrays.sort(ids);
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (int i = 0; i < n; i++) {
+                    writeRecord(out, i, readRecord(ids[i]));
+                }
+                writeLong(H_COUNT, 0);
+                writeLong(H_GENERATION, generation + 1);
+                channel.force(false);
+                long bytes = (long) n * RECORD_SIZE;
+                for (long done = 0; done < bytes; ) {
+                    done += out.transferTo(HEADER_SIZE + done, bytes - done, channel.position(HEADER_SIZE + done));
+                }
+                channel.truncate(HEADER_SIZE + bytes);
+                channel.force(false);
+                writeLong(H_COUNT, n);
+                channel.force(false);
+            }
+            Files.deleteIfExists(temp);
+            rescan();
+        });
+    }
+
+    private long findRecord(long keyA) {
+        int mask = slotKeys.length - 1;
+        for (int slot = slotOf(keyA, mask); ; slot = (slot + 1) & mask) {
+            if (slotIds[slot] == 0) return -1;
+            if (slotKeys[slot] == keyA) return slotIds[slot] - 1;
+        }
+    }
+
+    // 登记键的最新记录，返回是否为新键；负载超过0.5时扩容
+    private boolean insert(long keyA, long id) {
+        if ((live + 1) * 2L > slotKeys.length) {
+            long[] oldKeys = slotKeys;
+            long[] oldIds = slotIds;
+            slotKeys = new long[oldKeys.length * 2];
+            slotIds = new long[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldIds[i] != 0) place(oldKeys[i], oldIds[i]);
+            }
+        }
+        return place(keyA, id + 1);
+    }
+
+    private boolean place(long keyA, long value) {
+        int mask = slotKeys.length - 1;
+        for (int slot = slotOf(keyA, mask); ; slot = (slot + 1) & mask) {
+            if (slotIds[slot] == 0) {
+                slotKeys[slot] = keyA;
+                slotIds[slot] = value;
+                return true;
+            }
+            if (slotKeys[slot] == keyA) {
+                slotIds[slot] = value;
+                return false;
+            }
+        }
+    }
+
+    private Cached readRecord(long id) throws IOException {
+        ByteBuffer buffer = recordBuffer.clear();
+        long position = HEADER_SIZE + id * RECORD_SIZE;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("查重结果缓存文件已损坏：" + path.toAbsolutePath());
+            }
+        }
+        return new Cached(buffer.getLong(R_KEY_A), buffer.getLong(R_KEY_B), buffer.getInt(R_VERSION),
+                readSide(buffer, R_ORIGINAL), readSide(buffer, R_COPY));
+    }
+
+    private static Side readSide(ByteBuffer buffer, int base) {
+        byte[] digest = new byte[DIGEST_BYTES];
+        buffer.get(base + S_DIGEST, digest);
+        return new Side(buffer.getLong(base + S_SIZE), buffer.getLong(base + S_MTIME), digest,
+                new PaperPlagiarismChecker.Fingerprint(buffer.getLong(base + S_SIM_HASH), buffer.getInt(base + S_TOKEN_COUNT),
+                        buffer.getInt(base + S_NGRAM_COUNT), buffer.getInt(base + S_N_GRAM)));
+    }
+
+    private static void writeRecord(FileChannel out, long id, Cached cached) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        buffer.putLong(R_KEY_A, cached.keyA());
+        buffer.putLong(R_KEY_B, cached.keyB());
+        buffer.putInt(R_VERSION, cached.version());
+        writeSide(buffer, R_ORIGINAL, cached.original());
+        writeSide(buffer, R_COPY, cached.copy());
+        long position = HEADER_SIZE + id * RECORD_SIZE;
+        while (buffer.hasRemaining()) {
+            out.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static void writeSide(ByteBuffer buffer, int base, Side side) {
+        buffer.putLong(base + S_SIZE, side.size());
+        buffer.putLong(base + S_MTIME, side.mtime());
+        buffer.put(base + S_DIGEST, side.digest(), 0, DIGEST_BYTES);
+        buffer.putLong(base + S_SIM_HASH, side.fingerprint().simHash());
+        buffer.putInt(base + S_TOKEN_COUNT, side.fingerprint().tokenCount());
+        buffer.putInt(base + S_NGRAM_COUNT, side.fingerprint().ngramCount());
+        buffer.putInt(base + S_N_GRAM, side.fingerprint().nGram());
+    }
+
+    // 一对规范化路径的128位键，顺序有关（原文与抄袭文本互换是另一对）
+    static long[] pairKey(String origCanonical, String copyCanonical) {
+        byte[] bytes = (origCanonical + '\0' + copyCanonical).getBytes(StandardCharsets.UTF_8);
+        long[] key = new long[2];
+        MurmurHash3.hash128(bytes, 0, bytes.length, KEY_SEED, key);
+        return key;
+    }
+
+    private static byte[] digest(File file) throws IOException {
+        return MappedTextReader.shouldStream(file.length())
+                ? MappedTextReader.digest(file.toPath())
+                : PaperPlagiarismChecker.contentDigest(Files.readAllBytes(file.toPath()));
+    }
+
+    // 负载因子不超过0.5
+    private static int capacityFor(long records) {
+        long needed = Math.max(16, records * 2);
+        return (int) Math.min(Long.highestOneBit(needed - 1) << 1, 1 << 30);
+    }
+
+    // 键已是充分混合的哈希值，直接取低位
+    private static int slotOf(long key, int mask) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,246 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ResultCacheTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static final PlagiarismEngine ENGINE = new PlagiarismEngine();
+
+    private Path cachePath() {
+        return tempFolder.getRoot().toPath().resolve("cache").resolve("results.rc");
+    }
+
+    // 统计实际计算次数的加载器
+    private static ResultCache.Loader counting(PlagiarismEngine engine, String orig, String copy, AtomicInteger loads) {
+        return () -> {
+            loads.incrementAndGet();
+            return engine.check(orig, copy, null);
+        };
+    }
+
+    // ====================== 测试 check() 函数 ======================
+
+    @Test
+    public void testCheck_MissThenMemoryHit() throws Exception {
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", "今天是星期天，天气晴，今晚我要去看电影");
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", "今天是周天，天气晴朗，我晚上要去看电影。");
+        PaperPlagiarismChecker.CheckResult expected = ENGINE.check(orig, copy, null);
+        AtomicInteger loads = new AtomicInteger();
+        try (ResultCache cache = ResultCache.open(cachePath())) {
+            assertEquals(expected, cache.check(orig, copy, ENGINE, counting(ENGINE, orig, copy, loads)));
+            assertEquals(expected, cache.check(orig, copy, ENGINE, counting(ENGINE, orig, copy, loads)));
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.hits());
+            assertEquals(1, cache.misses());
+            // 原文与抄袭互换是另一对
+            cache.check(copy, orig, ENGINE, counting(ENGINE, copy, orig, loads));
+            assertEquals(2, loads.get());
+        }
+    }
+
+    @Test
+    public void testCheck_PersistsAcrossReopen() throws Exception {
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", "abc def ghi jkl");
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", "abc def ghi xyz");
+        PaperPlagiarismChecker.CheckResult expected = ENGINE.check(orig, copy, null);
+        AtomicInteger loads = new AtomicInteger();
+        try (ResultCache cache = ResultCache.open(cachePath())) {
+            cache.check(orig, copy, ENGINE, counting(ENGINE, orig, copy, loads));
+        }
+        try (ResultCache cache = ResultCache.open(cachePath())) {
+            assertEquals(expected, cache.check(orig, copy, ENGINE, counting(ENGINE, orig, copy, loads)));
+            assertEquals(1, loads.get());
+            assertTrue(cache.summary().contains("磁盘 1"));
+        }
+    }
+
+    @Test
+    public void testCheck_TouchedFileConfirmedByDigest() throws Exception {
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", "abc def ghi jkl");
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", "abc def ghi xyz");
+        AtomicInteger loads = new AtomicInteger();
+        try (ResultCache cache = ResultCache.open(cachePath())) {
+            cache.check(orig, copy, ENGINE, counting(ENGINE, orig, copy, loads));
+            // 仅修改时间变化：摘要一致，仍命中
+            assertTrue(new File(copy).setLastModified(new File(copy).lastModified() - 60_000));
+            cache.check(orig, copy, ENGINE, counting(ENGINE, orig, copy, loads));
+            assertEquals(1, loads.get());
+            assertTrue(cache.summary().contains("摘要确认 1"));
+            // 记下新的修改时间后直接命中
+            cache.check(orig, copy, ENGINE, counting(ENGINE, orig, copy, loads));
+            assertTrue(cache.summary().contains("内存 1"));
+        }
+    }
+
+    @Test
+    public void testCheck_ChangedContentRecomputes() throws Exception {
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", "abc def ghi jkl");
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", "abc def ghi xyz");
+        AtomicInteger loads = new AtomicInteger();
+        try (ResultCache cache = ResultCache.open(cachePath())) {
+            cache.check(orig, copy, ENGINE, counting(ENGINE, orig, copy, loads));
+            TextFixtures.write(tempFolder.getRoot(), "copy.txt", "completely different words here now");
+            assertTrue(new File(copy).setLastModified(new File(copy).lastModified() + 60_000));
+            PaperPlagiarismChecker.CheckResult result = cache.check(orig, copy, ENGINE, counting(ENGINE, orig, copy, loads));
+            assertEquals(2, loads.get());
+            assertEquals(ENGINE.check(orig, copy, null), result);
+        }
+    }
+
+    @Test
+    public void testCheck_FileChangedDuringLoadNotCached() throws Exception {
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", "abc def ghi jkl");
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", "abc def ghi xyz");
+        AtomicInteger loads = new AtomicInteger();
+        try (ResultCache cache = ResultCache.open(cachePath())) {
+            // 计算途中抄袭文本被改写：大小与修改时间对不上本次结果，不写入缓存
+            cache.check(orig, copy, ENGINE, () -> {
+                loads.incrementAndGet();
+                PaperPlagiarismChecker.CheckResult result = ENGINE.check(orig, copy, null);
+                Files.writeString(new File(copy).toPath(), "abc def ghi xyz uvw", StandardCharsets.UTF_8);
+                return result;
+            });
+            assertEquals(0, cache.records());
+            assertEquals(ENGINE.check(orig, copy, null), cache.check(orig, copy, ENGINE, counting(ENGINE, orig, copy, loads)));
+            assertEquals(2, loads.get());
+        }
+    }
+
+    @Test
+    public void testCheck_TwoInstancesShareFile() throws Exception {
+        // 两个实例（相当于两个进程）共用同一缓存文件：一方写入的记录另一方可见，追加不互相覆盖
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", "abc def ghi jkl");
+        String copyA = TextFixtures.write(tempFolder.getRoot(), "copyA.txt", "abc def ghi xyz");
+        String copyB = TextFixtures.write(tempFolder.getRoot(), "copyB.txt", "abc def uvw xyz");
+        AtomicInteger loads = new AtomicInteger();
+        try (ResultCache a = ResultCache.open(cachePath());
+             ResultCache b = ResultCache.open(cachePath())) {
+            a.check(orig, copyA, ENGINE, counting(ENGINE, orig, copyA, loads));
+            b.check(orig, copyB, ENGINE, counting(ENGINE, orig, copyB, loads));
+            b.check(orig, copyA, ENGINE, counting(ENGINE, orig, copyA, loads));
+            a.check(orig, copyB, ENGINE, counting(ENGINE, orig, copyB, loads));
+            assertEquals(2, loads.get());
+            assertEquals(2, a.records());
+            assertEquals(2, b.records());
+        }
+        try (ResultCache cache = ResultCache.open(cachePath())) {
+            cache.check(orig, copyA, ENGINE, counting(ENGINE, orig, copyA, loads));
+            cache.check(orig, copyB, ENGINE, counting(ENGINE, orig, copyB, loads));
+            assertEquals(2, loads.get());
+        }
+    }
+
+    @Test
+    public void testCheck_ConfigurationChangeInvalidates() throws Exception {
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", "今天是星期天，天气晴");
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", "今天是周天，天气晴朗");
+        AtomicInteger loads = new AtomicInteger();
+        try (ResultCache cache = ResultCache.open(cachePath())) {
+            cache.check(orig, copy, ENGINE, counting(ENGINE, orig, copy, loads));
+            PlagiarismEngine segmented = new PlagiarismEngine(CjkSegmenter.fromOption("bigram"), null, Double.NaN);
+            PaperPlagiarismChecker.CheckResult result = cache.check(orig, copy, segmented, counting(segmented, orig, copy, loads));
+            assertEquals(2, loads.get());
+            assertEquals(segmented.check(orig, copy, null), result);
+        }
+    }
+
+    @Test
+    public void testCheck_MinHashBypassesCache() throws Exception {
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", "abc def ghi jkl");
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", "abc def ghi xyz");
+        PlagiarismEngine minHash = new PlagiarismEngine(null, null, 0.5);
+        AtomicInteger loads = new AtomicInteger();
+        try (ResultCache cache = ResultCache.open(cachePath())) {
+            cache.check(orig, copy, minHash, counting(minHash, orig, copy, loads));
+            assertNotNull(cache.check(orig, copy, minHash, counting(minHash, orig, copy, loads)).jaccardString());
+            assertEquals(2, loads.get());
+            assertEquals(0, cache.records());
+        }
+    }
+
+    @Test
+    public void testCheck_EvictedEntryServedFromDisk() throws Exception {
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", "abc def ghi jkl");
+        String copyA = TextFixtures.write(tempFolder.getRoot(), "copyA.txt", "abc def ghi xyz");
+        String copyB = TextFixtures.write(tempFolder.getRoot(), "copyB.txt", "abc def uvw xyz");
+        AtomicInteger loads = new AtomicInteger();
+        try (ResultCache cache = ResultCache.open(cachePath(), 1)) {
+            cache.check(orig, copyA, ENGINE, counting(ENGINE, orig, copyA, loads));
+            cache.check(orig, copyB, ENGINE, counting(ENGINE, orig, copyB, loads));
+            cache.check(orig, copyA, ENGINE, counting(ENGINE, orig, copyA, loads));
+            assertEquals(2, loads.get());
+            assertTrue(cache.summary().contains("磁盘 1"));
+        }
+    }
+
+    // ====================== 测试 open() 函数 ======================
+
+    @Test
+    public void testOpen_CompactsSupersededRecords() throws Exception {
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", "abc def ghi jkl");
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", "abc def ghi xyz");
+        File copyFile = new File(copy);
+        AtomicInteger loads = new AtomicInteger();
+        try (ResultCache cache = ResultCache.open(cachePath())) {
+            // 反复只改修改时间，每次摘要确认都追加一条新记录
+            for (int i = 0; i < 1100; i++) {
+                assertTrue(copyFile.setLastModified(1_000_000_000_000L + i * 1000L));
+                cache.check(orig, copy, ENGINE, counting(ENGINE, orig, copy, loads));
+            }
+            assertEquals(1100, cache.records());
+        }
+        try (ResultCache cache = ResultCache.open(cachePath())) {
+            assertEquals(1, cache.records());
+            cache.check(orig, copy, ENGINE, counting(ENGINE, orig, copy, loads));
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.hits());
+        }
+    }
+
+    @Test
+    public void testOpen_CompactionSeenByOpenInstance() throws Exception {
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", "abc def ghi jkl");
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", "abc def ghi xyz");
+        String other = TextFixtures.write(tempFolder.getRoot(), "other.txt", "abc uvw ghi xyz");
+        File copyFile = new File(copy);
+        AtomicInteger loads = new AtomicInteger();
+        try (ResultCache cache = ResultCache.open(cachePath())) {
+            for (int i = 0; i < 1100; i++) {
+                assertTrue(copyFile.setLastModified(1_000_000_000_000L + i * 1000L));
+                cache.check(orig, copy, ENGINE, counting(ENGINE, orig, copy, loads));
+            }
+            // 另一实例打开时原地重写文件，已打开的实例按新代数重新扫描，之后的追加不落在旧编号上
+            try (ResultCache compacting = ResultCache.open(cachePath())) {
+                assertEquals(1, compacting.records());
+            }
+            assertEquals(1, cache.records());
+            cache.check(orig, other, ENGINE, counting(ENGINE, orig, other, loads));
+            assertEquals(2, cache.records());
+        }
+        try (ResultCache cache = ResultCache.open(cachePath(), 1)) {
+            cache.check(orig, copy, ENGINE, counting(ENGINE, orig, copy, loads));
+            cache.check(orig, other, ENGINE, counting(ENGINE, orig, other, loads));
+            assertEquals(2, loads.get());
+            assertEquals(2, cache.hits());
+        }
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void testOpen_RejectsForeignFile() throws Exception {
+        Path path = cachePath();
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[64]);
+        ResultCache.open(path);
+    }
+}
@@ -0,0 +1,227 @@
+package io.github.dududu1012.plagiarism;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.LongToIntFunction;
+
+// SimHash按位计数的并行累加：按LongHashSet内部表的槽位区间拆分任务，每个叶子任务独占一份64位计数向量，
+// 最后逐位相加合并。整数加法满足交换律与结合律，结果与线程数、拆分方式无关
+final class SimHashAccumulator {
+    static final int SIM_HASH_BITS = 64;
+    // 低于该槽位数时顺序累加，避免拆分开销
+    static final int SEQUENTIAL_THRESHOLD = 1 << 14;
+    // 以 --add-modules jdk.incubator.vector 启动时按SIMD累加（见SimHashVectors），否则逐位标量累加；
+    // 未加载该模块时SimHashVectors不会被加载
+    static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private SimHashAccumulator() {
+    }
+
+    static long simHash(LongHashSet ngramKeys) {
+        return simHash(ngramKeys, ForkJoinPool.commonPool());
+    }
+
+    static long simHash(LongHashSet ngramKeys, ForkJoinPool pool) {
+        if (ngramKeys.isEmpty()) return 0;
+        return toSimHash(accumulate(ngramKeys, pool));
+    }
+
+    // 可复用的顺序累加缓冲：按位计数向量，以及SIMD按块累加的键缓冲与通道计数缓冲（通道数不超过64）
+    static final class Scratch {
+        final int[] counts = new int[SIM_HASH_BITS];
+        final long[] block = new long[SimHashVectors.BLOCK];
+        final byte[] ones = new byte[SIM_HASH_BITS];
+    }
+
+    // 同simHash()，顺序累加时只使用scratch中的缓冲，不分配内存；大集合仍按槽位区间并行累加
+    static long simHash(LongHashSet ngramKeys, Scratch scratch) {
+        if (ngramKeys.isEmpty()) return 0;
+        long[] table = ngramKeys.rawTable();
+        if (table.length > SEQUENTIAL_THRESHOLD) return simHash(ngramKeys);
+        int[] counts = scratch.counts;
+        Arrays.fill(counts, 0);
+        if (VECTORIZED) {
+            SimHashVectors.addSlots(table, 0, table.length, counts, scratch.block, scratch.ones);
+        } else {
+            addSlotsScalar(table, 0, table.length, counts);
+        }
+        if (ngramKeys.containsZero()) addKey(0, counts);
+        return toSimHash(counts);
+    }
+
+    static int[] accumulate(LongHashSet ngramKeys, ForkJoinPool pool) {
+        long[] table = ngramKeys.rawTable();
+        int[] counts = reduceSlots(pool, table.length, (from, to) -> {
+            int[] partial = new int[SIM_HASH_BITS];
+            addSlots(table, from, to, partial);
+            return partial;
+        }, (left, right) -> {
+            for (int i = 0; i < SIM_HASH_BITS; i++) {
+                right[i] += left[i];
+            }
+            return right;
+        });
+        if (ngramKeys.containsZero()) addKey(0, counts);
+        return counts;
+    }
+
+    // 叶子任务：累加表中[from, to)的槽位，返回独占的部分结果
+    interface Leaf<R> {
+        R add(int from, int to);
+    }
+
+    // 槽位数不超过SEQUENTIAL_THRESHOLD时直接顺序累加，否则在pool中按槽位区间二分拆分，
+    // 叶子结果用merge逐级合并（merge可复用任一参数作为返回值）
+    static <R> R reduceSlots(ForkJoinPool pool, int slots, Leaf<R> leaf, BinaryOperator<R> merge) {
+        if (slots <= SEQUENTIAL_THRESHOLD) return leaf.add(0, slots);
+        return pool.invoke(new SlotRange<>(0, slots, leaf, merge));
+    }
+
+    private static final class SlotRange<R> extends RecursiveTask<R> {
+        private final int from;
+        private final int to;
+        private final Leaf<R> leaf;
+        private final BinaryOperator<R> merge;
+
+        SlotRange(int from, int to, Leaf<R> leaf, BinaryOperator<R> merge) {
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+            this.merge = merge;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                return leaf.add(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            SlotRange<R> left = new SlotRange<>(from, mid, leaf, merge);
+            left.fork();
+            R right = new SlotRange<>(mid, to, leaf, merge).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+
+    // 累加表中[from, to)的非空槽位（0为空槽）
+    static void addSlots(long[] table, int from, int to, int[] counts) {
+        if (VECTORIZED) {
+            SimHashVectors.addSlots(table, from, to, counts);
+        } else {
+            addSlotsScalar(table, from, to, counts);
+        }
+    }
+
+    static void addSlotsScalar(long[] table, int from, int to, int[] counts) {
+        for (int s = from; s < to; s++) {
+            long key = table[s];
+            if (key != 0) addKey(key, counts);
+        }
+    }
+
+    static void addKey(long ngramHash, int[] counts) {
+        for (int i = 0; i < SIM_HASH_BITS; i++) {
+            long bitMask = 1L << i;
+            if ((ngramHash & bitMask) != 0) {
+                counts[i]++;
+            } else {
+                counts[i]--;
+            }
+        }
+    }
+
+    // 加权累加：每个n-gram按weight给出的整数权重（而非±1）计入各位，同样按槽位区间并行
+    static long weightedSimHash(LongHashSet ngramKeys, LongToIntFunction weight) {
+        if (ngramKeys.isEmpty()) return 0;
+        long[] table = ngramKeys.rawTable();
+        long[] sums = reduceSlots(ForkJoinPool.commonPool(), table.length,
+                (from, to) -> addWeightedSlots(table, from, to, weight, new long[SIM_HASH_BITS]),
+                SimHashAccumulator::mergeSums);
+        if (ngramKeys.containsZero()) addWeightedKey(0, weight.applyAsInt(0), sums);
+        return toSimHash(sums);
+    }
+
+    private static long[] addWeightedSlots(long[] table, int from, int to, LongToIntFunction weight, long[] sums) {
+        for (int s = from; s < to; s++) {
+            long key = table[s];
+            if (key != 0) addWeightedKey(key, weight.applyAsInt(key), sums);
+        }
+        return sums;
+    }
+
+    private static void addWeightedKey(long ngramHash, int w, long[] sums) {
+        for (int i = 0; i < SIM_HASH_BITS; i++) {
+            if ((ngramHash & (1L << i)) != 0) {
+                sums[i] += w;
+            } else {
+                sums[i] -= w;
+            }
+        }
+    }
+
+    private static long[] mergeSums(long[] left, long[] right) {
+        for (int i = 0; i < SIM_HASH_BITS; i++) {
+            right[i] += left[i];
+        }
+        return right;
+    }
+
+    // SimHash与MinHash签名：n-gram表只遍历一遍，每个键同时计入按位累加与各排列的最小值。
+    // weight为null时每个n-gram权重均为1，SimHash与simHash()的结果相同
+    record Sketch(long simHash, int[] minHash) {
+    }
+
+    static Sketch sketch(LongHashSet ngramKeys, LongToIntFunction weight) {
+        long[] table = ngramKeys.rawTable();
+        Partial partial = reduceSlots(ForkJoinPool.commonPool(), table.length, (from, to) -> {
+            Partial leaf = new Partial();
+            for (int s = from; s < to; s++) {
+                long key = table[s];
+                if (key != 0) leaf.add(key, weight == null ? 1 : weight.applyAsInt(key));
+            }
+            return leaf;
+        }, Partial::merge);
+        if (ngramKeys.containsZero()) partial.add(0, weight == null ? 1 : weight.applyAsInt(0));
+        if (ngramKeys.isEmpty()) return new Sketch(0, partial.mins);
+        return new Sketch(toSimHash(partial.sums), partial.mins);
+    }
+
+    // 一个槽位区间的加权按位累加与各排列的最小值
+    private static final class Partial {
+        final long[] sums = new long[SIM_HASH_BITS];
+        final int[] mins = MinHash.emptySignature();
+
+        void add(long key, int w) {
+            addWeightedKey(key, w, sums);
+            MinHash.update(key, mins);
+        }
+
+        static Partial merge(Partial left, Partial right) {
+            mergeSums(left.sums, right.sums);
+            MinHash.merge(right.mins, left.mins);
+            return right;
+        }
+    }
+
+    static long toSimHash(int[] counts) {
+        long simHash = 0;
+        for (int i = 0; i < SIM_HASH_BITS; i++) {
+            if (counts[i] > 0) {
+                simHash |= (1L << i);
+            }
+        }
+        return simHash;
+    }
+
+    static long toSimHash(long[] sums) {
+        long simHash = 0;
+        for (int i = 0; i < SIM_HASH_BITS; i++) {
+            if (sums[i] > 0) {
+                simHash |= (1L << i);
+            }
+        }
+        return simHash;
+    }
+}
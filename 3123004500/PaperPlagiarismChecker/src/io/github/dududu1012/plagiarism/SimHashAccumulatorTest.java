@@ -0,0 +1,79 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class SimHashAccumulatorTest {
+
+    // ====================== 测试 simHash() 函数 ======================
+
+    @Test
+    public void testSimHash_DeterministicAcrossParallelism() {
+        // 大集合在不同并行度下结果相同，且与顺序累加一致
+        Random random = new Random(3);
+        LongHashSet keys = new LongHashSet();
+        for (int i = 0; i < 200_000; i++) {
+            keys.add(random.nextLong());
+        }
+        keys.add(0);
+
+        int[] expected = new int[SimHashAccumulator.SIM_HASH_BITS];
+        keys.forEach(key -> SimHashAccumulator.addKey(key, expected));
+        long expectedHash = SimHashAccumulator.toSimHash(expected);
+
+        for (int parallelism : new int[]{1, 2, 3, 8}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                assertArrayEquals(expected, SimHashAccumulator.accumulate(keys, pool));
+                assertEquals(expectedHash, SimHashAccumulator.simHash(keys, pool));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testSimHash_EmptySet() {
+        assertEquals(0, SimHashAccumulator.simHash(new LongHashSet()));
+    }
+
+    @Test
+    public void testToSimHash_MajorityBits() {
+        // 计数为正的位置1，计数为0或负的位置0
+        int[] counts = new int[SimHashAccumulator.SIM_HASH_BITS];
+        counts[0] = 1;
+        counts[1] = 0;
+        counts[63] = 5;
+        counts[5] = -2;
+        assertEquals(0x8000000000000001L, SimHashAccumulator.toSimHash(counts));
+    }
+
+    // ====================== 测试 weightedSimHash() 函数 ======================
+
+    @Test
+    public void testWeightedSimHash_MatchesSequentialWeightedSum() {
+        // 并行加权累加与逐个按权重求和的结果一致；权重全相同时退化为普通SimHash
+        Random random = new Random(5);
+        LongHashSet keys = new LongHashSet();
+        for (int i = 0; i < 100_000; i++) {
+            keys.add(random.nextLong());
+        }
+        java.util.function.LongToIntFunction weight = key -> 1 + (int) ((key >>> 40) & 0xff);
+
+        long[] sums = new long[SimHashAccumulator.SIM_HASH_BITS];
+        keys.forEach(key -> {
+            for (int i = 0; i < SimHashAccumulator.SIM_HASH_BITS; i++) {
+                sums[i] += ((key >>> i) & 1) != 0 ? weight.applyAsInt(key) : -weight.applyAsInt(key);
+            }
+        });
+        long expected = 0;
+        for (int i = 0; i < SimHashAccumulator.SIM_HASH_BITS; i++) {
+            if (sums[i] > 0) expected |= 1L << i;
+        }
+
+        assertEquals(expected, SimHashAccumulator.weightedSimHash(keys, weight));
+        assertEquals(SimHashAccumulator.simHash(keys), SimHashAccumulator.weightedSimHash(keys, key -> 7));
+    }
+}
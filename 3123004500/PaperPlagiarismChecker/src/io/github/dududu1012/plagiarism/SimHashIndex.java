@@ -0,0 +1,128 @@
+package io.github.dududu1012.plagiarism;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// SimHash多索引表（鸽巢原理）：64位指纹切成 maxDistance+1 段，
+// 海明距离 <= maxDistance 的两个指纹至少有一段完全相同，查询只需比对同段候选，无需线性扫描
+public class SimHashIndex {
+    private static final int SIM_HASH_BITS = 64;
+    private static final int MAX_BAND_BITS = 32;
+
+    private final int maxDistance;
+    private final long[] fingerprints;
+    private final int[] bandShifts;
+    private final long[] bandMasks;
+    // 每段一张有序表：高32位为段值，低32位为文档编号，同段值的文档在表中连续
+    private final long[][] bandTables;
+
+    private SimHashIndex(long[] fingerprints, int maxDistance) {
+        this.maxDistance = maxDistance;
+        this.fingerprints = fingerprints;
+
+        // 段数至少为 maxDistance+1，且每段不超过32位以便与文档编号打包
+        int bands = Math.max(maxDistance + 1, SIM_HASH_BITS / MAX_BAND_BITS);
+        this.bandShifts = new int[bands];
+        this.bandMasks = new long[bands];
+        int shift = 0;
+        for (int b = 0; b < bands; b++) {
+            int width = SIM_HASH_BITS / bands + (b < SIM_HASH_BITS % bands ? 1 : 0);
+            bandShifts[b] = shift;
+            bandMasks[b] = (1L << width) - 1;
+            shift += width;
+        }
+
+        this.bandTables = new long[bands][];
+        for (int b = 0; b < bands; b++) {
+            long[] table = new long[fingerprints.length];
+            for (int docId = 0; docId < fingerprints.length; docId++) {
+                table[docId] = (bandValue(fingerprints[docId], b) << 32) | docId;
+            }
+            Arrays.sort(table);
+            bandTables[b] = table;
+        }
+    }
+
+    // 构建索引：fingerprints下标即文档编号
+    public static SimHashIndex build(long[] fingerprints, int maxDistance) {
+        if (maxDistance < 0 || maxDistance >= MAX_BAND_BITS) {
+            throw new IllegalArgumentException("最大海明距离必须在0-" + (MAX_BAND_BITS - 1) + "之间：" + maxDistance);
+        }
+        return new SimHashIndex(fingerprints.clone(), maxDistance);
+    }
+
+    public int size() {
+        return fingerprints.length;
+    }
+
+    public int maxDistance() {
+        return maxDistance;
+    }
+
+    public long fingerprint(int docId) {
+        return fingerprints[docId];
+    }
+
+    public List<Match> query(long simHash) {
+        return query(simHash, maxDistance);
+    }
+
+    // 查询海明距离不超过k的全部文档，按距离升序（距离相同按编号）返回
+    public List<Match> query(long simHash, int k) {
+        if (k < 0 || k > maxDistance) {
+            throw new IllegalArgumentException("查询距离必须在0-" + maxDistance + "之间：" + k);
+        }
+        List<Match> matches = new ArrayList<>();
+        for (int b = 0; b < bandTables.length; b++) {
+            long band = bandValue(simHash, b);
+            long[] table = bandTables[b];
+            for (int i = lowerBound(table, band << 32); i < table.length && (table[i] >>> 32) == band; i++) {
+                int docId = (int) table[i];
+                long candidate = fingerprints[docId];
+                // 候选在更靠前的段已命中过则跳过，免去额外的去重集合
+                if (matchedEarlierBand(simHash, candidate, b)) continue;
+                int dist = PaperPlagiarismChecker.calculateHammingDistance(simHash, candidate);
+                if (dist <= k) {
+                    matches.add(new Match(docId, dist, PaperPlagiarismChecker.calculateSimHashSimilarity(dist)));
+                }
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::hammingDistance).thenComparingInt(Match::docId));
+        return matches;
+    }
+
+    // Top-K：半径maxDistance内已有不少于k篇时直接取检索结果的前k篇（半径外的文档距离更大），
+    // 否则退回对全部指纹的并行扫描
+    public List<Match> nearest(long simHash, int k) {
+        List<Match> within = query(simHash);
+        if (within.size() >= k) return new ArrayList<>(within.subList(0, k));
+        return NearestFingerprints.topK(fingerprints, simHash, k);
+    }
+
+    private boolean matchedEarlierBand(long a, long b, int band) {
+        for (int e = 0; e < band; e++) {
+            if (bandValue(a, e) == bandValue(b, e)) return true;
+        }
+        return false;
+    }
+
+    private long bandValue(long simHash, int band) {
+        return (simHash >>> bandShifts[band]) & bandMasks[band];
+    }
+
+    // 表按有符号long排序；同一段值的记录高32位相同，必然连续
+    private static int lowerBound(long[] table, long key) {
+        int lo = 0, hi = table.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (table[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    public record Match(int docId, int hammingDistance, double similarity) {
+    }
+}
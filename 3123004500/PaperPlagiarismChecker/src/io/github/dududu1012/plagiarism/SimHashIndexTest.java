@@ -0,0 +1,70 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.List;
+import java.util.Random;
+
+public class SimHashIndexTest {
+
+    // ====================== 测试 query() 函数 ======================
+
+    @Test
+    public void testQuery_MatchesBruteForce() {
+        // 索引检索结果应与线性扫描完全一致
+        Random random = new Random(42);
+        long[] fingerprints = new long[5000];
+        long base = random.nextLong();
+        for (int i = 0; i < fingerprints.length; i++) {
+            // 一半为基准指纹的少量位翻转，一半为随机指纹
+            fingerprints[i] = i % 2 == 0 ? flipBits(base, random.nextInt(6), random) : random.nextLong();
+        }
+        SimHashIndex index = SimHashIndex.build(fingerprints, 3);
+
+        List<SimHashIndex.Match> matches = index.query(base);
+        int expected = 0;
+        for (long fp : fingerprints) {
+            if (PaperPlagiarismChecker.calculateHammingDistance(base, fp) <= 3) expected++;
+        }
+        assertEquals(expected, matches.size());
+        for (SimHashIndex.Match match : matches) {
+            assertTrue(match.hammingDistance() <= 3);
+            assertEquals(PaperPlagiarismChecker.calculateHammingDistance(base, fingerprints[match.docId()]), match.hammingDistance());
+        }
+    }
+
+    @Test
+    public void testQuery_SortedAndDeduplicated() {
+        // 多段同时命中的文档只返回一次，结果按海明距离升序
+        long[] fingerprints = {0x0L, 0x1L, 0x3L, 0x0L, -1L};
+        SimHashIndex index = SimHashIndex.build(fingerprints, 2);
+        List<SimHashIndex.Match> matches = index.query(0x0L);
+
+        assertEquals(4, matches.size());
+        assertEquals(0, matches.get(0).docId());
+        assertEquals(3, matches.get(1).docId());
+        assertEquals(1, matches.get(2).hammingDistance());
+        assertEquals(2, matches.get(3).hammingDistance());
+        assertEquals(1.0, matches.get(0).similarity(), 0.001);
+    }
+
+    @Test
+    public void testQuery_SmallerRadius() {
+        long[] fingerprints = {0x0L, 0x7L};
+        SimHashIndex index = SimHashIndex.build(fingerprints, 3);
+        assertEquals(1, index.query(0x0L, 2).size());
+        assertEquals(2, index.query(0x0L, 3).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuild_InvalidDistance() {
+        SimHashIndex.build(new long[0], 40);
+    }
+
+    private static long flipBits(long value, int count, Random random) {
+        for (int i = 0; i < count; i++) {
+            value ^= 1L << random.nextInt(64);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.dududu1012.plagiarism;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// SimHash按位计数的SIMD累加（jdk.incubator.vector），仅在运行时加载了该模块时由SimHashAccumulator调用。
+// 键广播为字节向量后，第j个字节通道为键的第j%8个字节；与逐通道的单位掩码比较得到"该位为1"的掩码，
+// 每个通道固定对应SimHash的一位，一次向量加法同时累加LANES个位，不再逐位分支。
+// 字节通道最多累加255次，因此键按块处理，块结束时把各位1的个数并入int计数：
+// 计数 += 2×1的个数 − 块内键数，与逐位±1的标量累加结果逐位相同
+final class SimHashVectors {
+    // 超出512位的向量（如更宽的SVE）按512位处理，每个通道仍对应一位
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED.length() > SimHashAccumulator.SIM_HASH_BITS
+            ? ByteVector.SPECIES_512 : ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = BYTES.withLanes(long.class);
+    private static final int LANES = BYTES.length();
+    // 覆盖64位所需的向量个数
+    private static final int VECTORS = SimHashAccumulator.SIM_HASH_BITS / LANES;
+    static final int BLOCK = 255;
+
+    // 第k个向量第j个通道：检查第j%8个字节中的第 k×(LANES/8) + j/8 位
+    private static final ByteVector[] MASKS = new ByteVector[VECTORS];
+    // 同一通道对应的SimHash位序号
+    private static final int[] POSITIONS = new int[SimHashAccumulator.SIM_HASH_BITS];
+
+    static {
+        byte[] mask = new byte[LANES];
+        for (int k = 0; k < VECTORS; k++) {
+            for (int j = 0; j < LANES; j++) {
+                int bit = k * (LANES / 8) + j / 8;
+                mask[j] = (byte) (1 << bit);
+                POSITIONS[k * LANES + j] = (j % 8) * 8 + bit;
+            }
+            MASKS[k] = ByteVector.fromArray(BYTES, mask, 0);
+        }
+    }
+
+    private SimHashVectors() {
+    }
+
+    static int lanes() {
+        return LANES;
+    }
+
+    // 累加表中[from, to)的非空槽位（0为空槽），语义同SimHashAccumulator.addSlotsScalar
+    static void addSlots(long[] table, int from, int to, int[] counts) {
+        addSlots(table, from, to, counts, new long[BLOCK], new byte[LANES]);
+    }
+
+    // 由调用方提供块缓冲（长度至少BLOCK）与通道计数缓冲（长度至少LANES），供重复调用时复用
+    static void addSlots(long[] table, int from, int to, int[] counts, long[] block, byte[] ones) {
+        int s = from;
+        while (s < to) {
+            int size = 0;
+            while (s < to && size < BLOCK) {
+                long key = table[s++];
+                if (key != 0) block[size++] = key;
+            }
+            if (size > 0) addBlock(block, size, ones, counts);
+        }
+    }
+
+    // 同一块按向量逐个累加，累加器始终是局部变量，JIT可全程留在寄存器中
+    private static void addBlock(long[] block, int size, byte[] ones, int[] counts) {
+        for (int k = 0; k < VECTORS; k++) {
+            ByteVector mask = MASKS[k];
+            ByteVector acc = ByteVector.zero(BYTES);
+            for (int i = 0; i < size; i++) {
+                ByteVector bytes = LongVector.broadcast(LONGS, block[i]).reinterpretAsBytes();
+                acc = acc.sub(bytes.and(mask).compare(VectorOperators.NE, 0).toVector());
+            }
+            acc.intoArray(ones, 0);
+            for (int j = 0; j < LANES; j++) {
+                counts[POSITIONS[k * LANES + j]] += 2 * (ones[j] & 0xff) - size;
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class SimHashVectorsTest {
+
+    private static int[] scalar(long[] table) {
+        int[] counts = new int[SimHashAccumulator.SIM_HASH_BITS];
+        SimHashAccumulator.addSlotsScalar(table, 0, table.length, counts);
+        return counts;
+    }
+
+    private static int[] vector(long[] table, int from, int to) {
+        int[] counts = new int[SimHashAccumulator.SIM_HASH_BITS];
+        SimHashVectors.addSlots(table, from, to, counts);
+        return counts;
+    }
+
+    // ====================== 测试 addSlots() 函数 ======================
+
+    @Test
+    public void testAddSlots_MatchesScalarAtBlockBoundaries() {
+        // 块内键数为255的倍数前后、夹杂空槽时，各位计数与标量逐位累加完全相同
+        Random random = new Random(11);
+        int block = SimHashVectors.BLOCK;
+        for (int size : new int[]{0, 1, block - 1, block, block + 1, 2 * block, 2 * block + 7, 10_000}) {
+            long[] table = new long[size];
+            for (int i = 0; i < size; i++) {
+                table[i] = random.nextInt(5) == 0 ? 0 : random.nextLong();
+            }
+            assertArrayEquals("size=" + size, scalar(table), vector(table, 0, size));
+        }
+    }
+
+    @Test
+    public void testAddSlots_ExtremeBitPatterns() {
+        // 全1、仅最高位、每字节仅最高位等键：字节通道按无符号计数，满块255个也不溢出
+        long[] patterns = {-1L, Long.MIN_VALUE, 1L, 0x8080808080808080L, 0x0101010101010101L, 0x7fffffffffffffffL};
+        for (long pattern : patterns) {
+            long[] table = new long[3 * SimHashVectors.BLOCK + 4];
+            Arrays.fill(table, pattern);
+            assertArrayEquals(Long.toHexString(pattern), scalar(table), vector(table, 0, table.length));
+        }
+    }
+
+    @Test
+    public void testAddSlots_SubRangeAndAccumulates() {
+        // 只累加[from, to)，并在已有计数上继续累加
+        Random random = new Random(12);
+        long[] table = new long[1000];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = random.nextLong();
+        }
+        int[] expected = new int[SimHashAccumulator.SIM_HASH_BITS];
+        SimHashAccumulator.addSlotsScalar(table, 100, 400, expected);
+        SimHashAccumulator.addSlotsScalar(table, 600, 900, expected);
+        int[] actual = new int[SimHashAccumulator.SIM_HASH_BITS];
+        SimHashVectors.addSlots(table, 100, 400, actual);
+        SimHashVectors.addSlots(table, 600, 900, actual);
+        assertArrayEquals(expected, actual);
+    }
+
+    // ====================== 测试 SimHash 结果一致性 ======================
+
+    @Test
+    public void testSimHash_MillionNgramsIdenticalToScalar() {
+        // 百万级n-gram（并行拆分后每个叶子任务各自按块累加）的SimHash与标量路径逐位相同
+        Random random = new Random(13);
+        LongHashSet keys = new LongHashSet();
+        for (int i = 0; i < 1_000_000; i++) {
+            keys.add(random.nextLong());
+        }
+        keys.add(0);
+        int[] expected = new int[SimHashAccumulator.SIM_HASH_BITS];
+        keys.forEach(key -> SimHashAccumulator.addKey(key, expected));
+        assertTrue(SimHashAccumulator.VECTORIZED);
+        assertArrayEquals(expected, SimHashAccumulator.accumulate(keys, ForkJoinPool.commonPool()));
+        assertEquals(SimHashAccumulator.toSimHash(expected), SimHashAccumulator.simHash(keys));
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.dududu1012.plagiarism;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// 查重流水线单个阶段的JFR事件：未开启JFR记录时begin/commit几乎没有开销，开启后持续时间由JFR自动记录。
+// 用 -XX:StartFlightRecording 或 jcmd JFR.start 采集，不需要挂载外部分析代理
+@Name("PaperPlagiarismChecker.Stage")
+@Label("查重阶段")
+@Category("PaperPlagiarismChecker")
+@Description("读取、预处理、分词、n-gram提取、SimHash、结果写入等阶段的耗时与数据量")
+@StackTrace(false)
+public final class StageEvent extends jdk.jfr.Event {
+    @Label("阶段")
+    String stage;
+
+    @Label("字节数")
+    @DataAmount
+    long bytes;
+
+    @Label("token数")
+    long tokens;
+
+    @Label("n-gram数")
+    long ngrams;
+}
@@ -0,0 +1,167 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// 各阶段的计数与延迟分布：每个阶段一次调用对应一个Span，结束时提交StageEvent（JFR记录开启时），
+// 并在 --metrics 开启时累加次数、数据量与延迟直方图（均可并发累加）。两者都关闭时只剩一次事件对象的创建
+final class StageMetrics {
+    static final String OPTION = "--metrics";
+    // --metrics 的值为此时输出到标准输出，否则追加到该文件
+    private static final String STDOUT = "-";
+
+    enum Stage {
+        READ("读取"),
+        STREAM("流式读取分词"),
+        PREPROCESS("预处理"),
+        TOKENIZE("分词"),
+        NGRAM("n-gram提取"),
+        SIMHASH("SimHash"),
+        WRITE("结果写入");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        String label() {
+            return label;
+        }
+    }
+
+    private static final class Stats {
+        final LongAdder bytes = new LongAdder();
+        final LongAdder tokens = new LongAdder();
+        final LongAdder ngrams = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+    }
+
+    private static volatile boolean enabled;
+    private static volatile Stats[] stats = newStats();
+
+    private StageMetrics() {
+    }
+
+    static void enable() {
+        enabled = true;
+    }
+
+    static boolean enabled() {
+        return enabled;
+    }
+
+    // 关闭并清空计数
+    static void reset() {
+        enabled = false;
+        stats = newStats();
+    }
+
+    static Span start(Stage stage) {
+        return new Span(stage);
+    }
+
+    // 一次阶段调用：start时开始计时，end时带上数据量提交
+    static final class Span {
+        private final Stage stage;
+        private final StageEvent event = new StageEvent();
+        private final long startNanos;
+
+        private Span(Stage stage) {
+            this.stage = stage;
+            this.startNanos = enabled ? System.nanoTime() : 0;
+            event.begin();
+        }
+
+        void end(long bytes, long tokens, long ngrams) {
+            if (startNanos != 0) {
+                Stats s = stats[stage.ordinal()];
+                s.latency.recordNanos(System.nanoTime() - startNanos);
+                s.bytes.add(bytes);
+                s.tokens.add(tokens);
+                s.ngrams.add(ngrams);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = stage.label();
+                event.bytes = bytes;
+                event.tokens = tokens;
+                event.ngrams = ngrams;
+                event.commit();
+            }
+        }
+    }
+
+    static long count(Stage stage) {
+        return stats[stage.ordinal()].latency.count();
+    }
+
+    static long tokens(Stage stage) {
+        return stats[stage.ordinal()].tokens.sum();
+    }
+
+    static long ngrams(Stage stage) {
+        return stats[stage.ordinal()].ngrams.sum();
+    }
+
+    static long bytes(Stage stage) {
+        return stats[stage.ordinal()].bytes.sum();
+    }
+
+    // 每个调用过的阶段一行：数据量合计与延迟分布
+    static String summary() {
+        StringBuilder sb = new StringBuilder("========== 各阶段指标 ==========\n");
+        for (Stage stage : Stage.values()) {
+            Stats s = stats[stage.ordinal()];
+            if (s.latency.count() == 0) continue;
+            sb.append(stage.label()).append("：字节=").append(s.bytes.sum())
+                    .append(" token=").append(s.tokens.sum())
+                    .append(" n-gram=").append(s.ngrams.sum())
+                    .append(" | ").append(s.latency.summary()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // 输出到标准输出（"-"）或追加到文件
+    static void dump(String target) throws IOException {
+        String summary = summary();
+        if (STDOUT.equals(target)) {
+            System.out.print(summary);
+        } else {
+            Files.writeString(Paths.get(target), summary, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+
+    // --metrics 适用于所有模式，在分派模式前从参数中取出；未给出时返回null
+    static String optionValue(String[] args) {
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals(OPTION)) return args[i + 1];
+        }
+        return null;
+    }
+
+    static String[] withoutOption(String[] args) {
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals(OPTION)) {
+                String[] rest = Arrays.copyOf(args, args.length - 2);
+                System.arraycopy(args, i + 2, rest, i, args.length - i - 2);
+                return rest;
+            }
+        }
+        return args;
+    }
+
+    private static Stats[] newStats() {
+        Stats[] all = new Stats[Stage.values().length];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = new Stats();
+        }
+        return all;
+    }
+}
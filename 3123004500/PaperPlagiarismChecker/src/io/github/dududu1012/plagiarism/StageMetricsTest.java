@@ -0,0 +1,103 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class StageMetricsTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @After
+    public void resetMetrics() {
+        StageMetrics.reset();
+    }
+
+    // ====================== 测试 Span 计数 ======================
+
+    @Test
+    public void testSpan_CountsEachStage() throws Exception {
+        StageMetrics.enable();
+        String orig = TextFixtures.write(tempFolder.getRoot(), "orig.txt", "今天是星期天，天气晴，今晚我要去看电影");
+        String copy = TextFixtures.write(tempFolder.getRoot(), "copy.txt", "今天是周天，天气晴朗，我晚上要去看电影");
+        new PlagiarismEngine().check(orig, copy, null);
+
+        assertEquals(2, StageMetrics.count(StageMetrics.Stage.READ));
+        assertEquals(Files.size(Path.of(orig)) + Files.size(Path.of(copy)), StageMetrics.bytes(StageMetrics.Stage.READ));
+        assertEquals(2, StageMetrics.count(StageMetrics.Stage.TOKENIZE));
+        assertEquals(2, StageMetrics.count(StageMetrics.Stage.NGRAM));
+        assertEquals(2, StageMetrics.count(StageMetrics.Stage.SIMHASH));
+        assertTrue(StageMetrics.tokens(StageMetrics.Stage.TOKENIZE) > 0);
+        assertEquals(StageMetrics.ngrams(StageMetrics.Stage.NGRAM), StageMetrics.ngrams(StageMetrics.Stage.SIMHASH));
+        assertEquals(0, StageMetrics.count(StageMetrics.Stage.WRITE));
+    }
+
+    @Test
+    public void testSpan_DisabledRecordsNothing() {
+        new PlagiarismEngine().check("今天是星期天，天气晴", "今天是周天，天气晴朗");
+        assertEquals(0, StageMetrics.count(StageMetrics.Stage.TOKENIZE));
+        assertEquals("========== 各阶段指标 ==========\n", StageMetrics.summary());
+    }
+
+    // ====================== 测试 JFR 事件 ======================
+
+    @Test
+    public void testStageEvent_RecordedByFlightRecorder() throws Exception {
+        Path file = tempFolder.newFile("stages.jfr").toPath();
+        try (Recording recording = new Recording()) {
+            recording.enable("PaperPlagiarismChecker.Stage").withThreshold(java.time.Duration.ZERO);
+            recording.start();
+            new PlagiarismEngine().check("今天是星期天，天气晴，今晚我要去看电影", "今天是周天，天气晴朗，我晚上要去看电影");
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Set<String> stages = new HashSet<>();
+        for (RecordedEvent event : events) {
+            stages.add(event.getString("stage"));
+            if (event.getString("stage").equals(StageMetrics.Stage.TOKENIZE.label())) {
+                assertTrue(event.getLong("tokens") > 0);
+            }
+        }
+        assertTrue(stages.contains(StageMetrics.Stage.TOKENIZE.label()));
+        assertTrue(stages.contains(StageMetrics.Stage.NGRAM.label()));
+        assertTrue(stages.contains(StageMetrics.Stage.SIMHASH.label()));
+    }
+
+    // ====================== 测试 --metrics 参数与输出 ======================
+
+    @Test
+    public void testOption_StrippedFromAnyPosition() {
+        String[] args = {"--batch", "list.txt", "--metrics", "-", "out.txt"};
+        assertEquals("-", StageMetrics.optionValue(args));
+        assertArrayEquals(new String[]{"--batch", "list.txt", "out.txt"}, StageMetrics.withoutOption(args));
+        String[] plain = {"a.txt", "b.txt", "out.txt"};
+        assertNull(StageMetrics.optionValue(plain));
+        assertSame(plain, StageMetrics.withoutOption(plain));
+    }
+
+    @Test
+    public void testDump_AppendsSummaryToFile() throws Exception {
+        StageMetrics.enable();
+        new PlagiarismEngine().tokenize("今天是星期天");
+        Path target = tempFolder.getRoot().toPath().resolve("metrics.txt");
+        StageMetrics.dump(target.toString());
+        StageMetrics.dump(target.toString());
+        String content = Files.readString(target, StandardCharsets.UTF_8);
+        assertEquals(2, content.split("各阶段指标", -1).length - 1);
+        assertTrue(content.contains(StageMetrics.Stage.TOKENIZE.label() + "：字节=0 token="));
+        assertTrue(content.contains("次数=1"));
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// 映射文件的跨进程写锁：批处理、服务与命令行进程可共用同一个指纹库/缓存/词频表/倒排索引。
+// FileLock只在进程之间互斥，同一JVM内对同一文件重复加锁会抛OverlappingFileLockException，
+// 因此先取按文件共享的ReentrantLock，最外层持有时才取文件头区域的FileLock；同一线程可重入
+final class StoreLock {
+    private static final ConcurrentHashMap<Path, StoreLock> LOCKS = new ConcurrentHashMap<>();
+
+    private final ReentrantLock local = new ReentrantLock();
+    private FileLock fileLock;
+
+    private StoreLock() {
+    }
+
+    // 持锁期间执行的操作
+    interface Body<T> {
+        T run() throws IOException;
+    }
+
+    interface Action {
+        void run() throws IOException;
+    }
+
+    // 锁住channel对应文件的 [0, regionBytes) 区域执行body并返回其结果，path用于在JVM内识别同一文件
+    static <T> T call(Path path, FileChannel channel, long regionBytes, Body<T> body) throws IOException {
+        StoreLock lock = acquire(path, channel, regionBytes);
+        try {
+            return body.run();
+        } finally {
+            lock.release();
+        }
+    }
+
+    static void run(Path path, FileChannel channel, long regionBytes, Action action) throws IOException {
+        call(path, channel, regionBytes, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private static StoreLock acquire(Path path, FileChannel channel, long regionBytes) throws IOException {
+        StoreLock lock = LOCKS.computeIfAbsent(path.toAbsolutePath().normalize(), p -> new StoreLock());
+        lock.local.lock();
+        if (lock.local.getHoldCount() == 1) {
+            try {
+                lock.fileLock = channel.lock(0, regionBytes, false);
+            } catch (IOException | RuntimeException e) {
+                lock.local.unlock();
+                throw e;
+            }
+        }
+        return lock;
+    }
+
+    private void release() throws IOException {
+        try {
+            if (local.getHoldCount() == 1 && fileLock != null) {
+                FileLock held = fileLock;
+                fileLock = null;
+                if (held.isValid()) held.release();
+            }
+        } finally {
+            local.unlock();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.dududu1012.plagiarism;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// 各测试共用的随机文本与临时文件工具（只参与测试编译，见pom.xml）
+final class TextFixtures {
+    private TextFixtures() {
+    }
+
+    // count个以空格分隔的词"w0"~"w(vocabulary-1)"，词表越小重复越多
+    static String words(Random random, int count, int vocabulary) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append("w").append(random.nextInt(vocabulary)).append(' ');
+        }
+        return sb.toString();
+    }
+
+    // 英文词与含数字的中文短语各约一半，覆盖ASCII与多字节UTF-8两种token
+    static String mixedWords(Random random, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(random.nextBoolean() ? "w" + random.nextInt(2000) : "论文查重第" + random.nextInt(50) + "节").append(' ');
+        }
+        return sb.toString();
+    }
+
+    // 在dir下写入（已存在时覆盖）UTF-8文本文件，返回其路径
+    static String write(File dir, String name, String content) throws IOException {
+        return write(dir, name, content.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    static Path write(File dir, String name, byte[] content) throws IOException {
+        Path path = new File(dir, name).toPath();
+        Files.write(path, content);
+        return path;
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.dududu1012.plagiarism;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// 整篇文档的分词结果：所有token以单个空格分隔连续存放在一个UTF-8字节缓冲区中，
+// 每个token记录其在缓冲区中的区间以及在原文中的字符区间
+public final class TokenBuffer implements TokenScanner.TokenSink {
+    private byte[] bytes;
+    private int length;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int[] sourceStarts = new int[16];
+    private int[] sourceEnds = new int[16];
+    private int count;
+
+    public TokenBuffer(int initialBytes) {
+        this.bytes = new byte[initialBytes];
+    }
+
+    @Override
+    public void token(byte[] src, int offset, int tokenLength, long sourceStart, long sourceEnd) {
+        int separator = count > 0 ? 1 : 0;
+        ensureBytes(length + separator + tokenLength);
+        if (count == starts.length) {
+            int newSize = count * 2;
+            starts = Arrays.copyOf(starts, newSize);
+            ends = Arrays.copyOf(ends, newSize);
+            sourceStarts = Arrays.copyOf(sourceStarts, newSize);
+            sourceEnds = Arrays.copyOf(sourceEnds, newSize);
+        }
+        if (separator > 0) bytes[length++] = ' ';
+        System.arraycopy(src, offset, bytes, length, tokenLength);
+        starts[count] = length;
+        ends[count] = length + tokenLength;
+        sourceStarts[count] = (int) sourceStart;
+        sourceEnds[count] = (int) sourceEnd;
+        length += tokenLength;
+        count++;
+    }
+
+    // 清空内容以便复用缓冲区
+    public void clear() {
+        length = 0;
+        count = 0;
+    }
+
+    public int tokenCount() {
+        return count;
+    }
+
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int start(int i) {
+        return starts[i];
+    }
+
+    public int end(int i) {
+        return ends[i];
+    }
+
+    public int sourceStart(int i) {
+        return sourceStarts[i];
+    }
+
+    public int sourceEnd(int i) {
+        return sourceEnds[i];
+    }
+
+    public String token(int i) {
+        return new String(bytes, starts[i], ends[i] - starts[i], StandardCharsets.UTF_8);
+    }
+
+    // 归一化后的全文，等价于旧版preprocessText的返回值
+    public String normalizedText() {
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    public String[] toTokenArray() {
+        String[] tokens = new String[count];
+        for (int i = 0; i < count; i++) {
+            tokens[i] = token(i);
+        }
+        return tokens;
+    }
+
+    private void ensureBytes(int needed) {
+        if (needed > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(needed, bytes.length * 2));
+        }
+    }
+}
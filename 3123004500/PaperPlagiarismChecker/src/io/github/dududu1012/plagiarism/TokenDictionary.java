@@ -0,0 +1,95 @@
+package io.github.dududu1012.plagiarism;
+
+import java.util.Arrays;
+
+// token字典：把token字节串驻留为int编号，每个不同token只计算一次64位哈希。
+// 字节串连续存放在一个池中，查找表为开放寻址的int数组（槽位值为编号+1，0为空）
+public final class TokenDictionary {
+    private byte[] pool = new byte[1024];
+    private int poolLength;
+    private int[] offsets = new int[64];
+    private int[] lengths = new int[64];
+    private int[] bucketHashes = new int[64];
+    private long[] tokenHashes = new long[64];
+    private int size;
+    private int[] table = new int[128];
+
+    // 返回token编号，首次出现时登记并计算其哈希
+    public int intern(byte[] bytes, int offset, int length) {
+        int bucketHash = bucketHash(bytes, offset, length);
+        int mask = table.length - 1;
+        int slot = bucketHash & mask;
+        while (true) {
+            int entry = table[slot];
+            if (entry == 0) break;
+            int id = entry - 1;
+            if (bucketHashes[id] == bucketHash && lengths[id] == length
+                    && Arrays.equals(pool, offsets[id], offsets[id] + length, bytes, offset, offset + length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int id = size;
+        if (id == offsets.length) {
+            int newSize = id * 2;
+            offsets = Arrays.copyOf(offsets, newSize);
+            lengths = Arrays.copyOf(lengths, newSize);
+            bucketHashes = Arrays.copyOf(bucketHashes, newSize);
+            tokenHashes = Arrays.copyOf(tokenHashes, newSize);
+        }
+        if (poolLength + length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(poolLength + length, pool.length * 2));
+        }
+        System.arraycopy(bytes, offset, pool, poolLength, length);
+        offsets[id] = poolLength;
+        lengths[id] = length;
+        bucketHashes[id] = bucketHash;
+        tokenHashes[id] = PaperPlagiarismChecker.tokenHash(bytes, offset, length);
+        poolLength += length;
+        table[slot] = id + 1;
+        size++;
+        if (size * 2 > table.length) rehash();
+        return id;
+    }
+
+    public long hash(int id) {
+        return tokenHashes[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // 当前可容纳的token数（各数组长度）；clear()不缩小数组
+    int capacity() {
+        return offsets.length;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        size = 0;
+        poolLength = 0;
+    }
+
+    private void rehash() {
+        int[] newTable = new int[table.length * 2];
+        int mask = newTable.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = bucketHashes[id] & mask;
+            while (newTable[slot] != 0) slot = (slot + 1) & mask;
+            newTable[slot] = id + 1;
+        }
+        table = newTable;
+    }
+
+    // 查找表用的廉价哈希（FNV-1a 32位）
+    private static int bucketHash(byte[] bytes, int offset, int length) {
+        int hash = 0x811c9dc5;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash ^= bytes[i] & 0xff;
+            hash *= 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.dududu1012.plagiarism;
+
+import java.util.Arrays;
+
+// 单遍归一化分词器：按预计算的字符类别表逐字符分类、转小写并直接编码为UTF-8，
+// 在token边界处把token字节及其在原文中的字符区间交给TokenSink，全程不产生中间String。
+// 输出与旧流程（非核心字符替换为空格 → 合并空白 → trim → 转小写 → split）逐token一致
+public final class TokenScanner {
+    private static final byte SEPARATOR = 0;
+    private static final byte ASCII_CORE = 1;
+    private static final byte ASCII_UPPER = 2;
+    private static final byte CJK = 3;
+    // 核心字符：a-z A-Z 0-9 以及 一-龥，其余（含代理对）均视为分隔符
+    private static final byte[] CHAR_CLASS = new byte[Character.MAX_VALUE + 1];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) CHAR_CLASS[c] = ASCII_CORE;
+        for (char c = '0'; c <= '9'; c++) CHAR_CLASS[c] = ASCII_CORE;
+        for (char c = 'A'; c <= 'Z'; c++) CHAR_CLASS[c] = ASCII_UPPER;
+        for (char c = '\u4e00'; c <= '\u9fa5'; c++) CHAR_CLASS[c] = CJK;
+    }
+
+    // 接收分词结果：bytes[offset, offset+length) 为归一化后的token（UTF-8），
+    // [sourceStart, sourceEnd) 为其在原文中的字符区间；bytes在回调返回后会被复用
+    public interface TokenSink {
+        void token(byte[] bytes, int offset, int length, long sourceStart, long sourceEnd);
+    }
+
+    private final TokenSink sink;
+    private byte[] token = new byte[64];
+    private int tokenLength;
+    private long tokenStart;
+    private long position;
+
+    public TokenScanner(TokenSink sink) {
+        this.sink = sink;
+    }
+
+    // 整篇文本一次扫描，结果收集到TokenBuffer
+    public static TokenBuffer scan(CharSequence text) {
+        TokenBuffer buffer = new TokenBuffer(Math.max(16, text.length()));
+        TokenScanner scanner = new TokenScanner(buffer);
+        scanner.feed(text);
+        scanner.finish();
+        return buffer;
+    }
+
+    // 可分多次送入文本，跨块的token在块之间保留
+    public void feed(CharSequence text) {
+        for (int i = 0, len = text.length(); i < len; i++) {
+            accept(text.charAt(i));
+        }
+    }
+
+    public void feed(char[] chars, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            accept(chars[i]);
+        }
+    }
+
+    // 输入结束，输出最后一个未结束的token
+    public void finish() {
+        if (tokenLength > 0) emit();
+    }
+
+    // 清空状态以便扫描下一篇文档
+    public void reset() {
+        tokenLength = 0;
+        position = 0;
+    }
+
+    private void accept(char c) {
+        byte cls = CHAR_CLASS[c];
+        if (cls == SEPARATOR) {
+            if (tokenLength > 0) emit();
+        } else {
+            if (tokenLength == 0) tokenStart = position;
+            if (tokenLength + 3 > token.length) {
+                token = Arrays.copyOf(token, token.length * 2);
+            }
+            if (cls == ASCII_CORE) {
+                token[tokenLength++] = (byte) c;
+            } else if (cls == ASCII_UPPER) {
+                token[tokenLength++] = (byte) (c + ('a' - 'A'));
+            } else {
+                token[tokenLength++] = (byte) (0xe0 | (c >>> 12));
+                token[tokenLength++] = (byte) (0x80 | ((c >>> 6) & 0x3f));
+                token[tokenLength++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        position++;
+    }
+
+    private void emit() {
+        sink.token(token, 0, tokenLength, tokenStart, position);
+        tokenLength = 0;
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class TokenScannerTest {
+
+    // 旧版正则流程，作为对照
+    private static String legacyPreprocess(String text) {
+        String cleaned = text.replaceAll("[^a-zA-Z0-9一-龥]", " ");
+        return cleaned.replaceAll("\\s+", " ").trim().toLowerCase();
+    }
+
+    private static String[] legacyTokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : legacyPreprocess(text).split(" ")) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    // ====================== 测试 scan() 函数 ======================
+
+    @Test
+    public void testScan_MatchesLegacyPipeline() {
+        // 随机混合ASCII、中文、标点、空白与代理对，输出须与旧流程一致
+        String alphabet = "aZz09 \t\n,.，。！@#_今天是星期天龥一丶　😀";
+        Random random = new Random(7);
+        for (int round = 0; round < 500; round++) {
+            StringBuilder sb = new StringBuilder();
+            int len = random.nextInt(60);
+            for (int i = 0; i < len; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String text = sb.toString();
+            TokenBuffer buffer = TokenScanner.scan(text);
+            assertEquals(legacyPreprocess(text), buffer.normalizedText());
+            assertArrayEquals(legacyTokens(text), buffer.toTokenArray());
+        }
+    }
+
+    @Test
+    public void testScan_SourceOffsets() {
+        // token在原文中的字符区间
+        String text = "  Hello, 世界!abc";
+        TokenBuffer buffer = TokenScanner.scan(text);
+        assertEquals(3, buffer.tokenCount());
+        assertEquals("Hello", text.substring(buffer.sourceStart(0), buffer.sourceEnd(0)));
+        assertEquals("世界", text.substring(buffer.sourceStart(1), buffer.sourceEnd(1)));
+        assertEquals("abc", text.substring(buffer.sourceStart(2), buffer.sourceEnd(2)));
+        assertEquals("hello", buffer.token(0));
+    }
+
+    @Test
+    public void testFeed_TokenAcrossChunks() {
+        // 分块送入时跨块token保持完整
+        TokenBuffer buffer = new TokenBuffer(16);
+        TokenScanner scanner = new TokenScanner(buffer);
+        scanner.feed("查重系");
+        scanner.feed("统 Plag");
+        char[] tail = "iarism!".toCharArray();
+        scanner.feed(tail, 0, tail.length);
+        scanner.finish();
+        assertArrayEquals(new String[]{"查重系统", "plagiarism"}, buffer.toTokenArray());
+        assertEquals(5, buffer.sourceStart(1));
+        assertEquals(15, buffer.sourceEnd(1));
+    }
+}
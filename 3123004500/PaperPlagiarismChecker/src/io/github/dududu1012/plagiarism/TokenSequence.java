@@ -0,0 +1,61 @@
+package io.github.dududu1012.plagiarism;
+
+import java.util.Arrays;
+
+// 文档的token编号序列：分词结果直接驻留到TokenDictionary，只保留int编号，不保留token字符串
+public final class TokenSequence implements TokenScanner.TokenSink {
+    private final TokenDictionary dictionary;
+    private int[] ids = new int[256];
+    private int count;
+
+    public TokenSequence() {
+        this(new TokenDictionary());
+    }
+
+    public TokenSequence(TokenDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public static TokenSequence scan(CharSequence text) {
+        TokenSequence sequence = new TokenSequence();
+        TokenScanner scanner = new TokenScanner(sequence);
+        scanner.feed(text);
+        scanner.finish();
+        return sequence;
+    }
+
+    @Override
+    public void token(byte[] bytes, int offset, int length, long sourceStart, long sourceEnd) {
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, count * 2);
+        }
+        ids[count++] = dictionary.intern(bytes, offset, length);
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int id(int i) {
+        return ids[i];
+    }
+
+    // 第i个token的64位哈希
+    public long hash(int i) {
+        return dictionary.hash(ids[i]);
+    }
+
+    public TokenDictionary dictionary() {
+        return dictionary;
+    }
+
+    // 当前id数组长度；clear()不缩小数组
+    int capacity() {
+        return ids.length;
+    }
+
+    public void clear() {
+        count = 0;
+        dictionary.clear();
+    }
+}
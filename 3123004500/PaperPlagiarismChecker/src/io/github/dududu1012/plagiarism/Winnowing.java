@@ -0,0 +1,251 @@
+package io.github.dududu1012.plagiarism;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 段落定位引擎（MOSS式winnowing）：把文本切成基本单元（连续的ASCII字母数字为一个单元，每个汉字为一个单元），
+// 对连续K个单元的哈希做窗口为WINDOW的最小值选取，保留指纹所在的原文字符区间。
+// 两篇文档的指纹按哈希排序后归并连接，再沿对角线合并为成段的匹配区间。
+// 长度不少于 K+WINDOW-1 个单元的相同片段保证被检出，短于K个单元的巧合重复不会被报告
+public final class Winnowing {
+    static final int K = 6;
+    static final int WINDOW = 4;
+    // 同一哈希在两边出现次数之积超过该值时视为套话，不参与定位
+    private static final int MAX_GROUP_PAIRS = 64;
+
+    private Winnowing() {
+    }
+
+    // 一对匹配区间：原文 [originalStart, originalEnd) 与抄袭文本 [copyStart, copyEnd)，均为字符下标
+    record Span(int originalStart, int originalEnd, int copyStart, int copyEnd) {
+        int originalLength() {
+            return originalEnd - originalStart;
+        }
+    }
+
+    // 单篇文档的winnowing指纹：hashes[i] 为第 positions[i] 个k-gram的哈希，
+    // 单元区间用于把k-gram下标映射回原文字符区间
+    static final class Fingerprints implements TokenScanner.TokenSink {
+        private int[] unitStarts = new int[256];
+        private int[] unitEnds = new int[256];
+        private long[] unitHashes = new long[256];
+        private int unitCount;
+        private long[] hashes = new long[0];
+        private int[] positions = new int[0];
+        private int count;
+
+        @Override
+        public void token(byte[] bytes, int offset, int length, long sourceStart, long sourceEnd) {
+            // token内每个核心字符恰好对应原文中的一个字符，可按字符数推算单元的原文区间
+            int source = (int) sourceStart;
+            int i = offset;
+            int end = offset + length;
+            while (i < end) {
+                if (bytes[i] >= 0) {
+                    int runStart = i;
+                    while (i < end && bytes[i] >= 0) i++;
+                    addUnit(bytes, runStart, i - runStart, source, source + (i - runStart));
+                    source += i - runStart;
+                } else {
+                    addUnit(bytes, i, 3, source, source + 1);
+                    i += 3;
+                    source++;
+                }
+            }
+        }
+
+        private void addUnit(byte[] bytes, int offset, int length, int sourceStart, int sourceEnd) {
+            if (unitCount == unitHashes.length) {
+                int newSize = unitCount * 2;
+                unitStarts = Arrays.copyOf(unitStarts, newSize);
+                unitEnds = Arrays.copyOf(unitEnds, newSize);
+                unitHashes = Arrays.copyOf(unitHashes, newSize);
+            }
+            unitStarts[unitCount] = sourceStart;
+            unitEnds[unitCount] = sourceEnd;
+            unitHashes[unitCount] = PaperPlagiarismChecker.tokenHash(bytes, offset, length);
+            unitCount++;
+        }
+
+        // 分词结束后计算k-gram哈希并做winnowing选取，最后按哈希排序以便归并连接
+        void winnow() {
+            int grams = unitCount - K + 1;
+            if (grams <= 0) {
+                count = 0;
+                return;
+            }
+            long[] gramHashes = new long[grams];
+            for (int i = 0; i < grams; i++) {
+                long acc = 0;
+                for (int j = 0; j < K; j++) {
+                    acc = PaperPlagiarismChecker.combineNgramHash(acc, unitHashes[i + j]);
+                }
+                gramHashes[i] = PaperPlagiarismChecker.finalizeNgramKey(acc);
+            }
+
+            hashes = new long[grams / WINDOW * 2 + 2];
+            positions = new int[hashes.length];
+            count = 0;
+            int windows = Math.max(1, grams - WINDOW + 1);
+            int lastSelected = -1;
+            for (int start = 0; start < windows; start++) {
+                int end = Math.min(grams, start + WINDOW);
+                // 窗口内最小值，相同时取最右侧（robust winnowing）
+                int min = start;
+                for (int i = start + 1; i < end; i++) {
+                    if (Long.compareUnsigned(gramHashes[i], gramHashes[min]) <= 0) min = i;
+                }
+                if (min != lastSelected) {
+                    if (count == hashes.length) {
+                        hashes = Arrays.copyOf(hashes, count * 2);
+                        positions = Arrays.copyOf(positions, count * 2);
+                    }
+                    hashes[count] = gramHashes[min];
+                    positions[count] = min;
+                    count++;
+                    lastSelected = min;
+                }
+            }
+            sortByHash(hashes, positions, count);
+        }
+
+        int count() {
+            return count;
+        }
+
+        long hash(int i) {
+            return hashes[i];
+        }
+
+        int position(int i) {
+            return positions[i];
+        }
+
+        // 第gram个k-gram在原文中的起止字符
+        int gramStart(int gram) {
+            return unitStarts[gram];
+        }
+
+        int gramEnd(int gram) {
+            return unitEnds[gram + K - 1];
+        }
+    }
+
+    static Fingerprints fingerprint(CharSequence text) {
+        Fingerprints fingerprints = new Fingerprints();
+        TokenScanner scanner = new TokenScanner(fingerprints);
+        scanner.feed(text);
+        scanner.finish();
+        fingerprints.winnow();
+        return fingerprints;
+    }
+
+    // 定位两段文本中的相同片段，按原文位置排序
+    static List<Span> localize(CharSequence original, CharSequence copy) {
+        return match(fingerprint(original), fingerprint(copy));
+    }
+
+    static List<Span> match(Fingerprints original, Fingerprints copy) {
+        // 归并连接：两边均已按哈希排序，相同哈希的组做笛卡尔积，得到(对角线, 原文k-gram下标)
+        long[] pairs = new long[16];
+        int pairCount = 0;
+        int i = 0;
+        int j = 0;
+        while (i < original.count() && j < copy.count()) {
+            int cmp = Long.compareUnsigned(original.hash(i), copy.hash(j));
+            if (cmp < 0) {
+                i++;
+            } else if (cmp > 0) {
+                j++;
+            } else {
+                long hash = original.hash(i);
+                int iEnd = i;
+                while (iEnd < original.count() && original.hash(iEnd) == hash) iEnd++;
+                int jEnd = j;
+                while (jEnd < copy.count() && copy.hash(jEnd) == hash) jEnd++;
+                if ((long) (iEnd - i) * (jEnd - j) <= MAX_GROUP_PAIRS) {
+                    for (int a = i; a < iEnd; a++) {
+                        for (int b = j; b < jEnd; b++) {
+                            if (pairCount == pairs.length) pairs = Arrays.copyOf(pairs, pairCount * 2);
+                            int posA = original.position(a);
+                            int diagonal = copy.position(b) - posA;
+                            pairs[pairCount++] = ((long) diagonal << 32) | posA;
+                        }
+                    }
+                }
+                i = iEnd;
+                j = jEnd;
+            }
+        }
+        Arrays.sort(pairs, 0, pairCount);
+
+        // 同一对角线上相距不超过一个窗口的指纹属于同一段连续的相同文本
+        List<Span> spans = new ArrayList<>();
+        int p = 0;
+        while (p < pairCount) {
+            int diagonal = (int) (pairs[p] >> 32);
+            int first = (int) pairs[p];
+            int last = first;
+            p++;
+            while (p < pairCount && (int) (pairs[p] >> 32) == diagonal && (int) pairs[p] - last <= WINDOW) {
+                last = (int) pairs[p];
+                p++;
+            }
+            spans.add(new Span(original.gramStart(first), original.gramEnd(last),
+                    copy.gramStart(first + diagonal), copy.gramEnd(last + diagonal)));
+        }
+        return mergeOverlapping(spans);
+    }
+
+    // 插入或删除会让同一片段落在相邻的几条对角线上，两侧区间均重叠的片段合并为一个
+    private static List<Span> mergeOverlapping(List<Span> spans) {
+        spans.sort((x, y) -> x.originalStart() != y.originalStart()
+                ? Integer.compare(x.originalStart(), y.originalStart())
+                : Integer.compare(x.copyStart(), y.copyStart()));
+        List<Span> merged = new ArrayList<>(spans.size());
+        for (Span span : spans) {
+            Span prev = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (prev != null && span.originalStart() <= prev.originalEnd()
+                    && span.copyStart() <= prev.copyEnd() && span.copyEnd() >= prev.copyStart()) {
+                merged.set(merged.size() - 1, new Span(prev.originalStart(), Math.max(prev.originalEnd(), span.originalEnd()),
+                        Math.min(prev.copyStart(), span.copyStart()), Math.max(prev.copyEnd(), span.copyEnd())));
+            } else {
+                merged.add(span);
+            }
+        }
+        return merged;
+    }
+
+    // 按哈希（无符号）对 hashes/positions 成对排序：8轮8位LSD基数排序，线性时间且不装箱
+    static void sortByHash(long[] hashes, int[] positions, int n) {
+        long[] hashBuf = new long[n];
+        int[] posBuf = new int[n];
+        long[] srcH = hashes;
+        int[] srcP = positions;
+        long[] dstH = hashBuf;
+        int[] dstP = posBuf;
+        int[] counts = new int[257];
+        for (int shift = 0; shift < 64; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) {
+                counts[(int) ((srcH[i] >>> shift) & 0xff) + 1]++;
+            }
+            for (int b = 0; b < 256; b++) {
+                counts[b + 1] += counts[b];
+            }
+            for (int i = 0; i < n; i++) {
+                int dst = counts[(int) ((srcH[i] >>> shift) & 0xff)]++;
+                dstH[dst] = srcH[i];
+                dstP[dst] = srcP[i];
+            }
+            long[] th = srcH;
+            srcH = dstH;
+            dstH = th;
+            int[] tp = srcP;
+            srcP = dstP;
+            dstP = tp;
+        }
+        // 偶数轮后结果已回到原数组
+    }
+}
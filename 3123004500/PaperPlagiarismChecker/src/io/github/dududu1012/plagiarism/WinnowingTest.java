@@ -0,0 +1,100 @@
+package io.github.dududu1012.plagiarism;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.List;
+import java.util.Random;
+
+public class WinnowingTest {
+
+    private static final String PASSAGE = "SimHash是一种局部敏感哈希算法，它把高维的文本特征映射为固定长度的指纹，"
+            + "相似文本的指纹之间海明距离很小，因此常被用于大规模网页去重与论文查重。";
+
+    // ====================== 测试 localize() 函数 ======================
+
+    @Test
+    public void testLocalize_FindsEmbeddedPassageInBothFiles() {
+        // 同一段落嵌在两篇不同的文本中，返回的区间应分别覆盖两边的该段落
+        String original = "第一章 绪论。随着互联网的发展，学术不端问题日益突出。" + PASSAGE + "本章最后给出论文的组织结构。";
+        String copy = "摘要：本文设计并实现了一个查重系统，支持多种输入格式。" + PASSAGE + "实验部分在公开数据集上进行。";
+
+        List<Winnowing.Span> spans = Winnowing.localize(original, copy);
+
+        assertEquals(1, spans.size());
+        Winnowing.Span span = spans.get(0);
+        int origPassage = original.indexOf(PASSAGE);
+        int copyPassage = copy.indexOf(PASSAGE);
+        // 区间落在段落内部，且覆盖其绝大部分
+        assertTrue(span.originalStart() >= origPassage && span.originalEnd() <= origPassage + PASSAGE.length());
+        assertTrue(span.copyStart() >= copyPassage && span.copyEnd() <= copyPassage + PASSAGE.length());
+        assertTrue(span.originalLength() > PASSAGE.length() * 0.8);
+        assertEquals(original.substring(span.originalStart(), span.originalEnd()),
+                copy.substring(span.copyStart(), span.copyEnd()));
+    }
+
+    @Test
+    public void testLocalize_OffsetsIgnoreCaseAndPunctuation() {
+        // 大小写与标点不同不影响定位，区间仍指向各自原文中的字符
+        String original = "Intro. The quick brown fox jumps over the lazy dog near the river bank today. End.";
+        String copy = "Other text first!! THE QUICK, BROWN FOX -- JUMPS OVER THE LAZY DOG NEAR THE RIVER BANK TODAY";
+
+        List<Winnowing.Span> spans = Winnowing.localize(original, copy);
+
+        assertEquals(1, spans.size());
+        Winnowing.Span span = spans.get(0);
+        String origText = original.substring(span.originalStart(), span.originalEnd());
+        String copyText = copy.substring(span.copyStart(), span.copyEnd());
+        assertTrue(span.originalStart() >= original.indexOf("The quick"));
+        assertTrue(span.originalEnd() <= original.indexOf("today") + "today".length());
+        assertTrue(span.copyStart() >= copy.indexOf("THE QUICK"));
+        // 边界落在单元上，两边归一化后内容一致
+        assertEquals(normalize(origText), normalize(copyText));
+        assertTrue(normalize(origText).split(" ").length >= 8);
+    }
+
+    private static String normalize(String text) {
+        return new PlagiarismEngine().preprocessText(text);
+    }
+
+    @Test
+    public void testLocalize_SeparatePassagesReportedSeparately() {
+        String second = "MinHash通过多个独立的哈希函数估计两个集合的Jaccard相似度，适合与局部敏感哈希分桶结合使用，从而在海量文档中快速找出候选对。";
+        String original = PASSAGE + "中间插入一些与抄袭文本完全不同的过渡内容用来隔开两个段落而已。" + second;
+        String copy = second + "这里是抄袭者自己补充的一段话，和原文没有关系。" + PASSAGE;
+
+        List<Winnowing.Span> spans = Winnowing.localize(original, copy);
+
+        assertEquals(2, spans.size());
+        // 按原文位置排序：第一段对应抄袭文本的末尾
+        assertTrue(spans.get(0).copyStart() > spans.get(1).copyStart());
+    }
+
+    @Test
+    public void testLocalize_UnrelatedOrShortTexts() {
+        assertTrue(Winnowing.localize("今天天气很好，我们去公园散步吧。", "机器学习模型需要大量的标注数据进行训练。").isEmpty());
+        assertTrue(Winnowing.localize("", PASSAGE).isEmpty());
+        assertTrue(Winnowing.localize("短句", "短句").isEmpty());
+    }
+
+    // ====================== 测试 sortByHash() 函数 ======================
+
+    @Test
+    public void testSortByHash_UnsignedOrderKeepsPairs() {
+        Random random = new Random(7);
+        int n = 1000;
+        long[] hashes = new long[n];
+        int[] positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            hashes[i] = random.nextLong();
+            positions[i] = i;
+        }
+        long[] original = hashes.clone();
+
+        Winnowing.sortByHash(hashes, positions, n);
+
+        for (int i = 0; i < n; i++) {
+            assertEquals(original[positions[i]], hashes[i]);
+            if (i > 0) assertTrue(Long.compareUnsigned(hashes[i - 1], hashes[i]) <= 0);
+        }
+    }
+}